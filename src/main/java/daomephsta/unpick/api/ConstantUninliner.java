@@ -1,17 +1,43 @@
 package daomephsta.unpick.api;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AbstractInsnNode;
@@ -23,20 +49,35 @@ import org.objectweb.asm.tree.MethodNode;
 import org.objectweb.asm.tree.analysis.Analyzer;
 import org.objectweb.asm.tree.analysis.Frame;
 
+import daomephsta.unpick.api.classresolvers.CachePolicy;
+import daomephsta.unpick.api.classresolvers.ClassResolvers;
 import daomephsta.unpick.api.classresolvers.IClassResolver;
 import daomephsta.unpick.api.classresolvers.IConstantResolver;
 import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
 import daomephsta.unpick.api.constantgroupers.ConstantGroup;
+import daomephsta.unpick.api.constantgroupers.ConstantGroupers;
 import daomephsta.unpick.api.constantgroupers.IConstantGrouper;
 import daomephsta.unpick.api.constantgroupers.IReplacementGenerator;
 import daomephsta.unpick.impl.AbstractInsnNodes;
+import daomephsta.unpick.impl.RelevanceCensus;
+import daomephsta.unpick.impl.RetainedFrames;
+import daomephsta.unpick.impl.SparseDataflowAnalyzer;
+import daomephsta.unpick.impl.StraightLineAnalyzer;
 import daomephsta.unpick.impl.UnpickInterpreter;
 import daomephsta.unpick.impl.UnpickValue;
+import daomephsta.unpick.impl.ValueClass;
+import daomephsta.unpick.impl.classresolvers.ClassMetadataStores;
 import daomephsta.unpick.impl.representations.ReplacementInstructionGenerator.Context;
 import daomephsta.unpick.impl.representations.ReplacementSet;
 
 /**
  * Uninlines inlined values.
+ *
+ * <p>A {@code ConstantUninliner} holds no mutable state of its own, so a single instance may be used to transform
+ * different classes from multiple threads at once, provided that its grouper, class resolver, constant resolver and
+ * inheritance checker are themselves thread-safe. All groupers and resolvers created through {@link ConstantGroupers}
+ * and {@link ClassResolvers} are, once the grouper has been built. Transforming the same {@link ClassNode} from several
+ * threads at once is not supported.
  * @author Daomephsta
  */
 public final class ConstantUninliner {
@@ -45,13 +86,38 @@ public final class ConstantUninliner {
 	private final IClassResolver classResolver;
 	private final IConstantResolver constantResolver;
 	private final IInheritanceChecker inheritanceChecker;
-
-	private ConstantUninliner(Logger logger, IConstantGrouper grouper, IClassResolver classResolver, IConstantResolver constantResolver, IInheritanceChecker inheritanceChecker) {
+	@Nullable
+	private final ForkJoinPool dataflowPool;
+	private final int parallelDataflowThreshold;
+	@Nullable
+	private final TransformCache cache;
+	@Nullable
+	private final String grouperFingerprint;
+	private final IUnpickMetrics metrics;
+	// nothing is timed for the no-op metrics
+	private final boolean metricsEnabled;
+	private final DataflowEngine dataflowEngine;
+	private final boolean retainAllFrames;
+
+	private ConstantUninliner(Logger logger, IConstantGrouper grouper, IClassResolver classResolver, IConstantResolver constantResolver, IInheritanceChecker inheritanceChecker, @Nullable ForkJoinPool dataflowPool, int parallelDataflowThreshold, @Nullable TransformCache cache, IUnpickMetrics metrics, DataflowEngine dataflowEngine, boolean retainAllFrames) {
 		this.grouper = grouper;
 		this.classResolver = classResolver;
 		this.constantResolver = constantResolver;
 		this.inheritanceChecker = inheritanceChecker;
 		this.logger = logger;
+		this.dataflowPool = dataflowPool;
+		this.parallelDataflowThreshold = parallelDataflowThreshold;
+		this.metrics = metrics;
+		this.metricsEnabled = metrics != IUnpickMetrics.NONE;
+		this.dataflowEngine = dataflowEngine;
+		this.retainAllFrames = retainAllFrames;
+		this.grouperFingerprint = cache == null ? null : grouper.getFingerprint();
+		if (cache != null && grouperFingerprint == null) {
+			logger.log(Level.WARNING, "Grouper " + grouper.getClass().getName() + " has no fingerprint, transformed classes will not be cached");
+			this.cache = null;
+		} else {
+			this.cache = cache;
+		}
 	}
 
 	public static Builder builder() {
@@ -63,18 +129,125 @@ public final class ConstantUninliner {
 	 * @param classNode the class to transform, as a ClassNode.
 	 */
 	public void transform(ClassNode classNode) {
+		long startTime = metricsEnabled ? System.nanoTime() : 0;
+		TransformedClass transformed = transformClass(classNode);
+		if (metricsEnabled) {
+			metrics.onClassTransformed(classNode.name, classNode.methods.size(), transformed.analyzedMethodCount, System.nanoTime() - startTime);
+		}
+	}
+
+	/**
+	 * Uninlines all inlined values in the specified class file. Only the methods which may contain inlined values
+	 * are read into {@link MethodNode}s, and all other methods are copied through unchanged.
+	 * @param classFile the class to transform, in class file format.
+	 * @return the transformed class file, or {@code classFile} itself if nothing was uninlined.
+	 * @throws IllegalArgumentException if the class file cannot be read.
+	 * @see Builder#cache(TransformCache)
+	 */
+	public byte[] transform(byte[] classFile) {
+		if (cache == null) {
+			return transformUncached(classFile).classFile;
+		}
+
+		String cacheKey = cache.getKey(grouperFingerprint, classFile);
+		byte[] cached = cache.get(cacheKey);
+		metrics.onCacheAccess(IUnpickMetrics.Cache.TRANSFORMED_CLASS, cached != null);
+		if (cached != null) {
+			// an empty entry marks a class which was not changed
+			return cached.length == 0 ? classFile : cached;
+		}
+
+		TransformedClassFile transformed = transformUncached(classFile);
+		// a failure may be transient, such as running out of memory, so the class is transformed again next time
+		if (transformed.complete) {
+			cache.put(cacheKey, transformed.classFile == classFile ? new byte[0] : transformed.classFile);
+		}
+		return transformed.classFile;
+	}
+
+	private TransformedClassFile transformUncached(byte[] classFile) {
+		long startTime = metricsEnabled ? System.nanoTime() : 0;
+		ClassReader classReader = new ClassReader(classFile);
+		RelevanceCensus census = new RelevanceCensus(grouper, classReader.getClassName());
+		classReader.accept(new ClassVisitor(Opcodes.ASM9) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+				census.visitMethod(name, descriptor);
+				return census.createMethodVisitor();
+			}
+		}, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+
+		BitSet methodsToRead = census.getMethodsToAnalyze();
+		if (methodsToRead.isEmpty()) {
+			if (metricsEnabled) {
+				metrics.onClassTransformed(classReader.getClassName(), census.getMethodCount(), 0, System.nanoTime() - startTime);
+			}
+			return new TransformedClassFile(classFile, true);
+		}
+
+		// only the selected methods are materialised, the rest of the class is needed by replacement generators
+		ClassNode classNode = new ClassNode();
+		classReader.accept(new ClassVisitor(Opcodes.ASM9, classNode) {
+			private int methodIndex = 0;
+
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+				return methodsToRead.get(methodIndex++) ? super.visitMethod(access, name, descriptor, signature, exceptions) : null;
+			}
+		}, 0);
+
+		TransformedClass transformedClass = transformClass(classNode);
+		Set<String> transformedMethods = transformedClass.transformedMethods;
+		if (transformedMethods.isEmpty()) {
+			if (metricsEnabled) {
+				metrics.onClassTransformed(classNode.name, census.getMethodCount(), methodsToRead.cardinality(), System.nanoTime() - startTime);
+			}
+			return new TransformedClassFile(classFile, transformedClass.complete);
+		}
+
 		Map<String, MethodNode> methods = new HashMap<>();
-		Map<String, Frame<UnpickValue>[]> frames = new HashMap<>();
+		for (MethodNode method : classNode.methods) {
+			if (transformedMethods.contains(getMethodKey(method))) {
+				methods.put(getMethodKey(method), method);
+			}
+		}
+
+		ClassWriter classWriter = new ClassWriter(classReader, ClassWriter.COMPUTE_MAXS);
+		classReader.accept(new ClassVisitor(Opcodes.ASM9, classWriter) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+				MethodNode method = methods.get(name + descriptor);
+				if (method != null) {
+					method.accept(classWriter);
+					return null;
+				}
+
+				// returning the writer's own visitor lets it copy the method without parsing its code
+				return super.visitMethod(access, name, descriptor, signature, exceptions);
+			}
+		}, 0);
+		byte[] transformed = classWriter.toByteArray();
+		if (metricsEnabled) {
+			metrics.onClassTransformed(classNode.name, census.getMethodCount(), methodsToRead.cardinality(), System.nanoTime() - startTime);
+		}
+		return new TransformedClassFile(transformed, transformedClass.complete);
+	}
 
+	private TransformedClass transformClass(ClassNode classNode) {
+		Map<String, MethodNode> methods = new HashMap<>();
 		for (MethodNode method : classNode.methods) {
-			String methodKey = getMethodKey(method);
-			methods.put(methodKey, method);
-			frames.put(methodKey, analyzeMethod(classNode, method));
+			methods.put(getMethodKey(method), method);
 		}
 
-		Map<String, List<LambdaUsage>> lambdaUsages = indexLambdaUsages(classNode);
+		ClassCensus census = takeCensus(classNode);
+		Map<String, RetainedFrames> frames = analyzeMethods(classNode, census.methodsToAnalyze);
+		Map<String, List<LambdaUsage>> lambdaUsages = census.lambdaUsages;
 
 		List<ReplacementSet> replacements = new ArrayList<>();
+		Set<String> transformedMethods = new HashSet<>();
+		GroupMemo groupMemo = new GroupMemo();
+		// failed analyses leave null frames behind
+		boolean complete = census.complete && !frames.containsValue(null);
 
 		for (MethodNode method : classNode.methods) {
 			ReplacementSet replacementsForMethod = transformMethod(
@@ -84,15 +257,139 @@ public final class ConstantUninliner {
 							methods,
 							frames,
 							lambdaUsages,
-							new HashSet<>()
+							new HashSet<>(),
+							groupMemo
 					)
 			);
-			if (replacementsForMethod != null) {
+			if (replacementsForMethod != null && !replacementsForMethod.isEmpty()) {
 				replacements.add(replacementsForMethod);
+				transformedMethods.add(getMethodKey(method));
+			} else if (replacementsForMethod == null && frames.get(getMethodKey(method)) != null) {
+				// only a failed transformation returns no replacements for an analyzed method
+				complete = false;
 			}
 		}
 
 		replacements.forEach(ReplacementSet::apply);
+		return new TransformedClass(transformedMethods, census.methodsToAnalyze.size(), complete);
+	}
+
+	/**
+	 * Uninlines all inlined values in every class of a jar, using the {@linkplain ForkJoinPool#commonPool() common pool}
+	 * to transform classes in parallel.
+	 * @param input the jar to read classes and resources from.
+	 * @param output the jar to write to. Must not be the same file as {@code input}.
+	 * @throws IOException if reading the input or writing the output fails.
+	 * @see #transformJar(Path, Path, Executor)
+	 */
+	public void transformJar(Path input, Path output) throws IOException {
+		transformJar(input, output, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Uninlines all inlined values in every class of a jar. Each class is transformed as a separate task on
+	 * {@code executor}, while all other entries are copied unchanged. The output is deterministic: entries are written
+	 * in the order they appear in the input, with their original timestamps, regardless of the order in which the
+	 * tasks complete. Classes that cannot be read are copied unchanged. Only a bounded number of classes are
+	 * transformed at once, so memory use does not grow with the size of the jar. The output is first written to a
+	 * temporary file next to {@code output}, which replaces {@code output} only once the whole jar has been written.
+	 *
+	 * <p>A work-stealing executor such as a {@link ForkJoinPool} is recommended, as classes vary greatly in size.
+	 * @param input the jar to read classes and resources from.
+	 * @param output the jar to write to. Must not be the same file as {@code input}.
+	 * @param executor the executor to transform classes on.
+	 * @throws IOException if reading the input or writing the output fails.
+	 */
+	public void transformJar(Path input, Path output, Executor executor) throws IOException {
+		// written next to the output, so that it can be moved into place atomically, and no partial jar is ever left behind
+		Path absoluteOutput = output.toAbsolutePath();
+		Path tempOutput = Files.createTempFile(absoluteOutput.getParent(), absoluteOutput.getFileName() + ".", ".tmp");
+		try {
+			try (ZipFile inputJar = new ZipFile(input.toFile());
+					ZipOutputStream outputJar = new ZipOutputStream(Files.newOutputStream(tempOutput))) {
+				// only a bounded window of classes is in flight, so that the classes of large jars are not all held at once
+				int maxInFlight = getMaxInFlight(executor);
+				Deque<PendingEntry> pending = new ArrayDeque<>();
+				int inFlight = 0;
+				Enumeration<? extends ZipEntry> entries = inputJar.entries();
+				while (entries.hasMoreElements()) {
+					ZipEntry entry = entries.nextElement();
+					CompletableFuture<byte[]> content = null;
+					if (entry.getName().endsWith(".class")) {
+						content = CompletableFuture.supplyAsync(() -> transformClassFile(entry.getName(), readEntry(inputJar, entry)), executor);
+						inFlight++;
+					}
+					pending.add(new PendingEntry(entry, content));
+					while (inFlight > maxInFlight) {
+						if (writeEntry(inputJar, outputJar, pending.remove())) {
+							inFlight--;
+						}
+					}
+				}
+				while (!pending.isEmpty()) {
+					writeEntry(inputJar, outputJar, pending.remove());
+				}
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof UncheckedIOException ioException) {
+					throw ioException.getCause();
+				}
+				throw e;
+			}
+
+			try {
+				Files.move(tempOutput, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempOutput, output, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tempOutput);
+		}
+	}
+
+	private static int getMaxInFlight(Executor executor) {
+		int parallelism = executor instanceof ForkJoinPool pool ? pool.getParallelism() : Runtime.getRuntime().availableProcessors();
+		// enough to keep every thread busy while the oldest class is waited on
+		return Math.max(parallelism, 1) * 4;
+	}
+
+	/**
+	 * Writes the next entry of the output jar, waiting for its class to be transformed if it is one.
+	 * @return whether the entry was a class.
+	 */
+	private static boolean writeEntry(ZipFile inputJar, ZipOutputStream outputJar, PendingEntry pending) throws IOException {
+		ZipEntry entry = pending.entry();
+		ZipEntry outputEntry = new ZipEntry(entry.getName());
+		outputEntry.setTime(entry.getTime());
+		outputJar.putNextEntry(outputEntry);
+		if (pending.content() != null) {
+			outputJar.write(pending.content().join());
+		} else if (!entry.isDirectory()) {
+			try (InputStream in = inputJar.getInputStream(entry)) {
+				in.transferTo(outputJar);
+			}
+		}
+		outputJar.closeEntry();
+		return pending.content() != null;
+	}
+
+	private record PendingEntry(ZipEntry entry, @Nullable CompletableFuture<byte[]> content) {
+	}
+
+	private byte[] transformClassFile(String entryName, byte[] classFile) {
+		try {
+			return transform(classFile);
+		} catch (Throwable e) {
+			logger.log(Level.WARNING, "Failed to transform class " + entryName + ", copying it unchanged", e);
+			return classFile;
+		}
+	}
+
+	private static byte[] readEntry(ZipFile jar, ZipEntry entry) {
+		try (InputStream in = jar.getInputStream(entry)) {
+			return in.readAllBytes();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 	}
 
 	/**
@@ -103,7 +400,7 @@ public final class ConstantUninliner {
 	 * @param method the method to transform.
 	 */
 	public void transformMethod(ClassNode methodOwner, MethodNode method) {
-		Frame<UnpickValue>[] frames = analyzeMethod(methodOwner, method);
+		RetainedFrames frames = analyzeMethod(methodOwner, method);
 		if (frames != null) {
 			ReplacementSet replacements = transformMethod(
 					methodOwner,
@@ -112,7 +409,8 @@ public final class ConstantUninliner {
 							Map.of(getMethodKey(method), method),
 							Map.of(getMethodKey(method), frames),
 							Map.of(),
-							new HashSet<>()
+							new HashSet<>(),
+							new GroupMemo()
 					)
 			);
 			if (replacements != null) {
@@ -126,7 +424,7 @@ public final class ConstantUninliner {
 	@Nullable
 	private ReplacementSet transformMethod(ClassNode methodOwner, MethodNode method, MethodTransformContext transformContext) {
 		try {
-			Frame<UnpickValue>[] frames = transformContext.frames.get(getMethodKey(method));
+			RetainedFrames frames = transformContext.frames.get(getMethodKey(method));
 			if (frames == null) {
 				return null;
 			}
@@ -136,16 +434,23 @@ public final class ConstantUninliner {
 
 			Map<AbstractInsnNode, ConstantGroup> groups = new HashMap<>();
 			Set<AbstractInsnNode> ungrouped = new HashSet<>();
+			int literalCount = 0;
+			long groupLookupTime = 0;
+			long replacementTime = 0;
 
 			for (int index = 0; index < method.instructions.size(); index++) {
 				AbstractInsnNode insn = method.instructions.get(index);
+				if (metricsEnabled && AbstractInsnNodes.hasLiteralValue(insn)) {
+					literalCount++;
+				}
 				if (AbstractInsnNodes.hasLiteralValue(insn) && !ungrouped.contains(insn)) {
-					Frame<UnpickValue> frame = index + 1 >= frames.length ? null : frames[index + 1];
+					Frame<UnpickValue> frame = frames.get(index + 1);
 					if (frame != null) {
 						UnpickValue unpickValue = frame.getStack(frame.getStackSize() - 1);
 						ConstantGroup group = groups.get(insn);
 						if (group == null) {
-							group = findGroup(methodOwner.name, method, unpickValue, transformContext);
+							long lookupStartTime = metricsEnabled ? System.nanoTime() : 0;
+							group = findGroup(methodOwner.name, method, unpickValue.getValueClass(), transformContext);
 
 							if (group == null) {
 								group = grouper.getDefaultGroup();
@@ -158,16 +463,27 @@ public final class ConstantUninliner {
 									groups.put(usage, group);
 								}
 							}
+
+							if (metricsEnabled) {
+								groupLookupTime += System.nanoTime() - lookupStartTime;
+							}
 						}
 
 						if (group != null && !isAssigningToConstant(insn)) {
+							long replacementStartTime = metricsEnabled ? System.nanoTime() : 0;
 							Context context = new Context(classResolver, constantResolver, inheritanceChecker, replacementSet, methodOwner, method, insn, frames, logger);
 							group.apply(context);
+							if (metricsEnabled) {
+								replacementTime += System.nanoTime() - replacementStartTime;
+							}
 						}
 					}
 				}
 			}
 
+			if (metricsEnabled) {
+				metrics.onMethodTransformed(methodOwner.name, method.name, method.desc, literalCount, replacementSet.size(), groupLookupTime, replacementTime);
+			}
 			return replacementSet;
 		} catch (Throwable e) {
 			logger.log(Level.WARNING, String.format("Failed to transform method %s.%s%s", methodOwner.name, method.name, method.desc), e);
@@ -175,31 +491,84 @@ public final class ConstantUninliner {
 		}
 	}
 
+	private Map<String, RetainedFrames> analyzeMethods(ClassNode classNode, List<MethodNode> methods) {
+		Map<String, RetainedFrames> frames = new HashMap<>();
+
+		if (dataflowPool != null && methods.size() > 1) {
+			int instructionCount = 0;
+			for (MethodNode method : methods) {
+				instructionCount += method.instructions.size();
+			}
+
+			if (instructionCount >= parallelDataflowThreshold) {
+				List<ForkJoinTask<RetainedFrames>> tasks = new ArrayList<>(methods.size());
+				for (MethodNode method : methods) {
+					tasks.add(dataflowPool.submit(() -> analyzeMethod(classNode, method)));
+				}
+				for (int i = 0; i < tasks.size(); i++) {
+					frames.put(getMethodKey(methods.get(i)), tasks.get(i).join());
+				}
+				return frames;
+			}
+		}
+
+		for (MethodNode method : methods) {
+			frames.put(getMethodKey(method), analyzeMethod(classNode, method));
+		}
+		return frames;
+	}
+
 	@Nullable
-	private Frame<UnpickValue>[] analyzeMethod(ClassNode methodOwner, MethodNode method) {
+	private RetainedFrames analyzeMethod(ClassNode methodOwner, MethodNode method) {
 		logger.log(Level.FINEST, () -> String.format("Running dataflow on %s.%s%s", methodOwner.name, method.name, method.desc));
+		long startTime = metricsEnabled ? System.nanoTime() : 0;
 		try {
-			return new Analyzer<>(new UnpickInterpreter(method, inheritanceChecker)).analyze(methodOwner.name, method);
+			UnpickInterpreter interpreter = new UnpickInterpreter(method, inheritanceChecker);
+			if (retainAllFrames) {
+				// the other engines only compute the retained frames
+				return RetainedFrames.all(new Analyzer<>(interpreter).analyze(methodOwner.name, method));
+			}
+			if (StraightLineAnalyzer.isStraightLine(method)) {
+				// no frames are ever merged in branch-free methods, so both engines would be pure overhead
+				return StraightLineAnalyzer.analyze(methodOwner.name, method, interpreter);
+			}
+			return switch (dataflowEngine) {
+				// only a few frames are needed for uninlining, so release the rest before the next method is analyzed
+				case ANALYZER -> RetainedFrames.retain(method, new Analyzer<>(interpreter).analyze(methodOwner.name, method));
+				case SPARSE -> SparseDataflowAnalyzer.analyze(methodOwner.name, method, interpreter);
+			};
 		} catch (Throwable e) {
 			logger.log(Level.WARNING, String.format("Dataflow on %s.%s%s failed", methodOwner.name, method.name, method.desc), e);
 			return null;
+		} finally {
+			if (metricsEnabled) {
+				metrics.onMethodAnalyzed(methodOwner.name, method.name, method.desc, System.nanoTime() - startTime);
+			}
 		}
 	}
 
 	@Nullable
-	private ConstantGroup findGroup(String methodOwner, MethodNode method, UnpickValue unpickValue, MethodTransformContext context) {
-		if (!context.checkedMethods.add(getMethodKey(method))) {
+	private ConstantGroup findGroup(String methodOwner, MethodNode method, ValueClass valueClass, MethodTransformContext context) {
+		return memoise(context.groupMemo.byValueClass, valueClass.find(), context, () -> searchGroup(methodOwner, method, valueClass, context));
+	}
+
+	@Nullable
+	private ConstantGroup searchGroup(String methodOwner, MethodNode method, ValueClass valueClass, MethodTransformContext context) {
+		String methodKey = getMethodKey(method);
+		if (!context.checkedMethods.add(methodKey)) {
 			// protect against infinite recursion
+			context.groupMemo.recursionCutoffs++;
 			return null;
 		}
+		context.groupMemo.visitedMethods.add(methodKey);
 
 		try {
 			ConstantGroup group = null;
 
-			for (int parameterSource : unpickValue.getParameterSources()) {
+			for (int parameterSource = valueClass.nextParameterSource(0); parameterSource >= 0; parameterSource = valueClass.nextParameterSource(parameterSource + 1)) {
 				ConstantGroup g = processParameterSource(methodOwner, method, parameterSource, context);
 				if (g != null) {
-					if (group != null && !g.getName().equals(group.getName())) {
+					if (group != null && g != group && !g.getName().equals(group.getName())) {
 						warnGroupConflict(g, group, methodOwner, method);
 						return null;
 					}
@@ -207,10 +576,10 @@ public final class ConstantUninliner {
 				}
 			}
 
-			for (IReplacementGenerator.IParameterUsage paramUsage : unpickValue.getParameterUsages()) {
+			for (IReplacementGenerator.IParameterUsage paramUsage : valueClass.getParameterUsages()) {
 				ConstantGroup g = processParameterUsage(methodOwner, paramUsage, context);
 				if (g != null) {
-					if (group != null && !g.getName().equals(group.getName())) {
+					if (group != null && g != group && !g.getName().equals(group.getName())) {
 						warnGroupConflict(g, group, methodOwner, method);
 						return null;
 					}
@@ -218,10 +587,10 @@ public final class ConstantUninliner {
 				}
 			}
 
-			for (AbstractInsnNode usage : unpickValue.getUsages()) {
+			for (AbstractInsnNode usage : valueClass.getUsages()) {
 				ConstantGroup g = processUsage(methodOwner, method, usage, context);
 				if (g != null) {
-					if (group != null && !g.getName().equals(group.getName())) {
+					if (group != null && g != group && !g.getName().equals(group.getName())) {
 						warnGroupConflict(g, group, methodOwner, method);
 						return null;
 					}
@@ -231,12 +600,51 @@ public final class ConstantUninliner {
 
 			return group;
 		} finally {
-			context.checkedMethods.remove(getMethodKey(method));
+			context.checkedMethods.remove(methodKey);
 		}
 	}
 
+	/**
+	 * Looks up the result of a group search in {@code memo}, or runs the search and memoises its result. A result is
+	 * reused only when none of the methods its search recursed into are being searched already, as the recursion guard
+	 * in {@link #searchGroup} could have cut the search short otherwise, and it is not memoised at all if the guard did
+	 * cut it short.
+	 */
+	@Nullable
+	private static <K> ConstantGroup memoise(Map<K, MemoisedGroup> memo, K key, MethodTransformContext context, Supplier<ConstantGroup> search) {
+		GroupMemo groupMemo = context.groupMemo;
+		MemoisedGroup memoised = memo.get(key);
+		if (memoised != null && Collections.disjoint(memoised.visitedMethods, context.checkedMethods)) {
+			groupMemo.visitedMethods.addAll(memoised.visitedMethods);
+			return memoised.group;
+		}
+
+		Set<String> outerVisitedMethods = groupMemo.visitedMethods;
+		Set<String> visitedMethods = new HashSet<>();
+		groupMemo.visitedMethods = visitedMethods;
+		int recursionCutoffs = groupMemo.recursionCutoffs;
+		ConstantGroup group;
+		try {
+			group = search.get();
+		} finally {
+			groupMemo.visitedMethods = outerVisitedMethods;
+		}
+
+		outerVisitedMethods.addAll(visitedMethods);
+		if (groupMemo.recursionCutoffs == recursionCutoffs) {
+			memo.put(key, new MemoisedGroup(group, visitedMethods));
+		}
+		return group;
+	}
+
 	@Nullable
 	private ConstantGroup processParameterSource(String methodOwner, MethodNode method, int parameterSource, MethodTransformContext context) {
+		ParameterSource key = new ParameterSource(getMethodKey(method), parameterSource);
+		return memoise(context.groupMemo.byParameterSource, key, context, () -> searchParameterSourceGroup(methodOwner, method, parameterSource, context));
+	}
+
+	@Nullable
+	private ConstantGroup searchParameterSourceGroup(String methodOwner, MethodNode method, int parameterSource, MethodTransformContext context) {
 		ConstantGroup group = grouper.getMethodParameterGroup(methodOwner, method.name, method.desc, parameterSource);
 		if (group != null) {
 			return group;
@@ -245,12 +653,12 @@ public final class ConstantUninliner {
 		List<LambdaUsage> lambdaUsagesForMethod = context.lambdaUsages.get(getMethodKey(method));
 		if (lambdaUsagesForMethod != null) {
 			for (LambdaUsage lambdaUsage : lambdaUsagesForMethod) {
-				Frame<UnpickValue>[] containingMethodFrames = context.frames.get(getMethodKey(lambdaUsage.method));
+				RetainedFrames containingMethodFrames = context.frames.get(getMethodKey(lambdaUsage.method));
 				if (containingMethodFrames == null) {
 					continue;
 				}
 
-				Frame<UnpickValue> frame = containingMethodFrames[lambdaUsage.method.instructions.indexOf(lambdaUsage.indy)];
+				Frame<UnpickValue> frame = containingMethodFrames.get(lambdaUsage.method.instructions.indexOf(lambdaUsage.indy));
 				if (frame == null) {
 					continue;
 				}
@@ -265,9 +673,9 @@ public final class ConstantUninliner {
 					// Parameter is a lambda capture
 					UnpickValue lambdaCapture = frame.getStack(frame.getStackSize() - numCaptures + parameterSource);
 					if (lambdaCapture != null) {
-						ConstantGroup g = findGroup(methodOwner, lambdaUsage.method, lambdaCapture, context);
+						ConstantGroup g = findGroup(methodOwner, lambdaUsage.method, lambdaCapture.getValueClass(), context);
 						if (g != null) {
-							if (group != null && !g.getName().equals(group.getName())) {
+							if (group != null && g != group && !g.getName().equals(group.getName())) {
 								warnGroupConflict(g, group, methodOwner, method);
 								return null;
 							}
@@ -281,7 +689,7 @@ public final class ConstantUninliner {
 					String samDesc = ((Type) lambdaUsage.indy.bsmArgs[0]).getDescriptor();
 					ConstantGroup g = grouper.getMethodParameterGroup(samOwner, samName, samDesc, parameterSource - numCaptures);
 					if (g != null) {
-						if (group != null && !g.getName().equals(group.getName())) {
+						if (group != null && g != group && !g.getName().equals(group.getName())) {
 							warnGroupConflict(g, group, methodOwner, method);
 							return null;
 						}
@@ -316,12 +724,12 @@ public final class ConstantUninliner {
 				}
 
 				String lambdaKey = getMethodKey(lambdaMethod);
-				Frame<UnpickValue>[] lambdaFrames = context.frames.get(lambdaKey);
-				if (lambdaFrames == null || lambdaFrames.length == 0) {
+				RetainedFrames lambdaFrames = context.frames.get(lambdaKey);
+				if (lambdaFrames == null) {
 					return null;
 				}
 
-				Frame<UnpickValue> firstLambdaFrame = lambdaFrames[0];
+				Frame<UnpickValue> firstLambdaFrame = lambdaFrames.get(0);
 				if (firstLambdaFrame == null) {
 					return null;
 				}
@@ -339,7 +747,7 @@ public final class ConstantUninliner {
 					return null;
 				}
 
-				return findGroup(methodOwner, context.methods.get(lambdaKey), lambdaParam, context);
+				return findGroup(methodOwner, context.methods.get(lambdaKey), lambdaParam.getValueClass(), context);
 			}
 
 			return null;
@@ -376,7 +784,7 @@ public final class ConstantUninliner {
 					String samDesc = ((Type) lambdaUsage.indy.bsmArgs[0]).getDescriptor();
 					ConstantGroup g = grouper.getMethodReturnGroup(samOwner, samName, samDesc);
 					if (g != null) {
-						if (group != null && !g.getName().equals(group.getName())) {
+						if (group != null && g != group && !g.getName().equals(group.getName())) {
 							warnGroupConflict(g, group, methodOwner, enclosingMethod);
 							return null;
 						}
@@ -406,7 +814,11 @@ public final class ConstantUninliner {
 		return resolvedConstant != null && fieldInsn.desc.equals(resolvedConstant.type().getDescriptor());
 	}
 
-	private Map<String, List<LambdaUsage>> indexLambdaUsages(ClassNode classNode) {
+	/**
+	 * Scans the instructions of every method once, indexing lambda usages and working out which methods need to be
+	 * analysed.
+	 */
+	private ClassCensus takeCensus(ClassNode classNode) {
 		try {
 			Set<String> syntheticMethods = new HashSet<>();
 			for (MethodNode method : classNode.methods) {
@@ -415,9 +827,12 @@ public final class ConstantUninliner {
 				}
 			}
 
+			RelevanceCensus census = new RelevanceCensus(grouper, classNode.name);
 			Map<String, List<LambdaUsage>> lambdaUsages = new HashMap<>();
 			for (MethodNode method : classNode.methods) {
+				census.visitMethod(method.name, method.desc);
 				for (AbstractInsnNode insn : method.instructions) {
+					census.visitInstruction(insn);
 					if (insn instanceof InvokeDynamicInsnNode indy && "java/lang/invoke/LambdaMetafactory".equals(indy.bsm.getOwner())) {
 						Handle lambdaMethod = (Handle) indy.bsmArgs[1];
 						String lambdaKey = getMethodKey(lambdaMethod);
@@ -429,10 +844,12 @@ public final class ConstantUninliner {
 				}
 			}
 
-			return lambdaUsages;
+			List<MethodNode> methodsToAnalyze = new ArrayList<>();
+			census.getMethodsToAnalyze().stream().forEach(i -> methodsToAnalyze.add(classNode.methods.get(i)));
+			return new ClassCensus(methodsToAnalyze, lambdaUsages, true);
 		} catch (Throwable e) {
 			logger.log(Level.WARNING, "Error processing lambda usages for class " + classNode.name, e);
-			return Map.of();
+			return new ClassCensus(classNode.methods, Map.of(), false);
 		}
 	}
 
@@ -451,20 +868,78 @@ public final class ConstantUninliner {
 
 	private void warnGroupConflict(ConstantGroup group1, ConstantGroup group2, String methodOwner, MethodNode enclosingMethod) {
 		logger.log(Level.WARNING, () -> String.format("Conflicting groups %s and %s competing for the same constant in method %s.%s%s", group1.getName(), group2.getName(), methodOwner, enclosingMethod.name, enclosingMethod.desc));
+		metrics.onGroupConflict(methodOwner, enclosingMethod.name, enclosingMethod.desc, group1.getName(), group2.getName());
 	}
 
 	private record MethodTransformContext(
 			Map<String, MethodNode> methods,
-			Map<String, Frame<UnpickValue>[]> frames,
+			Map<String, RetainedFrames> frames,
 			Map<String, List<LambdaUsage>> lambdaUsages,
-			Set<String> checkedMethods
+			Set<String> checkedMethods,
+			GroupMemo groupMemo
 	) {
 	}
 
+	/**
+	 * The groups found for the values and method parameters of one class, or their absence.
+	 */
+	private static final class GroupMemo {
+		final Map<ValueClass, MemoisedGroup> byValueClass = new IdentityHashMap<>();
+		final Map<ParameterSource, MemoisedGroup> byParameterSource = new HashMap<>();
+		// the methods the searches in progress have recursed into
+		Set<String> visitedMethods = new HashSet<>();
+		int recursionCutoffs;
+	}
+
+	private record MemoisedGroup(@Nullable ConstantGroup group, Set<String> visitedMethods) {
+	}
+
+	private record ParameterSource(String methodKey, int parameterIndex) {
+	}
+
 	private record LambdaUsage(MethodNode method, InvokeDynamicInsnNode indy) {
 	}
 
+	/**
+	 * The methods of a class which need to be analysed, and the uses of the lambdas it declares.
+	 * @param complete whether the census succeeded, rather than falling back to analysing every method.
+	 */
+	private record ClassCensus(List<MethodNode> methodsToAnalyze, Map<String, List<LambdaUsage>> lambdaUsages, boolean complete) {
+	}
+
+	/**
+	 * The methods which were changed by transforming a class.
+	 * @param complete whether every method was analysed and transformed without failing.
+	 */
+	private record TransformedClass(Set<String> transformedMethods, int analyzedMethodCount, boolean complete) {
+	}
+
+	private record TransformedClassFile(byte[] classFile, boolean complete) {
+	}
+
+	/**
+	 * The engines which can run the dataflow analysis that finds where literals flow.
+	 * @see Builder#dataflowEngine(DataflowEngine)
+	 */
+	public enum DataflowEngine {
+		/**
+		 * ASM's {@link Analyzer}, which computes a frame for every instruction.
+		 */
+		ANALYZER,
+		/**
+		 * An engine which executes each basic block with a single working frame and only stores the frames which
+		 * uninlining needs. It makes the same replacements as {@link #ANALYZER}, but is faster and uses much less
+		 * memory on large methods.
+		 */
+		SPARSE
+	}
+
 	public static final class Builder {
+		/**
+		 * The default minimum number of instructions a class must have for its methods to be analysed in parallel.
+		 */
+		public static final int DEFAULT_PARALLEL_DATAFLOW_THRESHOLD = 2000;
+
 		@Nullable
 		private Logger logger;
 		@Nullable
@@ -475,6 +950,14 @@ public final class ConstantUninliner {
 		private IConstantResolver constantResolver;
 		@Nullable
 		private IInheritanceChecker inheritanceChecker;
+		@Nullable
+		private ForkJoinPool dataflowPool;
+		private int parallelDataflowThreshold = DEFAULT_PARALLEL_DATAFLOW_THRESHOLD;
+		@Nullable
+		private TransformCache cache;
+		private IUnpickMetrics metrics = IUnpickMetrics.NONE;
+		private DataflowEngine dataflowEngine = DataflowEngine.ANALYZER;
+		private boolean retainAllFrames;
 
 		private Builder() {
 		}
@@ -504,6 +987,84 @@ public final class ConstantUninliner {
 			return this;
 		}
 
+		/**
+		 * Enables parallel dataflow analysis with the {@linkplain #DEFAULT_PARALLEL_DATAFLOW_THRESHOLD default threshold}.
+		 * @param pool the pool to analyse methods on.
+		 * @return this builder.
+		 * @see #parallelDataflow(ForkJoinPool, int)
+		 */
+		public Builder parallelDataflow(ForkJoinPool pool) {
+			return parallelDataflow(pool, DEFAULT_PARALLEL_DATAFLOW_THRESHOLD);
+		}
+
+		/**
+		 * Analyses the methods of each transformed class concurrently on {@code pool}, rather than one after the other.
+		 * Classes with fewer than {@code minInstructions} instructions in total are still analysed serially, as they
+		 * are not worth the overhead of scheduling. The result of the transformation is the same either way.
+		 *
+		 * <p>This only helps classes with several large methods, so it is mostly useful in addition to transforming
+		 * classes in parallel, e.g. with {@link ConstantUninliner#transformJar(Path, Path, Executor)}. It is safe to use
+		 * the same pool for both.
+		 * @param pool the pool to analyse methods on.
+		 * @param minInstructions the minimum number of instructions a class must have to be analysed in parallel.
+		 * @return this builder.
+		 */
+		public Builder parallelDataflow(ForkJoinPool pool, int minInstructions) {
+			this.dataflowPool = pool;
+			this.parallelDataflowThreshold = minInstructions;
+			return this;
+		}
+
+		/**
+		 * Caches the results of {@link ConstantUninliner#transform(byte[])}, and therefore also of
+		 * {@link ConstantUninliner#transformJar}, so that classes which have been transformed before with the same
+		 * mappings and classpath are not analysed again. Classes transformed as {@link ClassNode}s are not cached.
+		 * Caching is disabled if the grouper has no {@linkplain IConstantGrouper#getFingerprint() fingerprint}.
+		 * @param cache the cache to use.
+		 * @return this builder.
+		 */
+		public Builder cache(TransformCache cache) {
+			this.cache = cache;
+			return this;
+		}
+
+		/**
+		 * Reports timings, counts, group conflicts and cache accesses to {@code metrics}. Resolvers created from the
+		 * class resolver report to it too. To include the caches of the grouper, register the same metrics with it,
+		 * e.g. with {@link ConstantGroupers.DataDrivenBuilder#metrics(IUnpickMetrics)}.
+		 * @param metrics the metrics to report to.
+		 * @return this builder.
+		 */
+		public Builder metrics(IUnpickMetrics metrics) {
+			this.metrics = metrics;
+			return this;
+		}
+
+		/**
+		 * Selects the engine which runs the dataflow analysis. Defaults to {@link DataflowEngine#ANALYZER}. Methods
+		 * without any branches, switches or exception handlers are analyzed in a single linear pass by either engine.
+		 * @param dataflowEngine the engine to use.
+		 * @return this builder.
+		 */
+		public Builder dataflowEngine(DataflowEngine dataflowEngine) {
+			this.dataflowEngine = dataflowEngine;
+			return this;
+		}
+
+		/**
+		 * Keeps the dataflow frame of every instruction while a method is transformed, so that
+		 * {@link IReplacementGenerator.IContext#getDataflowFrame} returns a frame for every reachable instruction,
+		 * rather than only those it guarantees. This runs every method through {@link DataflowEngine#ANALYZER},
+		 * whatever the {@linkplain #dataflowEngine(DataflowEngine) selected engine}, and holds on to many more frames,
+		 * so it is only worth enabling for groupers whose replacement generators need the other frames.
+		 * @param retainAllFrames whether to keep every frame.
+		 * @return this builder.
+		 */
+		public Builder retainAllFrames(boolean retainAllFrames) {
+			this.retainAllFrames = retainAllFrames;
+			return this;
+		}
+
 		public ConstantUninliner build() {
 			Objects.requireNonNull(grouper, "Must add grouper to builder");
 			Objects.requireNonNull(classResolver, "Must add classResolver to builder");
@@ -512,15 +1073,16 @@ public final class ConstantUninliner {
 				logger = Logger.getLogger("unpick");
 			}
 
+			ClassMetadataStores metadataStores = new ClassMetadataStores();
 			if (constantResolver == null) {
-				constantResolver = classResolver.asConstantResolver();
+				constantResolver = metadataStores.asConstantResolver(classResolver, metrics, CachePolicy.UNBOUNDED);
 			}
 
 			if (inheritanceChecker == null) {
-				inheritanceChecker = classResolver.asInheritanceChecker();
+				inheritanceChecker = metadataStores.asInheritanceChecker(classResolver, metrics, CachePolicy.UNBOUNDED);
 			}
 
-			return new ConstantUninliner(logger, grouper, classResolver, constantResolver, inheritanceChecker);
+			return new ConstantUninliner(logger, grouper, classResolver, constantResolver, inheritanceChecker, dataflowPool, parallelDataflowThreshold, cache, metrics, dataflowEngine, retainAllFrames);
 		}
 	}
 }
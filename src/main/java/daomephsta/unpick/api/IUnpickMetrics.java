@@ -0,0 +1,99 @@
+package daomephsta.unpick.api;
+
+/**
+ * Receives measurements from the uninlining pipeline. Every method does nothing by default, so implementations only
+ * need to override the measurements they are interested in. Methods may be called concurrently from multiple threads.
+ *
+ * <p>Register an implementation with {@link ConstantUninliner.Builder#metrics(IUnpickMetrics)}. Cache accesses of the
+ * grouper are only reported if it is also registered with the grouper, e.g. with
+ * {@link daomephsta.unpick.api.constantgroupers.ConstantGroupers.DataDrivenBuilder#metrics(IUnpickMetrics)}.
+ * @see #NONE
+ */
+public interface IUnpickMetrics {
+	/**
+	 * Ignores all measurements. When this is used, timings are not measured at all, so it costs nothing.
+	 */
+	IUnpickMetrics NONE = new IUnpickMetrics() {
+	};
+
+	/**
+	 * Called after a class is transformed.
+	 * @param className the internal name of the class.
+	 * @param methodCount the number of methods in the class.
+	 * @param analyzedMethodCount the number of methods which needed dataflow analysis.
+	 * @param nanos the time taken to transform the whole class, in nanoseconds.
+	 */
+	default void onClassTransformed(String className, int methodCount, int analyzedMethodCount, long nanos) {
+	}
+
+	/**
+	 * Called after the dataflow analysis of a method.
+	 * @param owner the internal name of the class containing the method.
+	 * @param name the name of the method.
+	 * @param descriptor the descriptor of the method.
+	 * @param nanos the time taken by the dataflow analysis, in nanoseconds.
+	 */
+	default void onMethodAnalyzed(String owner, String name, String descriptor, long nanos) {
+	}
+
+	/**
+	 * Called after the replacements for an analysed method are generated, before they are applied.
+	 * @param owner the internal name of the class containing the method.
+	 * @param name the name of the method.
+	 * @param descriptor the descriptor of the method.
+	 * @param literalCount the number of literals in the method.
+	 * @param replacementCount the number of literals which will be replaced.
+	 * @param groupLookupNanos the time taken to find the groups of the literals, in nanoseconds.
+	 * @param replacementNanos the time taken to generate the replacements, in nanoseconds.
+	 */
+	default void onMethodTransformed(String owner, String name, String descriptor, int literalCount, int replacementCount, long groupLookupNanos, long replacementNanos) {
+	}
+
+	/**
+	 * Called when two different groups compete for the same literal, so that neither is used.
+	 * @param owner the internal name of the class containing the literal.
+	 * @param name the name of the method containing the literal.
+	 * @param descriptor the descriptor of the method containing the literal.
+	 * @param group1 the name of the first group.
+	 * @param group2 the name of the second group.
+	 */
+	default void onGroupConflict(String owner, String name, String descriptor, String group1, String group2) {
+	}
+
+	/**
+	 * Called when a cache is queried.
+	 * @param cache the cache.
+	 * @param hit whether the cache contained the result.
+	 */
+	default void onCacheAccess(Cache cache, boolean hit) {
+	}
+
+	enum Cache {
+		/**
+		 * The target methods of the data driven grouper which are inherited by classes that do not declare them,
+		 * including negative results. Lookups which its index answers without the cache, because no target method has
+		 * the signature or the class declares the target method, are not reported.
+		 */
+		TARGET_METHOD,
+		/**
+		 * The declaring classes of methods resolved by the data driven grouper.
+		 */
+		METHOD_OWNER,
+		/**
+		 * The constants of classes resolved by bytecode analysis.
+		 */
+		CONSTANT,
+		/**
+		 * The supertypes of classes resolved by bytecode analysis.
+		 */
+		INHERITANCE,
+		/**
+		 * The members of classes resolved by bytecode analysis.
+		 */
+		MEMBER,
+		/**
+		 * The {@link TransformCache}.
+		 */
+		TRANSFORMED_CLASS
+	}
+}
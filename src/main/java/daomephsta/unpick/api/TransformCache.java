@@ -0,0 +1,382 @@
+package daomephsta.unpick.api;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.jetbrains.annotations.Nullable;
+
+import daomephsta.unpick.impl.Utils;
+
+/**
+ * A persistent, content-addressed cache of transformed classes, shared between runs and between JVMs. Entries are
+ * keyed by a hash of the input class file, the {@linkplain daomephsta.unpick.api.constantgroupers.IConstantGrouper#getFingerprint()
+ * fingerprint of the grouper} and the fingerprint of this cache, which identifies the version of unpick, the running
+ * JDK and the content of the classpath used to resolve constants. Use it with {@link ConstantUninliner.Builder#cache(TransformCache)}.
+ *
+ * <p>Entries are written to a temporary file and then atomically moved into place, so readers never see partial
+ * entries. When the cache grows beyond its maximum size, the least recently used entries are deleted. Only one JVM
+ * evicts at a time, coordinated by a lock file in the cache directory.
+ */
+public final class TransformCache {
+	private static final int FORMAT_VERSION = 1;
+	private static final String ENTRY_SUFFIX = ".class";
+	private static final String TEMP_SUFFIX = ".tmp";
+	private static final long STALE_TEMP_FILE_AGE = TimeUnit.HOURS.toMillis(1);
+	// file locks are held by the whole JVM, so caches sharing a directory within one JVM must synchronize themselves
+	private static final Map<Path, Object> EVICTION_LOCKS = new ConcurrentHashMap<>();
+	// reading a large classpath for every cache would cost more than it saves, so hashes are kept until files change
+	private static final Map<Path, HashedEntry> CLASSPATH_HASHES = new ConcurrentHashMap<>();
+	@Nullable
+	private static volatile String implementationFingerprint;
+
+	private final Logger logger;
+	private final Path directory;
+	private final long maxSize;
+	private final byte[] fingerprint;
+	private final AtomicLong size = new AtomicLong();
+
+	private TransformCache(Logger logger, Path directory, long maxSize, byte[] fingerprint) throws IOException {
+		this.logger = logger;
+		this.directory = directory;
+		this.maxSize = maxSize;
+		this.fingerprint = fingerprint;
+		Files.createDirectories(directory);
+		size.set(evict(false));
+	}
+
+	/**
+	 * Creates a builder for a cache in the given directory.
+	 * @param directory the directory to keep the entries in.
+	 * @param classpath the jars and directories used to resolve classes, which are added to the fingerprint of the
+	 * cache by their content. Classes resolved from anywhere else, except the running JDK, must be described with
+	 * {@link Builder#fingerprint(String)}.
+	 * @return the builder.
+	 */
+	public static Builder builder(Path directory, Collection<Path> classpath) {
+		return new Builder(directory, classpath);
+	}
+
+	String getKey(String grouperFingerprint, byte[] classFile) {
+		MessageDigest digest = Utils.newSha256Digest();
+		digest.update(fingerprint);
+		digest.update(grouperFingerprint.getBytes(StandardCharsets.UTF_8));
+		digest.update(classFile);
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	@Nullable
+	byte[] get(String key) {
+		Path entry = getEntryPath(key);
+		try {
+			byte[] value = Files.readAllBytes(entry);
+			// entries are evicted least recently used first
+			Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+			return value;
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			logger.log(Level.FINE, "Failed to read cache entry " + entry, e);
+			return null;
+		}
+	}
+
+	void put(String key, byte[] value) {
+		Path entry = getEntryPath(key);
+		Path tempFile = null;
+		try {
+			Files.createDirectories(entry.getParent());
+			tempFile = Files.createTempFile(entry.getParent(), key, TEMP_SUFFIX);
+			Files.write(tempFile, value);
+			Files.move(tempFile, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Failed to write cache entry " + entry, e);
+			if (tempFile != null) {
+				try {
+					Files.deleteIfExists(tempFile);
+				} catch (IOException ignored) {
+					// it will be cleaned up by a later eviction
+				}
+			}
+			return;
+		}
+
+		if (size.addAndGet(value.length) > maxSize) {
+			try {
+				size.set(evict(true));
+			} catch (IOException e) {
+				logger.log(Level.WARNING, "Failed to evict entries from cache " + directory, e);
+			}
+		}
+	}
+
+	private Path getEntryPath(String key) {
+		return directory.resolve(key.substring(0, 2)).resolve(key + ENTRY_SUFFIX);
+	}
+
+	/**
+	 * Deletes the least recently used entries until the cache is back under three quarters of its maximum size, along
+	 * with any temporary files left behind by crashed writers.
+	 * @param blocking whether to wait for another JVM which is already evicting entries.
+	 * @return the size of the cache afterwards.
+	 */
+	private long evict(boolean blocking) throws IOException {
+		synchronized (EVICTION_LOCKS.computeIfAbsent(directory.toAbsolutePath().normalize(), k -> new Object())) {
+			return evictLocked(blocking);
+		}
+	}
+
+	private long evictLocked(boolean blocking) throws IOException {
+		try (FileChannel lockChannel = FileChannel.open(directory.resolve(".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+				FileLock lock = blocking ? lockChannel.lock() : lockChannel.tryLock()) {
+			List<Entry> entries = new ArrayList<>();
+			long totalSize = 0;
+			long now = System.currentTimeMillis();
+			try (Stream<Path> files = Files.find(directory, 2, (path, attributes) -> attributes.isRegularFile())) {
+				for (Path file : files.toList()) {
+					String fileName = file.getFileName().toString();
+					BasicFileAttributes attributes = readAttributes(file);
+					if (attributes == null) {
+						continue;
+					}
+
+					if (fileName.endsWith(ENTRY_SUFFIX)) {
+						entries.add(new Entry(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+						totalSize += attributes.size();
+					} else if (lock != null && fileName.endsWith(TEMP_SUFFIX) && now - attributes.lastModifiedTime().toMillis() > STALE_TEMP_FILE_AGE) {
+						Files.deleteIfExists(file);
+					}
+				}
+			}
+
+			if (lock == null || totalSize <= maxSize) {
+				return totalSize;
+			}
+
+			entries.sort(Comparator.comparingLong(Entry::lastModified));
+			long targetSize = maxSize / 4 * 3;
+			for (Entry entry : entries) {
+				if (totalSize <= targetSize) {
+					break;
+				}
+				try {
+					Files.deleteIfExists(entry.path);
+					totalSize -= entry.size;
+				} catch (IOException e) {
+					logger.log(Level.FINE, "Failed to evict cache entry " + entry.path, e);
+				}
+			}
+
+			logger.log(Level.FINE, () -> "Evicted entries from cache " + directory);
+			return totalSize;
+		}
+	}
+
+	@Nullable
+	private static BasicFileAttributes readAttributes(Path file) {
+		try {
+			return Files.readAttributes(file, BasicFileAttributes.class);
+		} catch (IOException e) {
+			// deleted concurrently
+			return null;
+		}
+	}
+
+	private record Entry(Path path, long size, long lastModified) {
+	}
+
+	/**
+	 * Identifies the running version of unpick. Released jars carry a version, but builds without one, such as those in
+	 * development, are identified by the content of the jar or directory they were loaded from.
+	 */
+	private static String getImplementationFingerprint() {
+		String fingerprint = implementationFingerprint;
+		if (fingerprint == null) {
+			fingerprint = computeImplementationFingerprint();
+			implementationFingerprint = fingerprint;
+		}
+		return fingerprint;
+	}
+
+	private static String computeImplementationFingerprint() {
+		String version = TransformCache.class.getPackage().getImplementationVersion();
+		if (version != null) {
+			return version;
+		}
+
+		try {
+			CodeSource codeSource = TransformCache.class.getProtectionDomain().getCodeSource();
+			if (codeSource != null && codeSource.getLocation() != null) {
+				return HexFormat.of().formatHex(hashContent(Path.of(codeSource.getLocation().toURI())));
+			}
+		} catch (IOException | URISyntaxException | IllegalArgumentException | SecurityException e) {
+			// fall through
+		}
+		// entries written by this JVM can still be reused by it, but not by any other
+		return UUID.randomUUID().toString();
+	}
+
+	/**
+	 * Hashes the content of a classpath entry, reusing the hash from an earlier call while the size and modification
+	 * time of the entry are unchanged.
+	 */
+	private static byte[] hashClasspathEntry(Path entry) throws IOException {
+		Path absolutePath = entry.toAbsolutePath().normalize();
+		BasicFileAttributes attributes = readAttributes(absolutePath);
+		if (attributes == null) {
+			// a missing entry contributes nothing, so the fingerprint changes once it appears
+			return new byte[0];
+		}
+
+		String stamp = attributes.isDirectory() ? null : attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+		HashedEntry hashed = CLASSPATH_HASHES.get(absolutePath);
+		if (stamp != null && hashed != null && stamp.equals(hashed.stamp)) {
+			return hashed.hash;
+		}
+
+		byte[] hash = hashContent(absolutePath);
+		if (stamp != null) {
+			CLASSPATH_HASHES.put(absolutePath, new HashedEntry(stamp, hash));
+		}
+		return hash;
+	}
+
+	/**
+	 * Hashes the content of a file, or the relative paths and contents of all files inside a directory.
+	 */
+	private static byte[] hashContent(Path path) throws IOException {
+		MessageDigest digest = Utils.newSha256Digest();
+		if (Files.isDirectory(path)) {
+			try (Stream<Path> files = Files.walk(path)) {
+				for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+					// separators differ between platforms
+					digest.update(path.relativize(file).toString().replace(File.separatorChar, '/').getBytes(StandardCharsets.UTF_8));
+					digest.update((byte) 0);
+					digest.update(hashFile(file));
+				}
+			}
+		} else {
+			digest.update(hashFile(path));
+		}
+		return digest.digest();
+	}
+
+	private static byte[] hashFile(Path file) throws IOException {
+		MessageDigest digest = Utils.newSha256Digest();
+		try (InputStream in = Files.newInputStream(file)) {
+			byte[] buffer = new byte[8192];
+			int count;
+			while ((count = in.read(buffer)) >= 0) {
+				digest.update(buffer, 0, count);
+			}
+		}
+		return digest.digest();
+	}
+
+	private static MessageDigest cloneDigest(MessageDigest digest) {
+		try {
+			return (MessageDigest) digest.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError("SHA-256 digests are cloneable", e);
+		}
+	}
+
+	private record HashedEntry(String stamp, byte[] hash) {
+	}
+
+	public static final class Builder {
+		/**
+		 * The default maximum size of a cache, in bytes.
+		 */
+		public static final long DEFAULT_MAX_SIZE = 512L * 1024 * 1024;
+
+		private final Path directory;
+		private final List<Path> classpath;
+		private final MessageDigest fingerprint = Utils.newSha256Digest();
+		@Nullable
+		private Logger logger;
+		private long maxSize = DEFAULT_MAX_SIZE;
+
+		private Builder(Path directory, Collection<Path> classpath) {
+			this.directory = directory;
+			this.classpath = List.copyOf(classpath);
+			fingerprint.update((byte) FORMAT_VERSION);
+			fingerprint(getImplementationFingerprint());
+			// the JDK's classes are resolved too
+			fingerprint(Runtime.version().toString());
+		}
+
+		public Builder logger(Logger logger) {
+			this.logger = logger;
+			return this;
+		}
+
+		/**
+		 * Sets the size in bytes beyond which the least recently used entries are evicted.
+		 * @param maxSize the maximum size of the cache, in bytes.
+		 * @return this builder.
+		 */
+		public Builder maxSize(long maxSize) {
+			if (maxSize <= 0) {
+				throw new IllegalArgumentException("Max size must be positive: " + maxSize);
+			}
+			this.maxSize = maxSize;
+			return this;
+		}
+
+		/**
+		 * Adds arbitrary data to the fingerprint of the cache. Use this for anything else that affects the output,
+		 * such as the version of a classpath which is not read from files.
+		 * @param data the data to add.
+		 * @return this builder.
+		 */
+		public Builder fingerprint(String data) {
+			fingerprint.update(data.getBytes(StandardCharsets.UTF_8));
+			fingerprint.update((byte) 0);
+			return this;
+		}
+
+		/**
+		 * Creates the cache, creating its directory if it does not exist. The whole classpath is read to fingerprint it,
+		 * unless it has not changed since it was last read by this JVM.
+		 * @return the cache.
+		 * @throws IOException if the cache directory cannot be created or read, or the classpath cannot be read.
+		 */
+		public TransformCache build() throws IOException {
+			if (logger == null) {
+				logger = Logger.getLogger("unpick");
+			}
+			MessageDigest digest = cloneDigest(fingerprint);
+			for (Path entry : classpath) {
+				digest.update(hashClasspathEntry(entry));
+			}
+			return new TransformCache(logger, directory, maxSize, digest.digest());
+		}
+	}
+}
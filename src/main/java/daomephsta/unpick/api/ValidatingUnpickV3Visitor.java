@@ -12,8 +12,10 @@ import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
 
+import daomephsta.unpick.api.classresolvers.CachePolicy;
 import daomephsta.unpick.api.classresolvers.IClassResolver;
 import daomephsta.unpick.api.classresolvers.IMemberChecker;
+import daomephsta.unpick.api.classresolvers.ParseDepth;
 import daomephsta.unpick.constantmappers.datadriven.parser.UnpickSyntaxException;
 import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
 import daomephsta.unpick.constantmappers.datadriven.tree.ForwardingUnpickV3Visitor;
@@ -24,6 +26,7 @@ import daomephsta.unpick.constantmappers.datadriven.tree.TargetField;
 import daomephsta.unpick.constantmappers.datadriven.tree.TargetMethod;
 import daomephsta.unpick.constantmappers.datadriven.tree.UnpickV3Visitor;
 import daomephsta.unpick.impl.DataTypeUtils;
+import daomephsta.unpick.impl.classresolvers.ClassMetadataStores;
 import daomephsta.unpick.impl.constantmappers.datadriven.data.Data;
 
 /**
@@ -51,9 +54,11 @@ public abstract class ValidatingUnpickV3Visitor extends ForwardingUnpickV3Visito
 	public ValidatingUnpickV3Visitor(IClassResolver classResolver, @Nullable UnpickV3Visitor downstream) {
 		super(downstream);
 		this.classResolver = classResolver;
-		this.memberChecker = classResolver.asMemberChecker();
+		ClassMetadataStores metadataStores = new ClassMetadataStores();
+		this.memberChecker = metadataStores.asMemberChecker(classResolver, IUnpickMetrics.NONE, CachePolicy.UNBOUNDED);
 		// null logger is ok because lenient is false, so exceptions are thrown instead
-		this.data = new Data(null, false, classResolver.asConstantResolver(), classResolver.asInheritanceChecker());
+		this.data = new Data(null, false, metadataStores.asConstantResolver(classResolver, IUnpickMetrics.NONE, CachePolicy.UNBOUNDED),
+				metadataStores.asInheritanceChecker(classResolver, IUnpickMetrics.NONE, CachePolicy.UNBOUNDED));
 	}
 
 	public abstract boolean packageExists(String packageName);
@@ -142,13 +147,19 @@ public abstract class ValidatingUnpickV3Visitor extends ForwardingUnpickV3Visito
 	public void visitTargetAnnotation(TargetAnnotation targetAnnotation) {
 		try {
 			// check annotation exists
-			ClassNode node = classResolver.resolveClass(targetAnnotation.annotationName().replace('.', '/'));
+			String annotationName = targetAnnotation.annotationName().replace('.', '/');
+			Integer access = memberChecker.getClassAccess(annotationName);
+			if (access == null) {
+				// member checkers which cannot tell the access flags of classes never return them
+				ClassNode node = classResolver.resolveClass(annotationName, ParseDepth.HEADER);
+				access = node != null ? node.access : null;
+			}
 
-			if (node == null) {
+			if (access == null) {
 				throw new UnpickSyntaxException("No such annotation: " + targetAnnotation.annotationName());
 			}
 
-			if ((node.access & Opcodes.ACC_ANNOTATION) == 0) {
+			if ((access & Opcodes.ACC_ANNOTATION) == 0) {
 				throw new UnpickSyntaxException("Not an annotation: " + targetAnnotation.annotationName());
 			}
 
@@ -0,0 +1,99 @@
+package daomephsta.unpick.api.classresolvers;
+
+/**
+ * Limits the caches of the constant resolvers, inheritance checkers and member checkers which analyse the bytecode of
+ * classes. By default they keep every class they have ever looked up, which suits one-off runs but not long-lived
+ * processes that resolve many unrelated classpaths. Apply a policy to a resolver with
+ * {@link ClassResolvers#withCachePolicy(IClassResolver, CachePolicy)}, or pass it to the {@code as*} methods of
+ * {@link IClassResolver}. Hits and misses of the caches are reported to
+ * {@link daomephsta.unpick.api.IUnpickMetrics#onCacheAccess}.
+ * @see #UNBOUNDED
+ */
+public final class CachePolicy {
+	/**
+	 * Keeps every entry strongly reachable forever.
+	 */
+	public static final CachePolicy UNBOUNDED = builder().build();
+
+	private final long maxEntries;
+	private final boolean softValues;
+
+	private CachePolicy(long maxEntries, boolean softValues) {
+		this.maxEntries = maxEntries;
+		this.softValues = softValues;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return the maximum number of classes each cache keeps, or {@link Long#MAX_VALUE} if it is unbounded.
+	 */
+	public long getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * @return whether the garbage collector may clear cached entries when memory is low.
+	 */
+	public boolean hasSoftValues() {
+		return softValues;
+	}
+
+	public boolean isBounded() {
+		return maxEntries != Long.MAX_VALUE;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof CachePolicy other && maxEntries == other.maxEntries && softValues == other.softValues;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(maxEntries) * 31 + Boolean.hashCode(softValues);
+	}
+
+	@Override
+	public String toString() {
+		return "CachePolicy[maxEntries=" + (isBounded() ? maxEntries : "unbounded") + ", softValues=" + softValues + "]";
+	}
+
+	public static final class Builder {
+		private long maxEntries = Long.MAX_VALUE;
+		private boolean softValues;
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the number of classes beyond which each cache evicts its least recently used entries. Eviction is
+		 * approximate: the cache is split into segments which evict independently, so that lookups from different
+		 * threads rarely contend.
+		 * @param maxEntries the maximum number of classes each cache keeps.
+		 * @return this builder.
+		 */
+		public Builder maxEntries(long maxEntries) {
+			if (maxEntries <= 0) {
+				throw new IllegalArgumentException("Max entries must be positive: " + maxEntries);
+			}
+			this.maxEntries = maxEntries;
+			return this;
+		}
+
+		/**
+		 * Holds cached entries by soft references, so that the garbage collector may clear them rather than run out of
+		 * memory. Cleared entries are removed from the cache, and resolved again when they are next looked up.
+		 * @return this builder.
+		 */
+		public Builder softValues() {
+			this.softValues = true;
+			return this;
+		}
+
+		public CachePolicy build() {
+			return new CachePolicy(maxEntries, softValues);
+		}
+	}
+}
@@ -1,10 +1,15 @@
 package daomephsta.unpick.api.classresolvers;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.zip.ZipFile;
 
+import daomephsta.unpick.impl.classresolvers.CachePolicyClassResolver;
+import daomephsta.unpick.impl.classresolvers.ChainClassResolver;
 import daomephsta.unpick.impl.classresolvers.ClasspathClassResolver;
 import daomephsta.unpick.impl.classresolvers.JarClassResolver;
+import daomephsta.unpick.impl.classresolvers.JrtClassResolver;
+import daomephsta.unpick.impl.classresolvers.MappedJarClassResolver;
 import daomephsta.unpick.impl.classresolvers.PathClassResolver;
 
 public final class ClassResolvers {
@@ -19,6 +24,15 @@ public final class ClassResolvers {
 		return new ClasspathClassResolver(classLoader);
 	}
 
+	/**
+	 * Resolves the classes of the running JDK by reading their bytecode from its runtime image. Prefer this over
+	 * {@link #classpath()} for JDK classes, as lookups neither load nor initialise the classes they look at.
+	 * @return a resolver which resolves the classes of the running JDK.
+	 */
+	public static IClassResolver jdk() {
+		return new JrtClassResolver();
+	}
+
 	public static IClassResolver fromDirectory(Path root) {
 		return new PathClassResolver(root);
 	}
@@ -26,4 +40,45 @@ public final class ClassResolvers {
 	public static IClassResolver jar(ZipFile jarFile) {
 		return new JarClassResolver(jarFile);
 	}
+
+	/**
+	 * Resolves classes from a jar by memory mapping it, and indexing its classes up front. Lookups are cheaper than with
+	 * {@link #jar(ZipFile)}, which makes this the better choice for large library jars. The returned resolver is safe
+	 * for concurrent use. Close it once it is no longer needed, to release the inflaters it pools. The mapping itself
+	 * cannot be released on demand, and is only unmapped once the resolver is garbage collected.
+	 * @param jar the path of the jar.
+	 * @return a resolver which resolves the classes in the jar.
+	 * @throws IOException if the jar cannot be read, or is not a valid zip file.
+	 */
+	public static ICloseableClassResolver mappedJar(Path jar) throws IOException {
+		return new MappedJarClassResolver(jar);
+	}
+
+	/**
+	 * Limits the caches of the constant resolvers, inheritance checkers and member checkers created from a resolver.
+	 * The policy also applies when the returned resolver is chained with others, which keep their own policies.
+	 * @param resolver the resolver to resolve classes with.
+	 * @param cachePolicy the policy limiting the caches.
+	 * @return a resolver which resolves the same classes as {@code resolver}.
+	 */
+	public static IClassResolver withCachePolicy(IClassResolver resolver, CachePolicy cachePolicy) {
+		return new CachePolicyClassResolver(resolver, cachePolicy);
+	}
+
+	/**
+	 * Remembers the classes which a resolver, or a chain of resolvers, does not have, so that looking them up again
+	 * asks none of them, and which of the resolvers {@linkplain IClassResolver#mayContainPackage may contain} each
+	 * package. This suits lookups which often miss, such as those for the classes being transformed, but is only
+	 * correct if the resolvers never gain classes. The returned resolver and the constant resolver, inheritance
+	 * checker and member checker created from it each remember the classes they did not find separately.
+	 * @param resolver the resolver to resolve classes with.
+	 * @param cachePolicy limits how many missing classes each of them remembers.
+	 * @return a resolver which resolves the same classes as {@code resolver}.
+	 */
+	public static IClassResolver rememberMissingClasses(IClassResolver resolver, CachePolicy cachePolicy) {
+		if (resolver instanceof ChainClassResolver chain) {
+			return chain.rememberMissingClasses(cachePolicy);
+		}
+		return new ChainClassResolver(cachePolicy, new IClassResolver[] {resolver});
+	}
 }
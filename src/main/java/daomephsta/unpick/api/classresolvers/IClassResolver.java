@@ -3,6 +3,7 @@ package daomephsta.unpick.api.classresolvers;
 import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.tree.ClassNode;
 
+import daomephsta.unpick.api.IUnpickMetrics;
 import daomephsta.unpick.impl.Utils;
 import daomephsta.unpick.impl.classresolvers.ChainClassResolver;
 import daomephsta.unpick.impl.constantresolvers.BytecodeAnalysisConstantResolver;
@@ -21,16 +22,115 @@ public interface IClassResolver {
 	@Nullable
 	ClassNode resolveClass(String internalName);
 
+	/**
+	 * Resolves a class, parsing at least as much of it as {@code depth} requires. Callers which only need part of a
+	 * class should use this, so that resolvers which read class files can skip the rest. The default implementation
+	 * resolves the whole class.
+	 * @param internalName the internal name of the class to resolve
+	 * @param depth how much of the class is needed
+	 * @return a {@link ClassNode} for the resolved class, or {@code null} if not found
+	 */
+	@Nullable
+	default ClassNode resolveClass(String internalName, ParseDepth depth) {
+		return resolveClass(internalName);
+	}
+
+	/**
+	 * Tells chains of resolvers whether this resolver may have classes in a package, so that they only ask the
+	 * resolvers which may. Resolvers which cannot tell cheaply should return {@code true}, as the default
+	 * implementation does. Chains ask again on every lookup, so the answer may change as the resolver gains classes,
+	 * unless the chain {@linkplain ClassResolvers#rememberMissingClasses remembers missing classes}, in which case it
+	 * also remembers the first answer for each package.
+	 * @param packageName the internal name of the package, e.g. {@code java/lang}, or an empty string for the default
+	 * package
+	 * @return {@code false} if this resolver certainly has no classes in the package
+	 */
+	default boolean mayContainPackage(String packageName) {
+		return true;
+	}
+
 	default IConstantResolver asConstantResolver() {
-		return new BytecodeAnalysisConstantResolver(this);
+		return asConstantResolver(IUnpickMetrics.NONE);
+	}
+
+	/**
+	 * Creates a constant resolver for the classes of this resolver, which reports the accesses to its caches to
+	 * {@code metrics}.
+	 * @param metrics the metrics to report to.
+	 * @return the constant resolver.
+	 */
+	default IConstantResolver asConstantResolver(IUnpickMetrics metrics) {
+		return asConstantResolver(metrics, CachePolicy.UNBOUNDED);
+	}
+
+	/**
+	 * Creates a constant resolver for the classes of this resolver, which reports the accesses to its caches to
+	 * {@code metrics} and limits them by {@code cachePolicy}. Implementations which provide their own constant resolver
+	 * should override this method rather than the other overloads. Chains and builders still call the overload without
+	 * a cache policy when there is none, and the one without arguments when there are no metrics either, so resolvers
+	 * which only override those keep working.
+	 * @param metrics the metrics to report to.
+	 * @param cachePolicy the policy limiting the caches of the constant resolver.
+	 * @return the constant resolver.
+	 */
+	default IConstantResolver asConstantResolver(IUnpickMetrics metrics, CachePolicy cachePolicy) {
+		return new BytecodeAnalysisConstantResolver(this, metrics, cachePolicy);
 	}
 
 	default IInheritanceChecker asInheritanceChecker() {
-		return new BytecodeAnalysisInheritanceChecker(this);
+		return asInheritanceChecker(IUnpickMetrics.NONE);
+	}
+
+	/**
+	 * Creates an inheritance checker for the classes of this resolver, which reports the accesses to its caches to
+	 * {@code metrics}.
+	 * @param metrics the metrics to report to.
+	 * @return the inheritance checker.
+	 */
+	default IInheritanceChecker asInheritanceChecker(IUnpickMetrics metrics) {
+		return asInheritanceChecker(metrics, CachePolicy.UNBOUNDED);
+	}
+
+	/**
+	 * Creates an inheritance checker for the classes of this resolver, which reports the accesses to its caches to
+	 * {@code metrics} and limits them by {@code cachePolicy}. Implementations which provide their own inheritance checker
+	 * should override this method rather than the other overloads. Chains and builders still call the overload without
+	 * a cache policy when there is none, and the one without arguments when there are no metrics either, so resolvers
+	 * which only override those keep working.
+	 * @param metrics the metrics to report to.
+	 * @param cachePolicy the policy limiting the caches of the inheritance checker.
+	 * @return the inheritance checker.
+	 */
+	default IInheritanceChecker asInheritanceChecker(IUnpickMetrics metrics, CachePolicy cachePolicy) {
+		return new BytecodeAnalysisInheritanceChecker(this, metrics, cachePolicy);
 	}
 
 	default IMemberChecker asMemberChecker() {
-		return new BytecodeAnalysisMemberChecker(this);
+		return asMemberChecker(IUnpickMetrics.NONE);
+	}
+
+	/**
+	 * Creates a member checker for the classes of this resolver, which reports the accesses to its caches to
+	 * {@code metrics}.
+	 * @param metrics the metrics to report to.
+	 * @return the member checker.
+	 */
+	default IMemberChecker asMemberChecker(IUnpickMetrics metrics) {
+		return asMemberChecker(metrics, CachePolicy.UNBOUNDED);
+	}
+
+	/**
+	 * Creates a member checker for the classes of this resolver, which reports the accesses to its caches to
+	 * {@code metrics} and limits them by {@code cachePolicy}. Implementations which provide their own member checker
+	 * should override this method rather than the other overloads. Chains and builders still call the overload without
+	 * a cache policy when there is none, and the one without arguments when there are no metrics either, so resolvers
+	 * which only override those keep working.
+	 * @param metrics the metrics to report to.
+	 * @param cachePolicy the policy limiting the caches of the member checker.
+	 * @return the member checker.
+	 */
+	default IMemberChecker asMemberChecker(IUnpickMetrics metrics, CachePolicy cachePolicy) {
+		return new BytecodeAnalysisMemberChecker(this, metrics, cachePolicy);
 	}
 
 	default IClassResolver chain(IClassResolver... others) {
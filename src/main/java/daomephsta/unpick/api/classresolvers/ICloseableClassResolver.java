@@ -0,0 +1,16 @@
+package daomephsta.unpick.api.classresolvers;
+
+import java.io.Closeable;
+
+/**
+ * A class resolver which holds resources that should be released once it is no longer needed, rather than whenever it
+ * is garbage collected.
+ */
+public interface ICloseableClassResolver extends IClassResolver, Closeable {
+	/**
+	 * Releases the resources of this resolver. Classes cannot be resolved afterwards, and trying to throws an
+	 * {@link IllegalStateException}. Closing a resolver more than once has no further effect.
+	 */
+	@Override
+	void close();
+}
@@ -52,6 +52,29 @@ public interface IMemberChecker {
 	@Nullable
 	ParameterInfo getParameter(String className, String methodName, String methodDesc, int parameterIndex);
 
+	/**
+	 * Gets the access flags of a class. The default implementation cannot tell, so always returns {@code null}.
+	 * @param className the internal name of the class.
+	 * @return the access flags, or {@code null} if the class doesn't exist or this checker cannot tell.
+	 */
+	@Nullable
+	default Integer getClassAccess(String className) {
+		return null;
+	}
+
+	/**
+	 * Gets the access flags with which a class lists a nested class, which tell e.g. whether the nested class is
+	 * static. The default implementation cannot tell, so always returns {@code null}.
+	 * @param className the internal name of the class.
+	 * @param innerClassName the internal name of the nested class.
+	 * @return the access flags, or {@code null} if either class doesn't exist, the class doesn't list the nested class
+	 * or this checker cannot tell.
+	 */
+	@Nullable
+	default Integer getInnerClassAccess(String className, String innerClassName) {
+		return null;
+	}
+
 	default IMemberChecker chain(IMemberChecker... others) {
 		return new ChainMemberChecker(Utils.prepend(this, others));
 	}
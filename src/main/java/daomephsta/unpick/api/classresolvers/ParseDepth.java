@@ -0,0 +1,35 @@
+package daomephsta.unpick.api.classresolvers;
+
+/**
+ * How much of a class a caller of {@link IClassResolver#resolveClass(String, ParseDepth)} needs. Each depth includes
+ * everything parsed by the depths before it, so a resolver may always parse more than was requested. Debug
+ * information is never parsed.
+ */
+public enum ParseDepth {
+	/**
+	 * Only the access flags, name, superclass and interfaces, read from the class file header. The class has no
+	 * fields, methods or attributes.
+	 */
+	HEADER,
+	/**
+	 * The header and all fields, methods and attributes, including annotations, but no method bodies.
+	 */
+	MEMBERS,
+	/**
+	 * The members, plus the bodies of the constructors and static initializer, which assign the values of
+	 * constants.
+	 */
+	INITIALIZERS,
+	/**
+	 * The whole class, including all method bodies.
+	 */
+	FULL;
+
+	/**
+	 * @param other another depth.
+	 * @return whether a class parsed to this depth contains everything a class parsed to {@code other} does.
+	 */
+	public boolean includes(ParseDepth other) {
+		return compareTo(other) >= 0;
+	}
+}
@@ -7,11 +7,14 @@ import java.io.Reader;
 import java.util.function.Consumer;
 import java.util.logging.Logger;
 
+import daomephsta.unpick.api.IUnpickMetrics;
+import daomephsta.unpick.api.classresolvers.CachePolicy;
 import daomephsta.unpick.api.classresolvers.IClassResolver;
 import daomephsta.unpick.api.classresolvers.IConstantResolver;
 import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
 import daomephsta.unpick.api.classresolvers.IMemberChecker;
 import daomephsta.unpick.constantmappers.datadriven.tree.UnpickV3Visitor;
+import daomephsta.unpick.impl.classresolvers.ClassMetadataStores;
 import daomephsta.unpick.impl.constantmappers.datadriven.DataDrivenConstantGrouper;
 
 public final class ConstantGroupers {
@@ -25,6 +28,8 @@ public final class ConstantGroupers {
 	public static final class DataDrivenBuilder {
 		private Logger logger;
 		private boolean lenient = false;
+		private IUnpickMetrics metrics = IUnpickMetrics.NONE;
+		private IClassResolver classResolver;
 		private IConstantResolver constantResolver;
 		private IInheritanceChecker inheritanceChecker;
 		private IMemberChecker memberChecker;
@@ -48,9 +53,23 @@ public final class ConstantGroupers {
 
 		public DataDrivenBuilder classResolver(IClassResolver classResolver) {
 			ensureGrouperNotInitialized("classResolver");
-			this.constantResolver = classResolver.asConstantResolver();
-			this.inheritanceChecker = classResolver.asInheritanceChecker();
-			this.memberChecker = classResolver.asMemberChecker();
+			// the resolvers are created once the metrics are known
+			this.classResolver = classResolver;
+			this.constantResolver = null;
+			this.inheritanceChecker = null;
+			this.memberChecker = null;
+			return this;
+		}
+
+		/**
+		 * Reports the accesses to the caches of the grouper, and of any resolvers created from
+		 * {@linkplain #classResolver(IClassResolver) the class resolver}, to {@code metrics}.
+		 * @param metrics the metrics to report to.
+		 * @return this builder.
+		 */
+		public DataDrivenBuilder metrics(IUnpickMetrics metrics) {
+			ensureGrouperNotInitialized("metrics");
+			this.metrics = metrics;
 			return this;
 		}
 
@@ -91,6 +110,7 @@ public final class ConstantGroupers {
 		public IConstantGrouper build() {
 			ensureGrouperInitialized("build");
 			logger.info(() -> String.format("Loaded %d constant groups, %d target fields and %d target methods", result.groupCount(), result.targetFieldCount(), result.targetMethodCount()));
+			result.freeze();
 			return result;
 		}
 
@@ -101,6 +121,18 @@ public final class ConstantGroupers {
 		}
 
 		private void ensureGrouperInitialized(String methodName) {
+			if (classResolver != null && result == null) {
+				ClassMetadataStores metadataStores = new ClassMetadataStores();
+				if (constantResolver == null) {
+					constantResolver = metadataStores.asConstantResolver(classResolver, metrics, CachePolicy.UNBOUNDED);
+				}
+				if (inheritanceChecker == null) {
+					inheritanceChecker = metadataStores.asInheritanceChecker(classResolver, metrics, CachePolicy.UNBOUNDED);
+				}
+				if (memberChecker == null) {
+					memberChecker = metadataStores.asMemberChecker(classResolver, metrics, CachePolicy.UNBOUNDED);
+				}
+			}
 			if (constantResolver == null) {
 				throw new IllegalStateException("Cannot call " + methodName + " without setting the constant resolver");
 			}
@@ -115,7 +147,7 @@ public final class ConstantGroupers {
 			}
 			if (result == null) {
 				methodWhichInitializedResult = methodName;
-				result = new DataDrivenConstantGrouper(logger, lenient, constantResolver, inheritanceChecker, memberChecker);
+				result = new DataDrivenConstantGrouper(logger, lenient, constantResolver, inheritanceChecker, memberChecker, metrics);
 			}
 		}
 	}
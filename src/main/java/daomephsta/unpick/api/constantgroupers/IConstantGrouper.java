@@ -22,4 +22,50 @@ public interface IConstantGrouper {
 	default ConstantGroup getDefaultGroup() {
 		return null;
 	}
+
+	/**
+	 * Returns a string which identifies everything that affects the groups returned by this grouper, such as the
+	 * mappings it has loaded, or {@code null} if this is not known. Transformed classes are only cached for groupers
+	 * with a fingerprint. The classpath used to resolve constants is not included.
+	 * @return the fingerprint of this grouper, or {@code null}.
+	 */
+	@Nullable
+	default String getFingerprint() {
+		return null;
+	}
+
+	/**
+	 * Returns whether this grouper might return a group for a parameter or the return value of a method with the
+	 * given name and descriptor, declared in any class. Methods whose literals provably cannot be grouped are not
+	 * analysed at all, so this must only return {@code false} if every call to {@link #getMethodReturnGroup} and
+	 * {@link #getMethodParameterGroup} for such a method would return {@code null}.
+	 * @param methodName the name of the method.
+	 * @param methodDescriptor the descriptor of the method.
+	 * @return {@code false} if no group can be found for the method, {@code true} otherwise.
+	 */
+	default boolean mayTargetMethod(String methodName, String methodDescriptor) {
+		return true;
+	}
+
+	/**
+	 * Returns whether this grouper might return a group for a field with the given name and descriptor, declared in
+	 * any class. This must only return {@code false} if every call to {@link #getFieldGroup} for such a field would
+	 * return {@code null}.
+	 * @param fieldName the name of the field.
+	 * @param fieldDescriptor the descriptor of the field.
+	 * @return {@code false} if no group can be found for the field, {@code true} otherwise.
+	 */
+	default boolean mayTargetField(String fieldName, String fieldDescriptor) {
+		return true;
+	}
+
+	/**
+	 * Returns whether the {@linkplain #getDefaultGroup() default group} might replace the given literal. This must
+	 * only return {@code false} if the default group never replaces the literal, wherever it appears.
+	 * @param literal the value of the literal, as returned by {@code LdcInsnNode.cst}, or {@code null}.
+	 * @return {@code false} if the default group cannot replace the literal, {@code true} otherwise.
+	 */
+	default boolean mayReplaceByDefault(@Nullable Object literal) {
+		return getDefaultGroup() != null;
+	}
 }
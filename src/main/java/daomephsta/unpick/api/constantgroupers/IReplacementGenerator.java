@@ -31,8 +31,21 @@ public interface IReplacementGenerator {
 		ClassNode getContainingClass();
 		MethodNode getContainingMethod();
 		AbstractInsnNode getTarget();
+
+		/**
+		 * Returns the dataflow frame before {@code insn} executes. To save memory, frames are only guaranteed to be
+		 * available at the first instruction of the method, at lambda creation sites, at every instruction with a
+		 * literal value, at the instruction after it and at the next instruction which is not a label, line number or
+		 * frame (both of which have the literal on top of the stack). Before a literal which follows a {@code POP}, the
+		 * frame of the instruction before the {@code POP} is available too, such as the start of a null check of a
+		 * field receiver. Use {@link daomephsta.unpick.api.ConstantUninliner.Builder#retainAllFrames(boolean)} to keep
+		 * the frames of all other reachable instructions too.
+		 * @param insn an instruction of the {@linkplain #getContainingMethod() containing method}.
+		 * @return the frame, or {@code null} if {@code insn} is unreachable or its frame is not available.
+		 */
 		@Nullable
 		Frame<IDataflowValue> getDataflowFrame(AbstractInsnNode insn);
+
 		Logger getLogger();
 	}
 
@@ -14,16 +14,30 @@ public class AbstractInsnNodes implements Opcodes {
 	@Nullable
 	public static Object getLiteralValue(AbstractInsnNode insn) {
 		return switch (insn.getOpcode()) {
-			case ACONST_NULL -> null;
-			case ICONST_M1, ICONST_0, ICONST_1, ICONST_2, ICONST_3, ICONST_4, ICONST_5 ->
-					insn.getOpcode() - ICONST_0; //Neat trick that works because the opcodes are sequential
-			case LCONST_0, LCONST_1 -> (long) insn.getOpcode() - LCONST_0;
-			case FCONST_0, FCONST_1, FCONST_2 -> (float) insn.getOpcode() - FCONST_0;
-			case DCONST_0, DCONST_1 -> (double) insn.getOpcode() - DCONST_0;
 			case BIPUSH, SIPUSH -> ((IntInsnNode) insn).operand;
 			case LDC -> ((LdcInsnNode) insn).cst;
-			default ->
+			default -> {
+				if (insn.getOpcode() < ACONST_NULL || insn.getOpcode() > DCONST_1) {
 					throw new UnsupportedOperationException("No value retrieval method programmed for " + Utils.visitableToString(insn::accept).trim());
+				}
+				yield getImplicitLiteralValue(insn.getOpcode());
+			}
+		};
+	}
+
+	/**
+	 * Gets the value pushed by one of the operand-less constant instructions, {@code ACONST_NULL} to {@code DCONST_1}.
+	 */
+	@Nullable
+	public static Object getImplicitLiteralValue(int opcode) {
+		return switch (opcode) {
+			case ACONST_NULL -> null;
+			case ICONST_M1, ICONST_0, ICONST_1, ICONST_2, ICONST_3, ICONST_4, ICONST_5 ->
+					opcode - ICONST_0; //Neat trick that works because the opcodes are sequential
+			case LCONST_0, LCONST_1 -> (long) opcode - LCONST_0;
+			case FCONST_0, FCONST_1, FCONST_2 -> (float) opcode - FCONST_0;
+			case DCONST_0, DCONST_1 -> (double) opcode - DCONST_0;
+			default -> throw new IllegalArgumentException("Not an implicit constant opcode: " + opcode);
 		};
 	}
 
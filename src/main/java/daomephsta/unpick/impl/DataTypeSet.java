@@ -0,0 +1,96 @@
+package daomephsta.unpick.impl;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
+
+/**
+ * A mutable set of {@link DataType}s stored as a bitmask of their ordinals.
+ */
+final class DataTypeSet extends AbstractSet<DataType> {
+	private static final DataType[] DATA_TYPES = DataType.values();
+
+	private int mask;
+
+	void addAll(DataTypeSet other) {
+		mask |= other.mask;
+	}
+
+	@Override
+	public boolean add(DataType dataType) {
+		int oldMask = mask;
+		mask |= 1 << dataType.ordinal();
+		return mask != oldMask;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return o instanceof DataType dataType && (mask & (1 << dataType.ordinal())) != 0;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (!contains(o)) {
+			return false;
+		}
+		mask &= ~(1 << ((DataType) o).ordinal());
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		mask = 0;
+	}
+
+	@Override
+	public int size() {
+		return Integer.bitCount(mask);
+	}
+
+	@Override
+	public Iterator<DataType> iterator() {
+		return new Iterator<>() {
+			private int remaining = mask;
+			private int last = -1;
+
+			@Override
+			public boolean hasNext() {
+				return remaining != 0;
+			}
+
+			@Override
+			public DataType next() {
+				if (remaining == 0) {
+					throw new NoSuchElementException();
+				}
+				last = Integer.numberOfTrailingZeros(remaining);
+				remaining &= remaining - 1;
+				return DATA_TYPES[last];
+			}
+
+			@Override
+			public void remove() {
+				if (last < 0) {
+					throw new IllegalStateException();
+				}
+				mask &= ~(1 << last);
+				last = -1;
+			}
+		};
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o instanceof DataTypeSet other) {
+			return mask == other.mask;
+		}
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		return super.hashCode();
+	}
+}
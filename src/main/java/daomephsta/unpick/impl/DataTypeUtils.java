@@ -163,6 +163,79 @@ public final class DataTypeUtils {
 		};
 	}
 
+	/**
+	 * Equivalent to {@code tryCastExact(value, dataType) != null}, but without boxing the result.
+	 */
+	public static boolean canCastExact(@Nullable Object value, @Nullable DataType dataType) {
+		return switch (dataType) {
+			case BYTE -> switch (value) {
+				case Character c -> (byte) c.charValue() == c;
+				case Number n -> n.byteValue() == n.doubleValue();
+				case null, default -> false;
+			};
+			case SHORT -> switch (value) {
+				case Character c -> (short) c.charValue() == c;
+				case Number n -> n.shortValue() == n.doubleValue();
+				case null, default -> false;
+			};
+			case INT, CHAR -> switch (value) {
+				case Character ignored -> true;
+				case Number n -> n.intValue() == n.doubleValue();
+				case null, default -> false;
+			};
+			case LONG -> switch (value) {
+				case Float f -> (float) f.longValue() == f;
+				case Double d -> (double) d.longValue() == d;
+				case Number ignored -> true;
+				case null, default -> false;
+			};
+			case FLOAT -> switch (value) {
+				case Character c -> (int) (float) c.charValue() == c;
+				case Number n -> n.floatValue() == n.doubleValue();
+				case null, default -> false;
+			};
+			case DOUBLE -> switch (value) {
+				case Character c -> (int) (double) c.charValue() == c;
+				case Number n -> n.doubleValue() == n.doubleValue();
+				case null, default -> false;
+			};
+			case STRING -> value instanceof String;
+			case CLASS -> value instanceof Type;
+			case null -> value instanceof String || value instanceof Type;
+		};
+	}
+
+	/**
+	 * Converts a value which can be cast exactly to a primitive type into a key which is equal for two values if and
+	 * only if their exact casts are {@linkplain Object#equals equal}. Floating point values are keyed by their bits, as
+	 * {@link Float#equals} and {@link Double#equals} compare them.
+	 */
+	public static long getPrimitiveKey(Object value, DataType dataType) {
+		if (value instanceof Character c) {
+			char charValue = c;
+			return switch (dataType) {
+				case BYTE -> (byte) charValue;
+				case SHORT -> (short) charValue;
+				case INT, CHAR, LONG -> charValue;
+				case FLOAT -> Float.floatToIntBits(charValue);
+				case DOUBLE -> Double.doubleToLongBits(charValue);
+				case STRING, CLASS -> throw new IllegalArgumentException("Not a primitive type: " + dataType);
+			};
+		}
+
+		Number number = (Number) value;
+		return switch (dataType) {
+			case BYTE -> number.byteValue();
+			case SHORT -> number.shortValue();
+			case INT -> number.intValue();
+			case CHAR -> (char) number.intValue();
+			case LONG -> number.longValue();
+			case FLOAT -> Float.floatToIntBits(number.floatValue());
+			case DOUBLE -> Double.doubleToLongBits(number.doubleValue());
+			case STRING, CLASS -> throw new IllegalArgumentException("Not a primitive type: " + dataType);
+		};
+	}
+
 	public static boolean isPrimitive(@Nullable DataType dataType) {
 		return dataType != DataType.STRING && dataType != DataType.CLASS && dataType != null;
 	}
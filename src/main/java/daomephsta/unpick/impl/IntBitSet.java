@@ -0,0 +1,193 @@
+package daomephsta.unpick.impl;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A mutable set of small non-negative integers, such as parameter indices, stored as a bitset. The first 64 values are
+ * stored inline, so that no array is allocated for almost all methods.
+ */
+final class IntBitSet extends AbstractSet<Integer> {
+	private static final long[] NO_WORDS = new long[0];
+
+	private long firstWord;
+	private long[] moreWords = NO_WORDS;
+
+	void addAll(IntBitSet other) {
+		firstWord |= other.firstWord;
+		if (other.moreWords.length > moreWords.length) {
+			moreWords = Arrays.copyOf(moreWords, other.moreWords.length);
+		}
+		for (int i = 0; i < other.moreWords.length; i++) {
+			moreWords[i] |= other.moreWords[i];
+		}
+	}
+
+	boolean addInt(int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Negative value " + value);
+		}
+
+		if (value < 64) {
+			long oldWord = firstWord;
+			firstWord |= 1L << value;
+			return firstWord != oldWord;
+		}
+
+		int wordIndex = (value >> 6) - 1;
+		if (wordIndex >= moreWords.length) {
+			moreWords = Arrays.copyOf(moreWords, wordIndex + 1);
+		}
+		long oldWord = moreWords[wordIndex];
+		moreWords[wordIndex] |= 1L << value;
+		return moreWords[wordIndex] != oldWord;
+	}
+
+	boolean containsInt(int value) {
+		if (value < 0) {
+			return false;
+		}
+		if (value < 64) {
+			return (firstWord & (1L << value)) != 0;
+		}
+		int wordIndex = (value >> 6) - 1;
+		return wordIndex < moreWords.length && (moreWords[wordIndex] & (1L << value)) != 0;
+	}
+
+	/**
+	 * @param fromValue the value to start searching at.
+	 * @return the smallest value in this set that is at least {@code fromValue}, or {@code -1} if there is none.
+	 */
+	int nextInt(int fromValue) {
+		int wordIndex = fromValue >> 6;
+		if (wordIndex == 0) {
+			long word = firstWord & (-1L << fromValue);
+			if (word != 0) {
+				return Long.numberOfTrailingZeros(word);
+			}
+			fromValue = 64;
+			wordIndex = 1;
+		}
+
+		for (int i = wordIndex - 1; i < moreWords.length; i++) {
+			long word = moreWords[i];
+			if (i == wordIndex - 1) {
+				word &= -1L << fromValue;
+			}
+			if (word != 0) {
+				return ((i + 1) << 6) + Long.numberOfTrailingZeros(word);
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public boolean add(Integer value) {
+		return addInt(value);
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return o instanceof Integer value && containsInt(value);
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (!contains(o)) {
+			return false;
+		}
+		int value = (Integer) o;
+		if (value < 64) {
+			firstWord &= ~(1L << value);
+		} else {
+			moreWords[(value >> 6) - 1] &= ~(1L << value);
+		}
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		firstWord = 0;
+		moreWords = NO_WORDS;
+	}
+
+	@Override
+	public int size() {
+		int size = Long.bitCount(firstWord);
+		for (long word : moreWords) {
+			size += Long.bitCount(word);
+		}
+		return size;
+	}
+
+	@Override
+	public Iterator<Integer> iterator() {
+		return new Iterator<>() {
+			private int next = nextInt(0);
+			private int last = -1;
+
+			@Override
+			public boolean hasNext() {
+				return next >= 0;
+			}
+
+			@Override
+			public Integer next() {
+				if (next < 0) {
+					throw new NoSuchElementException();
+				}
+				last = next;
+				next = nextInt(next + 1);
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				if (last < 0) {
+					throw new IllegalStateException();
+				}
+				IntBitSet.this.remove(last);
+				last = -1;
+			}
+		};
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o instanceof IntBitSet other) {
+			if (firstWord != other.firstWord) {
+				return false;
+			}
+			int commonLength = Math.min(moreWords.length, other.moreWords.length);
+			for (int i = 0; i < commonLength; i++) {
+				if (moreWords[i] != other.moreWords[i]) {
+					return false;
+				}
+			}
+			for (int i = commonLength; i < moreWords.length; i++) {
+				if (moreWords[i] != 0) {
+					return false;
+				}
+			}
+			for (int i = commonLength; i < other.moreWords.length; i++) {
+				if (other.moreWords[i] != 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		// the sum of the elements, as required by Set
+		int hashCode = 0;
+		for (int value = nextInt(0); value >= 0; value = nextInt(value + 1)) {
+			hashCode += value;
+		}
+		return hashCode;
+	}
+}
@@ -0,0 +1,182 @@
+package daomephsta.unpick.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+
+import daomephsta.unpick.api.constantgroupers.IConstantGrouper;
+
+/**
+ * Works out which methods of a class need dataflow analysis, from a single pass over their instructions. Groups can
+ * flow between a method and the lambdas and method references it creates in the same class, so such methods are
+ * linked together. A set of linked methods needs analysis only if it contains a literal and something the grouper
+ * might target.
+ */
+public final class RelevanceCensus {
+	private final IConstantGrouper grouper;
+	private final String className;
+	private final Map<String, Integer> methodIndices = new HashMap<>();
+	private final BitSet hasLiterals = new BitSet();
+	private final BitSet mayBeTargeted = new BitSet();
+	private final List<Link> links = new ArrayList<>();
+	private int currentMethod = -1;
+
+	public RelevanceCensus(IConstantGrouper grouper, String className) {
+		this.grouper = grouper;
+		this.className = className;
+	}
+
+	/**
+	 * Starts counting the instructions of the next method. Methods are numbered in the order they are visited.
+	 */
+	public void visitMethod(String name, String descriptor) {
+		currentMethod = methodIndices.size();
+		methodIndices.put(name + descriptor, currentMethod);
+		if (grouper.mayTargetMethod(name, descriptor)) {
+			mayBeTargeted.set(currentMethod);
+		}
+	}
+
+	public void visitInstruction(AbstractInsnNode insn) {
+		if (AbstractInsnNodes.hasLiteralValue(insn)) {
+			visitLiteral(AbstractInsnNodes.getLiteralValue(insn));
+		} else if (insn instanceof FieldInsnNode fieldInsn) {
+			visitMember(fieldInsn.name, fieldInsn.desc, true);
+		} else if (insn instanceof MethodInsnNode methodInsn) {
+			visitMember(methodInsn.name, methodInsn.desc, false);
+		} else if (insn instanceof InvokeDynamicInsnNode indy) {
+			visitInvokeDynamic(indy.name, indy.bsm, indy.bsmArgs);
+		}
+	}
+
+	/**
+	 * Creates a visitor which counts the instructions of the method most recently passed to {@link #visitMethod}.
+	 */
+	public MethodVisitor createMethodVisitor() {
+		return new MethodVisitor(Opcodes.ASM9) {
+			@Override
+			public void visitInsn(int opcode) {
+				if (opcode >= Opcodes.ACONST_NULL && opcode <= Opcodes.DCONST_1) {
+					visitLiteral(AbstractInsnNodes.getImplicitLiteralValue(opcode));
+				}
+			}
+
+			@Override
+			public void visitIntInsn(int opcode, int operand) {
+				if (opcode == Opcodes.BIPUSH || opcode == Opcodes.SIPUSH) {
+					visitLiteral(operand);
+				}
+			}
+
+			@Override
+			public void visitLdcInsn(Object value) {
+				visitLiteral(value);
+			}
+
+			@Override
+			public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+				visitMember(name, descriptor, true);
+			}
+
+			@Override
+			public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+				visitMember(name, descriptor, false);
+			}
+
+			@Override
+			public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+				visitInvokeDynamic(name, bootstrapMethodHandle, bootstrapMethodArguments);
+			}
+		};
+	}
+
+	private void visitLiteral(@Nullable Object literal) {
+		hasLiterals.set(currentMethod);
+		if (!mayBeTargeted.get(currentMethod) && grouper.mayReplaceByDefault(literal)) {
+			mayBeTargeted.set(currentMethod);
+		}
+	}
+
+	private void visitMember(String name, String descriptor, boolean field) {
+		if (!mayBeTargeted.get(currentMethod) && (field ? grouper.mayTargetField(name, descriptor) : grouper.mayTargetMethod(name, descriptor))) {
+			mayBeTargeted.set(currentMethod);
+		}
+	}
+
+	private void visitInvokeDynamic(String name, Handle bsm, Object[] bsmArgs) {
+		if (!"java/lang/invoke/LambdaMetafactory".equals(bsm.getOwner())) {
+			return;
+		}
+
+		Handle lambdaMethod = (Handle) bsmArgs[1];
+		visitMember(lambdaMethod.getName(), lambdaMethod.getDesc(), false);
+		visitMember(name, ((Type) bsmArgs[0]).getDescriptor(), false);
+		if (lambdaMethod.getOwner().equals(className)) {
+			links.add(new Link(currentMethod, lambdaMethod.getName() + lambdaMethod.getDesc()));
+		}
+	}
+
+	public int getMethodCount() {
+		return methodIndices.size();
+	}
+
+	/**
+	 * Returns the indices of the methods which need dataflow analysis, once every method has been visited.
+	 */
+	public BitSet getMethodsToAnalyze() {
+		int[] roots = new int[methodIndices.size()];
+		for (int i = 0; i < roots.length; i++) {
+			roots[i] = i;
+		}
+		for (Link link : links) {
+			Integer lambdaIndex = methodIndices.get(link.lambdaKey);
+			if (lambdaIndex != null) {
+				roots[findRoot(roots, link.method)] = findRoot(roots, lambdaIndex);
+			}
+		}
+
+		BitSet linkedLiterals = new BitSet();
+		BitSet linkedTargeted = new BitSet();
+		for (int i = 0; i < roots.length; i++) {
+			int root = findRoot(roots, i);
+			if (hasLiterals.get(i)) {
+				linkedLiterals.set(root);
+			}
+			if (mayBeTargeted.get(i)) {
+				linkedTargeted.set(root);
+			}
+		}
+
+		BitSet methodsToAnalyze = new BitSet();
+		for (int i = 0; i < roots.length; i++) {
+			int root = findRoot(roots, i);
+			if (linkedLiterals.get(root) && linkedTargeted.get(root)) {
+				methodsToAnalyze.set(i);
+			}
+		}
+		return methodsToAnalyze;
+	}
+
+	private static int findRoot(int[] roots, int index) {
+		while (roots[index] != index) {
+			roots[index] = roots[roots[index]];
+			index = roots[index];
+		}
+		return index;
+	}
+
+	private record Link(int method, String lambdaKey) {
+	}
+}
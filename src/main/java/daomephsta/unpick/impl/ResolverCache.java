@@ -0,0 +1,220 @@
+package daomephsta.unpick.impl;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+import org.jetbrains.annotations.Nullable;
+
+import daomephsta.unpick.api.classresolvers.CachePolicy;
+
+/**
+ * A thread-safe cache of information about classes, keyed by internal name and limited by a {@link CachePolicy}.
+ * Unbounded caches are a {@link ConcurrentHashMap}. Bounded caches are split into segments by the hash of the key,
+ * each of which is a synchronized {@link LinkedHashMap} in access order that evicts its least recently used entry when
+ * full. {@code null} values are never cached, so classes which cannot be resolved are looked up again every time.
+ * Soft values which the garbage collector has cleared are removed by the next lookup, so that an unbounded cache does
+ * not keep an entry for every class it has ever seen.
+ */
+public final class ResolverCache<V> {
+	private static final int MAX_SEGMENTS = 16;
+
+	private final boolean softValues;
+	// values are either V or SoftValue<V>, depending on softValues
+	@Nullable
+	private final Map<String, Object> unbounded;
+	@Nullable
+	private final Segment[] segments;
+	@Nullable
+	private final ReferenceQueue<V> clearedValues;
+
+	public ResolverCache(CachePolicy policy) {
+		this.softValues = policy.hasSoftValues();
+		this.clearedValues = softValues ? new ReferenceQueue<>() : null;
+		if (!policy.isBounded()) {
+			unbounded = new ConcurrentHashMap<>();
+			segments = null;
+			return;
+		}
+
+		unbounded = null;
+		int segmentCount = (int) Math.min(MAX_SEGMENTS, Long.highestOneBit(policy.getMaxEntries()));
+		long maxSegmentEntries = (policy.getMaxEntries() + segmentCount - 1) / segmentCount;
+		segments = new Segment[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			segments[i] = new Segment((int) Math.min(Integer.MAX_VALUE, maxSegmentEntries));
+		}
+	}
+
+	@Nullable
+	public V get(String key) {
+		removeClearedValues();
+		Object stored;
+		if (unbounded != null) {
+			stored = unbounded.get(key);
+		} else {
+			Segment segment = getSegment(key);
+			synchronized (segment) {
+				stored = segment.get(key);
+			}
+		}
+		return unwrap(stored);
+	}
+
+	/**
+	 * Gets the value of {@code key}, computing and caching it if it is absent. Unlike
+	 * {@link Map#computeIfAbsent}, the value is computed without holding any lock, so concurrent misses for the same
+	 * key may compute it more than once, in which case the first value cached wins.
+	 * @param key the key.
+	 * @param function computes the value of the key, or returns {@code null} if it has none.
+	 * @return the cached value, or {@code null} if it has none.
+	 */
+	@Nullable
+	public V computeIfAbsent(String key, Function<String, V> function) {
+		V value = get(key);
+		if (value != null) {
+			return value;
+		}
+
+		value = function.apply(key);
+		if (value == null) {
+			return null;
+		}
+
+		Object wrapped = wrap(key, value);
+		if (unbounded != null) {
+			return putIfAbsent(unbounded, key, value, wrapped);
+		}
+
+		Segment segment = getSegment(key);
+		synchronized (segment) {
+			return putIfAbsent(segment, key, value, wrapped);
+		}
+	}
+
+	/**
+	 * Caches {@code value} for {@code key}, or if a value is already cached, whichever of the two {@code merge}
+	 * chooses.
+	 * @param key the key.
+	 * @param value the new value.
+	 * @param merge chooses between the cached value and the new value.
+	 * @return the value cached afterwards.
+	 */
+	public V merge(String key, V value, BinaryOperator<V> merge) {
+		removeClearedValues();
+		if (unbounded != null) {
+			// hold the merged value strongly, in case it is only softly reachable from the map
+			List<V> merged = new ArrayList<>(1);
+			unbounded.compute(key, (k, stored) -> {
+				V mergedValue = mergeValues(unwrap(stored), value, merge);
+				merged.add(mergedValue);
+				return wrap(k, mergedValue);
+			});
+			return merged.getLast();
+		}
+
+		Segment segment = getSegment(key);
+		synchronized (segment) {
+			V merged = mergeValues(unwrap(segment.get(key)), value, merge);
+			segment.put(key, wrap(key, merged));
+			return merged;
+		}
+	}
+
+	private V mergeValues(@Nullable V existing, V value, BinaryOperator<V> merge) {
+		return existing == null ? value : merge.apply(existing, value);
+	}
+
+	/**
+	 * @return the number of entries, including soft values which have been cleared but not yet removed.
+	 */
+	public int size() {
+		if (unbounded != null) {
+			return unbounded.size();
+		}
+
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	private void removeClearedValues() {
+		if (clearedValues == null) {
+			return;
+		}
+
+		SoftValue<?> cleared;
+		while ((cleared = (SoftValue<?>) clearedValues.poll()) != null) {
+			// only removes the entry if it has not been replaced since
+			if (unbounded != null) {
+				unbounded.remove(cleared.key, cleared);
+			} else {
+				Segment segment = getSegment(cleared.key);
+				synchronized (segment) {
+					segment.remove(cleared.key, cleared);
+				}
+			}
+		}
+	}
+
+	private Object wrap(String key, V value) {
+		return softValues ? new SoftValue<>(key, value, clearedValues) : value;
+	}
+
+	private V putIfAbsent(Map<String, Object> map, String key, V value, Object wrapped) {
+		V existing = unwrap(map.get(key));
+		if (existing != null) {
+			return existing;
+		}
+		// replaces any cleared soft reference
+		map.put(key, wrapped);
+		return value;
+	}
+
+	private Segment getSegment(String key) {
+		int hash = key.hashCode();
+		return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+	}
+
+	@Nullable
+	@SuppressWarnings("unchecked")
+	private V unwrap(@Nullable Object stored) {
+		if (softValues && stored != null) {
+			return ((SoftValue<V>) stored).get();
+		}
+		return (V) stored;
+	}
+
+	private static final class SoftValue<V> extends SoftReference<V> {
+		private final String key;
+
+		SoftValue(String key, V value, ReferenceQueue<V> queue) {
+			super(value, queue);
+			this.key = key;
+		}
+	}
+
+	private static final class Segment extends LinkedHashMap<String, Object> {
+		private final int maxEntries;
+
+		Segment(int maxEntries) {
+			super(16, 0.75F, true);
+			this.maxEntries = maxEntries;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+			return size() > maxEntries;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package daomephsta.unpick.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.Frame;
+
+/**
+ * The dataflow frames of a method that are needed to uninline its literals, indexed by instruction index. Frames are
+ * kept only at the entry of the method, at lambda creation sites, and around literals: at the literal itself, at its
+ * successor (the frame that has the literal on top of the stack), and at the start of a null check of the receiver of
+ * an instance field replacement right before it. All other frames are released as soon as the
+ * method has been analyzed, which matters for huge methods such as the static initializers of registry classes.
+ */
+public final class RetainedFrames {
+	private final int[] indices;
+	private final Frame<UnpickValue>[] frames;
+
+	private RetainedFrames(int[] indices, Frame<UnpickValue>[] frames) {
+		this.indices = indices;
+		this.frames = frames;
+	}
+
+	/**
+	 * Keeps the frames of {@code method} that are needed for uninlining.
+	 * @param method the analyzed method.
+	 * @param frames the frames computed for {@code method}, which are not retained by the result.
+	 * @return the retained frames.
+	 */
+	public static RetainedFrames retain(MethodNode method, Frame<UnpickValue>[] frames) {
+		BitSet retained = getRetainedIndices(method);
+		int[] indices = new int[retained.cardinality()];
+		@SuppressWarnings("unchecked")
+		Frame<UnpickValue>[] retainedFrames = new Frame[indices.length];
+		int count = 0;
+		for (int i = retained.nextSetBit(0); i >= 0 && i < frames.length; i = retained.nextSetBit(i + 1)) {
+			indices[count] = i;
+			retainedFrames[count] = frames[i];
+			count++;
+		}
+		return of(indices, retainedFrames);
+	}
+
+	/**
+	 * Keeps every frame of a method, for replacement generators which look at frames other than the retained ones.
+	 * @param frames the frames computed for a method.
+	 * @return the retained frames.
+	 */
+	public static RetainedFrames all(Frame<UnpickValue>[] frames) {
+		int[] indices = new int[frames.length];
+		Arrays.setAll(indices, i -> i);
+		return of(indices, frames.clone());
+	}
+
+	/**
+	 * Creates retained frames from frames that were only computed at the retained indices.
+	 * @param indices the instruction indices of {@code frames}, in ascending order.
+	 * @param frames the frames at {@code indices}, with {@code null} for unreachable instructions.
+	 * @return the retained frames.
+	 */
+	static RetainedFrames of(int[] indices, Frame<UnpickValue>[] frames) {
+		int count = 0;
+		for (Frame<UnpickValue> frame : frames) {
+			if (frame != null) {
+				count++;
+			}
+		}
+
+		if (count == frames.length) {
+			return new RetainedFrames(indices, frames);
+		}
+
+		int[] compactIndices = new int[count];
+		@SuppressWarnings("unchecked")
+		Frame<UnpickValue>[] compactFrames = new Frame[count];
+		count = 0;
+		for (int i = 0; i < frames.length; i++) {
+			if (frames[i] != null) {
+				compactIndices[count] = indices[i];
+				compactFrames[count] = frames[i];
+				count++;
+			}
+		}
+		return new RetainedFrames(compactIndices, compactFrames);
+	}
+
+	/**
+	 * @param method the method to retain frames of.
+	 * @return the indices of the instructions of {@code method} whose frames are retained.
+	 */
+	static BitSet getRetainedIndices(MethodNode method) {
+		InsnList instructions = method.instructions;
+		BitSet retained = new BitSet(instructions.size());
+		if (instructions.size() > 0) {
+			retained.set(0);
+		}
+
+		int index = 0;
+		for (AbstractInsnNode insn : instructions) {
+			if (AbstractInsnNodes.hasLiteralValue(insn)) {
+				retained.set(index);
+				retained.set(index + 1);
+				AbstractInsnNode next = AbstractInsnNodes.nextInstruction(insn);
+				if (next != null) {
+					retained.set(instructions.indexOf(next));
+				}
+				AbstractInsnNode previous = AbstractInsnNodes.previousInstruction(insn);
+				if (previous != null && previous.getOpcode() == Opcodes.POP) {
+					// the literal may follow a null check of a receiver, whose start has the receiver on top of the stack
+					AbstractInsnNode nullCheckStart = AbstractInsnNodes.previousInstruction(previous);
+					if (nullCheckStart != null) {
+						retained.set(instructions.indexOf(nullCheckStart));
+					}
+				}
+			} else if (insn instanceof InvokeDynamicInsnNode indy && "java/lang/invoke/LambdaMetafactory".equals(indy.bsm.getOwner())) {
+				retained.set(index);
+			}
+			index++;
+		}
+
+		// the successor of the last instruction does not exist
+		if (retained.length() > instructions.size()) {
+			retained.clear(instructions.size(), retained.length());
+		}
+		return retained;
+	}
+
+	/**
+	 * @param index the index of an instruction in the analyzed method.
+	 * @return the frame before the instruction at {@code index} executes, or {@code null} if the instruction is
+	 * unreachable or its frame was not retained.
+	 */
+	@Nullable
+	public Frame<UnpickValue> get(int index) {
+		int i = Arrays.binarySearch(indices, index);
+		return i < 0 ? null : frames[i];
+	}
+
+	/**
+	 * @return the number of retained frames.
+	 */
+	public int size() {
+		return frames.length;
+	}
+}
@@ -0,0 +1,178 @@
+package daomephsta.unpick.impl;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A mutable set that compares its elements either by identity, or by {@link Object#equals}. Most dataflow values have
+ * only a handful of usages, so the elements are stored in a small array, which is searched linearly, until there are
+ * too many of them, at which point they are moved to a hash set with the same comparison.
+ */
+final class SmallSet<E> extends AbstractSet<E> {
+	private static final int INITIAL_CAPACITY = 2;
+	private static final int MAX_ARRAY_SIZE = 8;
+	private static final Object[] NO_ELEMENTS = new Object[0];
+
+	private final boolean identity;
+	private Object[] elements = NO_ELEMENTS;
+	private int size;
+	private Set<E> hashed;
+
+	private SmallSet(boolean identity) {
+		this.identity = identity;
+	}
+
+	/**
+	 * @return a set which compares its elements by identity. Only for elements whose {@code equals} is identity, or
+	 * for sets which are never exposed, as it does not meet the contract of {@link Set} otherwise.
+	 */
+	static <E> SmallSet<E> identity() {
+		return new SmallSet<>(true);
+	}
+
+	/**
+	 * @return a set which compares its elements by {@link Object#equals}.
+	 */
+	static <E> SmallSet<E> equality() {
+		return new SmallSet<>(false);
+	}
+
+	void addAll(SmallSet<E> other) {
+		if (other.hashed != null) {
+			for (E element : other.hashed) {
+				add(element);
+			}
+		} else {
+			for (int i = 0; i < other.size; i++) {
+				add(other.element(i));
+			}
+		}
+	}
+
+	@Override
+	public boolean add(E element) {
+		if (hashed != null) {
+			return hashed.add(element);
+		}
+
+		for (int i = 0; i < size; i++) {
+			if (same(elements[i], element)) {
+				return false;
+			}
+		}
+
+		if (size == MAX_ARRAY_SIZE) {
+			hashed = identity ? Collections.newSetFromMap(new IdentityHashMap<>()) : new HashSet<>();
+			for (int i = 0; i < size; i++) {
+				hashed.add(element(i));
+			}
+			hashed.add(element);
+			elements = NO_ELEMENTS;
+			size = 0;
+			return true;
+		}
+
+		if (size == elements.length) {
+			elements = Arrays.copyOf(elements, Math.max(INITIAL_CAPACITY, size * 2));
+		}
+		elements[size++] = element;
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (hashed != null) {
+			return hashed.contains(o);
+		}
+
+		for (int i = 0; i < size; i++) {
+			if (same(elements[i], o)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (hashed != null) {
+			return hashed.remove(o);
+		}
+
+		for (int i = 0; i < size; i++) {
+			if (same(elements[i], o)) {
+				removeAt(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void clear() {
+		elements = NO_ELEMENTS;
+		size = 0;
+		hashed = null;
+	}
+
+	@Override
+	public int size() {
+		return hashed != null ? hashed.size() : size;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		if (hashed != null) {
+			return hashed.iterator();
+		}
+
+		return new Iterator<>() {
+			private int next;
+			private boolean canRemove;
+
+			@Override
+			public boolean hasNext() {
+				return next < size;
+			}
+
+			@Override
+			public E next() {
+				if (next >= size) {
+					throw new NoSuchElementException();
+				}
+				canRemove = true;
+				return element(next++);
+			}
+
+			@Override
+			public void remove() {
+				if (!canRemove) {
+					throw new IllegalStateException();
+				}
+				removeAt(--next);
+				canRemove = false;
+			}
+		};
+	}
+
+	private boolean same(Object element, Object o) {
+		return identity ? element == o : Objects.equals(element, o);
+	}
+
+	@SuppressWarnings("unchecked")
+	private E element(int index) {
+		return (E) elements[index];
+	}
+
+	private void removeAt(int index) {
+		System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+		elements[--size] = null;
+	}
+}
@@ -0,0 +1,346 @@
+package daomephsta.unpick.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LookupSwitchInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TableSwitchInsnNode;
+import org.objectweb.asm.tree.TryCatchBlockNode;
+import org.objectweb.asm.tree.VarInsnNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.Frame;
+import org.objectweb.asm.tree.analysis.SourceInterpreter;
+import org.objectweb.asm.tree.analysis.SourceValue;
+
+/**
+ * Runs the {@link UnpickInterpreter} over a method like ASM's {@link Analyzer}, but only keeps the frames that
+ * {@link RetainedFrames} would retain. Rather than creating and merging a frame for every instruction, the method is
+ * split into basic blocks, and a single working frame is executed through each block. Frames are only stored at the
+ * entries of blocks, where control flow joins, and at the retained instructions.
+ *
+ * <p>This merges in fewer places than the {@link Analyzer}, which stores a frame at every instruction and merges into
+ * it whenever the instruction is revisited. Here frames are only merged into the entry frames of blocks, including
+ * those of exception handlers, and into the frames at retained instructions; the frames in between are recomputed
+ * from the entry frame of their block instead. The facts about a value belong to its {@link ValueClass}, and
+ * {@link UnpickInterpreter#merge} unions the classes of the values it merges, which depends on which values meet but
+ * not on the order or the place they meet in. Values only meet where control flow joins, so both engines end up with
+ * the same classes at the retained instructions, and therefore make the same replacements. The tests check this by
+ * transforming every test class with both engines. Methods with subroutines are analyzed by the {@link Analyzer}.
+ */
+public final class SparseDataflowAnalyzer implements Opcodes {
+	/**
+	 * Whether the {@link Analyzer} also merges the frame at the end label of a try-catch block into its handler, which
+	 * newer versions of ASM do. It is probed rather than assumed, so that both engines agree with whichever version of
+	 * ASM is present.
+	 */
+	private static final boolean HANDLER_RANGE_INCLUDES_END = probeHandlerRange();
+
+	private final String owner;
+	private final MethodNode method;
+	private final UnpickInterpreter interpreter;
+	private final InsnList instructions;
+	private int[] blockStarts;
+	private Frame<UnpickValue>[] blockEntryFrames;
+	private List<TryCatchBlockNode>[] blockHandlers;
+	private List<TryCatchBlockNode>[] blockEndHandlers;
+	private BitSet queued;
+	private int[] queue;
+	private int queueSize;
+	private BitSet retained;
+	private int[] retainedIndices;
+	private Frame<UnpickValue>[] retainedFrames;
+
+	private SparseDataflowAnalyzer(String owner, MethodNode method, UnpickInterpreter interpreter) {
+		this.owner = owner;
+		this.method = method;
+		this.interpreter = interpreter;
+		this.instructions = method.instructions;
+	}
+
+	/**
+	 * Analyzes {@code method}.
+	 * @param owner the internal name of the class declaring {@code method}.
+	 * @param method the method to analyze.
+	 * @param interpreter the interpreter to analyze {@code method} with.
+	 * @return the frames of {@code method} needed for uninlining.
+	 * @throws AnalyzerException if the bytecode of {@code method} is invalid.
+	 */
+	public static RetainedFrames analyze(String owner, MethodNode method, UnpickInterpreter interpreter) throws AnalyzerException {
+		if ((method.access & (ACC_ABSTRACT | ACC_NATIVE)) != 0 || method.instructions.size() == 0) {
+			return RetainedFrames.of(new int[0], newFrameArray(0));
+		}
+
+		for (AbstractInsnNode insn : method.instructions) {
+			if (insn.getOpcode() == JSR || insn.getOpcode() == RET) {
+				return RetainedFrames.retain(method, new Analyzer<>(interpreter).analyze(owner, method));
+			}
+		}
+
+		return new SparseDataflowAnalyzer(owner, method, interpreter).analyze();
+	}
+
+	private RetainedFrames analyze() throws AnalyzerException {
+		findBlocks();
+
+		retained = RetainedFrames.getRetainedIndices(method);
+		retainedIndices = retained.stream().toArray();
+		retainedFrames = newFrameArray(retainedIndices.length);
+
+		blockEntryFrames = newFrameArray(blockStarts.length);
+		queued = new BitSet(blockStarts.length);
+		queue = new int[blockStarts.length];
+		mergeInto(0, computeInitialFrame(owner, method, interpreter));
+
+		Frame<UnpickValue> frame = new Frame<>(method.maxLocals, method.maxStack);
+		while (queueSize > 0) {
+			int block = queue[--queueSize];
+			queued.clear(block);
+			frame.init(blockEntryFrames[block]);
+			executeBlock(block, frame);
+		}
+
+		return RetainedFrames.of(retainedIndices, retainedFrames);
+	}
+
+	private void findBlocks() {
+		int size = instructions.size();
+		BitSet starts = new BitSet(size);
+		starts.set(0);
+		for (TryCatchBlockNode tryCatchBlock : method.tryCatchBlocks) {
+			starts.set(instructions.indexOf(tryCatchBlock.start));
+			starts.set(instructions.indexOf(tryCatchBlock.end));
+			starts.set(instructions.indexOf(tryCatchBlock.handler));
+		}
+
+		int index = 0;
+		for (AbstractInsnNode insn : instructions) {
+			if (insn instanceof JumpInsnNode jump) {
+				starts.set(instructions.indexOf(jump.label));
+				starts.set(index + 1);
+			} else if (insn instanceof TableSwitchInsnNode tableSwitch) {
+				starts.set(instructions.indexOf(tableSwitch.dflt));
+				for (LabelNode label : tableSwitch.labels) {
+					starts.set(instructions.indexOf(label));
+				}
+				starts.set(index + 1);
+			} else if (insn instanceof LookupSwitchInsnNode lookupSwitch) {
+				starts.set(instructions.indexOf(lookupSwitch.dflt));
+				for (LabelNode label : lookupSwitch.labels) {
+					starts.set(instructions.indexOf(label));
+				}
+				starts.set(index + 1);
+			} else if (endsBlock(insn.getOpcode())) {
+				starts.set(index + 1);
+			}
+			index++;
+		}
+		if (starts.length() > size) {
+			starts.clear(size, starts.length());
+		}
+		blockStarts = starts.stream().toArray();
+
+		blockHandlers = newHandlerListArray(blockStarts.length);
+		blockEndHandlers = newHandlerListArray(blockStarts.length);
+		for (TryCatchBlockNode tryCatchBlock : method.tryCatchBlocks) {
+			// try-catch ranges start and end at block boundaries, so each block is either wholly inside or outside one
+			int startBlock = getBlock(instructions.indexOf(tryCatchBlock.start));
+			int endBlock = getBlock(instructions.indexOf(tryCatchBlock.end));
+			for (int block = startBlock; block < endBlock; block++) {
+				addHandler(blockHandlers, block, tryCatchBlock);
+			}
+			if (HANDLER_RANGE_INCLUDES_END) {
+				addHandler(blockEndHandlers, endBlock, tryCatchBlock);
+			}
+		}
+	}
+
+	private static void addHandler(List<TryCatchBlockNode>[] handlers, int block, TryCatchBlockNode tryCatchBlock) {
+		if (handlers[block] == null) {
+			handlers[block] = new ArrayList<>();
+		}
+		handlers[block].add(tryCatchBlock);
+	}
+
+	/**
+	 * @return the frame at the entry of {@code method}, as the {@link Analyzer} would compute it.
+	 */
+	static Frame<UnpickValue> computeInitialFrame(String owner, MethodNode method, UnpickInterpreter interpreter) {
+		Frame<UnpickValue> frame = new Frame<>(method.maxLocals, method.maxStack);
+		int currentLocal = 0;
+		boolean isInstanceMethod = (method.access & ACC_STATIC) == 0;
+		if (isInstanceMethod) {
+			frame.setLocal(currentLocal, interpreter.newParameterValue(true, currentLocal, Type.getObjectType(owner)));
+			currentLocal++;
+		}
+		for (Type argumentType : Type.getArgumentTypes(method.desc)) {
+			frame.setLocal(currentLocal, interpreter.newParameterValue(isInstanceMethod, currentLocal, argumentType));
+			currentLocal++;
+			if (argumentType.getSize() == 2) {
+				frame.setLocal(currentLocal, interpreter.newEmptyValue(currentLocal));
+				currentLocal++;
+			}
+		}
+		while (currentLocal < method.maxLocals) {
+			frame.setLocal(currentLocal, interpreter.newEmptyValue(currentLocal));
+			currentLocal++;
+		}
+		frame.setReturn(interpreter.newReturnTypeValue(Type.getReturnType(method.desc)));
+		return frame;
+	}
+
+	private void executeBlock(int block, Frame<UnpickValue> frame) throws AnalyzerException {
+		int start = blockStarts[block];
+		int end = block + 1 < blockStarts.length ? blockStarts[block + 1] : instructions.size();
+		List<TryCatchBlockNode> handlers = blockHandlers[block];
+		// the frame only changes at real instructions, so it only needs merging into the handlers after those
+		boolean mergeIntoHandlers = handlers != null;
+		if (blockEndHandlers[block] != null) {
+			mergeIntoHandlers(blockEndHandlers[block], frame);
+		}
+
+		AbstractInsnNode insn = instructions.get(start);
+		for (int index = start; index < end; index++, insn = insn.getNext()) {
+			if (retained.get(index)) {
+				retainFrame(index, frame);
+			}
+
+			if (mergeIntoHandlers) {
+				mergeIntoHandlers(handlers, frame);
+				mergeIntoHandlers = false;
+			}
+
+			int opcode = insn.getOpcode();
+			if (opcode < 0) {
+				continue;
+			}
+
+			frame.execute(insn, interpreter);
+			mergeIntoHandlers = handlers != null;
+
+			if (insn instanceof JumpInsnNode jump) {
+				if (opcode != GOTO) {
+					mergeInto(index + 1, frame);
+				}
+				mergeInto(instructions.indexOf(jump.label), frame);
+				return;
+			} else if (insn instanceof TableSwitchInsnNode tableSwitch) {
+				mergeInto(instructions.indexOf(tableSwitch.dflt), frame);
+				for (LabelNode label : tableSwitch.labels) {
+					mergeInto(instructions.indexOf(label), frame);
+				}
+				return;
+			} else if (insn instanceof LookupSwitchInsnNode lookupSwitch) {
+				mergeInto(instructions.indexOf(lookupSwitch.dflt), frame);
+				for (LabelNode label : lookupSwitch.labels) {
+					mergeInto(instructions.indexOf(label), frame);
+				}
+				return;
+			} else if (endsBlock(opcode)) {
+				return;
+			}
+		}
+
+		if (end < instructions.size()) {
+			mergeInto(end, frame);
+		}
+	}
+
+	private void mergeIntoHandlers(List<TryCatchBlockNode> handlers, Frame<UnpickValue> frame) throws AnalyzerException {
+		for (TryCatchBlockNode tryCatchBlock : handlers) {
+			Type catchType = Type.getObjectType(tryCatchBlock.type == null ? "java/lang/Throwable" : tryCatchBlock.type);
+			Frame<UnpickValue> handlerFrame = new Frame<>(frame);
+			handlerFrame.clearStack();
+			handlerFrame.push(interpreter.newExceptionValue(tryCatchBlock, handlerFrame, catchType));
+			mergeInto(instructions.indexOf(tryCatchBlock.handler), handlerFrame);
+		}
+	}
+
+	private void retainFrame(int index, Frame<UnpickValue> frame) throws AnalyzerException {
+		int i = Arrays.binarySearch(retainedIndices, index);
+		if (retainedFrames[i] == null) {
+			retainedFrames[i] = new Frame<>(frame);
+		} else {
+			// merged rather than replaced, so that values from earlier passes are joined as the Analyzer would
+			retainedFrames[i].merge(frame, interpreter);
+		}
+	}
+
+	private void mergeInto(int index, Frame<UnpickValue> frame) throws AnalyzerException {
+		if (index >= instructions.size()) {
+			throw new AnalyzerException(null, "Execution can fall off the end of the code");
+		}
+
+		int block = getBlock(index);
+		boolean changed;
+		if (blockEntryFrames[block] == null) {
+			blockEntryFrames[block] = new Frame<>(frame);
+			changed = true;
+		} else {
+			changed = blockEntryFrames[block].merge(frame, interpreter);
+		}
+
+		if (changed && !queued.get(block)) {
+			queued.set(block);
+			queue[queueSize++] = block;
+		}
+	}
+
+	private int getBlock(int index) {
+		int block = Arrays.binarySearch(blockStarts, index);
+		if (block < 0) {
+			throw new IllegalStateException("Instruction " + index + " does not start a block");
+		}
+		return block;
+	}
+
+	private static boolean endsBlock(int opcode) {
+		return opcode == ATHROW || (opcode >= IRETURN && opcode <= RETURN);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Frame<UnpickValue>[] newFrameArray(int length) {
+		return new Frame[length];
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<TryCatchBlockNode>[] newHandlerListArray(int length) {
+		return new List[length];
+	}
+
+	private static boolean probeHandlerRange() {
+		// static void probe() { try { int i = 0; } catch (Throwable t) { throw t; } }
+		MethodNode probe = new MethodNode(ACC_STATIC, "probe", "()V", null, null);
+		LabelNode start = new LabelNode();
+		LabelNode end = new LabelNode();
+		LabelNode handler = new LabelNode();
+		probe.instructions.add(start);
+		probe.instructions.add(new InsnNode(ICONST_0));
+		probe.instructions.add(new VarInsnNode(ISTORE, 0));
+		probe.instructions.add(end);
+		probe.instructions.add(new InsnNode(RETURN));
+		probe.instructions.add(handler);
+		probe.instructions.add(new InsnNode(ATHROW));
+		probe.tryCatchBlocks.add(new TryCatchBlockNode(start, end, handler, null));
+		probe.maxLocals = 1;
+		probe.maxStack = 1;
+
+		try {
+			Frame<SourceValue>[] frames = new Analyzer<>(new SourceInterpreter()).analyze("Probe", probe);
+			// the store is only seen by the handler if the frame at the end label was merged into it
+			return !frames[probe.instructions.indexOf(handler)].getLocal(0).insns.isEmpty();
+		} catch (AnalyzerException e) {
+			throw new IllegalStateException("Failed to probe the Analyzer", e);
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package daomephsta.unpick.impl;
+
+import java.util.BitSet;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LookupSwitchInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TableSwitchInsnNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.Frame;
+
+/**
+ * Runs the {@link UnpickInterpreter} over a method without branches, switches or exception handlers in a single
+ * linear pass, such as the huge static initializers of registry classes. Control flow never joins in such a method, so
+ * the {@link Analyzer} would never merge two frames, and executing one mutable frame from the first instruction to the
+ * first return or throw gives the same values. Only the frames that {@link RetainedFrames} would retain are copied.
+ */
+public final class StraightLineAnalyzer implements Opcodes {
+	private StraightLineAnalyzer() {
+	}
+
+	/**
+	 * @return whether control flow never branches or joins in {@code method}, so that it can be analyzed with
+	 * {@link #analyze(String, MethodNode, UnpickInterpreter)}.
+	 */
+	public static boolean isStraightLine(MethodNode method) {
+		if (!method.tryCatchBlocks.isEmpty()) {
+			return false;
+		}
+
+		for (AbstractInsnNode insn : method.instructions) {
+			if (insn instanceof JumpInsnNode || insn instanceof TableSwitchInsnNode || insn instanceof LookupSwitchInsnNode
+					|| insn.getOpcode() == RET) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Analyzes a method for which {@link #isStraightLine(MethodNode)} is true.
+	 * @param owner the internal name of the class declaring {@code method}.
+	 * @param method the method to analyze.
+	 * @param interpreter the interpreter to analyze {@code method} with.
+	 * @return the frames of {@code method} needed for uninlining.
+	 * @throws AnalyzerException if the bytecode of {@code method} is invalid.
+	 */
+	public static RetainedFrames analyze(String owner, MethodNode method, UnpickInterpreter interpreter) throws AnalyzerException {
+		if ((method.access & (ACC_ABSTRACT | ACC_NATIVE)) != 0 || method.instructions.size() == 0) {
+			return RetainedFrames.of(new int[0], newFrameArray(0));
+		}
+
+		BitSet retained = RetainedFrames.getRetainedIndices(method);
+		int[] retainedIndices = retained.stream().toArray();
+		Frame<UnpickValue>[] retainedFrames = newFrameArray(retainedIndices.length);
+		int nextRetained = 0;
+
+		Frame<UnpickValue> frame = SparseDataflowAnalyzer.computeInitialFrame(owner, method, interpreter);
+		AbstractInsnNode insn = method.instructions.getFirst();
+		for (int index = 0; insn != null; index++, insn = insn.getNext()) {
+			if (nextRetained < retainedIndices.length && retainedIndices[nextRetained] == index) {
+				retainedFrames[nextRetained++] = new Frame<>(frame);
+			}
+
+			int opcode = insn.getOpcode();
+			if (opcode < 0) {
+				continue;
+			}
+
+			try {
+				frame.execute(insn, interpreter);
+			} catch (AnalyzerException e) {
+				throw new AnalyzerException(e.node, "Error at instruction " + index + ": " + e.getMessage(), e);
+			}
+
+			if (opcode == ATHROW || (opcode >= IRETURN && opcode <= RETURN)) {
+				// the rest of the method is unreachable, so the Analyzer would have no frames for it either
+				return RetainedFrames.of(retainedIndices, retainedFrames);
+			}
+		}
+
+		throw new AnalyzerException(null, "Execution can fall off the end of the code");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Frame<UnpickValue>[] newFrameArray(int length) {
+		return new Frame[length];
+	}
+}
@@ -1,6 +1,8 @@
 package daomephsta.unpick.impl;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -28,6 +30,7 @@ public class UnpickInterpreter extends Interpreter<UnpickValue> implements Opcod
 
 	private final MethodNode method;
 	private final IInheritanceChecker inheritanceChecker;
+	private final Map<AbstractInsnNode, UnpickValue.ParameterUsage[]> parameterUsages = new HashMap<>();
 	private final BasicInterpreter typeTracker = new BasicInterpreter(Opcodes.ASM9) {
 		@Override
 		public BasicValue newValue(Type type) {
@@ -226,7 +229,7 @@ public class UnpickInterpreter extends Interpreter<UnpickValue> implements Opcod
 			localIndex += argument.getSize();
 			paramIndex++;
 		}
-		value.getParameterSources().add(paramIndex);
+		value.addParameterSource(paramIndex);
 		return value;
 	}
 
@@ -241,7 +244,7 @@ public class UnpickInterpreter extends Interpreter<UnpickValue> implements Opcod
 	@Override
 	public UnpickValue newOperation(AbstractInsnNode insn) throws AnalyzerException {
 		UnpickValue value = new UnpickValue(getType(typeTracker.newOperation(insn)));
-		value.getUsages().add(insn);
+		value.addUsage(insn);
 		return value;
 	}
 
@@ -271,10 +274,10 @@ public class UnpickInterpreter extends Interpreter<UnpickValue> implements Opcod
 				TABLESWITCH,
 				LOOKUPSWITCH,
 				NEWARRAY,
-				ANEWARRAY -> value.getTypeInterpretations().add(DataType.INT);
-			case LNEG, L2I, L2F, L2D -> value.getTypeInterpretations().add(DataType.LONG);
-			case FNEG, F2I, F2L, F2D -> value.getTypeInterpretations().add(DataType.FLOAT);
-			case DNEG, D2I, D2L, D2F -> value.getTypeInterpretations().add(DataType.DOUBLE);
+				ANEWARRAY -> value.addTypeInterpretation(DataType.INT);
+			case LNEG, L2I, L2F, L2D -> value.addTypeInterpretation(DataType.LONG);
+			case FNEG, F2I, F2L, F2D -> value.addTypeInterpretation(DataType.FLOAT);
+			case DNEG, D2I, D2L, D2F -> value.addTypeInterpretation(DataType.DOUBLE);
 			case IRETURN, LRETURN, FRETURN, DRETURN, ARETURN -> value.addTypeInterpretationFromType(Type.getReturnType(method.desc));
 			case PUTSTATIC -> value.addTypeInterpretationFromType(Type.getType(((FieldInsnNode) insn).desc));
 			case CHECKCAST -> value.addTypeInterpretationFromType(Type.getObjectType(((TypeInsnNode) insn).desc));
@@ -293,7 +296,7 @@ public class UnpickInterpreter extends Interpreter<UnpickValue> implements Opcod
 		Type type = getType(typeTracker.unaryOperation(insn, typeTracker.newValue(value.getDataType())));
 		UnpickValue newValue = inputIsSameValueAsOutput ? new UnpickValue(type, value) : new UnpickValue(type);
 		if (insn.getType() == AbstractInsnNode.FIELD_INSN || insn.getType() == AbstractInsnNode.JUMP_INSN || (insn.getOpcode() >= IRETURN && insn.getOpcode() <= RETURN)) {
-			newValue.getUsages().add(insn);
+			newValue.addUsage(insn);
 		}
 		return newValue;
 	}
@@ -310,7 +313,7 @@ public class UnpickInterpreter extends Interpreter<UnpickValue> implements Opcod
 				SALOAD,
 				LALOAD,
 				DALOAD -> {
-				value2.getTypeInterpretations().add(DataType.INT);
+				value2.addTypeInterpretation(DataType.INT);
 				yield new UnpickValue(type);
 			}
 			case IADD,
@@ -345,7 +348,7 @@ public class UnpickInterpreter extends Interpreter<UnpickValue> implements Opcod
 				LSHR,
 				IUSHR,
 				LUSHR -> {
-				value2.getTypeInterpretations().add(DataType.INT);
+				value2.addTypeInterpretation(DataType.INT);
 				yield new UnpickValue(type, value1);
 			}
 			case LCMP,
@@ -365,7 +368,7 @@ public class UnpickInterpreter extends Interpreter<UnpickValue> implements Opcod
 				yield new UnpickValue(type);
 			}
 			case PUTFIELD -> {
-				value2.getUsages().add(insn);
+				value2.addUsage(insn);
 				value2.addTypeInterpretationFromType(Type.getType(((FieldInsnNode) insn).desc));
 				yield new UnpickValue(type);
 			}
@@ -377,20 +380,20 @@ public class UnpickInterpreter extends Interpreter<UnpickValue> implements Opcod
 	@Override
 	public UnpickValue ternaryOperation(AbstractInsnNode insn, UnpickValue value1, UnpickValue value2, UnpickValue value3) throws AnalyzerException {
 		// only used for arrays
-		value2.getTypeInterpretations().add(DataType.INT);
+		value2.addTypeInterpretation(DataType.INT);
 
 		switch (insn.getOpcode()) {
 			case BASTORE -> {
 				if (!value1.getDataType().getDescriptor().equals("[Z")) {
-					value3.getTypeInterpretations().add(DataType.BYTE);
+					value3.addTypeInterpretation(DataType.BYTE);
 				}
 			}
-			case SASTORE -> value3.getTypeInterpretations().add(DataType.SHORT);
-			case CASTORE -> value3.getTypeInterpretations().add(DataType.CHAR);
-			case IASTORE -> value3.getTypeInterpretations().add(DataType.INT);
-			case LASTORE -> value3.getTypeInterpretations().add(DataType.LONG);
-			case FASTORE -> value3.getTypeInterpretations().add(DataType.FLOAT);
-			case DASTORE -> value3.getTypeInterpretations().add(DataType.DOUBLE);
+			case SASTORE -> value3.addTypeInterpretation(DataType.SHORT);
+			case CASTORE -> value3.addTypeInterpretation(DataType.CHAR);
+			case IASTORE -> value3.addTypeInterpretation(DataType.INT);
+			case LASTORE -> value3.addTypeInterpretation(DataType.LONG);
+			case FASTORE -> value3.addTypeInterpretation(DataType.FLOAT);
+			case DASTORE -> value3.addTypeInterpretation(DataType.DOUBLE);
 			case AASTORE -> {
 				if (value1.getDataType().getSort() == Type.ARRAY) {
 					value3.addTypeInterpretationFromType(Type.getType(value1.getDataType().getDescriptor().substring(1)));
@@ -413,11 +416,11 @@ public class UnpickInterpreter extends Interpreter<UnpickValue> implements Opcod
 			Type[] argumentTypes = Type.getArgumentTypes(desc);
 			for (int i = hasThis ? 1 : 0; i < values.size(); i++) {
 				int paramIndex = hasThis ? i - 1 : i;
-				values.get(i).getParameterUsages().add(new UnpickValue.ParameterUsage(insn, paramIndex));
+				values.get(i).addParameterUsage(getParameterUsage(insn, paramIndex, values.size()));
 				values.get(i).addTypeInterpretationFromType(argumentTypes[paramIndex]);
 			}
 			UnpickValue value = new UnpickValue(type);
-			value.getUsages().add(insn);
+			value.addUsage(insn);
 			return value;
 		}
 	}
@@ -429,18 +432,24 @@ public class UnpickInterpreter extends Interpreter<UnpickValue> implements Opcod
 
 	@Override
 	public UnpickValue merge(UnpickValue value1, UnpickValue value2) {
-		value1.getParameterSources().addAll(value2.getParameterSources());
-		value1.getParameterUsages().addAll(value2.getParameterUsages());
-		value1.getUsages().addAll(value2.getUsages());
-		value1.getTypeInterpretations().addAll(value2.getTypeInterpretations());
-		value2.setParameterSources(value1.getParameterSources());
-		value2.setParameterUsages(value1.getParameterUsages());
-		value2.setUsages(value1.getUsages());
-		value2.setTypeInterpretations(value1.getTypeInterpretations());
+		value1.union(value2);
 		Type type = typeTracker.merge(typeTracker.newValue(value1.getDataType()), typeTracker.newValue(value2.getDataType())).getType();
 		return new UnpickValue(type, value1);
 	}
 
+	/**
+	 * The analyzer interprets an instruction again whenever its input frame changes, so the usages of its parameters
+	 * are created once and reused. This keeps them unique by identity in the sets of the values.
+	 */
+	private UnpickValue.ParameterUsage getParameterUsage(AbstractInsnNode methodInvocation, int paramIndex, int paramCount) {
+		UnpickValue.ParameterUsage[] usages = parameterUsages.computeIfAbsent(methodInvocation, k -> new UnpickValue.ParameterUsage[paramCount]);
+		UnpickValue.ParameterUsage usage = usages[paramIndex];
+		if (usage == null) {
+			usage = usages[paramIndex] = new UnpickValue.ParameterUsage(methodInvocation, paramIndex);
+		}
+		return usage;
+	}
+
 	private static Type getType(BasicValue value) {
 		return value == null ? null : value.getType();
 	}
@@ -1,6 +1,5 @@
 package daomephsta.unpick.impl;
 
-import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
@@ -10,19 +9,17 @@ import org.objectweb.asm.tree.AbstractInsnNode;
 import daomephsta.unpick.api.constantgroupers.IReplacementGenerator;
 import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
 
+/**
+ * A value tracked by the {@link UnpickInterpreter}. Values that are known to be the same value, such as a value and its
+ * copy on the stack, belong to the same {@link ValueClass}, so that a usage found through one is seen by all of them.
+ */
 public class UnpickValue implements IReplacementGenerator.IDataflowValue {
 	private final Type dataType;
-	private Set<Integer> parameterSources;
-	private Set<IReplacementGenerator.IParameterUsage> parameterUsages;
-	private Set<AbstractInsnNode> usages;
-	private Set<DataType> typeInterpretations;
+	private final ValueClass valueClass;
 
 	public UnpickValue(Type dataType) {
 		this.dataType = dataType;
-		this.parameterSources = new HashSet<>();
-		this.parameterUsages = new HashSet<>();
-		this.usages = new HashSet<>();
-		this.typeInterpretations = new HashSet<>();
+		this.valueClass = new ValueClass();
 		if (dataType != null) {
 			this.addTypeInterpretationFromType(dataType);
 		}
@@ -30,10 +27,7 @@ public class UnpickValue implements IReplacementGenerator.IDataflowValue {
 
 	public UnpickValue(Type dataType, UnpickValue cloneOf) {
 		this.dataType = dataType;
-		this.parameterSources = cloneOf.getParameterSources();
-		this.parameterUsages = cloneOf.getParameterUsages();
-		this.usages = cloneOf.getUsages();
-		this.typeInterpretations = cloneOf.getTypeInterpretations();
+		this.valueClass = cloneOf.valueClass.find();
 		if (dataType != null) {
 			this.addTypeInterpretationFromType(dataType);
 		}
@@ -49,49 +43,63 @@ public class UnpickValue implements IReplacementGenerator.IDataflowValue {
 		return dataType;
 	}
 
+	/**
+	 * @return the representative of the class of values this value belongs to.
+	 */
+	public ValueClass getValueClass() {
+		return valueClass.find();
+	}
+
 	@Override
 	public Set<Integer> getParameterSources() {
-		return parameterSources;
+		return valueClass.getParameterSources();
 	}
 
 	@Override
 	public Set<IReplacementGenerator.IParameterUsage> getParameterUsages() {
-		return parameterUsages;
+		return valueClass.getParameterUsages();
 	}
 
 	@Override
 	public Set<AbstractInsnNode> getUsages() {
-		return usages;
+		return valueClass.getUsages();
 	}
 
 	@Override
 	public Set<DataType> getTypeInterpretations() {
-		return typeInterpretations;
+		return valueClass.getTypeInterpretations();
 	}
 
-	void setParameterSources(Set<Integer> parameterSources) {
-		this.parameterSources = parameterSources;
+	void addParameterSource(int paramIndex) {
+		valueClass.addParameterSource(paramIndex);
 	}
 
-	void setParameterUsages(Set<IReplacementGenerator.IParameterUsage> parameterUsages) {
-		this.parameterUsages = parameterUsages;
+	void addParameterUsage(ParameterUsage parameterUsage) {
+		valueClass.addParameterUsage(parameterUsage);
 	}
 
-	void setUsages(Set<AbstractInsnNode> usages) {
-		this.usages = usages;
+	void addUsage(AbstractInsnNode usage) {
+		valueClass.addUsage(usage);
 	}
 
-	void setTypeInterpretations(Set<DataType> typeInterpretations) {
-		this.typeInterpretations = typeInterpretations;
+	void addTypeInterpretation(DataType typeInterpretation) {
+		valueClass.addTypeInterpretation(typeInterpretation);
 	}
 
 	void addTypeInterpretationFromType(Type type) {
 		DataType dataType = DataTypeUtils.asmTypeToDataType(type);
 		if (dataType != null) {
-			typeInterpretations.add(dataType);
+			valueClass.addTypeInterpretation(dataType);
 		}
 	}
 
+	/**
+	 * Makes this value and {@code other} the same value.
+	 */
+	void union(UnpickValue other) {
+		valueClass.union(other.valueClass);
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) {
@@ -106,25 +114,13 @@ public class UnpickValue implements IReplacementGenerator.IDataflowValue {
 		if (!Objects.equals(dataType, that.dataType)) {
 			return false;
 		}
-		if (!parameterSources.equals(that.parameterSources)) {
-			return false;
-		}
-		if (!parameterUsages.equals(that.parameterUsages)) {
-			return false;
-		}
-		if (!usages.equals(that.usages)) {
-			return false;
-		}
-		return typeInterpretations.equals(that.typeInterpretations);
+		return valueClass.sameFacts(that.valueClass);
 	}
 
 	@Override
 	public int hashCode() {
 		int result = Objects.hashCode(dataType);
-		result = 31 * result + parameterSources.hashCode();
-		result = 31 * result + parameterUsages.hashCode();
-		result = 31 * result + usages.hashCode();
-		result = 31 * result + typeInterpretations.hashCode();
+		result = 31 * result + valueClass.factsHashCode();
 		return result;
 	}
 
@@ -3,6 +3,8 @@ package daomephsta.unpick.impl;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.reflect.Array;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
@@ -40,6 +42,15 @@ public final class Utils {
 		return literal instanceof Float || literal instanceof Double;
 	}
 
+	/**
+	 * @param internalName the internal name of a class.
+	 * @return the internal name of the package of the class, or an empty string for the default package.
+	 */
+	public static String getPackageName(String internalName) {
+		int packageEnd = internalName.lastIndexOf('/');
+		return packageEnd < 0 ? "" : internalName.substring(0, packageEnd);
+	}
+
 	public static <T> T[] prepend(T value, T[] array) {
 		@SuppressWarnings("unchecked")
 		T[] newArray = (T[]) Array.newInstance(array.getClass().getComponentType(), array.length + 1);
@@ -56,6 +67,14 @@ public final class Utils {
 		return newArray;
 	}
 
+	public static MessageDigest newSha256Digest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new AssertionError("SHA-256 is required to be supported", e);
+		}
+	}
+
 	public static void throwOrWarn(Logger logger, boolean warn, Supplier<String> message) {
 		if (warn) {
 			logger.warning(message);
@@ -0,0 +1,138 @@
+package daomephsta.unpick.impl;
+
+import java.util.Set;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+
+import daomephsta.unpick.api.constantgroupers.IReplacementGenerator;
+import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
+
+/**
+ * A set of {@link UnpickValue}s that are known to be the same value, in a disjoint-set forest. Only the representative
+ * of a class holds the facts about its values, which are combined once when two classes are joined, so that merging
+ * values that are already equivalent costs next to nothing. This matters at loop headers, where the analyzer merges
+ * the same values on every iteration.
+ */
+public final class ValueClass {
+	private ValueClass parent = this;
+	private IntBitSet parameterSources = new IntBitSet();
+	// parameter usages have value equality, so are compared by it; instructions only have identity
+	private SmallSet<IReplacementGenerator.IParameterUsage> parameterUsages = SmallSet.equality();
+	private SmallSet<AbstractInsnNode> usages = SmallSet.identity();
+	private DataTypeSet typeInterpretations = new DataTypeSet();
+
+	ValueClass() {
+	}
+
+	/**
+	 * @return the representative of this class.
+	 */
+	public ValueClass find() {
+		ValueClass node = this;
+		while (node.parent != node) {
+			// path halving
+			node.parent = node.parent.parent;
+			node = node.parent;
+		}
+		return node;
+	}
+
+	/**
+	 * Joins the classes of {@code this} and {@code other}.
+	 * @return the representative of the joined class.
+	 */
+	ValueClass union(ValueClass other) {
+		ValueClass root1 = find();
+		ValueClass root2 = other.find();
+		if (root1 == root2) {
+			return root1;
+		}
+
+		// copy the facts of the class with fewer of them
+		if (root1.weight() < root2.weight()) {
+			ValueClass temp = root1;
+			root1 = root2;
+			root2 = temp;
+		}
+
+		root1.parameterSources.addAll(root2.parameterSources);
+		root1.parameterUsages.addAll(root2.parameterUsages);
+		root1.usages.addAll(root2.usages);
+		root1.typeInterpretations.addAll(root2.typeInterpretations);
+		root2.parent = root1;
+		root2.parameterSources = null;
+		root2.parameterUsages = null;
+		root2.usages = null;
+		root2.typeInterpretations = null;
+		return root1;
+	}
+
+	private int weight() {
+		return usages.size() + parameterUsages.size();
+	}
+
+	public Set<Integer> getParameterSources() {
+		return find().parameterSources;
+	}
+
+	/**
+	 * Iterates over the parameter sources without boxing them.
+	 * @param fromIndex the parameter index to start searching at.
+	 * @return the smallest parameter source that is at least {@code fromIndex}, or {@code -1} if there is none.
+	 */
+	public int nextParameterSource(int fromIndex) {
+		return find().parameterSources.nextInt(fromIndex);
+	}
+
+	public Set<IReplacementGenerator.IParameterUsage> getParameterUsages() {
+		return find().parameterUsages;
+	}
+
+	public Set<AbstractInsnNode> getUsages() {
+		return find().usages;
+	}
+
+	public Set<DataType> getTypeInterpretations() {
+		return find().typeInterpretations;
+	}
+
+	void addParameterSource(int paramIndex) {
+		find().parameterSources.addInt(paramIndex);
+	}
+
+	void addParameterUsage(UnpickValue.ParameterUsage parameterUsage) {
+		find().parameterUsages.add(parameterUsage);
+	}
+
+	void addUsage(AbstractInsnNode usage) {
+		find().usages.add(usage);
+	}
+
+	void addTypeInterpretation(DataType typeInterpretation) {
+		find().typeInterpretations.add(typeInterpretation);
+	}
+
+	/**
+	 * @return whether the values of this class and {@code other} are known to have the same facts.
+	 */
+	boolean sameFacts(ValueClass other) {
+		ValueClass root1 = find();
+		ValueClass root2 = other.find();
+		if (root1 == root2) {
+			return true;
+		}
+		return root1.parameterSources.equals(root2.parameterSources)
+				&& root1.typeInterpretations.equals(root2.typeInterpretations)
+				&& root1.usages.equals(root2.usages)
+				&& root1.parameterUsages.equals(root2.parameterUsages);
+	}
+
+	int factsHashCode() {
+		ValueClass root = find();
+		int result = root.parameterSources.hashCode();
+		result = 31 * result + root.parameterUsages.hashCode();
+		result = 31 * result + root.usages.hashCode();
+		result = 31 * result + root.typeInterpretations.hashCode();
+		return result;
+	}
+}
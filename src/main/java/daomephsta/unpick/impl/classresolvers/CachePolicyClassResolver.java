@@ -0,0 +1,74 @@
+package daomephsta.unpick.impl.classresolvers;
+
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.tree.ClassNode;
+
+import daomephsta.unpick.api.IUnpickMetrics;
+import daomephsta.unpick.api.classresolvers.CachePolicy;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.api.classresolvers.IConstantResolver;
+import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
+import daomephsta.unpick.api.classresolvers.IMemberChecker;
+import daomephsta.unpick.api.classresolvers.ParseDepth;
+
+/**
+ * Resolves classes with another resolver, but limits the caches of everything created from it by its own policy,
+ * which takes precedence over any policy passed to the {@code as*} methods. So the policy also applies when this
+ * resolver is chained, or passed to a builder which creates the resolvers and checkers itself.
+ */
+public class CachePolicyClassResolver implements IMetadataSharingClassResolver {
+	private final IClassResolver delegate;
+	private final CachePolicy cachePolicy;
+
+	public CachePolicyClassResolver(IClassResolver delegate, CachePolicy cachePolicy) {
+		this.delegate = delegate;
+		this.cachePolicy = cachePolicy;
+	}
+
+	@Override
+	@Nullable
+	public ClassNode resolveClass(String internalName) {
+		return delegate.resolveClass(internalName);
+	}
+
+	@Override
+	@Nullable
+	public ClassNode resolveClass(String internalName, ParseDepth depth) {
+		return delegate.resolveClass(internalName, depth);
+	}
+
+	@Override
+	public boolean mayContainPackage(String packageName) {
+		return delegate.mayContainPackage(packageName);
+	}
+
+	@Override
+	public IConstantResolver asConstantResolver(IUnpickMetrics metrics, CachePolicy cachePolicy) {
+		return delegate.asConstantResolver(metrics, this.cachePolicy);
+	}
+
+	@Override
+	public IConstantResolver asConstantResolver(IUnpickMetrics metrics, CachePolicy cachePolicy, ClassMetadataStores metadataStores) {
+		return metadataStores.asConstantResolver(delegate, metrics, this.cachePolicy);
+	}
+
+	@Override
+	public IInheritanceChecker asInheritanceChecker(IUnpickMetrics metrics, CachePolicy cachePolicy) {
+		return delegate.asInheritanceChecker(metrics, this.cachePolicy);
+	}
+
+	@Override
+	public IInheritanceChecker asInheritanceChecker(IUnpickMetrics metrics, CachePolicy cachePolicy, ClassMetadataStores metadataStores) {
+		return metadataStores.asInheritanceChecker(delegate, metrics, this.cachePolicy);
+	}
+
+	@Override
+	public IMemberChecker asMemberChecker(IUnpickMetrics metrics, CachePolicy cachePolicy) {
+		return delegate.asMemberChecker(metrics, this.cachePolicy);
+	}
+
+	@Override
+	public IMemberChecker asMemberChecker(IUnpickMetrics metrics, CachePolicy cachePolicy, ClassMetadataStores metadataStores) {
+		return metadataStores.asMemberChecker(delegate, metrics, this.cachePolicy);
+	}
+}
@@ -3,64 +3,128 @@ package daomephsta.unpick.impl.classresolvers;
 import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.tree.ClassNode;
 
+import daomephsta.unpick.api.IUnpickMetrics;
+import daomephsta.unpick.api.classresolvers.CachePolicy;
 import daomephsta.unpick.api.classresolvers.IClassResolver;
 import daomephsta.unpick.api.classresolvers.IConstantResolver;
 import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
 import daomephsta.unpick.api.classresolvers.IMemberChecker;
+import daomephsta.unpick.api.classresolvers.ParseDepth;
 import daomephsta.unpick.impl.Utils;
 import daomephsta.unpick.impl.constantresolvers.ChainConstantResolver;
 import daomephsta.unpick.impl.inheritancecheckers.ChainInheritanceChecker;
 import daomephsta.unpick.impl.membercheckers.ChainMemberChecker;
 
-public class ChainClassResolver implements IClassResolver {
+/**
+ * Resolves classes with the first of several resolvers which has them. Lookups only ask the resolvers which may
+ * contain the package of the class, which also applies to the constant resolver, inheritance checker and member
+ * checker created from the chain. If the chain has a policy for missing classes, it remembers which resolvers may
+ * contain each package, and each of them also remembers the classes which none of the resolvers has, in which case
+ * the resolvers must not gain classes once it is in use.
+ */
+public class ChainClassResolver implements IMetadataSharingClassResolver {
 	private final IClassResolver[] resolvers;
+	@Nullable
+	private final CachePolicy missingClassPolicy;
+	private final PackageRouter router;
 
 	public ChainClassResolver(IClassResolver... resolvers) {
+		this(null, resolvers);
+	}
+
+	/**
+	 * @param missingClassPolicy limits the classes remembered as missing, or {@code null} to remember none.
+	 * @param resolvers the resolvers to ask, in order.
+	 */
+	public ChainClassResolver(@Nullable CachePolicy missingClassPolicy, IClassResolver[] resolvers) {
 		this.resolvers = resolvers;
+		this.missingClassPolicy = missingClassPolicy;
+		this.router = PackageRouter.of(resolvers, missingClassPolicy);
+	}
+
+	/**
+	 * @param missingClassPolicy limits the classes remembered as missing.
+	 * @return a chain of the same resolvers, which remembers the classes none of them has.
+	 */
+	public ChainClassResolver rememberMissingClasses(CachePolicy missingClassPolicy) {
+		return new ChainClassResolver(missingClassPolicy, resolvers);
 	}
 
 	@Override
 	@Nullable
 	public ClassNode resolveClass(String internalName) {
-		for (IClassResolver resolver : resolvers) {
-			ClassNode cn = resolver.resolveClass(internalName);
+		return resolveClass(internalName, ParseDepth.FULL);
+	}
+
+	@Override
+	@Nullable
+	public ClassNode resolveClass(String internalName, ParseDepth depth) {
+		for (int i : router.route(internalName)) {
+			ClassNode cn = resolvers[i].resolveClass(internalName, depth);
 			if (cn != null) {
 				return cn;
 			}
 		}
 
+		router.markMissing(internalName);
 		return null;
 	}
 
 	@Override
-	public IConstantResolver asConstantResolver() {
+	public boolean mayContainPackage(String packageName) {
+		for (IClassResolver resolver : resolvers) {
+			if (resolver.mayContainPackage(packageName)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public IConstantResolver asConstantResolver(IUnpickMetrics metrics, CachePolicy cachePolicy) {
+		return asConstantResolver(metrics, cachePolicy, new ClassMetadataStores());
+	}
+
+	@Override
+	public IConstantResolver asConstantResolver(IUnpickMetrics metrics, CachePolicy cachePolicy, ClassMetadataStores metadataStores) {
 		IConstantResolver[] constantResolvers = new IConstantResolver[resolvers.length];
 		for (int i = 0; i < resolvers.length; i++) {
-			constantResolvers[i] = resolvers[i].asConstantResolver();
+			constantResolvers[i] = metadataStores.asConstantResolver(resolvers[i], metrics, cachePolicy);
 		}
-		return new ChainConstantResolver(constantResolvers);
+		return new ChainConstantResolver(constantResolvers, router.newView());
 	}
 
 	@Override
-	public IInheritanceChecker asInheritanceChecker() {
+	public IInheritanceChecker asInheritanceChecker(IUnpickMetrics metrics, CachePolicy cachePolicy) {
+		return asInheritanceChecker(metrics, cachePolicy, new ClassMetadataStores());
+	}
+
+	@Override
+	public IInheritanceChecker asInheritanceChecker(IUnpickMetrics metrics, CachePolicy cachePolicy, ClassMetadataStores metadataStores) {
 		IInheritanceChecker[] inheritanceCheckers = new IInheritanceChecker[resolvers.length];
 		for (int i = 0; i < resolvers.length; i++) {
-			inheritanceCheckers[i] = resolvers[i].asInheritanceChecker();
+			inheritanceCheckers[i] = metadataStores.asInheritanceChecker(resolvers[i], metrics, cachePolicy);
 		}
-		return new ChainInheritanceChecker(inheritanceCheckers);
+		return new ChainInheritanceChecker(inheritanceCheckers, router.newView());
+	}
+
+	@Override
+	public IMemberChecker asMemberChecker(IUnpickMetrics metrics, CachePolicy cachePolicy) {
+		return asMemberChecker(metrics, cachePolicy, new ClassMetadataStores());
 	}
 
 	@Override
-	public IMemberChecker asMemberChecker() {
+	public IMemberChecker asMemberChecker(IUnpickMetrics metrics, CachePolicy cachePolicy, ClassMetadataStores metadataStores) {
 		IMemberChecker[] memberCheckers = new IMemberChecker[resolvers.length];
 		for (int i = 0; i < resolvers.length; i++) {
-			memberCheckers[i] = resolvers[i].asMemberChecker();
+			memberCheckers[i] = metadataStores.asMemberChecker(resolvers[i], metrics, cachePolicy);
 		}
-		return new ChainMemberChecker(memberCheckers);
+		return new ChainMemberChecker(memberCheckers, router.newView());
 	}
 
 	@Override
 	public IClassResolver chain(IClassResolver... others) {
-		return new ChainClassResolver(Utils.concat(resolvers, others));
+		return new ChainClassResolver(missingClassPolicy, Utils.concat(resolvers, others));
 	}
 }
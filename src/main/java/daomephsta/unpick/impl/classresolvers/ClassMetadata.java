@@ -0,0 +1,126 @@
+package daomephsta.unpick.impl.classresolvers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.InnerClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.ParameterNode;
+
+import daomephsta.unpick.api.classresolvers.IConstantResolver;
+import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
+import daomephsta.unpick.api.classresolvers.IMemberChecker;
+import daomephsta.unpick.api.classresolvers.ParseDepth;
+import daomephsta.unpick.impl.constantresolvers.BytecodeAnalysisConstantResolver;
+
+/**
+ * Everything the constant resolver, inheritance checker and member checker need to know about a class, derived from
+ * a single parse of it. Keeps none of the class's code, so it is much smaller than the {@link ClassNode}. Only the
+ * parts which the class was parsed deeply enough for are filled in; the rest are empty.
+ * @param depth how deeply the class was parsed.
+ * @param access the access flags of the class.
+ * @param classInfo the supertypes of the class.
+ * @param constants the constants declared by the class, by name, if parsed to {@link ParseDepth#INITIALIZERS}.
+ * @param fields the fields of the class, in declaration order.
+ * @param methods the methods of the class, in declaration order.
+ * @param parameters the parameters of each method of the class, by name and descriptor.
+ * @param innerClassAccess the access flags of the inner classes listed by the class, by internal name.
+ */
+public record ClassMetadata(
+		ParseDepth depth,
+		int access,
+		IInheritanceChecker.ClassInfo classInfo,
+		Map<String, IConstantResolver.ResolvedConstant> constants,
+		List<IMemberChecker.MemberInfo> fields,
+		List<IMemberChecker.MemberInfo> methods,
+		Map<String, List<IMemberChecker.ParameterInfo>> parameters,
+		Map<String, Integer> innerClassAccess
+) {
+	private static final String[] EMPTY_ARRAY = new String[0];
+	@SuppressWarnings("unchecked")
+	private static final List<AnnotationNode>[] EMPTY_ANNOTATION_LIST_ARRAY = new List[0];
+
+	/**
+	 * @param node the class.
+	 * @param depth how deeply {@code node} was parsed.
+	 * @return the metadata of the class.
+	 */
+	public static ClassMetadata of(ClassNode node, ParseDepth depth) {
+		IInheritanceChecker.ClassInfo classInfo = new IInheritanceChecker.ClassInfo(node.superName,
+				node.interfaces == null ? EMPTY_ARRAY : node.interfaces.toArray(new String[0]), (node.access & Opcodes.ACC_INTERFACE) != 0);
+
+		List<IMemberChecker.MemberInfo> fields = new ArrayList<>();
+		for (FieldNode field : node.fields) {
+			fields.add(IMemberChecker.MemberInfo.create(field.access, field.name, field.desc).withAnnotations(getAnnotations(field.visibleAnnotations, field.invisibleAnnotations)));
+		}
+
+		List<IMemberChecker.MemberInfo> methods = new ArrayList<>();
+		Map<String, List<IMemberChecker.ParameterInfo>> parameters = new HashMap<>();
+		for (MethodNode method : node.methods) {
+			methods.add(IMemberChecker.MemberInfo.create(method.access, method.name, method.desc).withAnnotations(getAnnotations(method.visibleAnnotations, method.invisibleAnnotations)));
+			parameters.put(method.name + method.desc, getParameters(method));
+		}
+
+		Map<String, Integer> innerClassAccess = new HashMap<>();
+		if (node.innerClasses != null) {
+			for (InnerClassNode innerClass : node.innerClasses) {
+				innerClassAccess.putIfAbsent(innerClass.name, innerClass.access);
+			}
+		}
+
+		Map<String, IConstantResolver.ResolvedConstant> constants = depth.includes(ParseDepth.INITIALIZERS) ? BytecodeAnalysisConstantResolver.extractConstants(node) : Map.of();
+		return new ClassMetadata(depth, node.access, classInfo, constants, fields, methods, parameters, innerClassAccess);
+	}
+
+	private static List<IMemberChecker.ParameterInfo> getParameters(MethodNode method) {
+		List<IMemberChecker.ParameterInfo> params = new ArrayList<>();
+		List<ParameterNode> paramNodes = Objects.requireNonNullElse(method.parameters, List.of());
+		List<AnnotationNode>[] visibleParamAnnotations = Objects.requireNonNullElse(method.visibleParameterAnnotations, EMPTY_ANNOTATION_LIST_ARRAY);
+		List<AnnotationNode>[] invisibleParamAnnotations = Objects.requireNonNullElse(method.invisibleParameterAnnotations, EMPTY_ANNOTATION_LIST_ARRAY);
+		int realParamIndex = 0;
+		int nonSyntheticParamIndex = 0;
+		while (nonSyntheticParamIndex < Math.max(visibleParamAnnotations.length, invisibleParamAnnotations.length)) {
+			while (realParamIndex < paramNodes.size() && (paramNodes.get(realParamIndex).access & Opcodes.ACC_SYNTHETIC) != 0) {
+				params.add(IMemberChecker.ParameterInfo.create(0));
+				realParamIndex++;
+			}
+
+			int access = realParamIndex < paramNodes.size() ? paramNodes.get(realParamIndex).access : 0;
+			List<AnnotationNode> visibleAnnotations = nonSyntheticParamIndex < visibleParamAnnotations.length ? visibleParamAnnotations[nonSyntheticParamIndex] : null;
+			List<AnnotationNode> invisibleAnnotations = nonSyntheticParamIndex < invisibleParamAnnotations.length ? invisibleParamAnnotations[nonSyntheticParamIndex] : null;
+
+			params.add(IMemberChecker.ParameterInfo.create(access).withAnnotations(getAnnotations(visibleAnnotations, invisibleAnnotations)));
+
+			nonSyntheticParamIndex++;
+			realParamIndex++;
+		}
+		return params;
+	}
+
+	private static List<String> getAnnotations(@Nullable List<AnnotationNode> visibleAnnotations, @Nullable List<AnnotationNode> invisibleAnnotations) {
+		List<String> annotations = new ArrayList<>();
+
+		if (visibleAnnotations != null) {
+			for (AnnotationNode annotation : visibleAnnotations) {
+				annotations.add(Type.getType(annotation.desc).getClassName());
+			}
+		}
+
+		if (invisibleAnnotations != null) {
+			for (AnnotationNode annotation : invisibleAnnotations) {
+				annotations.add(Type.getType(annotation.desc).getClassName());
+			}
+		}
+
+		return annotations;
+	}
+}
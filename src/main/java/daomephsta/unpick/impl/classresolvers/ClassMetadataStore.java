@@ -0,0 +1,63 @@
+package daomephsta.unpick.impl.classresolvers;
+
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.tree.ClassNode;
+
+import daomephsta.unpick.api.classresolvers.CachePolicy;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.api.classresolvers.ParseDepth;
+import daomephsta.unpick.impl.ResolverCache;
+
+/**
+ * The {@link ClassMetadata} of the classes of a class resolver, which the constant resolver, inheritance checker and
+ * member checker created together from it share through {@link ClassMetadataStores}, so that each class is only
+ * resolved and parsed once however they look it up. Classes are only parsed as deeply as the lookups so far have
+ * needed, so e.g. walking the hierarchy of library classes only reads their headers.
+ */
+public final class ClassMetadataStore {
+	private final IClassResolver classResolver;
+	private final ResolverCache<ClassMetadata> cache;
+
+	public ClassMetadataStore(IClassResolver classResolver, CachePolicy cachePolicy) {
+		this.classResolver = classResolver;
+		this.cache = new ResolverCache<>(cachePolicy);
+	}
+
+	/**
+	 * @param internalName the internal name of the class.
+	 * @param depth how deeply the class must have been parsed.
+	 * @return the metadata of the class if it has already been parsed deeply enough, otherwise {@code null}.
+	 */
+	@Nullable
+	public ClassMetadata getIfPresent(String internalName, ParseDepth depth) {
+		ClassMetadata metadata = cache.get(internalName);
+		return metadata != null && metadata.depth().includes(depth) ? metadata : null;
+	}
+
+	/**
+	 * Gets the metadata of a class, parsing it if it has not been parsed deeply enough yet. Metadata which is parsed
+	 * more deeply replaces the cached metadata, and is then used for shallower lookups too.
+	 * @param internalName the internal name of the class.
+	 * @param depth how deeply the class must have been parsed.
+	 * @return the metadata of the class, or {@code null} if the class cannot be resolved.
+	 */
+	@Nullable
+	public ClassMetadata get(String internalName, ParseDepth depth) {
+		ClassMetadata metadata = getIfPresent(internalName, depth);
+		if (metadata != null) {
+			return metadata;
+		}
+
+		metadata = parse(internalName, depth);
+		if (metadata == null) {
+			return null;
+		}
+		return cache.merge(internalName, metadata, (existing, parsed) -> existing.depth().includes(parsed.depth()) ? existing : parsed);
+	}
+
+	@Nullable
+	private ClassMetadata parse(String internalName, ParseDepth depth) {
+		ClassNode node = classResolver.resolveClass(internalName, depth);
+		return node == null ? null : ClassMetadata.of(node, depth);
+	}
+}
@@ -0,0 +1,89 @@
+package daomephsta.unpick.impl.classresolvers;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import daomephsta.unpick.api.IUnpickMetrics;
+import daomephsta.unpick.api.classresolvers.CachePolicy;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.api.classresolvers.IConstantResolver;
+import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
+import daomephsta.unpick.api.classresolvers.IMemberChecker;
+
+/**
+ * The {@link ClassMetadataStore}s shared by a constant resolver, inheritance checker and member checker which are
+ * created together, e.g. by a builder, with one store for each class resolver and cache policy they read classes with.
+ * Stores are looked up by the identity of their resolver, as resolvers which are equal may still resolve different
+ * classes. Nothing else holds on to the stores, so they live as long as what was created with them, and creating new
+ * resolvers and checkers reads the classes again.
+ */
+public final class ClassMetadataStores {
+	private final Map<IClassResolver, Map<CachePolicy, ClassMetadataStore>> stores = new IdentityHashMap<>();
+
+	/**
+	 * @param classResolver the resolver which resolves the classes of the store.
+	 * @param cachePolicy the policy limiting the store.
+	 * @return the store of the resolver with the policy, which is created the first time it is needed.
+	 */
+	public synchronized ClassMetadataStore get(IClassResolver classResolver, CachePolicy cachePolicy) {
+		return stores.computeIfAbsent(classResolver, k -> new HashMap<>())
+				.computeIfAbsent(cachePolicy, k -> new ClassMetadataStore(classResolver, cachePolicy));
+	}
+
+	/**
+	 * Creates a constant resolver for the classes of {@code classResolver}, which shares the stores of this family if
+	 * the resolver supports it.
+	 * @param classResolver the resolver.
+	 * @param metrics the metrics to report to.
+	 * @param cachePolicy the policy limiting the caches of the constant resolver.
+	 * @return the constant resolver.
+	 */
+	public IConstantResolver asConstantResolver(IClassResolver classResolver, IUnpickMetrics metrics, CachePolicy cachePolicy) {
+		if (classResolver instanceof IMetadataSharingClassResolver sharingResolver) {
+			return sharingResolver.asConstantResolver(metrics, cachePolicy, this);
+		}
+		// resolvers written before the overloads with metrics and cache policies were added only override the
+		// overloads without them, so those are called whenever they would be called by default anyway
+		if (cachePolicy != CachePolicy.UNBOUNDED) {
+			return classResolver.asConstantResolver(metrics, cachePolicy);
+		}
+		return metrics == IUnpickMetrics.NONE ? classResolver.asConstantResolver() : classResolver.asConstantResolver(metrics);
+	}
+
+	/**
+	 * Creates an inheritance checker for the classes of {@code classResolver}, which shares the stores of this family
+	 * if the resolver supports it.
+	 * @param classResolver the resolver.
+	 * @param metrics the metrics to report to.
+	 * @param cachePolicy the policy limiting the caches of the inheritance checker.
+	 * @return the inheritance checker.
+	 */
+	public IInheritanceChecker asInheritanceChecker(IClassResolver classResolver, IUnpickMetrics metrics, CachePolicy cachePolicy) {
+		if (classResolver instanceof IMetadataSharingClassResolver sharingResolver) {
+			return sharingResolver.asInheritanceChecker(metrics, cachePolicy, this);
+		}
+		if (cachePolicy != CachePolicy.UNBOUNDED) {
+			return classResolver.asInheritanceChecker(metrics, cachePolicy);
+		}
+		return metrics == IUnpickMetrics.NONE ? classResolver.asInheritanceChecker() : classResolver.asInheritanceChecker(metrics);
+	}
+
+	/**
+	 * Creates a member checker for the classes of {@code classResolver}, which shares the stores of this family if the
+	 * resolver supports it.
+	 * @param classResolver the resolver.
+	 * @param metrics the metrics to report to.
+	 * @param cachePolicy the policy limiting the caches of the member checker.
+	 * @return the member checker.
+	 */
+	public IMemberChecker asMemberChecker(IClassResolver classResolver, IUnpickMetrics metrics, CachePolicy cachePolicy) {
+		if (classResolver instanceof IMetadataSharingClassResolver sharingResolver) {
+			return sharingResolver.asMemberChecker(metrics, cachePolicy, this);
+		}
+		if (cachePolicy != CachePolicy.UNBOUNDED) {
+			return classResolver.asMemberChecker(metrics, cachePolicy);
+		}
+		return metrics == IUnpickMetrics.NONE ? classResolver.asMemberChecker() : classResolver.asMemberChecker(metrics);
+	}
+}
@@ -0,0 +1,75 @@
+package daomephsta.unpick.impl.classresolvers;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import daomephsta.unpick.api.classresolvers.ParseDepth;
+
+/**
+ * Parses class files into {@link ClassNode}s, only as deeply as requested.
+ */
+public final class ClassParser {
+	private ClassParser() {
+	}
+
+	public static ClassNode parse(ClassReader classReader, ParseDepth depth) {
+		ClassNode classNode = new ClassNode();
+		switch (depth) {
+			case HEADER -> {
+				classNode.access = classReader.getAccess();
+				classNode.name = classReader.getClassName();
+				classNode.superName = classReader.getSuperName();
+				classNode.interfaces.addAll(List.of(classReader.getInterfaces()));
+			}
+			case MEMBERS -> classReader.accept(classNode, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+			case INITIALIZERS -> {
+				classReader.accept(classNode, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+				// a second pass which only visits the initializers, so that the reader skips every other method body
+				InitializerReader initializerReader = new InitializerReader();
+				classReader.accept(initializerReader, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+				for (int i = 0; i < classNode.methods.size(); i++) {
+					MethodNode method = classNode.methods.get(i);
+					MethodNode initializer = initializerReader.initializers.get(method.name + method.desc);
+					if (initializer != null) {
+						classNode.methods.set(i, initializer);
+					}
+				}
+			}
+			case FULL -> classReader.accept(classNode, ClassReader.SKIP_DEBUG);
+		}
+		return classNode;
+	}
+
+	private static final class InitializerReader extends ClassVisitor {
+		final Map<String, MethodNode> initializers = new HashMap<>();
+
+		InitializerReader() {
+			super(Opcodes.ASM9);
+		}
+
+		@Override
+		public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+			return null;
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+			if (!name.equals("<init>") && !name.equals("<clinit>")) {
+				return null;
+			}
+
+			MethodNode initializer = new MethodNode(access, name, descriptor, signature, exceptions);
+			initializers.put(name + descriptor, initializer);
+			return initializer;
+		}
+	}
+}
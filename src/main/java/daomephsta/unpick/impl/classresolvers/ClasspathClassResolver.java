@@ -7,15 +7,17 @@ import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.tree.ClassNode;
 
-import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.api.IUnpickMetrics;
+import daomephsta.unpick.api.classresolvers.CachePolicy;
 import daomephsta.unpick.api.classresolvers.IConstantResolver;
 import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
 import daomephsta.unpick.api.classresolvers.IMemberChecker;
+import daomephsta.unpick.api.classresolvers.ParseDepth;
 import daomephsta.unpick.impl.constantresolvers.ClasspathConstantResolver;
 import daomephsta.unpick.impl.inheritancecheckers.ClasspathInheritanceChecker;
 import daomephsta.unpick.impl.membercheckers.ClasspathMemberChecker;
 
-public class ClasspathClassResolver implements IClassResolver {
+public class ClasspathClassResolver implements IMetadataSharingClassResolver {
 	@Nullable
 	private final ClassLoader classLoader;
 
@@ -26,32 +28,50 @@ public class ClasspathClassResolver implements IClassResolver {
 	@Override
 	@Nullable
 	public ClassNode resolveClass(String internalName) {
+		return resolveClass(internalName, ParseDepth.FULL);
+	}
+
+	@Override
+	@Nullable
+	public ClassNode resolveClass(String internalName, ParseDepth depth) {
 		String resourceName = internalName + ".class";
 		try (InputStream is = classLoader == null ? ClassLoader.getSystemResourceAsStream(resourceName) : classLoader.getResourceAsStream(resourceName)) {
 			if (is == null) {
 				return null;
 			}
-			ClassReader classReader = new ClassReader(is);
-			ClassNode classNode = new ClassNode();
-			classReader.accept(classNode, ClassReader.SKIP_DEBUG);
-			return classNode;
+			return ClassParser.parse(new ClassReader(is), depth);
 		} catch (IOException e) {
 			return null;
 		}
 	}
 
 	@Override
-	public IConstantResolver asConstantResolver() {
-		return new ClasspathConstantResolver(classLoader);
+	public IConstantResolver asConstantResolver(IUnpickMetrics metrics, CachePolicy cachePolicy) {
+		return asConstantResolver(metrics, cachePolicy, new ClassMetadataStores());
+	}
+
+	@Override
+	public IConstantResolver asConstantResolver(IUnpickMetrics metrics, CachePolicy cachePolicy, ClassMetadataStores metadataStores) {
+		return new ClasspathConstantResolver(metadataStores.get(this, cachePolicy), classLoader, metrics, cachePolicy);
 	}
 
 	@Override
-	public IInheritanceChecker asInheritanceChecker() {
+	public IInheritanceChecker asInheritanceChecker(IUnpickMetrics metrics, CachePolicy cachePolicy) {
 		return new ClasspathInheritanceChecker(classLoader);
 	}
 
 	@Override
-	public IMemberChecker asMemberChecker() {
+	public IInheritanceChecker asInheritanceChecker(IUnpickMetrics metrics, CachePolicy cachePolicy, ClassMetadataStores metadataStores) {
+		return asInheritanceChecker(metrics, cachePolicy);
+	}
+
+	@Override
+	public IMemberChecker asMemberChecker(IUnpickMetrics metrics, CachePolicy cachePolicy) {
 		return new ClasspathMemberChecker(classLoader);
 	}
+
+	@Override
+	public IMemberChecker asMemberChecker(IUnpickMetrics metrics, CachePolicy cachePolicy, ClassMetadataStores metadataStores) {
+		return asMemberChecker(metrics, cachePolicy);
+	}
 }
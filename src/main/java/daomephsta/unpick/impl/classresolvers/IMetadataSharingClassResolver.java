@@ -0,0 +1,30 @@
+package daomephsta.unpick.impl.classresolvers;
+
+import daomephsta.unpick.api.IUnpickMetrics;
+import daomephsta.unpick.api.classresolvers.CachePolicy;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.api.classresolvers.IConstantResolver;
+import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
+import daomephsta.unpick.api.classresolvers.IMemberChecker;
+import daomephsta.unpick.impl.constantresolvers.BytecodeAnalysisConstantResolver;
+import daomephsta.unpick.impl.inheritancecheckers.BytecodeAnalysisInheritanceChecker;
+import daomephsta.unpick.impl.membercheckers.BytecodeAnalysisMemberChecker;
+
+/**
+ * A class resolver whose constant resolver, inheritance checker and member checker can share the classes they parse
+ * with the others {@linkplain ClassMetadataStores created together} with them. The default implementations analyse
+ * the bytecode of the classes this resolver resolves, like the {@code as*} methods of {@link IClassResolver} do.
+ */
+public interface IMetadataSharingClassResolver extends IClassResolver {
+	default IConstantResolver asConstantResolver(IUnpickMetrics metrics, CachePolicy cachePolicy, ClassMetadataStores metadataStores) {
+		return new BytecodeAnalysisConstantResolver(metadataStores.get(this, cachePolicy), metrics);
+	}
+
+	default IInheritanceChecker asInheritanceChecker(IUnpickMetrics metrics, CachePolicy cachePolicy, ClassMetadataStores metadataStores) {
+		return new BytecodeAnalysisInheritanceChecker(metadataStores.get(this, cachePolicy), metrics);
+	}
+
+	default IMemberChecker asMemberChecker(IUnpickMetrics metrics, CachePolicy cachePolicy, ClassMetadataStores metadataStores) {
+		return new BytecodeAnalysisMemberChecker(metadataStores.get(this, cachePolicy), metrics);
+	}
+}
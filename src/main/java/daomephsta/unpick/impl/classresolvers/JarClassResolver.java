@@ -2,6 +2,8 @@ package daomephsta.unpick.impl.classresolvers;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -9,10 +11,13 @@ import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.tree.ClassNode;
 
-import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.api.classresolvers.ParseDepth;
+import daomephsta.unpick.impl.Utils;
 
-public class JarClassResolver implements IClassResolver {
+public class JarClassResolver implements IMetadataSharingClassResolver {
 	private final ZipFile zipFile;
+	@Nullable
+	private volatile Set<String> packages;
 
 	public JarClassResolver(ZipFile zipFile) {
 		this.zipFile = zipFile;
@@ -21,16 +26,34 @@ public class JarClassResolver implements IClassResolver {
 	@Override
 	@Nullable
 	public ClassNode resolveClass(String internalName) {
+		return resolveClass(internalName, ParseDepth.FULL);
+	}
+
+	@Override
+	public boolean mayContainPackage(String packageName) {
+		Set<String> packages = this.packages;
+		if (packages == null) {
+			// racing threads build identical sets, so whichever is kept does not matter
+			packages = zipFile.stream()
+					.map(ZipEntry::getName)
+					.filter(name -> name.endsWith(".class"))
+					.map(Utils::getPackageName)
+					.collect(Collectors.toUnmodifiableSet());
+			this.packages = packages;
+		}
+		return packages.contains(packageName);
+	}
+
+	@Override
+	@Nullable
+	public ClassNode resolveClass(String internalName, ParseDepth depth) {
 		ZipEntry entry = zipFile.getEntry(internalName + ".class");
 		if (entry == null) {
 			return null;
 		}
 
 		try (InputStream is = zipFile.getInputStream(entry)) {
-			ClassReader classReader = new ClassReader(is);
-			ClassNode classNode = new ClassNode();
-			classReader.accept(classNode, ClassReader.SKIP_DEBUG);
-			return classNode;
+			return ClassParser.parse(new ClassReader(is), depth);
 		} catch (IOException e) {
 			return null;
 		}
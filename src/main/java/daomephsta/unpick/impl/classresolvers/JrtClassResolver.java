@@ -0,0 +1,92 @@
+package daomephsta.unpick.impl.classresolvers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+import daomephsta.unpick.api.classresolvers.ParseDepth;
+import daomephsta.unpick.impl.Utils;
+
+/**
+ * Resolves the classes of the running JDK from its runtime image, through the {@code jrt:/} file system. Unlike
+ * {@link ClasspathClassResolver}, the constant resolver, inheritance checker and member checker created from it read
+ * the classes' bytecode, so no JDK class is ever loaded or initialised by a lookup.
+ */
+public class JrtClassResolver implements IMetadataSharingClassResolver {
+	// the runtime image cannot change while the JVM is running, so the index is shared by all resolvers
+	@Nullable
+	private static volatile Map<String, Path> packageIndex;
+
+	private final Map<String, Path> modulesByPackage;
+
+	public JrtClassResolver() {
+		this.modulesByPackage = getPackageIndex();
+	}
+
+	@Override
+	@Nullable
+	public ClassNode resolveClass(String internalName) {
+		return resolveClass(internalName, ParseDepth.FULL);
+	}
+
+	@Override
+	@Nullable
+	public ClassNode resolveClass(String internalName, ParseDepth depth) {
+		// only the one module which contains the package is looked in, so classes outside the JDK are rejected cheaply
+		Path module = modulesByPackage.get(Utils.getPackageName(internalName));
+		if (module == null) {
+			return null;
+		}
+
+		try {
+			return ClassParser.parse(new ClassReader(Files.readAllBytes(module.resolve(internalName + ".class"))), depth);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public boolean mayContainPackage(String packageName) {
+		return modulesByPackage.containsKey(packageName);
+	}
+
+	private static Map<String, Path> getPackageIndex() {
+		Map<String, Path> index = packageIndex;
+		if (index == null) {
+			// racing threads build identical indices, so whichever is kept does not matter
+			index = buildPackageIndex();
+			packageIndex = index;
+		}
+		return index;
+	}
+
+	private static Map<String, Path> buildPackageIndex() {
+		FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+		Map<String, Path> index = new HashMap<>();
+		// /packages/<package>/ contains a link named after each module containing the package
+		try (DirectoryStream<Path> packages = Files.newDirectoryStream(jrt.getPath("/packages"))) {
+			for (Path packageDir : packages) {
+				String packageName = packageDir.getFileName().toString().replace('.', '/');
+				try (DirectoryStream<Path> modules = Files.newDirectoryStream(packageDir)) {
+					for (Path module : modules) {
+						index.putIfAbsent(packageName, jrt.getPath("/modules", module.getFileName().toString()));
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to index the JDK runtime image", e);
+		}
+		return Map.copyOf(index);
+	}
+}
@@ -0,0 +1,317 @@
+package daomephsta.unpick.impl.classresolvers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+import daomephsta.unpick.api.classresolvers.ICloseableClassResolver;
+import daomephsta.unpick.api.classresolvers.ParseDepth;
+import daomephsta.unpick.impl.Utils;
+
+/**
+ * Resolves classes from a memory mapped jar. The central directory is read once, when the resolver is created, into
+ * an index of the class entries, and lookups then read the entries straight from the mapping, without going through
+ * a {@link java.util.zip.ZipFile}. Safe for concurrent use. Entries are inflated by a small pool of
+ * {@link Inflater}s, which are ended when the resolver is closed. The JDK cannot unmap a file on demand, so the
+ * mapping itself is only released once the resolver is garbage collected.
+ */
+public class MappedJarClassResolver implements ICloseableClassResolver, IMetadataSharingClassResolver {
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int END_SIGNATURE = 0x06054b50;
+	private static final int END_SIZE = 22;
+	private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final int ZIP64_LOCATOR_SIZE = 20;
+	private static final int ZIP64_EXTRA_ID = 0x0001;
+	private static final int MAX_COMMENT_LENGTH = 0xffff;
+	private static final long ZIP64_MAGIC = 0xffffffffL;
+	private static final int FLAG_ENCRYPTED = 1;
+	private static final int METHOD_STORED = 0;
+	private static final int METHOD_DEFLATED = 8;
+	private static final String CLASS_SUFFIX = ".class";
+	private static final int MAX_POOLED_INFLATERS = Runtime.getRuntime().availableProcessors();
+
+	private final Path path;
+	private final ByteBuffer mapping;
+	// the class entries, by index; names are internal names
+	private final String[] names;
+	private final int[] localHeaderOffsets;
+	private final int[] compressedSizes;
+	private final int[] sizes;
+	private final boolean[] deflated;
+	// open addressing table of entry indices, keyed by name; -1 marks an empty slot
+	private final int[] slots;
+	private final Set<String> packages;
+	private final BlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<>(MAX_POOLED_INFLATERS);
+	private volatile boolean closed;
+
+	public MappedJarClassResolver(Path path) throws IOException {
+		this.path = path;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Jar is too large to map: " + path);
+			}
+			// the mapping stays valid after the channel is closed
+			this.mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		int end = findEnd();
+		long entryCount = u16(end + 10);
+		long centralDirectoryOffset = u32(end + 16);
+		int locator = end - ZIP64_LOCATOR_SIZE;
+		if (locator >= 0 && mapping.getInt(locator) == ZIP64_LOCATOR_SIGNATURE) {
+			int zip64End = checkOffset(mapping.getLong(locator + 8));
+			if (mapping.getInt(zip64End) != ZIP64_END_SIGNATURE) {
+				throw new ZipException("Invalid zip64 end of central directory in " + path);
+			}
+			entryCount = mapping.getLong(zip64End + 32);
+			centralDirectoryOffset = mapping.getLong(zip64End + 48);
+		}
+
+		int pos = checkOffset(centralDirectoryOffset);
+		int capacity = (int) Math.max(0, Math.min(entryCount, (end - pos) / CENTRAL_HEADER_SIZE));
+		String[] names = new String[capacity];
+		int[] localHeaderOffsets = new int[capacity];
+		int[] compressedSizes = new int[capacity];
+		int[] sizes = new int[capacity];
+		boolean[] deflated = new boolean[capacity];
+		int classCount = 0;
+		for (long i = 0; i < entryCount; i++) {
+			if (pos + CENTRAL_HEADER_SIZE > end || mapping.getInt(pos) != CENTRAL_HEADER_SIGNATURE) {
+				throw new ZipException("Invalid central directory in " + path);
+			}
+			int flags = u16(pos + 8);
+			int method = u16(pos + 10);
+			long compressedSize = u32(pos + 20);
+			long size = u32(pos + 24);
+			int nameLength = u16(pos + 28);
+			int extraLength = u16(pos + 30);
+			int commentLength = u16(pos + 32);
+			long localHeaderOffset = u32(pos + 42);
+			int nameStart = pos + CENTRAL_HEADER_SIZE;
+
+			if (isClassEntry(nameStart, nameLength) && (flags & FLAG_ENCRYPTED) == 0 && (method == METHOD_STORED || method == METHOD_DEFLATED)) {
+				// sizes and offsets which do not fit in 32 bits are moved to the zip64 extra field, in this order
+				int zip64Field = findZip64Extra(nameStart + nameLength, extraLength);
+				if (size == ZIP64_MAGIC && zip64Field >= 0) {
+					size = mapping.getLong(zip64Field);
+					zip64Field += 8;
+				}
+				if (compressedSize == ZIP64_MAGIC && zip64Field >= 0) {
+					compressedSize = mapping.getLong(zip64Field);
+					zip64Field += 8;
+				}
+				if (localHeaderOffset == ZIP64_MAGIC && zip64Field >= 0) {
+					localHeaderOffset = mapping.getLong(zip64Field);
+				}
+
+				byte[] name = new byte[nameLength - CLASS_SUFFIX.length()];
+				mapping.get(nameStart, name);
+				names[classCount] = new String(name, StandardCharsets.UTF_8);
+				localHeaderOffsets[classCount] = checkOffset(localHeaderOffset);
+				compressedSizes[classCount] = checkOffset(compressedSize);
+				sizes[classCount] = checkSize(size);
+				deflated[classCount] = method == METHOD_DEFLATED;
+				classCount++;
+			}
+
+			pos = nameStart + nameLength + extraLength + commentLength;
+		}
+
+		this.names = Arrays.copyOf(names, classCount);
+		this.localHeaderOffsets = Arrays.copyOf(localHeaderOffsets, classCount);
+		this.compressedSizes = Arrays.copyOf(compressedSizes, classCount);
+		this.sizes = Arrays.copyOf(sizes, classCount);
+		this.deflated = Arrays.copyOf(deflated, classCount);
+
+		// at most half full, so that probe sequences stay short
+		this.slots = new int[Integer.highestOneBit(Math.max(classCount, 1)) << 2];
+		Arrays.fill(slots, -1);
+		Set<String> packages = new HashSet<>();
+		for (int i = 0; i < classCount; i++) {
+			int slot = findSlot(this.names[i]);
+			// the first of several entries with the same name wins
+			if (slots[slot] < 0) {
+				slots[slot] = i;
+			}
+			packages.add(Utils.getPackageName(this.names[i]));
+		}
+		this.packages = Set.copyOf(packages);
+	}
+
+	@Override
+	public boolean mayContainPackage(String packageName) {
+		return packages.contains(packageName);
+	}
+
+	@Override
+	@Nullable
+	public ClassNode resolveClass(String internalName) {
+		return resolveClass(internalName, ParseDepth.FULL);
+	}
+
+	@Override
+	@Nullable
+	public ClassNode resolveClass(String internalName, ParseDepth depth) {
+		if (closed) {
+			throw new IllegalStateException("Resolver is closed: " + path);
+		}
+
+		int index = slots[findSlot(internalName)];
+		if (index < 0) {
+			return null;
+		}
+
+		try {
+			return ClassParser.parse(new ClassReader(read(index)), depth);
+		} catch (IOException | DataFormatException | IndexOutOfBoundsException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		Inflater inflater;
+		while ((inflater = inflaters.poll()) != null) {
+			inflater.end();
+		}
+	}
+
+	private int findSlot(String internalName) {
+		int mask = slots.length - 1;
+		int hash = internalName.hashCode();
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		while (slots[slot] >= 0 && !names[slots[slot]].equals(internalName)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private byte[] read(int index) throws IOException, DataFormatException {
+		int localHeader = localHeaderOffsets[index];
+		if (mapping.getInt(localHeader) != LOCAL_HEADER_SIGNATURE) {
+			throw new ZipException("Invalid local header for " + names[index] + CLASS_SUFFIX + " in " + path);
+		}
+		// the extra field of the local header may differ from the one in the central directory
+		int dataStart = localHeader + LOCAL_HEADER_SIZE + u16(localHeader + 26) + u16(localHeader + 28);
+		int size = sizes[index];
+		// exactly the size of the class, so that nothing larger than the class is kept between lookups
+		byte[] bytes = new byte[size];
+		if (!deflated[index]) {
+			mapping.get(dataStart, bytes, 0, size);
+			return bytes;
+		}
+
+		Inflater inflater = inflaters.poll();
+		if (inflater == null) {
+			inflater = new Inflater(true);
+		}
+		try {
+			// absolute slices do not touch the position of the mapping, so concurrent readers do not interfere
+			inflater.setInput(mapping.slice(dataStart, compressedSizes[index]));
+			int inflated = 0;
+			while (inflated < size) {
+				int count = inflater.inflate(bytes, inflated, size - inflated);
+				if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				inflated += count;
+			}
+			if (inflated != size) {
+				throw new ZipException("Truncated entry " + names[index] + CLASS_SUFFIX + " in " + path);
+			}
+		} finally {
+			releaseInflater(inflater);
+		}
+		return bytes;
+	}
+
+	private void releaseInflater(Inflater inflater) {
+		inflater.reset();
+		if (closed || !inflaters.offer(inflater)) {
+			inflater.end();
+		} else if (closed) {
+			// closed while the inflater was being returned, so the pool may have been drained before it was
+			close();
+		}
+	}
+
+	private int findEnd() throws ZipException {
+		int limit = mapping.limit();
+		int min = Math.max(0, limit - END_SIZE - MAX_COMMENT_LENGTH);
+		for (int pos = limit - END_SIZE; pos >= min; pos--) {
+			if (mapping.getInt(pos) == END_SIGNATURE) {
+				return pos;
+			}
+		}
+		throw new ZipException("No end of central directory in " + path);
+	}
+
+	private boolean isClassEntry(int nameStart, int nameLength) {
+		if (nameLength <= CLASS_SUFFIX.length()) {
+			return false;
+		}
+		int suffixStart = nameStart + nameLength - CLASS_SUFFIX.length();
+		for (int i = 0; i < CLASS_SUFFIX.length(); i++) {
+			if (mapping.get(suffixStart + i) != CLASS_SUFFIX.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int findZip64Extra(int extraStart, int extraLength) {
+		int pos = extraStart;
+		while (pos + 4 <= extraStart + extraLength) {
+			int id = u16(pos);
+			int length = u16(pos + 2);
+			if (id == ZIP64_EXTRA_ID) {
+				return pos + 4;
+			}
+			pos += 4 + length;
+		}
+		return -1;
+	}
+
+	private int checkOffset(long offset) throws ZipException {
+		if (offset < 0 || offset > mapping.limit()) {
+			throw new ZipException("Invalid offset or size " + offset + " in " + path);
+		}
+		return (int) offset;
+	}
+
+	private int checkSize(long size) throws ZipException {
+		if (size < 0 || size > Integer.MAX_VALUE) {
+			throw new ZipException("Invalid entry size " + size + " in " + path);
+		}
+		return (int) size;
+	}
+
+	private int u16(int pos) {
+		return mapping.getShort(pos) & 0xffff;
+	}
+
+	private long u32(int pos) {
+		return mapping.getInt(pos) & 0xffffffffL;
+	}
+}
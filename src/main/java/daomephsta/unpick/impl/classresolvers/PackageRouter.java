@@ -0,0 +1,126 @@
+package daomephsta.unpick.impl.classresolvers;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.Nullable;
+
+import daomephsta.unpick.api.classresolvers.CachePolicy;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.impl.ResolverCache;
+import daomephsta.unpick.impl.Utils;
+
+/**
+ * Decides which delegates of a {@link ChainClassResolver} to ask for a class, for the resolver itself and the constant
+ * resolver, inheritance checker and member checker created from it. Each package is routed to the delegates which
+ * {@linkplain IClassResolver#mayContainPackage(String) may contain it}. Only chains which remember missing classes,
+ * and so may assume that their delegates never gain classes, remember the routes of packages, and the classes which
+ * no delegate has, so that looking them up again asks no delegate at all. Each of the resolver and the checkers has
+ * {@linkplain #newView() its own router} for the missing classes, as one of them not finding a class does not mean
+ * that the others cannot either.
+ */
+public final class PackageRouter {
+	private static final int[] NO_DELEGATES = new int[0];
+
+	@Nullable
+	private final IClassResolver[] resolvers;
+	private final int[] allDelegates;
+	@Nullable
+	private final Map<String, int[]> routes;
+	@Nullable
+	private final CachePolicy missingClassPolicy;
+	@Nullable
+	private final ResolverCache<Boolean> missingClasses;
+
+	private PackageRouter(@Nullable IClassResolver[] resolvers, int[] allDelegates, @Nullable Map<String, int[]> routes, @Nullable CachePolicy missingClassPolicy) {
+		this.resolvers = resolvers;
+		this.allDelegates = allDelegates;
+		this.routes = routes;
+		this.missingClassPolicy = missingClassPolicy;
+		this.missingClasses = missingClassPolicy == null ? null : new ResolverCache<>(missingClassPolicy);
+	}
+
+	private PackageRouter(@Nullable IClassResolver[] resolvers, int delegateCount, @Nullable CachePolicy missingClassPolicy) {
+		this(resolvers, new int[delegateCount], missingClassPolicy == null ? null : new ConcurrentHashMap<>(), missingClassPolicy);
+		for (int i = 0; i < delegateCount; i++) {
+			allDelegates[i] = i;
+		}
+	}
+
+	/**
+	 * @param resolvers the delegates of the chain, in order.
+	 * @param missingClassPolicy limits the classes remembered as missing, or {@code null} to remember neither missing
+	 * classes nor routes.
+	 * @return a router for the chain.
+	 */
+	public static PackageRouter of(IClassResolver[] resolvers, @Nullable CachePolicy missingClassPolicy) {
+		return new PackageRouter(resolvers, resolvers.length, missingClassPolicy);
+	}
+
+	/**
+	 * @param delegateCount the number of delegates of the chain.
+	 * @return a router which asks every delegate, in order, and remembers nothing; for chains whose delegates are not
+	 * backed by class resolvers.
+	 */
+	public static PackageRouter unrouted(int delegateCount) {
+		return new PackageRouter(null, delegateCount, null);
+	}
+
+	/**
+	 * @return a router which shares the routes of this one, but remembers the classes it is told are missing
+	 * separately.
+	 */
+	public PackageRouter newView() {
+		return new PackageRouter(resolvers, allDelegates, routes, missingClassPolicy);
+	}
+
+	/**
+	 * @param internalName the internal name of the class.
+	 * @return the indices of the delegates to ask for the class, in chain order. Empty if no delegate has the class.
+	 */
+	public int[] route(String internalName) {
+		if (resolvers == null) {
+			return allDelegates;
+		}
+		if (missingClasses != null && missingClasses.get(internalName) != null) {
+			return NO_DELEGATES;
+		}
+
+		String packageName = Utils.getPackageName(internalName);
+		if (routes == null) {
+			// the delegates may gain packages, so are asked every time
+			return computeRoute(resolvers, packageName);
+		}
+
+		int[] route = routes.get(packageName);
+		if (route == null) {
+			// computed outside the map, as asking the delegates may read their archives or the file system
+			route = computeRoute(resolvers, packageName);
+			routes.putIfAbsent(packageName, route);
+		}
+		return route;
+	}
+
+	/**
+	 * Records that no delegate has a class, after every delegate it was {@linkplain #route(String) routed} to has
+	 * been asked for it. Does nothing unless the chain remembers missing classes.
+	 * @param internalName the internal name of the class.
+	 */
+	public void markMissing(String internalName) {
+		if (resolvers != null && missingClasses != null) {
+			missingClasses.computeIfAbsent(internalName, name -> Boolean.TRUE);
+		}
+	}
+
+	private static int[] computeRoute(IClassResolver[] resolvers, String packageName) {
+		int[] route = new int[resolvers.length];
+		int count = 0;
+		for (int i = 0; i < resolvers.length; i++) {
+			if (resolvers[i].mayContainPackage(packageName)) {
+				route[count++] = i;
+			}
+		}
+		return count == route.length ? route : Arrays.copyOf(route, count);
+	}
+}
@@ -9,9 +9,9 @@ import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.tree.ClassNode;
 
-import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.api.classresolvers.ParseDepth;
 
-public class PathClassResolver implements IClassResolver {
+public class PathClassResolver implements IMetadataSharingClassResolver {
 	private final Path root;
 
 	public PathClassResolver(Path root) {
@@ -21,11 +21,25 @@ public class PathClassResolver implements IClassResolver {
 	@Override
 	@Nullable
 	public ClassNode resolveClass(String internalName) {
-		try (InputStream is = Files.newInputStream(root.resolve(internalName + ".class"))) {
-			ClassReader classReader = new ClassReader(is);
-			ClassNode classNode = new ClassNode();
-			classReader.accept(classNode, ClassReader.SKIP_DEBUG);
-			return classNode;
+		return resolveClass(internalName, ParseDepth.FULL);
+	}
+
+	@Override
+	public boolean mayContainPackage(String packageName) {
+		return Files.isDirectory(root.resolve(packageName));
+	}
+
+	@Override
+	@Nullable
+	public ClassNode resolveClass(String internalName, ParseDepth depth) {
+		Path file = root.resolve(internalName + ".class");
+		// checked first, as opening a missing file throws, which is slow when most lookups miss, e.g. early in a chain
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+
+		try (InputStream is = Files.newInputStream(file)) {
+			return ClassParser.parse(new ClassReader(is), depth);
 		} catch (IOException e) {
 			return null;
 		}
@@ -0,0 +1,114 @@
+package daomephsta.unpick.impl.constantmappers.datadriven;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.jetbrains.annotations.Nullable;
+
+import daomephsta.unpick.constantmappers.datadriven.parser.MemberKey;
+import daomephsta.unpick.impl.constantmappers.datadriven.data.GroupInfo;
+import daomephsta.unpick.impl.constantmappers.datadriven.data.ScopedGroupInfo;
+
+/**
+ * A group whose scopes are indexed by the internal names used in bytecode, so that no names need converting while
+ * transforming. Groups are compiled once all mappings have been loaded, and are numbered in the order they were
+ * compiled.
+ *
+ * <p>The scopes which apply in a method only depend on the method, its class and its package, all of which are known
+ * for every scope when the group is compiled. So the chain of scopes is precomputed for every scoped method, class and
+ * package, and finding the scopes for a literal is a lookup of at most three shared chains. Each scope's replacements
+ * are compiled into a single {@link ReplacementTable} for the group's data type, which the chains share.
+ */
+public final class CompiledGroup {
+	public final int id;
+	@Nullable
+	public final String name;
+	public final GroupInfo info;
+	@Nullable
+	private final MemberTable<ScopeChain> methodChains;
+	@Nullable
+	private final Map<String, ScopeChain> classChains;
+	@Nullable
+	private final PackageTable<ScopeChain> packageChains;
+	private final ScopeChain globalChain;
+
+	/**
+	 * @param id the number of the group.
+	 * @param name the name of the group, or {@code null} for a default group.
+	 * @param info the loaded group, which must not change afterwards.
+	 */
+	public CompiledGroup(int id, @Nullable String name, GroupInfo info) {
+		this.id = id;
+		this.name = name;
+		this.info = info;
+
+		Map<String, ScopedGroupInfo> packageScopes = new HashMap<>();
+		info.packageScopes.forEach((packageName, scope) -> packageScopes.put(packageName.replace('.', '/'), scope));
+		Map<String, ScopedGroupInfo> classScopes = new HashMap<>();
+		info.classScopes.forEach((className, scope) -> classScopes.put(className.replace('.', '/'), scope));
+		PackageTable<ScopedGroupInfo> packageScopeTable = new PackageTable<>(packageScopes);
+		Map<ScopedGroupInfo, ReplacementTable> replacementTableMap = new IdentityHashMap<>();
+		Function<ScopedGroupInfo, ReplacementTable> replacementTables = scope -> replacementTableMap.computeIfAbsent(scope,
+				s -> new ReplacementTable(info.dataType, s.constantReplacementMap));
+
+		globalChain = new ScopeChain(replacementTables, info.globalScope);
+
+		if (info.methodScopes.isEmpty()) {
+			methodChains = null;
+		} else {
+			Map<MemberKey, ScopeChain> methodChains = new HashMap<>();
+			info.methodScopes.forEach((method, scope) -> {
+				String className = method.owner().replace('.', '/');
+				methodChains.put(new MemberKey(className, method.name(), method.descriptor()),
+						new ScopeChain(replacementTables, scope, classScopes.get(className), packageScopeTable.getByClass(className), info.globalScope));
+			});
+			this.methodChains = new MemberTable<>(methodChains);
+		}
+
+		if (classScopes.isEmpty()) {
+			classChains = null;
+		} else {
+			classChains = new HashMap<>();
+			classScopes.forEach((className, scope) -> classChains.put(className, new ScopeChain(replacementTables, scope, packageScopeTable.getByClass(className), info.globalScope)));
+		}
+
+		if (packageScopes.isEmpty()) {
+			packageChains = null;
+		} else {
+			Map<String, ScopeChain> packageChains = new HashMap<>();
+			packageScopes.forEach((packageName, scope) -> packageChains.put(packageName, new ScopeChain(replacementTables, scope, info.globalScope)));
+			this.packageChains = new PackageTable<>(packageChains);
+		}
+	}
+
+	/**
+	 * @param className the internal name of the class containing the method.
+	 * @return the scopes of this group which apply in the method, from the narrowest to the widest.
+	 */
+	ScopeChain getScopeChain(String className, String methodName, String methodDesc) {
+		if (methodChains != null) {
+			ScopeChain methodChain = methodChains.get(className, methodName, methodDesc);
+			if (methodChain != null) {
+				return methodChain;
+			}
+		}
+
+		if (classChains != null) {
+			ScopeChain classChain = classChains.get(className);
+			if (classChain != null) {
+				return classChain;
+			}
+		}
+
+		if (packageChains != null) {
+			ScopeChain packageChain = packageChains.getByClass(className);
+			if (packageChain != null) {
+				return packageChain;
+			}
+		}
+
+		return globalChain;
+	}
+}
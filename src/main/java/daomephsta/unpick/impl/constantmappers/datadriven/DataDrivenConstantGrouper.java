@@ -3,7 +3,15 @@ package daomephsta.unpick.impl.constantmappers.datadriven;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -13,10 +21,12 @@ import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.MethodNode;
 import org.objectweb.asm.tree.analysis.Frame;
 
+import daomephsta.unpick.api.IUnpickMetrics;
 import daomephsta.unpick.api.classresolvers.IConstantResolver;
 import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
 import daomephsta.unpick.api.classresolvers.IMemberChecker;
@@ -26,7 +36,10 @@ import daomephsta.unpick.api.constantgroupers.IReplacementGenerator;
 import daomephsta.unpick.constantmappers.datadriven.parser.MemberKey;
 import daomephsta.unpick.constantmappers.datadriven.parser.UnpickSyntaxException;
 import daomephsta.unpick.constantmappers.datadriven.parser.v3.UnpickV3Reader;
+import daomephsta.unpick.constantmappers.datadriven.parser.v3.UnpickV3Writer;
 import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
+import daomephsta.unpick.constantmappers.datadriven.tree.ForwardingUnpickV3Visitor;
+import daomephsta.unpick.constantmappers.datadriven.tree.GroupDefinition;
 import daomephsta.unpick.constantmappers.datadriven.tree.TargetAnnotation;
 import daomephsta.unpick.constantmappers.datadriven.tree.TargetField;
 import daomephsta.unpick.constantmappers.datadriven.tree.TargetMethod;
@@ -34,10 +47,10 @@ import daomephsta.unpick.constantmappers.datadriven.tree.UnpickV3Visitor;
 import daomephsta.unpick.constantmappers.datadriven.tree.expr.Expression;
 import daomephsta.unpick.impl.AbstractInsnNodes;
 import daomephsta.unpick.impl.DataTypeUtils;
+import daomephsta.unpick.impl.Utils;
 import daomephsta.unpick.impl.constantmappers.datadriven.data.ConstantReplacementInfo;
 import daomephsta.unpick.impl.constantmappers.datadriven.data.Data;
 import daomephsta.unpick.impl.constantmappers.datadriven.data.GroupInfo;
-import daomephsta.unpick.impl.constantmappers.datadriven.data.ScopedGroupInfo;
 import daomephsta.unpick.impl.constantmappers.datadriven.parser.V1Parser;
 import daomephsta.unpick.impl.constantmappers.datadriven.parser.v2.V2Parser;
 
@@ -47,35 +60,60 @@ import daomephsta.unpick.impl.constantmappers.datadriven.parser.v2.V2Parser;
  */
 public class DataDrivenConstantGrouper implements IConstantGrouper {
 	private static final int MAX_VERSION_HEADER_LENGTH = "unpick v3".length();
+	// stands in for a group which is targeted by name but not defined, which is looked up as null
+	private static final ConstantGroup UNDEFINED_GROUP = new ConstantGroup("<undefined>", context -> { });
+	// stands in for an inherited target method lookup which found nothing
+	private static final MethodGroups NO_TARGET_METHOD = new MethodGroups(null, new ConstantGroup[0]);
+	private static final int INHERITED_TARGET_METHOD_CACHE_SIZE = 4096;
 
 	private final Logger logger;
 	private final boolean lenient;
 	private final IConstantResolver constantResolver;
 	private final IInheritanceChecker inheritanceChecker;
 	private final IMemberChecker memberChecker;
+	private final IUnpickMetrics metrics;
 	private final Data data;
-	private final Map<MemberKey, TargetMethod> targetMethodCache = new ConcurrentHashMap<>();
-	private final Set<MemberKey> noTargetMethodCache = ConcurrentHashMap.newKeySet();
 	private final Map<MemberKey, String> resolvedMethodOwnerCache = new ConcurrentHashMap<>();
 	private final ConstantGroup defaultGroup = new ConstantGroup("<default>", this::replaceDefault);
+	@Nullable
+	private volatile RelevanceIndex relevanceIndex;
+	@Nullable
+	private volatile MappingIndex mappingIndex;
+	private volatile boolean frozen;
+	private final MessageDigest mappingDigest = Utils.newSha256Digest();
 
 	public DataDrivenConstantGrouper(Logger logger, boolean lenient, IConstantResolver constantResolver, IInheritanceChecker inheritanceChecker, IMemberChecker memberChecker) {
+		this(logger, lenient, constantResolver, inheritanceChecker, memberChecker, IUnpickMetrics.NONE);
+	}
+
+	public DataDrivenConstantGrouper(Logger logger, boolean lenient, IConstantResolver constantResolver, IInheritanceChecker inheritanceChecker, IMemberChecker memberChecker, IUnpickMetrics metrics) {
 		this.logger = logger;
+		this.metrics = metrics;
 		this.lenient = lenient;
 		this.constantResolver = constantResolver;
 		this.inheritanceChecker = inheritanceChecker;
 		this.memberChecker = memberChecker;
 		this.data = new Data(logger, lenient, constantResolver, inheritanceChecker);
+		mappingDigest.update((byte) (lenient ? 1 : 0));
 	}
 
 	public void loadData(Reader mappingSource) throws IOException {
-		BufferedReader reader = new BufferedReader(mappingSource);
+		ensureNotFrozen();
+		StringWriter mappingText = new StringWriter();
+		mappingSource.transferTo(mappingText);
+		synchronized (mappingDigest) {
+			mappingDigest.update(mappingText.toString().getBytes(StandardCharsets.UTF_8));
+		}
+
+		BufferedReader reader = new BufferedReader(new StringReader(mappingText.toString()));
 		reader.mark(MAX_VERSION_HEADER_LENGTH + 2);
 		String versionHeader = reader.readLine();
 		if (versionHeader.length() > MAX_VERSION_HEADER_LENGTH) {
 			throw new UnpickSyntaxException(1, "Unknown version or missing version header: " + versionHeader);
 		}
 		reader.reset();
+		relevanceIndex = null;
+		mappingIndex = null;
 
 		switch (versionHeader) {
 			case "v1" -> V1Parser.parse(logger, lenient, reader, constantResolver, data);
@@ -87,7 +125,25 @@ public class DataDrivenConstantGrouper implements IConstantGrouper {
 	}
 
 	public void loadData(Consumer<UnpickV3Visitor> dataProvider) {
-		dataProvider.accept(data);
+		ensureNotFrozen();
+		relevanceIndex = null;
+		mappingIndex = null;
+		dataProvider.accept(new FingerprintingVisitor(data));
+	}
+
+	/**
+	 * Compiles the loaded mappings into an immutable index, which lookups can share between threads without locking.
+	 * No more mappings can be loaded afterwards. If this is never called, the index is compiled on the first lookup.
+	 */
+	public void freeze() {
+		frozen = true;
+		getMappingIndex();
+	}
+
+	private void ensureNotFrozen() {
+		if (frozen) {
+			throw new IllegalStateException("Cannot load mappings after the grouper has been frozen");
+		}
 	}
 
 	public int groupCount() {
@@ -105,17 +161,14 @@ public class DataDrivenConstantGrouper implements IConstantGrouper {
 	@Override
 	@Nullable
 	public ConstantGroup getFieldGroup(String fieldOwner, String fieldName, String fieldDescriptor) {
-		TargetField targetField = data.targetFields.get(new MemberKey(fieldOwner.replace('/', '.'), fieldName, fieldDescriptor));
-		if (targetField != null) {
-			return getGroupByName(targetField.groupName());
+		ConstantGroup fieldGroup = getMappingIndex().fieldGroups.get(fieldOwner, fieldName, fieldDescriptor);
+		if (fieldGroup != null) {
+			return definedOrNull(fieldGroup);
 		}
 
 		IMemberChecker.MemberInfo field = memberChecker.getField(fieldOwner, fieldName, fieldDescriptor);
 		if (field != null) {
-			String annotationGroup = getGroupFromAnnotations(field.annotations());
-			if (annotationGroup != null) {
-				return getGroupByName(annotationGroup);
-			}
+			return getGroupFromAnnotations(field.annotations());
 		}
 
 		return null;
@@ -124,17 +177,14 @@ public class DataDrivenConstantGrouper implements IConstantGrouper {
 	@Override
 	@Nullable
 	public ConstantGroup getMethodReturnGroup(String methodOwner, String methodName, String methodDescriptor) {
-		TargetMethod targetMethod = findTargetMethod(methodOwner, methodName, methodDescriptor);
+		MethodGroups targetMethod = findTargetMethod(methodOwner, methodName, methodDescriptor);
 		if (targetMethod != null && targetMethod.returnGroup() != null) {
-			return getGroupByName(targetMethod.returnGroup());
+			return definedOrNull(targetMethod.returnGroup());
 		}
 
 		IMemberChecker.MemberInfo method = memberChecker.getMethod(resolveMethodOwner(methodOwner, methodName, methodDescriptor), methodName, methodDescriptor);
 		if (method != null) {
-			String annotationGroup = getGroupFromAnnotations(method.annotations());
-			if (annotationGroup != null) {
-				return getGroupByName(annotationGroup);
-			}
+			return getGroupFromAnnotations(method.annotations());
 		}
 
 		return null;
@@ -143,61 +193,64 @@ public class DataDrivenConstantGrouper implements IConstantGrouper {
 	@Override
 	@Nullable
 	public ConstantGroup getMethodParameterGroup(String methodOwner, String methodName, String methodDescriptor, int parameterIndex) {
-		TargetMethod targetMethod = findTargetMethod(methodOwner, methodName, methodDescriptor);
+		MethodGroups targetMethod = findTargetMethod(methodOwner, methodName, methodDescriptor);
 		if (targetMethod != null) {
-			String groupName = targetMethod.paramGroups().get(parameterIndex);
-			if (groupName != null) {
-				return getGroupByName(groupName);
+			ConstantGroup parameterGroup = targetMethod.getParameterGroup(parameterIndex);
+			if (parameterGroup != null) {
+				return definedOrNull(parameterGroup);
 			}
 		}
 
 		IMemberChecker.ParameterInfo parameter = memberChecker.getParameter(resolveMethodOwner(methodOwner, methodName, methodDescriptor), methodName, methodDescriptor, parameterIndex);
 		if (parameter != null) {
-			String annotationGroup = getGroupFromAnnotations(parameter.annotations());
-			if (annotationGroup != null) {
-				return getGroupByName(annotationGroup);
-			}
+			return getGroupFromAnnotations(parameter.annotations());
 		}
 
 		return null;
 	}
 
-	private TargetMethod findTargetMethod(String methodOwner, String methodName, String methodDescriptor) {
-		MemberKey memberKey = new MemberKey(methodOwner.replace('/', '.'), methodName, methodDescriptor);
-		if (noTargetMethodCache.contains(memberKey)) {
+	@Nullable
+	private MethodGroups findTargetMethod(String methodOwner, String methodName, String methodDescriptor) {
+		MappingIndex index = getMappingIndex();
+		Map<String, Set<String>> targetedDescriptors = index.targetMethodOwners.get(methodName);
+		Set<String> declaringOwners = targetedDescriptors == null ? null : targetedDescriptors.get(methodDescriptor);
+		if (declaringOwners == null) {
 			return null;
 		}
 
-		TargetMethod targetMethod = targetMethodCache.get(memberKey);
+		return findTargetMethod(index, declaringOwners, methodOwner, methodName, methodDescriptor);
+	}
+
+	@Nullable
+	private MethodGroups findTargetMethod(MappingIndex index, Set<String> declaringOwners, String methodOwner, String methodName, String methodDescriptor) {
+		// answered by the index, not the cache, so not reported as a cache access
+		if (declaringOwners.contains(methodOwner)) {
+			return index.targetMethods.get(methodOwner, methodName, methodDescriptor);
+		}
+
+		MethodGroups targetMethod = index.inheritedTargetMethods.get(methodOwner, methodName, methodDescriptor);
+		metrics.onCacheAccess(IUnpickMetrics.Cache.TARGET_METHOD, targetMethod != null);
 		if (targetMethod != null) {
-			return targetMethod;
+			return targetMethod == NO_TARGET_METHOD ? null : targetMethod;
 		}
 
-		targetMethod = data.targetMethods.get(memberKey);
-		if (targetMethod == null) {
-			IInheritanceChecker.ClassInfo classInfo = inheritanceChecker.getClassInfo(methodOwner);
-			if (classInfo != null) {
-				if (classInfo.superClass() != null) {
-					targetMethod = findTargetMethod(classInfo.superClass(), methodName, methodDescriptor);
-				}
+		IInheritanceChecker.ClassInfo classInfo = inheritanceChecker.getClassInfo(methodOwner);
+		if (classInfo != null) {
+			if (classInfo.superClass() != null) {
+				targetMethod = findTargetMethod(index, declaringOwners, classInfo.superClass(), methodName, methodDescriptor);
+			}
 
-				if (targetMethod == null) {
-					for (String itf : classInfo.interfaces()) {
-						targetMethod = findTargetMethod(itf, methodName, methodDescriptor);
-						if (targetMethod != null) {
-							break;
-						}
+			if (targetMethod == null) {
+				for (String itf : classInfo.interfaces()) {
+					targetMethod = findTargetMethod(index, declaringOwners, itf, methodName, methodDescriptor);
+					if (targetMethod != null) {
+						break;
 					}
 				}
 			}
 		}
 
-		if (targetMethod == null) {
-			noTargetMethodCache.add(memberKey);
-		} else {
-			targetMethodCache.put(memberKey, targetMethod);
-		}
-
+		index.inheritedTargetMethods.put(methodOwner, methodName, methodDescriptor, targetMethod == null ? NO_TARGET_METHOD : targetMethod);
 		return targetMethod;
 	}
 
@@ -209,6 +262,7 @@ public class DataDrivenConstantGrouper implements IConstantGrouper {
 	private String recursiveResolveMethodOwner(String owner, String name, String desc) {
 		MemberKey memberKey = new MemberKey(owner, name, desc);
 		String resolvedOwner = resolvedMethodOwnerCache.get(memberKey);
+		metrics.onCacheAccess(IUnpickMetrics.Cache.METHOD_OWNER, resolvedOwner != null);
 		if (resolvedOwner != null) {
 			return resolvedOwner;
 		}
@@ -241,29 +295,102 @@ public class DataDrivenConstantGrouper implements IConstantGrouper {
 	}
 
 	@Nullable
-	private String getGroupFromAnnotations(List<String> annotations) {
+	private ConstantGroup getGroupFromAnnotations(List<String> annotations) {
+		Map<String, ConstantGroup> annotationGroups = getMappingIndex().annotationGroups;
 		for (String annotation : annotations) {
-			TargetAnnotation targetAnnotation = data.targetAnnotations.get(annotation.replace('/', '.'));
-			if (targetAnnotation != null) {
-				return targetAnnotation.groupName();
+			// member checkers give annotations as class names, in which case this does not allocate
+			ConstantGroup annotationGroup = annotationGroups.get(annotation.replace('/', '.'));
+			if (annotationGroup != null) {
+				return definedOrNull(annotationGroup);
 			}
 		}
 
 		return null;
 	}
 
+	@Nullable
+	private static ConstantGroup definedOrNull(ConstantGroup group) {
+		return group == UNDEFINED_GROUP ? null : group;
+	}
+
 	@Override
 	public ConstantGroup getDefaultGroup() {
 		return defaultGroup;
 	}
 
-	private ConstantGroup getGroupByName(String name) {
-		GroupInfo groupInfo = data.groups.get(name);
-		if (groupInfo == null) {
-			return null;
+	@Override
+	public String getFingerprint() {
+		try {
+			synchronized (mappingDigest) {
+				return HexFormat.of().formatHex(((MessageDigest) mappingDigest.clone()).digest());
+			}
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError("SHA-256 digests are cloneable", e);
+		}
+	}
+
+	@Override
+	public boolean mayTargetMethod(String methodName, String methodDescriptor) {
+		RelevanceIndex index = getRelevanceIndex();
+		if (index.anyAnnotations) {
+			return true;
 		}
 
-		return new ConstantGroup(name, context -> replaceWithGroup(context, groupInfo));
+		Set<String> descriptors = index.methods.get(methodName);
+		return descriptors != null && descriptors.contains(methodDescriptor);
+	}
+
+	@Override
+	public boolean mayTargetField(String fieldName, String fieldDescriptor) {
+		RelevanceIndex index = getRelevanceIndex();
+		if (index.anyAnnotations) {
+			return true;
+		}
+
+		Set<String> descriptors = index.fields.get(fieldName);
+		return descriptors != null && descriptors.contains(fieldDescriptor);
+	}
+
+	@Override
+	public boolean mayReplaceByDefault(@Nullable Object literal) {
+		RelevanceIndex index = getRelevanceIndex();
+		if (literal == null) {
+			return index.containsDefaultValue(DataType.STRING, null) || index.containsDefaultValue(DataType.CLASS, null);
+		}
+		if (!(literal instanceof Number || literal instanceof String || literal instanceof Type)) {
+			// e.g. method handles and condy, leave reporting these to the transform itself
+			return true;
+		}
+
+		for (DataType compatibleType : getDefaultCompatibleTypes(DataTypeUtils.getDataType(literal))) {
+			Object castedLiteral = DataTypeUtils.tryCastExact(literal, DataTypeUtils.widenNarrowTypes(compatibleType));
+			if (castedLiteral != null && index.containsDefaultValue(compatibleType, castedLiteral)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private RelevanceIndex getRelevanceIndex() {
+		RelevanceIndex index = relevanceIndex;
+		if (index == null) {
+			relevanceIndex = index = new RelevanceIndex(data);
+		}
+		return index;
+	}
+
+	private MappingIndex getMappingIndex() {
+		MappingIndex index = mappingIndex;
+		if (index == null) {
+			synchronized (this) {
+				index = mappingIndex;
+				if (index == null) {
+					mappingIndex = index = new MappingIndex(data);
+				}
+			}
+		}
+		return index;
 	}
 
 	private void replaceDefault(IReplacementGenerator.IContext context) {
@@ -275,9 +402,6 @@ public class DataDrivenConstantGrouper implements IConstantGrouper {
 		Object literal = AbstractInsnNodes.getLiteralValue(target);
 		DataType literalType = DataTypeUtils.getDataType(literal);
 		List<DataType> compatibleTypes = switch (literalType) {
-			case LONG -> List.of(DataType.LONG, DataType.INT);
-			case FLOAT -> List.of(DataType.FLOAT, DataType.LONG, DataType.INT);
-			case DOUBLE -> List.of(DataType.DOUBLE, DataType.FLOAT, DataType.LONG, DataType.INT);
 			case null -> {
 				// use dataflow to figure out whether this is a null string constant, class constant or neither
 				AbstractInsnNode nextInsn = AbstractInsnNodes.nextInstruction(target);
@@ -299,35 +423,45 @@ public class DataDrivenConstantGrouper implements IConstantGrouper {
 					yield null;
 				}
 			}
-			default -> List.of(literalType);
+			default -> getDefaultCompatibleTypes(literalType);
 		};
 		if (compatibleTypes == null) {
 			return;
 		}
 
 		for (DataType compatibleType : compatibleTypes) {
-			Object castedLiteral = DataTypeUtils.tryCastExact(literal, DataTypeUtils.widenNarrowTypes(compatibleType));
-			if (castedLiteral == null && literal != null) {
+			if (literal != null && !DataTypeUtils.canCastExact(literal, compatibleType)) {
 				continue;
 			}
 
-			GroupInfo defaultGroup = data.defaultGroups.get(compatibleType);
+			CompiledGroup defaultGroup = getMappingIndex().defaultGroups[compatibleType.ordinal()];
 			if (defaultGroup == null) {
 				continue;
 			}
 
-			for (ScopedGroupInfo scope : findMatchingScopes(context, defaultGroup)) {
-				ConstantReplacementInfo replacementInfo = scope.constantReplacementMap.get(castedLiteral);
+			ScopeChain scopes = findMatchingScopes(context, defaultGroup);
+			for (int i = 0; i < scopes.size(); i++) {
+				ConstantReplacementInfo replacementInfo = scopes.getReplacementTable(i).get(literal);
 				if (replacementInfo != null && (!replacementInfo.strict() || compatibleType == literalType)) {
 					DataType narrowedLiteralType = getNarrowedLiteralType(context, target, literalType, literal);
-					ExpressionGenerator.replaceWithExpression(context, defaultGroup, replacementInfo.replacementExpression(), narrowedLiteralType);
+					ExpressionGenerator.replaceWithExpression(context, memberChecker, defaultGroup.info, replacementInfo.replacementExpression(), narrowedLiteralType);
 					return;
 				}
 			}
 		}
 	}
 
-	private void replaceWithGroup(IReplacementGenerator.IContext context, GroupInfo groupInfo) {
+	private static List<DataType> getDefaultCompatibleTypes(DataType literalType) {
+		return switch (literalType) {
+			case LONG -> List.of(DataType.LONG, DataType.INT);
+			case FLOAT -> List.of(DataType.FLOAT, DataType.LONG, DataType.INT);
+			case DOUBLE -> List.of(DataType.DOUBLE, DataType.FLOAT, DataType.LONG, DataType.INT);
+			default -> List.of(literalType);
+		};
+	}
+
+	private void replaceWithGroup(IReplacementGenerator.IContext context, CompiledGroup group) {
+		GroupInfo groupInfo = group.info;
 		AbstractInsnNode target = context.getTarget();
 		if (!AbstractInsnNodes.hasLiteralValue(target)) {
 			return;
@@ -345,25 +479,24 @@ public class DataDrivenConstantGrouper implements IConstantGrouper {
 			}
 		}
 
-		Object castedLiteral = DataTypeUtils.tryCastExact(literal, groupInfo.dataType);
-		if (castedLiteral == null && literal != null) {
+		if (literal != null && !DataTypeUtils.canCastExact(literal, groupInfo.dataType)) {
 			return;
 		}
 
-		Long longLiteral = (Long) DataTypeUtils.tryCastExact(literal, DataType.LONG);
-
-		if (groupInfo.flags && DataTypeUtils.isAssignable(DataType.LONG, literalType) && longLiteral != null && !longLiteral.equals(0L) && !longLiteral.equals(-1L)) {
+		if (groupInfo.flags && DataTypeUtils.isAssignable(DataType.LONG, literalType) && literal instanceof Number number
+				&& number.longValue() != 0L && number.longValue() != -1L) {
 			DataType narrowedLiteralType = getNarrowedLiteralType(context, target, literalType, literal);
-			Expression flagsExpression = ExpressionGenerator.generateFlagsExpression(context, groupInfo, longLiteral, literalType, narrowedLiteralType);
+			Expression flagsExpression = ExpressionGenerator.generateFlagsExpression(context, group, number.longValue(), literalType, narrowedLiteralType);
 			if (flagsExpression != null) {
-				ExpressionGenerator.replaceWithExpression(context, groupInfo, flagsExpression, narrowedLiteralType);
+				ExpressionGenerator.replaceWithExpression(context, memberChecker, groupInfo, flagsExpression, narrowedLiteralType);
 			}
 		} else {
-			for (ScopedGroupInfo scope : findMatchingScopes(context, groupInfo)) {
-				ConstantReplacementInfo replacementInfo = scope.constantReplacementMap.get(castedLiteral);
+			ScopeChain scopes = findMatchingScopes(context, group);
+			for (int i = 0; i < scopes.size(); i++) {
+				ConstantReplacementInfo replacementInfo = scopes.getReplacementTable(i).get(literal);
 				if (replacementInfo != null && (!replacementInfo.strict() || literalType == groupInfo.dataType)) {
 					DataType narrowedLiteralType = getNarrowedLiteralType(context, target, literalType, literal);
-					ExpressionGenerator.replaceWithExpression(context, groupInfo, replacementInfo.replacementExpression(), narrowedLiteralType);
+					ExpressionGenerator.replaceWithExpression(context, memberChecker, groupInfo, replacementInfo.replacementExpression(), narrowedLiteralType);
 					return;
 				}
 			}
@@ -398,37 +531,162 @@ public class DataDrivenConstantGrouper implements IConstantGrouper {
 		}
 	}
 
-	static List<ScopedGroupInfo> findMatchingScopes(IReplacementGenerator.IContext context, GroupInfo groupInfo) {
-		List<ScopedGroupInfo> scopes = new ArrayList<>(1);
-
-		String className = context.getContainingClass().name.replace('/', '.');
+	static ScopeChain findMatchingScopes(IReplacementGenerator.IContext context, CompiledGroup group) {
 		MethodNode method = context.getContainingMethod();
+		return group.getScopeChain(context.getContainingClass().name, method.name, method.desc);
+	}
 
-		ScopedGroupInfo methodScope = groupInfo.methodScopes.get(new MemberKey(className, method.name, method.desc));
-		if (methodScope != null) {
-			scopes.add(methodScope);
+	/**
+	 * The loaded mappings compiled for lookups, keyed by internal names. Each group is compiled exactly once, so that
+	 * lookups return the same {@link ConstantGroup} every time instead of allocating one. Apart from the cache of
+	 * inherited target methods, it is immutable.
+	 *
+	 * <p>Target methods are also indexed by name and descriptor, so that the inheritance hierarchy of a method's owner
+	 * is only walked if some class declares a target method with the same signature. Most methods are not targeted,
+	 * and are rejected without walking it. The results of walks are kept in a bounded cache.
+	 */
+	private final class MappingIndex {
+		final CompiledGroup[] groups;
+		final CompiledGroup[] defaultGroups = new CompiledGroup[DataType.values().length];
+		final Map<String, ConstantGroup> groupsByName = new HashMap<>();
+		final MemberTable<ConstantGroup> fieldGroups;
+		final MemberTable<MethodGroups> targetMethods;
+		final Map<String, ConstantGroup> annotationGroups = new HashMap<>();
+		// name -> descriptor -> internal names of the classes which declare a target method with that signature
+		final Map<String, Map<String, Set<String>>> targetMethodOwners = new HashMap<>();
+		final MemberCache<MethodGroups> inheritedTargetMethods = new MemberCache<>(INHERITED_TARGET_METHOD_CACHE_SIZE);
+
+		MappingIndex(Data data) {
+			List<CompiledGroup> groups = new ArrayList<>(data.defaultGroups.size() + data.groups.size());
+			data.defaultGroups.forEach((dataType, groupInfo) -> {
+				CompiledGroup group = new CompiledGroup(groups.size(), null, groupInfo);
+				groups.add(group);
+				defaultGroups[dataType.ordinal()] = group;
+			});
+			data.groups.forEach((name, groupInfo) -> {
+				CompiledGroup group = new CompiledGroup(groups.size(), name, groupInfo);
+				groups.add(group);
+				groupsByName.put(name, new ConstantGroup(name, context -> replaceWithGroup(context, group)));
+			});
+			this.groups = groups.toArray(new CompiledGroup[0]);
+
+			Map<MemberKey, ConstantGroup> fieldGroups = new HashMap<>();
+			data.targetFields.forEach((field, targetField) -> fieldGroups.put(toInternalName(field), getGroup(targetField.groupName())));
+			this.fieldGroups = new MemberTable<>(fieldGroups);
+
+			Map<MemberKey, MethodGroups> targetMethods = new HashMap<>();
+			data.targetMethods.forEach((method, targetMethod) -> {
+				ConstantGroup returnGroup = targetMethod.returnGroup() == null ? null : getGroup(targetMethod.returnGroup());
+				int parameterCount = 0;
+				for (int parameterIndex : targetMethod.paramGroups().keySet()) {
+					parameterCount = Math.max(parameterCount, parameterIndex + 1);
+				}
+				ConstantGroup[] parameterGroups = new ConstantGroup[parameterCount];
+				targetMethod.paramGroups().forEach((parameterIndex, groupName) -> parameterGroups[parameterIndex] = getGroup(groupName));
+				MemberKey internalMethod = toInternalName(method);
+				targetMethods.put(internalMethod, new MethodGroups(returnGroup, parameterGroups));
+				targetMethodOwners.computeIfAbsent(internalMethod.name(), k -> new HashMap<>())
+						.computeIfAbsent(internalMethod.descriptor(), k -> new HashSet<>())
+						.add(internalMethod.owner());
+			});
+			this.targetMethods = new MemberTable<>(targetMethods);
+
+			data.targetAnnotations.forEach((annotation, targetAnnotation) -> annotationGroups.put(annotation, getGroup(targetAnnotation.groupName())));
 		}
 
-		ScopedGroupInfo classScope = groupInfo.classScopes.get(className);
-		if (classScope != null) {
-			scopes.add(classScope);
+		private ConstantGroup getGroup(String name) {
+			return groupsByName.getOrDefault(name, UNDEFINED_GROUP);
 		}
 
-		String packageName = getPackageName(className);
-		if (packageName != null) {
-			ScopedGroupInfo packageScope = groupInfo.packageScopes.get(packageName);
-			if (packageScope != null) {
-				scopes.add(packageScope);
+		private static MemberKey toInternalName(MemberKey member) {
+			return new MemberKey(member.owner().replace('.', '/'), member.name(), member.descriptor());
+		}
+	}
+
+	/**
+	 * The groups of a target method. A group which is targeted but not defined is {@link #UNDEFINED_GROUP}.
+	 */
+	private record MethodGroups(@Nullable ConstantGroup returnGroup, ConstantGroup[] parameterGroups) {
+		@Nullable
+		ConstantGroup getParameterGroup(int parameterIndex) {
+			return parameterIndex >= 0 && parameterIndex < parameterGroups.length ? parameterGroups[parameterIndex] : null;
+		}
+	}
+
+	/**
+	 * A summary of which members and literals the mappings can possibly affect, used to skip analysing methods that
+	 * the mappings cannot affect. Names are indexed without their owners, so that no inheritance lookups are needed.
+	 */
+	private static final class RelevanceIndex {
+		final Map<String, Set<String>> methods = new HashMap<>();
+		final Map<String, Set<String>> fields = new HashMap<>();
+		final Map<DataType, Set<Object>> defaultValues = new EnumMap<>(DataType.class);
+		final boolean anyAnnotations;
+
+		RelevanceIndex(Data data) {
+			for (MemberKey method : data.targetMethods.keySet()) {
+				methods.computeIfAbsent(method.name(), k -> new HashSet<>()).add(method.descriptor());
+			}
+			for (MemberKey field : data.targetFields.keySet()) {
+				fields.computeIfAbsent(field.name(), k -> new HashSet<>()).add(field.descriptor());
 			}
+			data.defaultGroups.forEach((dataType, groupInfo) -> {
+				Set<Object> values = new HashSet<>(groupInfo.globalScope.constantReplacementMap.keySet());
+				groupInfo.packageScopes.values().forEach(scope -> values.addAll(scope.constantReplacementMap.keySet()));
+				groupInfo.classScopes.values().forEach(scope -> values.addAll(scope.constantReplacementMap.keySet()));
+				groupInfo.methodScopes.values().forEach(scope -> values.addAll(scope.constantReplacementMap.keySet()));
+				defaultValues.put(dataType, values);
+			});
+			anyAnnotations = !data.targetAnnotations.isEmpty();
 		}
 
-		scopes.add(groupInfo.globalScope);
-		return scopes;
+		boolean containsDefaultValue(DataType dataType, @Nullable Object value) {
+			Set<Object> values = defaultValues.get(dataType);
+			return values != null && values.contains(value);
+		}
 	}
 
-	@Nullable
-	private static String getPackageName(String className) {
-		int dotIndex = className.lastIndexOf('.');
-		return dotIndex == -1 ? null : className.substring(0, dotIndex);
+	/**
+	 * Adds everything visited to the mapping digest, in the same form that the .unpick v3 writer would produce.
+	 */
+	private final class FingerprintingVisitor extends ForwardingUnpickV3Visitor {
+		FingerprintingVisitor(UnpickV3Visitor downstream) {
+			super(downstream);
+		}
+
+		@Override
+		public void visitGroupDefinition(GroupDefinition groupDefinition) {
+			update(writer -> writer.visitGroupDefinition(groupDefinition));
+			super.visitGroupDefinition(groupDefinition);
+		}
+
+		@Override
+		public void visitTargetField(TargetField targetField) {
+			update(writer -> writer.visitTargetField(targetField));
+			super.visitTargetField(targetField);
+		}
+
+		@Override
+		public void visitTargetMethod(TargetMethod targetMethod) {
+			update(writer -> writer.visitTargetMethod(targetMethod));
+			super.visitTargetMethod(targetMethod);
+		}
+
+		@Override
+		public void visitTargetAnnotation(TargetAnnotation targetAnnotation) {
+			update(writer -> writer.visitTargetAnnotation(targetAnnotation));
+			super.visitTargetAnnotation(targetAnnotation);
+		}
+
+		private void update(Consumer<UnpickV3Writer> visit) {
+			// a fixed line separator, so that the fingerprint is the same on every platform
+			UnpickV3Writer writer = new UnpickV3Writer("\t", "\n");
+			// the latest version, so that everything can be written
+			writer.visitHeader(4);
+			visit.accept(writer);
+			synchronized (mappingDigest) {
+				mappingDigest.update(writer.getOutput().getBytes(StandardCharsets.UTF_8));
+			}
+		}
 	}
 }
@@ -1,9 +1,7 @@
 package daomephsta.unpick.impl.constantmappers.datadriven;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -15,7 +13,6 @@ import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.FieldNode;
-import org.objectweb.asm.tree.InnerClassNode;
 import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.InsnNode;
 import org.objectweb.asm.tree.InvokeDynamicInsnNode;
@@ -25,6 +22,7 @@ import org.objectweb.asm.tree.VarInsnNode;
 import org.objectweb.asm.tree.analysis.Frame;
 
 import daomephsta.unpick.api.classresolvers.IConstantResolver;
+import daomephsta.unpick.api.classresolvers.IMemberChecker;
 import daomephsta.unpick.api.constantgroupers.IReplacementGenerator;
 import daomephsta.unpick.constantmappers.datadriven.parser.UnpickSyntaxException;
 import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
@@ -41,106 +39,41 @@ import daomephsta.unpick.impl.AbstractInsnNodes;
 import daomephsta.unpick.impl.DataTypeUtils;
 import daomephsta.unpick.impl.InstructionFactory;
 import daomephsta.unpick.impl.constantmappers.datadriven.data.GroupInfo;
-import daomephsta.unpick.impl.constantmappers.datadriven.data.ScopedGroupInfo;
 
 public final class ExpressionGenerator {
 	private ExpressionGenerator() {
 	}
 
 	@Nullable
-	public static Expression generateFlagsExpression(IReplacementGenerator.IContext context, GroupInfo groupInfo, long targetValue, DataType literalType, DataType narrowedLiteralType) {
-		long mask = switch (narrowedLiteralType) {
-			case BYTE -> 0xff;
-			case SHORT, CHAR -> 0xffff;
-			case INT -> 0xffff_ffffL;
-			case LONG -> 0xffff_ffff_ffff_ffffL;
-			default -> throw new AssertionError("Invalid literal type for flag: " + narrowedLiteralType);
-		};
-		targetValue &= mask;
-
-		Map<Long, Expression> inScopeFlags = new LinkedHashMap<>();
-		for (ScopedGroupInfo scope : DataDrivenConstantGrouper.findMatchingScopes(context, groupInfo)) {
-			scope.constantReplacementMap.forEach((key, replacementInfo) -> {
-				if (!replacementInfo.strict() || literalType == groupInfo.dataType) {
-					inScopeFlags.putIfAbsent((Long) DataTypeUtils.cast(key, DataType.LONG) & mask, replacementInfo.replacementExpression());
-				}
-			});
-		}
+	public static Expression generateFlagsExpression(IReplacementGenerator.IContext context, CompiledGroup group, long targetValue, DataType literalType, DataType narrowedLiteralType) {
+		targetValue &= FlagTable.getMask(narrowedLiteralType);
 
-		List<Map.Entry<Long, Expression>> flagList = new ArrayList<>(inScopeFlags.entrySet());
-		flagList.sort(Map.Entry.comparingByKey(Comparator.comparingInt(Long::bitCount).reversed()));
-
-		List<Expression> positiveSet = new ArrayList<>();
-		long residual = targetValue;
-		for (Map.Entry<Long, Expression> flag : flagList) {
-			// make sure we aren't setting any bits that aren't set in the original value
-			if ((flag.getKey() & ~targetValue) != 0) {
-				continue;
-			}
-			// make sure we are actually contributing more set bits
-			if ((flag.getKey() & residual) == 0) {
-				continue;
-			}
-
-			residual &= ~flag.getKey();
-			positiveSet.add(flag.getValue());
+		FlagTable flagTable = DataDrivenConstantGrouper.findMatchingScopes(context, group).getFlagTable(narrowedLiteralType, literalType == group.info.dataType);
+		FlagTable.Cover cover = flagTable.getCover(targetValue);
+		if (!cover.negated() && cover.flagIndices().length == 0) {
+			return null;
 		}
 
-		List<Expression> negativeSet = new ArrayList<>();
-		long inverseTarget = targetValue ^ mask;
-		long inverseResidual = inverseTarget;
-		for (Map.Entry<Long, Expression> flag : flagList) {
-			// make sure we aren't setting any bits that aren't set in the inverse value
-			if ((flag.getKey() & ~inverseTarget) != 0) {
-				continue;
-			}
-			// make sure we are actually contributing more set bits
-			if ((flag.getKey() & inverseResidual) == 0) {
-				continue;
+		Expression oredFlags = null;
+		for (int flagIndex : cover.flagIndices()) {
+			Expression flag = flagTable.expressions[flagIndex];
+			if (literalType == DataType.INT && getExpressionType(context, flag) == DataType.LONG) {
+				flag = new CastExpression(narrowedLiteralType, flag);
 			}
-
-			inverseResidual &= ~flag.getKey();
-			negativeSet.add(flag.getValue());
+			oredFlags = oredFlags == null ? flag : new BinaryExpression(oredFlags, flag, BinaryExpression.Operator.BIT_OR);
 		}
 
-		if (inverseResidual == 0 && (residual != 0 || negativeSet.size() < positiveSet.size())) {
-			// negativeSet shouldn't be empty if inverseResidual is 0
-			Expression oredFlags = negativeSet.getFirst();
-			if (literalType == DataType.INT && getExpressionType(context, oredFlags) == DataType.LONG) {
-				oredFlags = new CastExpression(narrowedLiteralType, oredFlags);
-			}
-			for (int i = 1; i < negativeSet.size(); i++) {
-				Expression nextExpr = negativeSet.get(i);
-				if (literalType == DataType.INT && getExpressionType(context, nextExpr) == DataType.LONG) {
-					nextExpr = new CastExpression(narrowedLiteralType, nextExpr);
-				}
-				oredFlags = new BinaryExpression(oredFlags, nextExpr, BinaryExpression.Operator.BIT_OR);
-			}
+		if (cover.negated()) {
 			return new UnaryExpression(oredFlags, UnaryExpression.Operator.BIT_NOT);
-		} else if (!positiveSet.isEmpty()) {
-			Expression oredFlags = positiveSet.getFirst();
-			if (literalType == DataType.INT && getExpressionType(context, oredFlags) == DataType.LONG) {
-				oredFlags = new CastExpression(narrowedLiteralType, oredFlags);
-			}
-			for (int i = 1; i < positiveSet.size(); i++) {
-				Expression nextExpr = positiveSet.get(i);
-				if (literalType == DataType.INT && getExpressionType(context, nextExpr) == DataType.LONG) {
-					nextExpr = new CastExpression(narrowedLiteralType, nextExpr);
-				}
-				oredFlags = new BinaryExpression(oredFlags, nextExpr, BinaryExpression.Operator.BIT_OR);
-			}
-			if (residual != 0) {
-				Literal residualLiteral = literalType == DataType.INT ? new Literal.Integer((int) residual) : new Literal.Long(residual);
-				return new BinaryExpression(oredFlags, new LiteralExpression(residualLiteral), BinaryExpression.Operator.BIT_OR);
-			} else {
-				return oredFlags;
-			}
+		} else if (cover.residual() != 0) {
+			Literal residualLiteral = literalType == DataType.INT ? new Literal.Integer((int) cover.residual()) : new Literal.Long(cover.residual());
+			return new BinaryExpression(oredFlags, new LiteralExpression(residualLiteral), BinaryExpression.Operator.BIT_OR);
 		} else {
-			return null;
+			return oredFlags;
 		}
 	}
 
-	public static void replaceWithExpression(IReplacementGenerator.IContext context, GroupInfo groupInfo, Expression replacement, DataType literalType) {
+	public static void replaceWithExpression(IReplacementGenerator.IContext context, IMemberChecker memberChecker, GroupInfo groupInfo, Expression replacement, DataType literalType) {
 		AbstractInsnNode targetInsn = context.getTarget();
 
 		// check for lonesome instance field replacement to replace a null check
@@ -185,9 +118,9 @@ public final class ExpressionGenerator {
 			return;
 		}
 
-		Map<FieldExpression, List<FieldNode>> thisReferenceChains = new HashMap<>();
+		Map<FieldExpression, List<IMemberChecker.MemberInfo>> thisReferenceChains = new HashMap<>();
 		for (FieldExpression instanceFieldExpression : instanceFieldExpressions) {
-			List<FieldNode> thisReferenceChain = getThisReferenceChain(context, instanceFieldExpression);
+			List<IMemberChecker.MemberInfo> thisReferenceChain = getThisReferenceChain(context, memberChecker, instanceFieldExpression);
 			if (thisReferenceChain == null) {
 				return;
 			}
@@ -250,9 +183,9 @@ public final class ExpressionGenerator {
 				} else {
 					replacementInsns.add(new VarInsnNode(Opcodes.ALOAD, 0));
 					String thisType = context.getContainingClass().name;
-					for (FieldNode outerThisField : thisReferenceChains.get(fieldExpression)) {
-						replacementInsns.add(new FieldInsnNode(Opcodes.GETFIELD, thisType, outerThisField.name, outerThisField.desc));
-						thisType = Type.getType(outerThisField.desc).getInternalName();
+					for (IMemberChecker.MemberInfo outerThisField : thisReferenceChains.get(fieldExpression)) {
+						replacementInsns.add(new FieldInsnNode(Opcodes.GETFIELD, thisType, outerThisField.name(), outerThisField.desc()));
+						thisType = Type.getType(outerThisField.desc()).getInternalName();
 					}
 					replacementInsns.add(new FieldInsnNode(Opcodes.GETFIELD, thisType, fieldExpression.fieldName, fieldDesc));
 				}
@@ -586,64 +519,51 @@ public final class ExpressionGenerator {
 	}
 
 	@Nullable
-	private static OuterClassReference getOuterClassReference(IReplacementGenerator.IContext context, ClassNode innerClass) {
-		if (innerClass.fields == null || innerClass.fields.isEmpty()) {
-			return null;
-		}
-
-		int slashIndex = innerClass.name.lastIndexOf('/');
-		int dollarIndex = innerClass.name.lastIndexOf('$');
-		if (dollarIndex <= slashIndex) {
-			return null;
-		}
-
-		String outerClassName = innerClass.name.substring(0, dollarIndex);
-
-		if (!innerClass.fields.getFirst().desc.equals("L" + outerClassName + ";")) {
-			return null;
+	private static List<IMemberChecker.MemberInfo> getThisReferenceChain(IReplacementGenerator.IContext context, IMemberChecker memberChecker, FieldExpression fieldExpr) {
+		String fieldOwner = fieldExpr.className.replace('.', '/');
+		ClassNode containingClass = context.getContainingClass();
+		String className = containingClass.name;
+		List<IMemberChecker.MemberInfo> fields = new ArrayList<>();
+		if (containingClass.fields != null && !containingClass.fields.isEmpty()) {
+			FieldNode firstField = containingClass.fields.getFirst();
+			fields.add(IMemberChecker.MemberInfo.create(firstField.access, firstField.name, firstField.desc));
 		}
 
-		ClassNode outerClass = context.getClassResolver().resolveClass(outerClassName);
-		if (outerClass == null) {
-			return null;
-		}
+		List<IMemberChecker.MemberInfo> thisReferenceChain = new ArrayList<>();
+		while (true) {
+			if (context.getInheritanceChecker().isAssignableFrom(fieldOwner, className)) {
+				return thisReferenceChain;
+			}
 
-		boolean isInnerClassStatic = true;
-		if (outerClass.innerClasses != null) {
-			for (InnerClassNode innerClassNode : outerClass.innerClasses) {
-				if (innerClassNode.name.equals(innerClass.name)) {
-					isInnerClassStatic = (innerClassNode.access & Opcodes.ACC_STATIC) != 0;
-					break;
-				}
+			if (fields.isEmpty()) {
+				return null;
 			}
-		}
 
-		if (isInnerClassStatic) {
-			return null;
-		}
+			int slashIndex = className.lastIndexOf('/');
+			int dollarIndex = className.lastIndexOf('$');
+			if (dollarIndex <= slashIndex) {
+				return null;
+			}
 
-		return new OuterClassReference(outerClass, innerClass.fields.getFirst());
-	}
+			String outerClassName = className.substring(0, dollarIndex);
+			IMemberChecker.MemberInfo outerThisReference = fields.getFirst();
+			if (!outerThisReference.desc().equals("L" + outerClassName + ";")) {
+				return null;
+			}
 
-	@Nullable
-	private static List<FieldNode> getThisReferenceChain(IReplacementGenerator.IContext context, FieldExpression fieldExpr) {
-		String fieldOwner = fieldExpr.className.replace('.', '/');
-		ClassNode clazz = context.getContainingClass();
-		List<FieldNode> thisReferenceChain = new ArrayList<>();
-		while (true) {
-			if (context.getInheritanceChecker().isAssignableFrom(fieldOwner, clazz.name)) {
-				return thisReferenceChain;
+			Integer innerClassAccess = memberChecker.getInnerClassAccess(outerClassName, className);
+			if (innerClassAccess == null || (innerClassAccess & Opcodes.ACC_STATIC) != 0) {
+				return null;
 			}
 
-			OuterClassReference outerClassRef = getOuterClassReference(context, clazz);
-			if (outerClassRef == null) {
+			List<IMemberChecker.MemberInfo> outerClassFields = memberChecker.getFields(outerClassName);
+			if (outerClassFields == null) {
 				return null;
 			}
-			thisReferenceChain.add(outerClassRef.outerThisReference);
-			clazz = outerClassRef.outerClass;
-		}
-	}
 
-	private record OuterClassReference(ClassNode outerClass, FieldNode outerThisReference) {
+			thisReferenceChain.add(outerThisReference);
+			className = outerClassName;
+			fields = outerClassFields;
+		}
 	}
 }
@@ -0,0 +1,128 @@
+package daomephsta.unpick.impl.constantmappers.datadriven;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
+import daomephsta.unpick.constantmappers.datadriven.tree.expr.Expression;
+import daomephsta.unpick.impl.DataTypeUtils;
+
+/**
+ * The flags of a chain of scopes for one width of literal, sorted by descending bit count, which is the order in which
+ * the covers of a value are built greedily. The covers of recently seen values are memoised in a small direct-mapped
+ * table, as the same flag values tend to recur throughout a jar.
+ */
+final class FlagTable {
+	private static final int MEMO_SIZE = 256;
+
+	final long[] flags;
+	final Expression[] expressions;
+	private final long mask;
+	// racy, but covers are immutable, so a reader sees either a complete cover or a miss
+	private final Cover[] memo = new Cover[MEMO_SIZE];
+
+	/**
+	 * @param includeStrict whether strict constants may be used, i.e. whether the literal has the type of the group.
+	 */
+	FlagTable(ScopeChain scopes, long mask, boolean includeStrict) {
+		this.mask = mask;
+
+		Map<Long, Expression> inScopeFlags = new LinkedHashMap<>();
+		for (int i = 0; i < scopes.size(); i++) {
+			scopes.get(i).constantReplacementMap.forEach((key, replacementInfo) -> {
+				if (!replacementInfo.strict() || includeStrict) {
+					inScopeFlags.putIfAbsent((Long) DataTypeUtils.cast(key, DataType.LONG) & mask, replacementInfo.replacementExpression());
+				}
+			});
+		}
+
+		List<Map.Entry<Long, Expression>> flagList = new ArrayList<>(inScopeFlags.entrySet());
+		flagList.sort(Map.Entry.comparingByKey(Comparator.comparingInt(Long::bitCount).reversed()));
+		flags = new long[flagList.size()];
+		expressions = new Expression[flagList.size()];
+		for (int i = 0; i < flagList.size(); i++) {
+			flags[i] = flagList.get(i).getKey();
+			expressions[i] = flagList.get(i).getValue();
+		}
+	}
+
+	static long getMask(DataType narrowedLiteralType) {
+		return switch (narrowedLiteralType) {
+			case BYTE -> 0xff;
+			case SHORT, CHAR -> 0xffff;
+			case INT -> 0xffff_ffffL;
+			case LONG -> 0xffff_ffff_ffff_ffffL;
+			default -> throw new AssertionError("Invalid literal type for flag: " + narrowedLiteralType);
+		};
+	}
+
+	/**
+	 * @param targetValue the value to cover, already masked to the width of this table.
+	 */
+	Cover getCover(long targetValue) {
+		long hash = targetValue * 0x9e37_79b9_7f4a_7c15L;
+		int slot = (int) (hash >>> 56) & (MEMO_SIZE - 1);
+		Cover cover = memo[slot];
+		if (cover == null || cover.targetValue != targetValue) {
+			cover = computeCover(targetValue);
+			memo[slot] = cover;
+		}
+		return cover;
+	}
+
+	private Cover computeCover(long targetValue) {
+		int[] positiveSet = new int[flags.length];
+		int positiveCount = 0;
+		long residual = targetValue;
+		for (int i = 0; i < flags.length; i++) {
+			long flag = flags[i];
+			// make sure we aren't setting any bits that aren't set in the original value
+			if ((flag & ~targetValue) != 0) {
+				continue;
+			}
+			// make sure we are actually contributing more set bits
+			if ((flag & residual) == 0) {
+				continue;
+			}
+
+			residual &= ~flag;
+			positiveSet[positiveCount++] = i;
+		}
+
+		int[] negativeSet = new int[flags.length];
+		int negativeCount = 0;
+		long inverseTarget = targetValue ^ mask;
+		long inverseResidual = inverseTarget;
+		for (int i = 0; i < flags.length; i++) {
+			long flag = flags[i];
+			// make sure we aren't setting any bits that aren't set in the inverse value
+			if ((flag & ~inverseTarget) != 0) {
+				continue;
+			}
+			// make sure we are actually contributing more set bits
+			if ((flag & inverseResidual) == 0) {
+				continue;
+			}
+
+			inverseResidual &= ~flag;
+			negativeSet[negativeCount++] = i;
+		}
+
+		if (inverseResidual == 0 && negativeCount > 0 && (residual != 0 || negativeCount < positiveCount)) {
+			return new Cover(targetValue, Arrays.copyOf(negativeSet, negativeCount), true, 0);
+		} else {
+			return new Cover(targetValue, Arrays.copyOf(positiveSet, positiveCount), false, residual);
+		}
+	}
+
+	/**
+	 * The flags which cover a value, as indices into the table. A negated cover covers the inverse of the value, and a
+	 * cover which is not negated may leave some residual bits uncovered.
+	 */
+	record Cover(long targetValue, int[] flagIndices, boolean negated, long residual) {
+	}
+}
@@ -0,0 +1,46 @@
+package daomephsta.unpick.impl.constantmappers.datadriven;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A fixed size cache keyed by the owner, name and descriptor of a member. Each key can only be stored in one slot, so
+ * storing an entry evicts whichever entry last used its slot. Lookups neither allocate nor lock; entries are
+ * immutable, so a racing lookup sees either the old entry or the new one.
+ */
+final class MemberCache<V> {
+	private final Entry<V>[] entries;
+	private final int mask;
+
+	/**
+	 * @param capacity the number of entries, which must be a power of two.
+	 */
+	@SuppressWarnings("unchecked")
+	MemberCache(int capacity) {
+		if (Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+		}
+		entries = new Entry[capacity];
+		mask = capacity - 1;
+	}
+
+	@Nullable
+	V get(String owner, String name, String descriptor) {
+		Entry<V> entry = entries[hash(owner, name, descriptor) & mask];
+		if (entry != null && entry.owner().equals(owner) && entry.name().equals(name) && entry.descriptor().equals(descriptor)) {
+			return entry.value();
+		}
+		return null;
+	}
+
+	void put(String owner, String name, String descriptor, V value) {
+		entries[hash(owner, name, descriptor) & mask] = new Entry<>(owner, name, descriptor, value);
+	}
+
+	private static int hash(String owner, String name, String descriptor) {
+		int hash = (owner.hashCode() * 31 + name.hashCode()) * 31 + descriptor.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+
+	private record Entry<V>(String owner, String name, String descriptor, V value) {
+	}
+}
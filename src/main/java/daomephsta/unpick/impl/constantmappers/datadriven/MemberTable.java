@@ -0,0 +1,61 @@
+package daomephsta.unpick.impl.constantmappers.datadriven;
+
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+import daomephsta.unpick.constantmappers.datadriven.parser.MemberKey;
+
+/**
+ * An immutable hash table keyed by the owner, name and descriptor of a member, which can be looked up without
+ * allocating a key. Collisions are resolved by linear probing.
+ */
+final class MemberTable<V> {
+	private final String[] owners;
+	private final String[] names;
+	private final String[] descriptors;
+	private final Object[] values;
+	private final int mask;
+
+	/**
+	 * @param entries the entries of the table, whose keys must already be in the form that they will be looked up in.
+	 */
+	MemberTable(Map<MemberKey, ? extends V> entries) {
+		// keep the load factor at or below one half
+		int capacity = Integer.highestOneBit(Math.max(1, entries.size()) * 2 - 1) << 1;
+		owners = new String[capacity];
+		names = new String[capacity];
+		descriptors = new String[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+
+		entries.forEach((key, value) -> {
+			int index = hash(key.owner(), key.name(), key.descriptor()) & mask;
+			while (owners[index] != null) {
+				index = (index + 1) & mask;
+			}
+			owners[index] = key.owner();
+			names[index] = key.name();
+			descriptors[index] = key.descriptor();
+			values[index] = value;
+		});
+	}
+
+	@Nullable
+	@SuppressWarnings("unchecked")
+	V get(String owner, String name, String descriptor) {
+		int index = hash(owner, name, descriptor) & mask;
+		while (owners[index] != null) {
+			if (owners[index].equals(owner) && names[index].equals(name) && descriptors[index].equals(descriptor)) {
+				return (V) values[index];
+			}
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	private static int hash(String owner, String name, String descriptor) {
+		int hash = (owner.hashCode() * 31 + name.hashCode()) * 31 + descriptor.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+}
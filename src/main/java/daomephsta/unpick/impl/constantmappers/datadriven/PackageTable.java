@@ -0,0 +1,65 @@
+package daomephsta.unpick.impl.constantmappers.datadriven;
+
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An immutable hash table keyed by internal package names, which is looked up by the internal name of a class in the
+ * package, so that the package name need not be cut out of it. Collisions are resolved by linear probing.
+ */
+final class PackageTable<V> {
+	private final String[] packageNames;
+	private final Object[] values;
+	private final int mask;
+
+	PackageTable(Map<String, ? extends V> entries) {
+		// keep the load factor at or below one half
+		int capacity = Integer.highestOneBit(Math.max(1, entries.size()) * 2 - 1) << 1;
+		packageNames = new String[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+
+		entries.forEach((packageName, value) -> {
+			int index = spread(packageName.hashCode()) & mask;
+			while (packageNames[index] != null) {
+				index = (index + 1) & mask;
+			}
+			packageNames[index] = packageName;
+			values[index] = value;
+		});
+	}
+
+	/**
+	 * @return the value for the package of {@code className}, or {@code null} if there is none or the class is in the
+	 * default package.
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	V getByClass(String className) {
+		int packageLength = className.lastIndexOf('/');
+		if (packageLength == -1) {
+			return null;
+		}
+
+		// the same as the hash code of the package name as a string
+		int hash = 0;
+		for (int i = 0; i < packageLength; i++) {
+			hash = 31 * hash + className.charAt(i);
+		}
+
+		int index = spread(hash) & mask;
+		while (packageNames[index] != null) {
+			String packageName = packageNames[index];
+			if (packageName.length() == packageLength && className.startsWith(packageName)) {
+				return (V) values[index];
+			}
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+}
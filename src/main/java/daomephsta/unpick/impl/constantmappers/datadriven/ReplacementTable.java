@@ -0,0 +1,85 @@
+package daomephsta.unpick.impl.constantmappers.datadriven;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
+import daomephsta.unpick.impl.DataTypeUtils;
+import daomephsta.unpick.impl.constantmappers.datadriven.data.ConstantReplacementInfo;
+
+/**
+ * The constant replacements of a scope, specialised for the data type of its group. Primitive constants are keyed by
+ * {@link DataTypeUtils#getPrimitiveKey} in an open addressing table, so that looking up a literal does not box its
+ * cast value. Strings and classes are already objects, so they are looked up in a hash map.
+ */
+final class ReplacementTable {
+	private final DataType dataType;
+	private final long[] keys;
+	// an entry is occupied if and only if its value is non-null
+	private final ConstantReplacementInfo[] values;
+	private final int mask;
+	@Nullable
+	private final Map<Object, ConstantReplacementInfo> objectReplacements;
+
+	/**
+	 * @param replacements the replacements of the scope, keyed by constants of the given type.
+	 */
+	ReplacementTable(DataType dataType, Map<Object, ConstantReplacementInfo> replacements) {
+		this.dataType = dataType;
+
+		if (!DataTypeUtils.isPrimitive(dataType)) {
+			keys = new long[0];
+			values = new ConstantReplacementInfo[0];
+			mask = 0;
+			objectReplacements = new HashMap<>(replacements);
+			return;
+		}
+
+		// keep the load factor at or below one half
+		int capacity = Integer.highestOneBit(Math.max(1, replacements.size()) * 2 - 1) << 1;
+		keys = new long[capacity];
+		values = new ConstantReplacementInfo[capacity];
+		mask = capacity - 1;
+		objectReplacements = null;
+
+		replacements.forEach((constant, replacementInfo) -> {
+			long key = DataTypeUtils.getPrimitiveKey(constant, dataType);
+			int index = hash(key) & mask;
+			while (values[index] != null) {
+				index = (index + 1) & mask;
+			}
+			keys[index] = key;
+			values[index] = replacementInfo;
+		});
+	}
+
+	/**
+	 * @param literal a literal which {@linkplain DataTypeUtils#canCastExact can be cast exactly} to the type of this
+	 *                table, or {@code null} if the type is not primitive.
+	 * @return the replacement of the literal cast to the type of this table, or {@code null} if there is none.
+	 */
+	@Nullable
+	ConstantReplacementInfo get(@Nullable Object literal) {
+		if (objectReplacements != null) {
+			return objectReplacements.get(literal);
+		}
+
+		long key = DataTypeUtils.getPrimitiveKey(literal, dataType);
+		int index = hash(key) & mask;
+		ConstantReplacementInfo value;
+		while ((value = values[index]) != null) {
+			if (keys[index] == key) {
+				return value;
+			}
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	private static int hash(long key) {
+		int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,57 @@
+package daomephsta.unpick.impl.constantmappers.datadriven;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Function;
+
+import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
+import daomephsta.unpick.impl.constantmappers.datadriven.data.ScopedGroupInfo;
+
+/**
+ * The scopes of a group which apply in a method, from the narrowest to the global scope. Chains are immutable and
+ * shared, and are iterated by index so that no iterator is allocated.
+ */
+final class ScopeChain {
+	private static final DataType[] DATA_TYPES = DataType.values();
+
+	private final ScopedGroupInfo[] scopes;
+	private final ReplacementTable[] replacementTables;
+	// by narrowed literal type and strictness, built lazily; racy, but flag tables are immutable apart from their memos
+	private final FlagTable[] flagTables = new FlagTable[DATA_TYPES.length * 2];
+
+	/**
+	 * @param replacementTables gets the shared replacement table of a scope.
+	 * @param scopes the scopes from the narrowest to the widest, of which those which are {@code null} are skipped.
+	 */
+	ScopeChain(Function<ScopedGroupInfo, ReplacementTable> replacementTables, ScopedGroupInfo... scopes) {
+		this.scopes = Arrays.stream(scopes).filter(Objects::nonNull).toArray(ScopedGroupInfo[]::new);
+		this.replacementTables = Arrays.stream(this.scopes).map(replacementTables).toArray(ReplacementTable[]::new);
+	}
+
+	int size() {
+		return scopes.length;
+	}
+
+	ScopedGroupInfo get(int index) {
+		return scopes[index];
+	}
+
+	ReplacementTable getReplacementTable(int index) {
+		return replacementTables[index];
+	}
+
+	/**
+	 * @param narrowedLiteralType the type which determines the width of the flags.
+	 * @param includeStrict whether strict constants may be used.
+	 * @return the flags of these scopes for literals of the given width.
+	 */
+	FlagTable getFlagTable(DataType narrowedLiteralType, boolean includeStrict) {
+		int index = narrowedLiteralType.ordinal() * 2 + (includeStrict ? 1 : 0);
+		FlagTable flagTable = flagTables[index];
+		if (flagTable == null) {
+			flagTable = new FlagTable(this, FlagTable.getMask(narrowedLiteralType), includeStrict);
+			flagTables[index] = flagTable;
+		}
+		return flagTable;
+	}
+}
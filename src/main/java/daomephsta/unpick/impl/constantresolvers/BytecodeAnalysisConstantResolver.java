@@ -8,8 +8,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassVisitor;
@@ -24,9 +22,14 @@ import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.MethodNode;
 
+import daomephsta.unpick.api.IUnpickMetrics;
+import daomephsta.unpick.api.classresolvers.CachePolicy;
 import daomephsta.unpick.api.classresolvers.IClassResolver;
 import daomephsta.unpick.api.classresolvers.IConstantResolver;
+import daomephsta.unpick.api.classresolvers.ParseDepth;
 import daomephsta.unpick.impl.AbstractInsnNodes;
+import daomephsta.unpick.impl.classresolvers.ClassMetadata;
+import daomephsta.unpick.impl.classresolvers.ClassMetadataStore;
 
 /**
  * Resolves constants by analysing the bytecode of their owners.
@@ -45,32 +48,64 @@ public class BytecodeAnalysisConstantResolver implements IConstantResolver {
 			Type.getObjectType("java/lang/Class")
 	);
 
-	private final ConcurrentMap<String, Map<String, ResolvedConstant>> constantDataCache = new ConcurrentHashMap<>();
-	private final IClassResolver classResolver;
+	private final ClassMetadataStore metadataStore;
+	private final IUnpickMetrics metrics;
 
 	public BytecodeAnalysisConstantResolver(IClassResolver classResolver) {
-		this.classResolver = classResolver;
+		this(classResolver, IUnpickMetrics.NONE);
+	}
+
+	public BytecodeAnalysisConstantResolver(IClassResolver classResolver, IUnpickMetrics metrics) {
+		this(classResolver, metrics, CachePolicy.UNBOUNDED);
+	}
+
+	public BytecodeAnalysisConstantResolver(IClassResolver classResolver, IUnpickMetrics metrics, CachePolicy cachePolicy) {
+		this(new ClassMetadataStore(classResolver, cachePolicy), metrics);
+	}
+
+	public BytecodeAnalysisConstantResolver(ClassMetadataStore metadataStore, IUnpickMetrics metrics) {
+		this.metadataStore = metadataStore;
+		this.metrics = metrics;
 	}
 
 	@Override
 	public ResolvedConstant resolveConstant(String owner, String name) {
-		Map<String, ResolvedConstant> resolvedConstants = constantDataCache.computeIfAbsent(owner, this::extractConstants);
+		Map<String, ResolvedConstant> resolvedConstants = getConstants(owner);
 		return resolvedConstants == null ? null : resolvedConstants.get(name);
 	}
 
 	@Override
 	public Map<String, ResolvedConstant> getAllConstantsInClass(String owner) {
-		Map<String, ResolvedConstant> resolvedConstants = constantDataCache.computeIfAbsent(owner, this::extractConstants);
+		Map<String, ResolvedConstant> resolvedConstants = getConstants(owner);
 		return resolvedConstants == null ? null : Collections.unmodifiableMap(resolvedConstants);
 	}
 
 	@Nullable
-	protected Map<String, ResolvedConstant> extractConstants(String owner) {
-		ClassNode node = classResolver.resolveClass(owner);
-		if (node == null) {
-			return null;
+	private Map<String, ResolvedConstant> getConstants(String owner) {
+		ClassMetadata metadata = metadataStore.getIfPresent(owner, ParseDepth.INITIALIZERS);
+		metrics.onCacheAccess(IUnpickMetrics.Cache.CONSTANT, metadata != null);
+		if (metadata == null) {
+			metadata = metadataStore.get(owner, ParseDepth.INITIALIZERS);
 		}
-		ResolvedConstantsBuilder builder = new ResolvedConstantsBuilder(owner);
+		return metadata != null ? metadata.constants() : resolveUnparsedConstants(owner);
+	}
+
+	/**
+	 * Resolves the constants of a class which the class resolver cannot resolve.
+	 * @param owner the internal name of the class.
+	 * @return the constants of the class by name, or {@code null} if the class does not exist.
+	 */
+	@Nullable
+	protected Map<String, ResolvedConstant> resolveUnparsedConstants(String owner) {
+		return null;
+	}
+
+	/**
+	 * @param node the class.
+	 * @return the constants declared by the class, by name.
+	 */
+	public static Map<String, ResolvedConstant> extractConstants(ClassNode node) {
+		ResolvedConstantsBuilder builder = new ResolvedConstantsBuilder(node.name);
 		node.accept(builder);
 		return builder.resolvedConstants;
 	}
@@ -6,19 +6,26 @@ import org.jetbrains.annotations.Nullable;
 
 import daomephsta.unpick.api.classresolvers.IConstantResolver;
 import daomephsta.unpick.impl.Utils;
+import daomephsta.unpick.impl.classresolvers.PackageRouter;
 
 public class ChainConstantResolver implements IConstantResolver {
 	private final IConstantResolver[] constantResolvers;
+	private final PackageRouter router;
 
 	public ChainConstantResolver(IConstantResolver[] constantResolvers) {
+		this(constantResolvers, PackageRouter.unrouted(constantResolvers.length));
+	}
+
+	public ChainConstantResolver(IConstantResolver[] constantResolvers, PackageRouter router) {
 		this.constantResolvers = constantResolvers;
+		this.router = router;
 	}
 
 	@Override
 	@Nullable
 	public ResolvedConstant resolveConstant(String owner, String name) {
-		for (IConstantResolver constantResolver : constantResolvers) {
-			ResolvedConstant resolvedConstant = constantResolver.resolveConstant(owner, name);
+		for (int i : router.route(owner)) {
+			ResolvedConstant resolvedConstant = constantResolvers[i].resolveConstant(owner, name);
 			if (resolvedConstant != null) {
 				return resolvedConstant;
 			}
@@ -29,13 +36,14 @@ public class ChainConstantResolver implements IConstantResolver {
 
 	@Override
 	public Map<String, ResolvedConstant> getAllConstantsInClass(String owner) {
-		for (IConstantResolver constantResolver : constantResolvers) {
-			Map<String, ResolvedConstant> constants = constantResolver.getAllConstantsInClass(owner);
+		for (int i : router.route(owner)) {
+			Map<String, ResolvedConstant> constants = constantResolvers[i].getAllConstantsInClass(owner);
 			if (constants != null) {
 				return constants;
 			}
 		}
 
+		router.markMissing(owner);
 		return null;
 	}
 
@@ -8,6 +8,11 @@ import java.util.Map;
 import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.Type;
 
+import daomephsta.unpick.api.IUnpickMetrics;
+import daomephsta.unpick.api.classresolvers.CachePolicy;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.impl.ResolverCache;
+import daomephsta.unpick.impl.classresolvers.ClassMetadataStore;
 import daomephsta.unpick.impl.classresolvers.ClasspathClassResolver;
 
 /**
@@ -17,19 +22,42 @@ import daomephsta.unpick.impl.classresolvers.ClasspathClassResolver;
 public class ClasspathConstantResolver extends BytecodeAnalysisConstantResolver {
 	@Nullable
 	private final ClassLoader classLoader;
+	private final ResolverCache<Map<String, ResolvedConstant>> reflectedConstantCache;
 
 	public ClasspathConstantResolver(@Nullable ClassLoader classLoader) {
-		super(new ClasspathClassResolver(classLoader));
+		this(new ClasspathClassResolver(classLoader), classLoader, IUnpickMetrics.NONE, CachePolicy.UNBOUNDED);
+	}
+
+	/**
+	 * @param classResolver resolves the classes of {@code classLoader}.
+	 * @param classLoader the class loader, or {@code null} for the system class loader.
+	 * @param metrics the metrics to report the accesses to the caches of this resolver to.
+	 * @param cachePolicy the policy limiting the caches of this resolver.
+	 */
+	public ClasspathConstantResolver(IClassResolver classResolver, @Nullable ClassLoader classLoader, IUnpickMetrics metrics, CachePolicy cachePolicy) {
+		this(new ClassMetadataStore(classResolver, cachePolicy), classLoader, metrics, cachePolicy);
+	}
+
+	/**
+	 * @param metadataStore the classes of {@code classLoader}.
+	 * @param classLoader the class loader, or {@code null} for the system class loader.
+	 * @param metrics the metrics to report the accesses to the caches of this resolver to.
+	 * @param cachePolicy the policy limiting the caches of this resolver.
+	 */
+	public ClasspathConstantResolver(ClassMetadataStore metadataStore, @Nullable ClassLoader classLoader, IUnpickMetrics metrics, CachePolicy cachePolicy) {
+		super(metadataStore, metrics);
 		this.classLoader = classLoader;
+		this.reflectedConstantCache = new ResolverCache<>(cachePolicy);
 	}
 
 	@Override
-	protected Map<String, ResolvedConstant> extractConstants(String owner) {
-		Map<String, ResolvedConstant> resolvedConstants = super.extractConstants(owner);
-		if (resolvedConstants != null) {
-			return resolvedConstants;
-		}
+	@Nullable
+	protected Map<String, ResolvedConstant> resolveUnparsedConstants(String owner) {
+		return reflectedConstantCache.computeIfAbsent(owner, this::reflectConstants);
+	}
 
+	@Nullable
+	private Map<String, ResolvedConstant> reflectConstants(String owner) {
 		// Fallback: use reflection (but this means we are unable to tell whether a field is a constant, and doesn't
 		// work for instance fields)
 		Class<?> clazz;
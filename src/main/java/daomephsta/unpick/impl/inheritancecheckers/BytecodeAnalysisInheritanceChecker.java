@@ -1,35 +1,44 @@
 package daomephsta.unpick.impl.inheritancecheckers;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-
 import org.jetbrains.annotations.Nullable;
-import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.tree.ClassNode;
 
+import daomephsta.unpick.api.IUnpickMetrics;
+import daomephsta.unpick.api.classresolvers.CachePolicy;
 import daomephsta.unpick.api.classresolvers.IClassResolver;
 import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
+import daomephsta.unpick.api.classresolvers.ParseDepth;
+import daomephsta.unpick.impl.classresolvers.ClassMetadata;
+import daomephsta.unpick.impl.classresolvers.ClassMetadataStore;
 
 public class BytecodeAnalysisInheritanceChecker implements IInheritanceChecker {
-	private static final String[] EMPTY_ARRAY = new String[0];
-
-	private final IClassResolver classResolver;
-	private final ConcurrentMap<String, ClassInfo> classInfoCache = new ConcurrentHashMap<>();
+	private final ClassMetadataStore metadataStore;
+	private final IUnpickMetrics metrics;
 
 	public BytecodeAnalysisInheritanceChecker(IClassResolver classResolver) {
-		this.classResolver = classResolver;
+		this(classResolver, IUnpickMetrics.NONE);
+	}
+
+	public BytecodeAnalysisInheritanceChecker(IClassResolver classResolver, IUnpickMetrics metrics) {
+		this(classResolver, metrics, CachePolicy.UNBOUNDED);
+	}
+
+	public BytecodeAnalysisInheritanceChecker(IClassResolver classResolver, IUnpickMetrics metrics, CachePolicy cachePolicy) {
+		this(new ClassMetadataStore(classResolver, cachePolicy), metrics);
+	}
+
+	public BytecodeAnalysisInheritanceChecker(ClassMetadataStore metadataStore, IUnpickMetrics metrics) {
+		this.metadataStore = metadataStore;
+		this.metrics = metrics;
 	}
 
 	@Override
 	@Nullable
 	public ClassInfo getClassInfo(String className) {
-		return classInfoCache.computeIfAbsent(className, name -> {
-			ClassNode node = classResolver.resolveClass(name);
-			if (node == null) {
-				return null;
-			}
-
-			return new ClassInfo(node.superName, node.interfaces == null ? EMPTY_ARRAY : node.interfaces.toArray(new String[0]), (node.access & Opcodes.ACC_INTERFACE) != 0);
-		});
+		ClassMetadata metadata = metadataStore.getIfPresent(className, ParseDepth.HEADER);
+		metrics.onCacheAccess(IUnpickMetrics.Cache.INHERITANCE, metadata != null);
+		if (metadata == null) {
+			metadata = metadataStore.get(className, ParseDepth.HEADER);
+		}
+		return metadata != null ? metadata.classInfo() : null;
 	}
 }
@@ -4,24 +4,32 @@ import org.jetbrains.annotations.Nullable;
 
 import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
 import daomephsta.unpick.impl.Utils;
+import daomephsta.unpick.impl.classresolvers.PackageRouter;
 
 public class ChainInheritanceChecker implements IInheritanceChecker {
 	private final IInheritanceChecker[] checkers;
+	private final PackageRouter router;
 
 	public ChainInheritanceChecker(IInheritanceChecker[] checkers) {
+		this(checkers, PackageRouter.unrouted(checkers.length));
+	}
+
+	public ChainInheritanceChecker(IInheritanceChecker[] checkers, PackageRouter router) {
 		this.checkers = checkers;
+		this.router = router;
 	}
 
 	@Override
 	@Nullable
 	public ClassInfo getClassInfo(String className) {
-		for (IInheritanceChecker checker : checkers) {
-			ClassInfo classInfo = checker.getClassInfo(className);
+		for (int i : router.route(className)) {
+			ClassInfo classInfo = checkers[i].getClassInfo(className);
 			if (classInfo != null) {
 				return classInfo;
 			}
 		}
 
+		router.markMissing(className);
 		return null;
 	}
 
@@ -6,45 +6,54 @@ import org.jetbrains.annotations.Nullable;
 
 import daomephsta.unpick.api.classresolvers.IMemberChecker;
 import daomephsta.unpick.impl.Utils;
+import daomephsta.unpick.impl.classresolvers.PackageRouter;
 
 public class ChainMemberChecker implements IMemberChecker {
 	private final IMemberChecker[] checkers;
+	private final PackageRouter router;
 
 	public ChainMemberChecker(IMemberChecker[] checkers) {
+		this(checkers, PackageRouter.unrouted(checkers.length));
+	}
+
+	public ChainMemberChecker(IMemberChecker[] checkers, PackageRouter router) {
 		this.checkers = checkers;
+		this.router = router;
 	}
 
 	@Override
 	@Nullable
 	public List<MemberInfo> getFields(String className) {
-		for (IMemberChecker checker : checkers) {
-			List<MemberInfo> fields = checker.getFields(className);
+		for (int i : router.route(className)) {
+			List<MemberInfo> fields = checkers[i].getFields(className);
 			if (fields != null) {
 				return fields;
 			}
 		}
 
+		router.markMissing(className);
 		return null;
 	}
 
 	@Override
 	@Nullable
 	public List<MemberInfo> getMethods(String className) {
-		for (IMemberChecker checker : checkers) {
-			List<MemberInfo> methods = checker.getMethods(className);
+		for (int i : router.route(className)) {
+			List<MemberInfo> methods = checkers[i].getMethods(className);
 			if (methods != null) {
 				return methods;
 			}
 		}
 
+		router.markMissing(className);
 		return null;
 	}
 
 	@Override
 	@Nullable
 	public MemberInfo getField(String className, String fieldName, String fieldDesc) {
-		for (IMemberChecker checker : checkers) {
-			MemberInfo field = checker.getField(className, fieldName, fieldDesc);
+		for (int i : router.route(className)) {
+			MemberInfo field = checkers[i].getField(className, fieldName, fieldDesc);
 			if (field != null) {
 				return field;
 			}
@@ -56,8 +65,8 @@ public class ChainMemberChecker implements IMemberChecker {
 	@Override
 	@Nullable
 	public MemberInfo getMethod(String className, String methodName, String methodDesc) {
-		for (IMemberChecker checker : checkers) {
-			MemberInfo method = checker.getMethod(className, methodName, methodDesc);
+		for (int i : router.route(className)) {
+			MemberInfo method = checkers[i].getMethod(className, methodName, methodDesc);
 			if (method != null) {
 				return method;
 			}
@@ -69,8 +78,8 @@ public class ChainMemberChecker implements IMemberChecker {
 	@Override
 	@Nullable
 	public ParameterInfo getParameter(String className, String methodName, String methodDesc, int parameterIndex) {
-		for (IMemberChecker checker : checkers) {
-			ParameterInfo parameter = checker.getParameter(className, methodName, methodDesc, parameterIndex);
+		for (int i : router.route(className)) {
+			ParameterInfo parameter = checkers[i].getParameter(className, methodName, methodDesc, parameterIndex);
 			if (parameter != null) {
 				return parameter;
 			}
@@ -79,6 +88,32 @@ public class ChainMemberChecker implements IMemberChecker {
 		return null;
 	}
 
+	@Override
+	@Nullable
+	public Integer getClassAccess(String className) {
+		for (int i : router.route(className)) {
+			Integer access = checkers[i].getClassAccess(className);
+			if (access != null) {
+				return access;
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	@Nullable
+	public Integer getInnerClassAccess(String className, String innerClassName) {
+		for (int i : router.route(className)) {
+			Integer access = checkers[i].getInnerClassAccess(className, innerClassName);
+			if (access != null) {
+				return access;
+			}
+		}
+
+		return null;
+	}
+
 	@Override
 	public IMemberChecker chain(IMemberChecker... others) {
 		return new ChainMemberChecker(Utils.concat(checkers, others));
@@ -101,6 +101,25 @@ public class ClasspathMemberChecker implements IMemberChecker {
 		return parameterToParameterInfo(parameters[parameterIndex]);
 	}
 
+	@Override
+	@Nullable
+	public Integer getClassAccess(String className) {
+		Class<?> clazz = findClass(className);
+		return clazz != null ? clazz.getModifiers() : null;
+	}
+
+	@Override
+	@Nullable
+	public Integer getInnerClassAccess(String className, String innerClassName) {
+		if (findClass(className) == null) {
+			return null;
+		}
+
+		// reflection only gives the flags of the nested class itself, which every class listing it lists it with
+		Class<?> innerClass = findClass(innerClassName);
+		return innerClass != null && innerClass.getEnclosingClass() != null ? innerClass.getModifiers() : null;
+	}
+
 	@Nullable
 	private Class<?> findClass(String name) {
 		try {
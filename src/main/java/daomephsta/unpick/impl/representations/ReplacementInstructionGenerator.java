@@ -12,7 +12,7 @@ import daomephsta.unpick.api.classresolvers.IClassResolver;
 import daomephsta.unpick.api.classresolvers.IConstantResolver;
 import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
 import daomephsta.unpick.api.constantgroupers.IReplacementGenerator;
-import daomephsta.unpick.impl.UnpickValue;
+import daomephsta.unpick.impl.RetainedFrames;
 
 /**
  * @author Daomephsta
@@ -45,12 +45,12 @@ public interface ReplacementInstructionGenerator extends IReplacementGenerator {
 		private final ClassNode containingClass;
 		private final MethodNode containingMethod;
 		private final AbstractInsnNode target;
-		private final Frame<UnpickValue>[] frames;
+		private final RetainedFrames frames;
 		private final Logger logger;
 
 		public Context(IClassResolver classResolver, IConstantResolver constantResolver,
 					IInheritanceChecker inheritanceChecker, ReplacementSet replacementSet, ClassNode containingClass,
-					MethodNode containingMethod, AbstractInsnNode target, Frame<UnpickValue>[] frames, Logger logger) {
+					MethodNode containingMethod, AbstractInsnNode target, RetainedFrames frames, Logger logger) {
 			this.classResolver = classResolver;
 			this.constantResolver = constantResolver;
 			this.inheritanceChecker = inheritanceChecker;
@@ -101,7 +101,7 @@ public interface ReplacementInstructionGenerator extends IReplacementGenerator {
 		@Nullable
 		@Override
 		public Frame<IDataflowValue> getDataflowFrame(AbstractInsnNode insn) {
-			return (Frame<IDataflowValue>) (Frame<?>) frames[containingMethod.instructions.indexOf(insn)];
+			return (Frame<IDataflowValue>) (Frame<?>) frames.get(containingMethod.instructions.indexOf(insn));
 		}
 
 		@Override
@@ -25,6 +25,14 @@ public class ReplacementSet implements IReplacementGenerator.IReplacementSet {
 		}
 	}
 
+	public boolean isEmpty() {
+		return replacements.isEmpty();
+	}
+
+	public int size() {
+		return replacements.size();
+	}
+
 	public void apply() {
 		for (Map.Entry<AbstractInsnNode, InsnList> replacement : replacements.entrySet()) {
 			AbstractInsnNode oldNode = replacement.getKey();
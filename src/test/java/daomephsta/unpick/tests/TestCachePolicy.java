@@ -0,0 +1,188 @@
+package daomephsta.unpick.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+
+import daomephsta.unpick.api.IUnpickMetrics;
+import daomephsta.unpick.api.classresolvers.CachePolicy;
+import daomephsta.unpick.api.classresolvers.ClassResolvers;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
+import daomephsta.unpick.api.classresolvers.IMemberChecker;
+import daomephsta.unpick.impl.ResolverCache;
+import daomephsta.unpick.impl.classresolvers.ClassMetadataStores;
+import daomephsta.unpick.impl.classresolvers.IMetadataSharingClassResolver;
+
+public class TestCachePolicy {
+	private static final Path TEST_DATA = Paths.get(System.getProperty("testData"));
+	private static final String CLASS_1 = "pkg/Constants";
+	private static final String CLASS_2 = "pkg/TestKnownIntConstantsParameter";
+
+	@Test
+	public void testUnboundedKeepsEverything() {
+		AtomicInteger resolutions = new AtomicInteger();
+		IInheritanceChecker inheritanceChecker = countingResolver(resolutions).asInheritanceChecker();
+		lookUp(inheritanceChecker, CLASS_1, CLASS_2, CLASS_1, CLASS_2);
+		assertEquals(2, resolutions.get());
+	}
+
+	@Test
+	public void testBoundedEvictsLeastRecentlyUsed() {
+		AtomicInteger resolutions = new AtomicInteger();
+		CachePolicy cachePolicy = CachePolicy.builder().maxEntries(1).build();
+		IInheritanceChecker inheritanceChecker = ClassResolvers.withCachePolicy(countingResolver(resolutions), cachePolicy).asInheritanceChecker();
+		lookUp(inheritanceChecker, CLASS_1, CLASS_1);
+		assertEquals(1, resolutions.get());
+		lookUp(inheritanceChecker, CLASS_2, CLASS_1);
+		assertEquals(3, resolutions.get());
+	}
+
+	@Test
+	public void testPolicyAppliesWhenChained() {
+		AtomicInteger resolutions = new AtomicInteger();
+		CachePolicy cachePolicy = CachePolicy.builder().maxEntries(1).softValues().build();
+		IMemberChecker memberChecker = ClassResolvers.withCachePolicy(countingResolver(resolutions), cachePolicy)
+				.chain(ClassResolvers.classpath())
+				.asMemberChecker();
+		assertNotNull(memberChecker.getFields(CLASS_1));
+		assertNotNull(memberChecker.getFields(CLASS_2));
+		assertNotNull(memberChecker.getFields(CLASS_1));
+		assertEquals(3, resolutions.get());
+	}
+
+	@Test
+	public void testUnresolvableClassesAreNotCached() {
+		AtomicInteger resolutions = new AtomicInteger();
+		IInheritanceChecker inheritanceChecker = countingResolver(resolutions).asInheritanceChecker();
+		assertNull(inheritanceChecker.getClassInfo("pkg/DoesNotExist"));
+		assertNull(inheritanceChecker.getClassInfo("pkg/DoesNotExist"));
+		assertEquals(2, resolutions.get());
+	}
+
+	@Test
+	public void testLookupsShareParses() {
+		AtomicInteger resolutions = new AtomicInteger();
+		IClassResolver classResolver = countingResolver(resolutions);
+		ClassMetadataStores metadataStores = new ClassMetadataStores();
+		assertNotNull(metadataStores.asConstantResolver(classResolver, IUnpickMetrics.NONE, CachePolicy.UNBOUNDED).resolveConstant(CLASS_1, "INT_CONST_1"));
+		assertNotNull(metadataStores.asInheritanceChecker(classResolver, IUnpickMetrics.NONE, CachePolicy.UNBOUNDED).getClassInfo(CLASS_1));
+		assertNotNull(metadataStores.asMemberChecker(classResolver, IUnpickMetrics.NONE, CachePolicy.UNBOUNDED).getField(CLASS_1, "INT_CONST_1", "I"));
+		assertEquals(1, resolutions.get());
+	}
+
+	@Test
+	public void testChainedLookupsShareParses() {
+		AtomicInteger resolutions = new AtomicInteger();
+		IClassResolver classResolver = ClassResolvers.classpath().chain(countingResolver(resolutions));
+		ClassMetadataStores metadataStores = new ClassMetadataStores();
+		assertNotNull(metadataStores.asConstantResolver(classResolver, IUnpickMetrics.NONE, CachePolicy.UNBOUNDED).resolveConstant(CLASS_1, "INT_CONST_1"));
+		assertNotNull(metadataStores.asMemberChecker(classResolver, IUnpickMetrics.NONE, CachePolicy.UNBOUNDED).getClassAccess(CLASS_1));
+		assertEquals(1, resolutions.get());
+	}
+
+	@Test
+	public void testSeparateLookupsParseAgain() {
+		AtomicInteger resolutions = new AtomicInteger();
+		IClassResolver classResolver = countingResolver(resolutions);
+		// so that new checkers see classes which changed since the old ones were created
+		assertNotNull(classResolver.asInheritanceChecker().getClassInfo(CLASS_1));
+		assertNotNull(classResolver.asInheritanceChecker().getClassInfo(CLASS_1));
+		assertEquals(2, resolutions.get());
+	}
+
+	@Test
+	public void testStoresFoundByIdentity() {
+		IClassResolver resolver1 = new EqualResolver();
+		IClassResolver resolver2 = new EqualResolver();
+		assertEquals(resolver1, resolver2);
+		ClassMetadataStores metadataStores = new ClassMetadataStores();
+		assertSame(metadataStores.get(resolver1, CachePolicy.UNBOUNDED), metadataStores.get(resolver1, CachePolicy.UNBOUNDED));
+		assertNotSame(metadataStores.get(resolver1, CachePolicy.UNBOUNDED), metadataStores.get(resolver2, CachePolicy.UNBOUNDED));
+	}
+
+	@Test
+	public void testClearedSoftValuesRemoved() throws InterruptedException {
+		for (CachePolicy cachePolicy : List.of(CachePolicy.builder().softValues().build(), CachePolicy.builder().maxEntries(1000).softValues().build())) {
+			ResolverCache<byte[]> cache = new ResolverCache<>(cachePolicy);
+			for (int i = 0; i < 100; i++) {
+				cache.computeIfAbsent("pkg/Class" + i, key -> new byte[1024]);
+			}
+			assertEquals(100, cache.size());
+
+			clearSoftReferences();
+			// cleared references are queued by another thread, so may take a while to be removed
+			for (int attempt = 0; attempt < 100 && cache.size() > 0; attempt++) {
+				Thread.sleep(10);
+				assertNull(cache.get("pkg/Class0"));
+			}
+			assertEquals(0, cache.size(), cachePolicy + " kept cleared entries");
+		}
+	}
+
+	@Test
+	public void testMaxEntriesMustBePositive() {
+		assertThrows(IllegalArgumentException.class, () -> CachePolicy.builder().maxEntries(0));
+	}
+
+	private static void lookUp(IInheritanceChecker inheritanceChecker, String... classNames) {
+		for (String className : classNames) {
+			assertNotNull(inheritanceChecker.getClassInfo(className));
+		}
+	}
+
+	/**
+	 * Fills the heap until the garbage collector clears every soft reference, which it must do before throwing an
+	 * {@link OutOfMemoryError}.
+	 */
+	private static void clearSoftReferences() {
+		List<long[]> garbage = new ArrayList<>();
+		try {
+			while (true) {
+				garbage.add(new long[1 << 20]);
+			}
+		} catch (OutOfMemoryError e) {
+			garbage.clear();
+		}
+	}
+
+	private static IClassResolver countingResolver(AtomicInteger resolutions) {
+		IClassResolver resolver = ClassResolvers.fromDirectory(TEST_DATA);
+		IMetadataSharingClassResolver countingResolver = internalName -> {
+			resolutions.incrementAndGet();
+			return resolver.resolveClass(internalName);
+		};
+		return countingResolver;
+	}
+
+	private static class EqualResolver implements IClassResolver {
+		@Override
+		@Nullable
+		public ClassNode resolveClass(String internalName) {
+			return null;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof EqualResolver;
+		}
+
+		@Override
+		public int hashCode() {
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package daomephsta.unpick.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.ClassNode;
+
+import daomephsta.unpick.api.classresolvers.CachePolicy;
+import daomephsta.unpick.api.classresolvers.ClassResolvers;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.api.classresolvers.IConstantResolver;
+import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
+import daomephsta.unpick.api.classresolvers.IMemberChecker;
+
+public class TestChainRouting {
+	private static final Path TEST_DATA = Paths.get(System.getProperty("testData"));
+
+	@Test
+	public void testOnlyAsksResolversWhichMayContainThePackage() {
+		List<String> jdkLookups = new ArrayList<>();
+		List<String> testDataLookups = new ArrayList<>();
+		IClassResolver chain = recordingResolver(ClassResolvers.fromDirectory(TEST_DATA), testDataLookups)
+				.chain(recordingResolver(ClassResolvers.jdk(), jdkLookups));
+		assertNotNull(chain.resolveClass("pkg/Constants"));
+		assertNotNull(chain.resolveClass("java/lang/String"));
+		assertEquals(List.of("pkg/Constants"), testDataLookups);
+		assertEquals(List.of("java/lang/String"), jdkLookups);
+	}
+
+	@Test
+	public void testNewPackagesFound(@TempDir Path directory) throws IOException {
+		IClassResolver chain = ClassResolvers.fromDirectory(directory).chain(ClassResolvers.jdk());
+		assertNull(chain.resolveClass("pkg/Constants"));
+		Files.createDirectories(directory.resolve("pkg"));
+		Files.copy(TEST_DATA.resolve("pkg/Constants.class"), directory.resolve("pkg/Constants.class"));
+		assertNotNull(chain.resolveClass("pkg/Constants"));
+	}
+
+	@Test
+	public void testMissingClassesNotRememberedByDefault() {
+		List<String> lookups = new ArrayList<>();
+		IClassResolver chain = recordingResolver(ClassResolvers.fromDirectory(TEST_DATA), lookups)
+				.chain(ClassResolvers.jdk());
+		assertNull(chain.resolveClass("pkg/DoesNotExist"));
+		assertNull(chain.resolveClass("pkg/DoesNotExist"));
+		assertEquals(List.of("pkg/DoesNotExist", "pkg/DoesNotExist"), lookups);
+	}
+
+	@Test
+	public void testMissingClassesAreRemembered() {
+		List<String> lookups = new ArrayList<>();
+		IClassResolver chain = ClassResolvers.rememberMissingClasses(
+				recordingResolver(ClassResolvers.fromDirectory(TEST_DATA), lookups).chain(ClassResolvers.jdk()),
+				CachePolicy.UNBOUNDED
+		);
+		assertNull(chain.resolveClass("pkg/DoesNotExist"));
+		assertNull(chain.resolveClass("pkg/DoesNotExist"));
+		assertEquals(List.of("pkg/DoesNotExist"), lookups);
+
+		// the inheritance checker remembers the classes it did not find separately
+		IInheritanceChecker inheritanceChecker = chain.asInheritanceChecker();
+		assertNull(inheritanceChecker.getClassInfo("pkg/DoesNotExist"));
+		assertNull(inheritanceChecker.getClassInfo("pkg/DoesNotExist"));
+		assertEquals(List.of("pkg/DoesNotExist", "pkg/DoesNotExist"), lookups);
+	}
+
+	@Test
+	public void testMissingClassesNotSharedBetweenViews() {
+		// a member checker which does not know a class the resolver has
+		IClassResolver resolver = new IClassResolver() {
+			private final IClassResolver testData = ClassResolvers.fromDirectory(TEST_DATA);
+
+			@Override
+			@Nullable
+			public ClassNode resolveClass(String internalName) {
+				return testData.resolveClass(internalName);
+			}
+
+			@Override
+			public IMemberChecker asMemberChecker() {
+				return new IMemberChecker() {
+					@Override
+					@Nullable
+					public List<MemberInfo> getFields(String className) {
+						return null;
+					}
+
+					@Override
+					@Nullable
+					public List<MemberInfo> getMethods(String className) {
+						return null;
+					}
+
+					@Override
+					@Nullable
+					public ParameterInfo getParameter(String className, String methodName, String methodDesc, int parameterIndex) {
+						return null;
+					}
+				};
+			}
+		};
+		IClassResolver chain = ClassResolvers.rememberMissingClasses(resolver, CachePolicy.UNBOUNDED);
+		assertNull(chain.asMemberChecker().getFields("pkg/Constants"));
+		assertNotNull(chain.resolveClass("pkg/Constants"));
+		assertNotNull(chain.asInheritanceChecker().getClassInfo("pkg/Constants"));
+	}
+
+	@Test
+	public void testRememberedMissingClassesBounded() {
+		List<String> lookups = new ArrayList<>();
+		IClassResolver chain = ClassResolvers.rememberMissingClasses(
+				recordingResolver(ClassResolvers.fromDirectory(TEST_DATA), lookups),
+				CachePolicy.builder().maxEntries(1).build()
+		);
+		for (String className : List.of("pkg/DoesNotExist1", "pkg/DoesNotExist1", "pkg/DoesNotExist2", "pkg/DoesNotExist1")) {
+			assertNull(chain.resolveClass(className));
+		}
+		assertEquals(List.of("pkg/DoesNotExist1", "pkg/DoesNotExist2", "pkg/DoesNotExist1"), lookups);
+	}
+
+	@Test
+	public void testMayContainPackage() {
+		IClassResolver testData = ClassResolvers.fromDirectory(TEST_DATA);
+		assertTrue(testData.mayContainPackage("pkg"));
+		assertFalse(testData.mayContainPackage("java/lang"));
+		IClassResolver jdk = ClassResolvers.jdk();
+		assertTrue(jdk.mayContainPackage("java/lang"));
+		assertFalse(jdk.mayContainPackage("pkg"));
+		assertTrue(testData.chain(jdk).mayContainPackage("java/lang"));
+	}
+
+	@Test
+	public void testChainsUseNoArgOverrides() {
+		IConstantResolver customConstants = new IConstantResolver() {
+			@Override
+			@Nullable
+			public ResolvedConstant resolveConstant(String owner, String name) {
+				return owner.equals("custom/Constants") && name.equals("VALUE") ? new ResolvedConstant(Type.INT_TYPE, 42, true) : null;
+			}
+
+			@Override
+			@Nullable
+			public Map<String, ResolvedConstant> getAllConstantsInClass(String owner) {
+				return null;
+			}
+		};
+		// written before the overloads with metrics and cache policies were added
+		IClassResolver custom = new IClassResolver() {
+			@Override
+			@Nullable
+			public ClassNode resolveClass(String internalName) {
+				return null;
+			}
+
+			@Override
+			public IConstantResolver asConstantResolver() {
+				return customConstants;
+			}
+		};
+		IClassResolver chain = ClassResolvers.fromDirectory(TEST_DATA).chain(custom);
+		IConstantResolver.ResolvedConstant constant = chain.asConstantResolver().resolveConstant("custom/Constants", "VALUE");
+		assertNotNull(constant);
+		assertEquals(42, constant.value());
+		assertNotNull(chain.asConstantResolver().resolveConstant("pkg/Constants", "INT_CONST_1"));
+	}
+
+	private static IClassResolver recordingResolver(IClassResolver resolver, List<String> lookups) {
+		return new IClassResolver() {
+			@Override
+			@Nullable
+			public ClassNode resolveClass(String internalName) {
+				lookups.add(internalName);
+				return resolver.resolveClass(internalName);
+			}
+
+			@Override
+			public boolean mayContainPackage(String packageName) {
+				return resolver.mayContainPackage(packageName);
+			}
+		};
+	}
+}
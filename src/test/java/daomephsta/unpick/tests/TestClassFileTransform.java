@@ -0,0 +1,51 @@
+package daomephsta.unpick.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import daomephsta.unpick.api.ConstantUninliner;
+import daomephsta.unpick.tests.lib.TestUtils;
+
+public class TestClassFileTransform {
+	private static final Path TEST_DATA = Paths.get(System.getProperty("testData"));
+
+	@Test
+	public void testUnchangedClassFile() throws IOException {
+		ConstantUninliner uninliner = TestUtils.uninlinerBuilder(TestUtils.intConst1Group("consumeLong", "(J)V")).build();
+		byte[] classFile = Files.readAllBytes(TEST_DATA.resolve("pkg/TestKnownIntConstantsParameter.class"));
+		assertSame(classFile, uninliner.transform(classFile));
+	}
+
+	@Test
+	public void testChangedClassFile() throws IOException {
+		ConstantUninliner uninliner = TestUtils.uninlinerBuilder(TestUtils.intConst1Group("consumeInt", "(I)V")).build();
+		byte[] classFile = Files.readAllBytes(TEST_DATA.resolve("pkg/TestKnownIntConstantsParameter.class"));
+		ClassNode transformed = new ClassNode();
+		new ClassReader(uninliner.transform(classFile)).accept(transformed, 0);
+
+		// only the literal 1 is in the group, and it is only passed by test3
+		List<String> replacements = new ArrayList<>();
+		for (MethodNode method : transformed.methods) {
+			for (AbstractInsnNode insn : method.instructions) {
+				if (insn instanceof FieldInsnNode fieldInsn) {
+					replacements.add(method.name + ":" + fieldInsn.owner + "." + fieldInsn.name);
+				}
+			}
+		}
+		assertEquals(List.of("test3:pkg/Constants.INT_CONST_1"), replacements);
+	}
+}
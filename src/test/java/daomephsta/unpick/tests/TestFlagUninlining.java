@@ -1,14 +1,38 @@
 package daomephsta.unpick.tests;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
 
 import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
 import daomephsta.unpick.constantmappers.datadriven.tree.GroupDefinition;
 import daomephsta.unpick.constantmappers.datadriven.tree.TargetMethod;
+import daomephsta.unpick.constantmappers.datadriven.tree.UnpickV3Visitor;
 import daomephsta.unpick.constantmappers.datadriven.tree.expr.FieldExpression;
 import daomephsta.unpick.tests.lib.TestUtils;
 
 public class TestFlagUninlining {
+	private static final Map<Integer, String> OPCODE_NAMES = Map.of(
+			Opcodes.ICONST_M1, "ICONST_M1",
+			Opcodes.I2C, "I2C",
+			Opcodes.IOR, "IOR",
+			Opcodes.IXOR, "IXOR",
+			Opcodes.RETURN, "RETURN"
+	);
+
 	@Test
 	public void testKnownByteFlagsReturn() {
 		testFlagsReturn("pkg.TestKnownByteFlagsReturn", DataType.BYTE, DataType.INT, "B");
@@ -109,6 +133,74 @@ public class TestFlagUninlining {
 		testFlagsParameter("pkg.TestSomeUnknownFlags");
 	}
 
+	@Test
+	public void testFullMaskCharFlags() {
+		// a char literal with every bit set has no bits left for a negated cover
+		ClassNode classNode = createFlagsClass("pkg/FullMaskChar", "consumeChar", "(C)V", 0xffff, 1);
+		TestUtils.uninlinerBuilder(TestFlagUninlining::intFlagsForChar).build().transform(classNode);
+		assertEquals(List.of("GETSTATIC INT_FLAG_M1", "I2C", "INVOKESTATIC consumeChar", "RETURN"), describe(classNode.methods.getFirst()));
+	}
+
+	@Test
+	public void testRepeatedFlagsSameOutput() {
+		// the cover of each value is memoised when the first method is transformed, and reused for the others
+		for (int value : new int[] {0b0111, ~0b0111}) {
+			ClassNode classNode = createFlagsClass("pkg/RepeatedFlags", "consumeInt", "(I)V", value, 3);
+			TestUtils.uninlinerBuilder(data -> {
+				data.visitGroupDefinition(createFlagsGroup("intFlags", DataType.INT, DataType.INT));
+				data.visitTargetMethod(TargetMethod.Builder.builder("pkg.Constants", "consumeInt", "(I)V")
+						.paramGroup(0, "intFlags")
+						.build());
+			}).build().transform(classNode);
+
+			List<String> first = describe(classNode.methods.getFirst());
+			assertTrue(first.contains("GETSTATIC INT_FLAG_BIT_2"), "Not uninlined: " + first);
+			for (MethodNode method : classNode.methods) {
+				assertEquals(first, describe(method));
+			}
+		}
+	}
+
+	private static void intFlagsForChar(UnpickV3Visitor data) {
+		data.visitGroupDefinition(createFlagsGroup("intFlags", DataType.INT, DataType.INT));
+		data.visitTargetMethod(TargetMethod.Builder.builder("pkg.Constants", "consumeChar", "(C)V")
+				.paramGroup(0, "intFlags")
+				.build());
+	}
+
+	/**
+	 * @return a class with {@code methodCount} methods, which each pass {@code value} to a method of
+	 * {@code pkg.Constants}.
+	 */
+	private static ClassNode createFlagsClass(String name, String consumer, String consumerDescriptor, int value, int methodCount) {
+		ClassNode classNode = new ClassNode();
+		classNode.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+		for (int i = 0; i < methodCount; i++) {
+			MethodNode method = (MethodNode) classNode.visitMethod(Opcodes.ACC_STATIC, "test" + i, "()V", null, null);
+			method.instructions.add(new LdcInsnNode(value));
+			method.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, "pkg/Constants", consumer, consumerDescriptor, false));
+			method.instructions.add(new InsnNode(Opcodes.RETURN));
+			method.maxStack = 1;
+		}
+		return classNode;
+	}
+
+	private static List<String> describe(MethodNode method) {
+		List<String> description = new ArrayList<>();
+		for (AbstractInsnNode insn : method.instructions) {
+			if (insn.getOpcode() < 0) {
+				continue;
+			}
+			switch (insn) {
+				case FieldInsnNode fieldInsn -> description.add("GETSTATIC " + fieldInsn.name);
+				case MethodInsnNode methodInsn -> description.add("INVOKESTATIC " + methodInsn.name);
+				case LdcInsnNode ldc -> description.add("LDC " + ldc.cst);
+				default -> description.add(OPCODE_NAMES.getOrDefault(insn.getOpcode(), Integer.toString(insn.getOpcode())));
+			}
+		}
+		return description;
+	}
+
 	private static void testFlagsReturn(String className, DataType dataType, DataType groupDataType, String descriptor) {
 		TestUtils.runTest(className.replace('.', '/'), data -> {
 			data.visitGroupDefinition(createFlagsGroup("flags", dataType, groupDataType));
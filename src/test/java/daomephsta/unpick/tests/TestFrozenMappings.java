@@ -0,0 +1,63 @@
+package daomephsta.unpick.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import daomephsta.unpick.api.classresolvers.ClassResolvers;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.api.constantgroupers.ConstantGroup;
+import daomephsta.unpick.api.constantgroupers.ConstantGroupers;
+import daomephsta.unpick.api.constantgroupers.IConstantGrouper;
+import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
+import daomephsta.unpick.constantmappers.datadriven.tree.GroupDefinition;
+import daomephsta.unpick.constantmappers.datadriven.tree.TargetField;
+import daomephsta.unpick.constantmappers.datadriven.tree.TargetMethod;
+import daomephsta.unpick.constantmappers.datadriven.tree.UnpickV3Visitor;
+import daomephsta.unpick.constantmappers.datadriven.tree.expr.FieldExpression;
+import daomephsta.unpick.impl.constantmappers.datadriven.DataDrivenConstantGrouper;
+
+public class TestFrozenMappings {
+	private static final Path TEST_DATA = Paths.get(System.getProperty("testData"));
+	private static final Consumer<UnpickV3Visitor> MAPPINGS = data -> {
+		data.visitGroupDefinition(GroupDefinition.Builder.named(DataType.INT, "intConsts")
+				.constant(new FieldExpression("pkg.Constants", "INT_CONST_1", null, true))
+				.build());
+		data.visitTargetMethod(TargetMethod.Builder.builder("pkg.Constants", "consumeInt", "(I)V").paramGroup(0, "intConsts").build());
+		data.visitTargetMethod(TargetMethod.Builder.builder("pkg.Constants", "undefined", "(I)V").paramGroup(0, "undefinedConsts").build());
+		data.visitTargetField(new TargetField("pkg.Constants", "intField", "I", "intConsts"));
+	};
+
+	@Test
+	public void testLookupsShareGroups() {
+		IConstantGrouper grouper = createBuilder().build();
+		ConstantGroup parameterGroup = grouper.getMethodParameterGroup("pkg/Constants", "consumeInt", "(I)V", 0);
+		assertNotNull(parameterGroup);
+		assertEquals("intConsts", parameterGroup.getName());
+		assertSame(parameterGroup, grouper.getMethodParameterGroup("pkg/Constants", "consumeInt", "(I)V", 0));
+		assertSame(parameterGroup, grouper.getFieldGroup("pkg/Constants", "intField", "I"));
+		assertNull(grouper.getMethodParameterGroup("pkg/Constants", "consumeInt", "(I)V", 1));
+		assertNull(grouper.getMethodParameterGroup("pkg/Constants", "undefined", "(I)V", 0));
+	}
+
+	@Test
+	public void testNoLoadingAfterFreezing() {
+		DataDrivenConstantGrouper grouper = (DataDrivenConstantGrouper) createBuilder().build();
+		assertThrows(IllegalStateException.class, () -> grouper.loadData(MAPPINGS));
+	}
+
+	private static ConstantGroupers.DataDrivenBuilder createBuilder() {
+		IClassResolver classResolver = ClassResolvers.fromDirectory(TEST_DATA).chain(ClassResolvers.classpath());
+		return ConstantGroupers.dataDriven()
+				.classResolver(classResolver)
+				.mappingSource(MAPPINGS);
+	}
+}
@@ -0,0 +1,175 @@
+package daomephsta.unpick.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+import daomephsta.unpick.api.IUnpickMetrics;
+import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
+import daomephsta.unpick.constantmappers.datadriven.tree.GroupDefinition;
+import daomephsta.unpick.constantmappers.datadriven.tree.TargetMethod;
+import daomephsta.unpick.constantmappers.datadriven.tree.expr.FieldExpression;
+import daomephsta.unpick.tests.lib.TestUtils;
+
+/**
+ * Tests that the groups found for the values and parameters of a class are reused only where reusing them cannot
+ * change the result.
+ */
+public class TestGroupMemo {
+	private static final Handle METAFACTORY = new Handle(
+			Opcodes.H_INVOKESTATIC,
+			"java/lang/invoke/LambdaMetafactory",
+			"metafactory",
+			"(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;",
+			false
+	);
+
+	@Test
+	public void testConflictReportedOncePerValueClass() {
+		List<String> conflicts = new ArrayList<>();
+		IUnpickMetrics metrics = new IUnpickMetrics() {
+			@Override
+			public void onGroupConflict(String owner, String name, String descriptor, String group1, String group2) {
+				conflicts.add(owner + "." + name + descriptor);
+			}
+		};
+
+		ClassNode classNode = new ClassNode();
+		classNode.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, "pkg/Conflict", null, "java/lang/Object", null);
+		// two unrelated literals are both captured by a method reference, whose parameter has conflicting groups
+		MethodNode test = (MethodNode) classNode.visitMethod(Opcodes.ACC_STATIC, "test", "()V", null, null);
+		for (int opcode : new int[] {Opcodes.ICONST_1, Opcodes.ICONST_2}) {
+			test.instructions.add(new InsnNode(opcode));
+			test.instructions.add(new InvokeDynamicInsnNode(
+					"run",
+					"(I)Ljava/lang/Runnable;",
+					METAFACTORY,
+					Type.getMethodType("()V"),
+					new Handle(Opcodes.H_INVOKESTATIC, "pkg/Conflict", "consume", "(I)V", false),
+					Type.getMethodType("()V")
+			));
+			test.instructions.add(new InsnNode(Opcodes.POP));
+		}
+		test.instructions.add(new InsnNode(Opcodes.RETURN));
+		test.maxStack = 1;
+
+		// not synthetic, so the search does not return to test() through the captures
+		MethodNode consume = (MethodNode) classNode.visitMethod(Opcodes.ACC_STATIC, "consume", "(I)V", null, null);
+		consume.instructions.add(new VarInsnNode(Opcodes.ILOAD, 0));
+		consume.instructions.add(new InsnNode(Opcodes.DUP));
+		consume.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, "pkg/Constants", "consumeInt", "(I)V", false));
+		consume.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, "pkg/Conflict", "sink", "(I)V", false));
+		consume.instructions.add(new InsnNode(Opcodes.RETURN));
+		consume.maxStack = 2;
+		consume.maxLocals = 1;
+
+		TestUtils.uninlinerBuilder(metrics, data -> {
+			data.visitGroupDefinition(GroupDefinition.Builder.named(DataType.INT, "intConsts")
+					.constant(new FieldExpression("pkg.Constants", "INT_CONST_1", null, true))
+					.constant(new FieldExpression("pkg.Constants", "INT_CONST_2", null, true))
+					.build());
+			data.visitGroupDefinition(GroupDefinition.Builder.named(DataType.INT, "otherConsts")
+					.constant(new FieldExpression("pkg.Constants", "INT_CONST_1", null, true))
+					.build());
+			data.visitTargetMethod(TargetMethod.Builder.builder("pkg.Constants", "consumeInt", "(I)V")
+					.paramGroup(0, "intConsts")
+					.build());
+			data.visitTargetMethod(TargetMethod.Builder.builder("pkg.Conflict", "sink", "(I)V")
+					.paramGroup(0, "otherConsts")
+					.build());
+		}).build().transform(classNode);
+
+		assertEquals(List.of("pkg/Conflict.consume(I)V"), conflicts);
+		assertEquals(0, countConstantReads(test));
+	}
+
+	@Test
+	public void testRecursionCutoffsNotReused() {
+		ClassNode classNode = new ClassNode();
+		classNode.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, "pkg/SharedCapture", null, "java/lang/Object", null);
+
+		MethodNode supplyInt = (MethodNode) classNode.visitMethod(Opcodes.ACC_STATIC, "supplyInt", "()I", null, null);
+		supplyInt.instructions.add(new InsnNode(Opcodes.ICONST_0));
+		supplyInt.instructions.add(new InsnNode(Opcodes.IRETURN));
+		supplyInt.maxStack = 1;
+
+		// captures the same value in two lambdas, so searching one lambda's capture reaches the other through it
+		MethodNode test = (MethodNode) classNode.visitMethod(Opcodes.ACC_STATIC, "test", "()V", null, null);
+		test.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, "pkg/SharedCapture", "supplyInt", "()I", false));
+		test.instructions.add(new VarInsnNode(Opcodes.ISTORE, 0));
+		for (String lambdaName : List.of("lambda$first", "lambda$second")) {
+			test.instructions.add(new VarInsnNode(Opcodes.ILOAD, 0));
+			test.instructions.add(new InvokeDynamicInsnNode(
+					"applyAsInt",
+					"(I)Ljava/util/function/IntUnaryOperator;",
+					METAFACTORY,
+					Type.getMethodType("(I)I"),
+					new Handle(Opcodes.H_INVOKESTATIC, "pkg/SharedCapture", lambdaName, "(II)I", false),
+					Type.getMethodType("(I)I")
+			));
+			test.instructions.add(new InsnNode(Opcodes.POP));
+		}
+		test.instructions.add(new InsnNode(Opcodes.RETURN));
+		test.maxStack = 1;
+		test.maxLocals = 1;
+
+		// n -> n == 1 ? 0 : 1, for the captured n
+		List<MethodNode> lambdas = new ArrayList<>();
+		for (String lambdaName : List.of("lambda$first", "lambda$second")) {
+			MethodNode lambda = (MethodNode) classNode.visitMethod(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC, lambdaName, "(II)I", null, null);
+			LabelNode notEqual = new LabelNode();
+			lambda.instructions.add(new VarInsnNode(Opcodes.ILOAD, 0));
+			lambda.instructions.add(new InsnNode(Opcodes.ICONST_1));
+			lambda.instructions.add(new JumpInsnNode(Opcodes.IF_ICMPNE, notEqual));
+			lambda.instructions.add(new InsnNode(Opcodes.ICONST_0));
+			lambda.instructions.add(new InsnNode(Opcodes.IRETURN));
+			lambda.instructions.add(notEqual);
+			lambda.instructions.add(new InsnNode(Opcodes.ICONST_1));
+			lambda.instructions.add(new InsnNode(Opcodes.IRETURN));
+			lambda.maxStack = 2;
+			lambda.maxLocals = 2;
+			lambdas.add(lambda);
+		}
+
+		TestUtils.uninlinerBuilder(data -> {
+			data.visitGroupDefinition(GroupDefinition.Builder.named(DataType.INT, "test")
+					.constant(new FieldExpression("pkg.Constants", "INT_CONST_1", null, true))
+					.build());
+			data.visitTargetMethod(TargetMethod.Builder.builder("pkg.SharedCapture", "supplyInt", "()I")
+					.returnGroup("test")
+					.build());
+		}).build().transform(classNode);
+
+		// the second lambda's capture is first reached while the search from the first is still in test(), where the
+		// recursion guard cuts it short; that result must not be reused when the second lambda is transformed
+		for (MethodNode lambda : lambdas) {
+			assertEquals(1, countConstantReads(lambda), lambda.name + " was not transformed");
+		}
+	}
+
+	private static int countConstantReads(MethodNode method) {
+		int count = 0;
+		for (AbstractInsnNode insn : method.instructions) {
+			if (insn instanceof FieldInsnNode fieldInsn && fieldInsn.owner.equals("pkg/Constants")) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,89 @@
+package daomephsta.unpick.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import daomephsta.unpick.api.ConstantUninliner;
+import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
+import daomephsta.unpick.constantmappers.datadriven.tree.GroupDefinition;
+import daomephsta.unpick.constantmappers.datadriven.tree.GroupScope;
+import daomephsta.unpick.constantmappers.datadriven.tree.TargetMethod;
+import daomephsta.unpick.constantmappers.datadriven.tree.expr.FieldExpression;
+import daomephsta.unpick.tests.lib.TestUtils;
+
+public class TestGroupScopes {
+	@Test
+	public void testNarrowestScopeWins() {
+		ConstantUninliner uninliner = createUninliner();
+
+		ClassNode scoped = createClass("pkg/scoped/Scoped", "methodScoped", "classScoped");
+		uninliner.transform(scoped);
+		assertEquals(List.of("INT_FLAG_BIT_0", "INT_CONST_2"), getReplacements(scoped.methods.get(0)));
+		assertEquals(List.of("INT_FLAG_BIT_0", "INT_FLAG_BIT_1"), getReplacements(scoped.methods.get(1)));
+
+		ClassNode samePackage = createClass("pkg/scoped/SamePackage", "methodScoped");
+		uninliner.transform(samePackage);
+		assertEquals(List.of("INT_FLAG_BIT_0"), getReplacements(samePackage.methods.get(0)));
+
+		ClassNode unscoped = createClass("pkg/Unscoped", "methodScoped");
+		uninliner.transform(unscoped);
+		assertEquals(List.of("INT_CONST_1"), getReplacements(unscoped.methods.get(0)));
+	}
+
+	private static ConstantUninliner createUninliner() {
+		return TestUtils.uninlinerBuilder(data -> {
+			data.visitGroupDefinition(GroupDefinition.Builder.named(DataType.INT, "scoped")
+					.constant(new FieldExpression("pkg.Constants", "INT_CONST_1", null, true))
+					.build());
+			data.visitGroupDefinition(GroupDefinition.Builder.named(DataType.INT, "scoped")
+					.scope(new GroupScope.Package("pkg.scoped"))
+					.constant(new FieldExpression("pkg.Constants", "INT_FLAG_BIT_0", null, true))
+					.build());
+			data.visitGroupDefinition(GroupDefinition.Builder.named(DataType.INT, "scoped")
+					.scope(new GroupScope.Class("pkg.scoped.Scoped"))
+					.constant(new FieldExpression("pkg.Constants", "INT_FLAG_BIT_1", null, true))
+					.build());
+			data.visitGroupDefinition(GroupDefinition.Builder.named(DataType.INT, "scoped")
+					.scope(new GroupScope.Method("pkg.scoped.Scoped", "methodScoped", "()V"))
+					.constant(new FieldExpression("pkg.Constants", "INT_CONST_2", null, true))
+					.build());
+			data.visitTargetMethod(TargetMethod.Builder.builder("pkg.Constants", "consumeInt", "(I)V").paramGroup(0, "scoped").build());
+		}).build();
+	}
+
+	private static ClassNode createClass(String name, String... methodNames) {
+		ClassNode classNode = new ClassNode();
+		classNode.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+		for (String methodName : methodNames) {
+			MethodNode method = (MethodNode) classNode.visitMethod(Opcodes.ACC_STATIC, methodName, "()V", null, null);
+			method.instructions.add(new InsnNode(Opcodes.ICONST_1));
+			method.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, "pkg/Constants", "consumeInt", "(I)V", false));
+			method.instructions.add(new InsnNode(Opcodes.ICONST_2));
+			method.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, "pkg/Constants", "consumeInt", "(I)V", false));
+			method.instructions.add(new InsnNode(Opcodes.RETURN));
+			method.maxStack = 1;
+		}
+		return classNode;
+	}
+
+	private static List<String> getReplacements(MethodNode method) {
+		List<String> replacements = new ArrayList<>();
+		for (AbstractInsnNode insn : method.instructions) {
+			if (insn instanceof FieldInsnNode fieldInsn) {
+				replacements.add(fieldInsn.name);
+			}
+		}
+		return replacements;
+	}
+}
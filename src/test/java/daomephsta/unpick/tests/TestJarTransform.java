@@ -0,0 +1,43 @@
+package daomephsta.unpick.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import daomephsta.unpick.api.ConstantUninliner;
+import daomephsta.unpick.constantmappers.datadriven.tree.TargetMethod;
+import daomephsta.unpick.tests.lib.TestUtils;
+
+public class TestJarTransform {
+	@Test
+	public void testTransformJar() throws IOException {
+		TestUtils.runJarTest(data -> {
+			TestUtils.intConst1Group("consumeInt", "(I)V").accept(data);
+			data.visitTargetMethod(TargetMethod.Builder.builder("pkg.TestLambdaOutsideToInsideCapture", "supplyInt", "()I")
+					.returnGroup("test")
+					.build());
+		}, "pkg/TestLambdaOutsideToInsideCapture", "pkg/TestLambdaInsideToOutsideCapture", "pkg/TestSubclass");
+	}
+
+	@Test
+	public void testFailedTransformKeepsOutput(@TempDir Path tempDir) throws IOException {
+		Path input = tempDir.resolve("input.jar");
+		Files.writeString(input, "not a jar");
+		Path output = tempDir.resolve("output.jar");
+		Files.writeString(output, "previous output");
+		ConstantUninliner uninliner = TestUtils.uninlinerBuilder(data -> {
+		}).build();
+		assertThrows(IOException.class, () -> uninliner.transformJar(input, output));
+		assertEquals("previous output", Files.readString(output));
+		try (Stream<Path> files = Files.list(tempDir)) {
+			assertEquals(2, files.count());
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package daomephsta.unpick.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+
+import daomephsta.unpick.api.classresolvers.ClassResolvers;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.api.classresolvers.IConstantResolver;
+import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
+import daomephsta.unpick.api.classresolvers.IMemberChecker;
+
+public class TestJdkResolver {
+	@Test
+	public void testResolveClass() {
+		ClassNode node = ClassResolvers.jdk().resolveClass("java/util/ArrayList");
+		assertNotNull(node);
+		assertEquals("java/util/AbstractList", node.superName);
+	}
+
+	@Test
+	public void testNonJdkClasses() {
+		IClassResolver jdk = ClassResolvers.jdk();
+		assertNull(jdk.resolveClass("pkg/Constants"));
+		assertNull(jdk.resolveClass("java/lang/DoesNotExist"));
+		assertNull(jdk.resolveClass("NoPackage"));
+	}
+
+	@Test
+	public void testInheritance() {
+		IInheritanceChecker.ClassInfo classInfo = ClassResolvers.jdk().asInheritanceChecker().getClassInfo("java/util/List");
+		assertNotNull(classInfo);
+		assertTrue(classInfo.isInterface());
+	}
+
+	@Test
+	public void testConstants() {
+		IConstantResolver.ResolvedConstant constant = ClassResolvers.jdk().asConstantResolver().resolveConstant("java/lang/Integer", "MAX_VALUE");
+		assertNotNull(constant);
+		assertEquals(Integer.MAX_VALUE, constant.value());
+	}
+
+	@Test
+	public void testClassAccess() {
+		// the bytecode of the runtime image and reflection agree
+		for (IMemberChecker memberChecker : List.of(ClassResolvers.jdk().asMemberChecker(), ClassResolvers.classpath().asMemberChecker())) {
+			Integer annotationAccess = memberChecker.getClassAccess("java/lang/Deprecated");
+			assertNotNull(annotationAccess);
+			assertTrue((annotationAccess & Opcodes.ACC_ANNOTATION) != 0);
+			assertNull(memberChecker.getClassAccess("java/lang/DoesNotExist"));
+
+			Integer innerClassAccess = memberChecker.getInnerClassAccess("java/util/Map", "java/util/Map$Entry");
+			assertNotNull(innerClassAccess);
+			assertTrue((innerClassAccess & Opcodes.ACC_STATIC) != 0);
+			assertNull(memberChecker.getInnerClassAccess("java/util/Map", "java/util/List"));
+		}
+	}
+}
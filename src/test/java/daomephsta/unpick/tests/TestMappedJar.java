@@ -0,0 +1,133 @@
+package daomephsta.unpick.tests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+
+import daomephsta.unpick.api.classresolvers.ClassResolvers;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.api.classresolvers.ICloseableClassResolver;
+import daomephsta.unpick.tests.lib.ASMAssertions;
+
+public class TestMappedJar {
+	private static final Path TEST_DATA = Paths.get(System.getProperty("testData"));
+	private static final String STORED_CLASS = "pkg/Constants";
+	private static final String DEFLATED_CLASS = "pkg/TestKnownIntConstantsParameter";
+
+	@Test
+	public void testResolvesStoredAndDeflatedEntries() throws IOException {
+		Path jar = createJar();
+		try {
+			IClassResolver expected = ClassResolvers.fromDirectory(TEST_DATA);
+			try (ICloseableClassResolver mappedJar = ClassResolvers.mappedJar(jar)) {
+				for (String className : List.of(STORED_CLASS, DEFLATED_CLASS)) {
+					ClassNode actual = mappedJar.resolveClass(className);
+					assertNotNull(actual);
+					ASMAssertions.assertClassEquals(expected.resolveClass(className), actual);
+				}
+			}
+		} finally {
+			Files.deleteIfExists(jar);
+		}
+	}
+
+	@Test
+	public void testMissingClasses() throws IOException {
+		Path jar = createJar();
+		try {
+			try (ICloseableClassResolver mappedJar = ClassResolvers.mappedJar(jar)) {
+				assertNull(mappedJar.resolveClass("pkg/DoesNotExist"));
+				assertNull(mappedJar.resolveClass("META-INF/MANIFEST.MF"));
+				assertNull(mappedJar.resolveClass("META-INF/MANIFEST"));
+				assertTrue(mappedJar.mayContainPackage("pkg"));
+				assertFalse(mappedJar.mayContainPackage("META-INF"));
+			}
+		} finally {
+			Files.deleteIfExists(jar);
+		}
+	}
+
+	@Test
+	public void testConcurrentLookups() throws IOException {
+		Path jar = createJar();
+		try {
+			try (ICloseableClassResolver mappedJar = ClassResolvers.mappedJar(jar)) {
+				List<ClassNode> classes = IntStream.range(0, 1000)
+						.parallel()
+						.mapToObj(i -> mappedJar.resolveClass(i % 2 == 0 ? STORED_CLASS : DEFLATED_CLASS))
+						.toList();
+				for (ClassNode node : classes) {
+					assertNotNull(node);
+				}
+			}
+		} finally {
+			Files.deleteIfExists(jar);
+		}
+	}
+
+	@Test
+	public void testClosed() throws IOException {
+		Path jar = createJar();
+		try {
+			ICloseableClassResolver mappedJar = ClassResolvers.mappedJar(jar);
+			assertNotNull(mappedJar.resolveClass(DEFLATED_CLASS));
+			mappedJar.close();
+			mappedJar.close();
+			for (String className : List.of(STORED_CLASS, DEFLATED_CLASS, "pkg/DoesNotExist")) {
+				assertThrows(IllegalStateException.class, () -> mappedJar.resolveClass(className));
+			}
+		} finally {
+			Files.deleteIfExists(jar);
+		}
+	}
+
+	@Test
+	public void testNotAJar() throws IOException {
+		Path file = Files.createTempFile("unpick-test", ".jar");
+		try {
+			Files.writeString(file, "not a jar");
+			assertThrows(ZipException.class, () -> ClassResolvers.mappedJar(file));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	private static Path createJar() throws IOException {
+		Path jar = Files.createTempFile("unpick-test", ".jar");
+		try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+			out.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+			out.write("Manifest-Version: 1.0\n".getBytes(StandardCharsets.UTF_8));
+
+			byte[] storedBytes = Files.readAllBytes(TEST_DATA.resolve(STORED_CLASS + ".class"));
+			ZipEntry stored = new ZipEntry(STORED_CLASS + ".class");
+			stored.setMethod(ZipEntry.STORED);
+			stored.setSize(storedBytes.length);
+			CRC32 crc = new CRC32();
+			crc.update(storedBytes);
+			stored.setCrc(crc.getValue());
+			out.putNextEntry(stored);
+			out.write(storedBytes);
+
+			out.putNextEntry(new ZipEntry(DEFLATED_CLASS + ".class"));
+			out.write(Files.readAllBytes(TEST_DATA.resolve(DEFLATED_CLASS + ".class")));
+		}
+		return jar;
+	}
+}
@@ -0,0 +1,163 @@
+package daomephsta.unpick.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import daomephsta.unpick.api.ConstantUninliner;
+import daomephsta.unpick.api.IUnpickMetrics;
+import daomephsta.unpick.api.classresolvers.ClassResolvers;
+import daomephsta.unpick.api.classresolvers.IConstantResolver;
+import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
+import daomephsta.unpick.constantmappers.datadriven.tree.GroupDefinition;
+import daomephsta.unpick.constantmappers.datadriven.tree.TargetMethod;
+import daomephsta.unpick.constantmappers.datadriven.tree.UnpickV3Visitor;
+import daomephsta.unpick.constantmappers.datadriven.tree.expr.FieldExpression;
+import daomephsta.unpick.tests.lib.TestUtils;
+
+public class TestMetrics {
+	private static final Path TEST_DATA = Paths.get(System.getProperty("testData"));
+
+	@Test
+	public void testClassNode() throws IOException {
+		RecordingMetrics metrics = new RecordingMetrics();
+		ClassNode classNode = new ClassNode();
+		new ClassReader(Files.readAllBytes(TEST_DATA.resolve("pkg/TestKnownIntConstantsParameter.class"))).accept(classNode, 0);
+		createUninliner(metrics, TestMetrics::visitIntConsts).transform(classNode);
+		assertCounts(metrics);
+	}
+
+	@Test
+	public void testClassFile() throws IOException {
+		RecordingMetrics metrics = new RecordingMetrics();
+		createUninliner(metrics, TestMetrics::visitIntConsts).transform(Files.readAllBytes(TEST_DATA.resolve("pkg/TestKnownIntConstantsParameter.class")));
+		assertCounts(metrics);
+	}
+
+	@Test
+	public void testGroupConflict() {
+		RecordingMetrics metrics = new RecordingMetrics();
+		ConstantUninliner uninliner = createUninliner(metrics, data -> {
+			visitIntConsts(data);
+			data.visitGroupDefinition(GroupDefinition.Builder.named(DataType.INT, "otherConsts")
+					.constant(new FieldExpression("pkg.Constants", "INT_CONST_1", null, true))
+					.build());
+			data.visitTargetMethod(TargetMethod.Builder.builder("pkg.Conflict", "test", "()I").returnGroup("otherConsts").build());
+		});
+
+		ClassNode classNode = new ClassNode();
+		classNode.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, "pkg/Conflict", null, "java/lang/Object", null);
+		MethodNode method = (MethodNode) classNode.visitMethod(Opcodes.ACC_STATIC, "test", "()I", null, null);
+		method.instructions.add(new InsnNode(Opcodes.ICONST_1));
+		method.instructions.add(new InsnNode(Opcodes.DUP));
+		method.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, "pkg/Constants", "consumeInt", "(I)V", false));
+		method.instructions.add(new InsnNode(Opcodes.IRETURN));
+		method.maxStack = 2;
+		uninliner.transform(classNode);
+
+		assertEquals(List.of("pkg/Conflict.test()I"), metrics.conflicts);
+		assertEquals(1, metrics.literals.get());
+		assertEquals(0, metrics.replacements.get());
+	}
+
+	@Test
+	public void testClasspathConstantResolver() {
+		RecordingMetrics metrics = new RecordingMetrics();
+		IConstantResolver constantResolver = ClassResolvers.classpath().asConstantResolver(metrics);
+		assertNotNull(constantResolver.resolveConstant("java/lang/Integer", "MAX_VALUE"));
+		assertNotNull(constantResolver.resolveConstant("java/lang/Integer", "MIN_VALUE"));
+		assertEquals(2, metrics.cacheAccesses.get(IUnpickMetrics.Cache.CONSTANT).get());
+		assertEquals(1, metrics.cacheHits.get(IUnpickMetrics.Cache.CONSTANT).get());
+	}
+
+	private static void assertCounts(RecordingMetrics metrics) {
+		assertEquals(List.of("pkg/TestKnownIntConstantsParameter:9:8"), metrics.classes);
+		assertEquals(8, metrics.analyzedMethods.get());
+		assertEquals(8, metrics.transformedMethods.get());
+		assertEquals(8, metrics.literals.get());
+		assertEquals(8, metrics.replacements.get());
+		// every call is to the class declaring the target method, which the index answers without the cache
+		assertFalse(metrics.cacheAccesses.containsKey(IUnpickMetrics.Cache.TARGET_METHOD), "Target method cache was queried");
+		assertTrue(metrics.cacheAccesses.containsKey(IUnpickMetrics.Cache.CONSTANT), "Constant cache was not queried");
+		assertTrue(metrics.conflicts.isEmpty());
+	}
+
+	private static ConstantUninliner createUninliner(IUnpickMetrics metrics, Consumer<UnpickV3Visitor> dataProvider) {
+		return TestUtils.uninlinerBuilder(metrics, dataProvider).build();
+	}
+
+	private static void visitIntConsts(UnpickV3Visitor data) {
+		data.visitGroupDefinition(GroupDefinition.Builder.named(DataType.INT, "intConsts")
+				.constant(new FieldExpression("pkg.Constants", "INT_CONST_M1", null, true))
+				.constant(new FieldExpression("pkg.Constants", "INT_CONST_0", null, true))
+				.constant(new FieldExpression("pkg.Constants", "INT_CONST_1", null, true))
+				.constant(new FieldExpression("pkg.Constants", "INT_CONST_2", null, true))
+				.constant(new FieldExpression("pkg.Constants", "INT_CONST_3", null, true))
+				.constant(new FieldExpression("pkg.Constants", "INT_CONST_4", null, true))
+				.constant(new FieldExpression("pkg.Constants", "INT_CONST_5", null, true))
+				.constant(new FieldExpression("pkg.Constants", "INT_CONST", null, true))
+				.build());
+		data.visitTargetMethod(TargetMethod.Builder.builder("pkg.Constants", "consumeInt", "(I)V").paramGroup(0, "intConsts").build());
+	}
+
+	private static final class RecordingMetrics implements IUnpickMetrics {
+		final List<String> classes = new CopyOnWriteArrayList<>();
+		final List<String> conflicts = new CopyOnWriteArrayList<>();
+		final AtomicInteger analyzedMethods = new AtomicInteger();
+		final AtomicInteger transformedMethods = new AtomicInteger();
+		final AtomicInteger literals = new AtomicInteger();
+		final AtomicInteger replacements = new AtomicInteger();
+		final Map<Cache, AtomicInteger> cacheAccesses = new ConcurrentHashMap<>();
+		final Map<Cache, AtomicInteger> cacheHits = new ConcurrentHashMap<>();
+
+		@Override
+		public void onClassTransformed(String className, int methodCount, int analyzedMethodCount, long nanos) {
+			classes.add(className + ":" + methodCount + ":" + analyzedMethodCount);
+		}
+
+		@Override
+		public void onMethodAnalyzed(String owner, String name, String descriptor, long nanos) {
+			analyzedMethods.incrementAndGet();
+		}
+
+		@Override
+		public void onMethodTransformed(String owner, String name, String descriptor, int literalCount, int replacementCount, long groupLookupNanos, long replacementNanos) {
+			transformedMethods.incrementAndGet();
+			literals.addAndGet(literalCount);
+			replacements.addAndGet(replacementCount);
+		}
+
+		@Override
+		public void onGroupConflict(String owner, String name, String descriptor, String group1, String group2) {
+			conflicts.add(owner + "." + name + descriptor);
+		}
+
+		@Override
+		public void onCacheAccess(Cache cache, boolean hit) {
+			cacheAccesses.computeIfAbsent(cache, k -> new AtomicInteger()).incrementAndGet();
+			if (hit) {
+				cacheHits.computeIfAbsent(cache, k -> new AtomicInteger()).incrementAndGet();
+			}
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package daomephsta.unpick.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import daomephsta.unpick.api.IUnpickMetrics;
+import daomephsta.unpick.api.classresolvers.CachePolicy;
+import daomephsta.unpick.api.classresolvers.ClassResolvers;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
+import daomephsta.unpick.api.classresolvers.IMemberChecker;
+import daomephsta.unpick.api.classresolvers.ParseDepth;
+import daomephsta.unpick.impl.classresolvers.ClassMetadataStores;
+import daomephsta.unpick.impl.classresolvers.IMetadataSharingClassResolver;
+
+public class TestParseDepth {
+	private static final Path TEST_DATA = Paths.get(System.getProperty("testData"));
+	private static final String CLASS_NAME = "pkg/TestKnownIntConstantsParameter";
+
+	@Test
+	public void testHeader() {
+		ClassNode node = ClassResolvers.fromDirectory(TEST_DATA).resolveClass(CLASS_NAME, ParseDepth.HEADER);
+		assertNotNull(node);
+		assertEquals(CLASS_NAME, node.name);
+		assertEquals("java/lang/Object", node.superName);
+		assertTrue(node.methods.isEmpty());
+	}
+
+	@Test
+	public void testMembers() {
+		ClassNode node = ClassResolvers.fromDirectory(TEST_DATA).resolveClass(CLASS_NAME, ParseDepth.MEMBERS);
+		assertNotNull(node);
+		assertFalse(node.methods.isEmpty());
+		for (MethodNode method : node.methods) {
+			assertEquals(0, method.instructions.size());
+		}
+	}
+
+	@Test
+	public void testInitializers() {
+		ClassNode node = ClassResolvers.fromDirectory(TEST_DATA).resolveClass(CLASS_NAME, ParseDepth.INITIALIZERS);
+		assertNotNull(node);
+		for (MethodNode method : node.methods) {
+			assertEquals(method.name.equals("<init>"), method.instructions.size() != 0);
+		}
+	}
+
+	@Test
+	public void testFull() {
+		ClassNode node = ClassResolvers.fromDirectory(TEST_DATA).resolveClass(CLASS_NAME, ParseDepth.FULL);
+		assertNotNull(node);
+		for (MethodNode method : node.methods) {
+			assertTrue(method.instructions.size() != 0);
+		}
+	}
+
+	@Test
+	public void testLookupsOnlyParseAsDeeplyAsNeeded() {
+		List<ParseDepth> depths = new ArrayList<>();
+		IClassResolver classResolver = recordingResolver(depths);
+		ClassMetadataStores metadataStores = new ClassMetadataStores();
+		IInheritanceChecker inheritanceChecker = metadataStores.asInheritanceChecker(classResolver, IUnpickMetrics.NONE, CachePolicy.UNBOUNDED);
+		IMemberChecker memberChecker = metadataStores.asMemberChecker(classResolver, IUnpickMetrics.NONE, CachePolicy.UNBOUNDED);
+		assertNotNull(inheritanceChecker.getClassInfo(CLASS_NAME));
+		assertEquals(List.of(ParseDepth.HEADER), depths);
+		assertNotNull(memberChecker.getMethod(CLASS_NAME, "test1", "()V"));
+		assertEquals(List.of(ParseDepth.HEADER, ParseDepth.MEMBERS), depths);
+		// the deeper parse is reused by shallower lookups
+		assertNotNull(inheritanceChecker.getClassInfo(CLASS_NAME));
+		assertNotNull(memberChecker.getClassAccess(CLASS_NAME));
+		assertNotNull(memberChecker.getFields(CLASS_NAME));
+		assertEquals(List.of(ParseDepth.HEADER, ParseDepth.MEMBERS), depths);
+	}
+
+	private static IClassResolver recordingResolver(List<ParseDepth> depths) {
+		IClassResolver resolver = ClassResolvers.fromDirectory(TEST_DATA);
+		return new IMetadataSharingClassResolver() {
+			@Override
+			@Nullable
+			public ClassNode resolveClass(String internalName) {
+				return resolveClass(internalName, ParseDepth.FULL);
+			}
+
+			@Override
+			@Nullable
+			public ClassNode resolveClass(String internalName, ParseDepth depth) {
+				depths.add(depth);
+				return resolver.resolveClass(internalName, depth);
+			}
+		};
+	}
+}
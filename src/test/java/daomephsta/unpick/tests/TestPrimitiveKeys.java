@@ -0,0 +1,44 @@
+package daomephsta.unpick.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Type;
+
+import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
+import daomephsta.unpick.impl.DataTypeUtils;
+
+public class TestPrimitiveKeys {
+	private static final List<Object> VALUES = List.of(
+			0, 1, -1, 127, 128, -129, 32768, 65535, 70000, Integer.MAX_VALUE, Integer.MIN_VALUE,
+			0L, 5L, 1L << 40, (1L << 53) + 1, Long.MAX_VALUE, Long.MIN_VALUE,
+			0f, -0f, 1.5f, 3f, 16777217f, Float.NaN, Float.POSITIVE_INFINITY, 1e20f,
+			0d, -0d, 1.5d, 3d, 0.1d, Double.NaN, Double.NEGATIVE_INFINITY, 1e20d,
+			'a', Character.MAX_VALUE,
+			"", "a", Type.getType("Ljava/lang/Object;")
+	);
+
+	@Test
+	public void testSameAsExactCast() {
+		for (DataType dataType : DataType.values()) {
+			for (Object value : VALUES) {
+				Object casted = DataTypeUtils.tryCastExact(value, dataType);
+				String message = value + " (" + value.getClass().getSimpleName() + ") to " + dataType;
+				assertEquals(casted != null, DataTypeUtils.canCastExact(value, dataType), message);
+				if (casted == null || !DataTypeUtils.isPrimitive(dataType)) {
+					continue;
+				}
+
+				for (Object other : VALUES) {
+					Object otherCasted = DataTypeUtils.tryCastExact(other, dataType);
+					if (otherCasted != null) {
+						assertEquals(casted.equals(otherCasted), DataTypeUtils.getPrimitiveKey(value, dataType) == DataTypeUtils.getPrimitiveKey(other, dataType),
+								message + " compared with " + other);
+					}
+				}
+			}
+		}
+	}
+}
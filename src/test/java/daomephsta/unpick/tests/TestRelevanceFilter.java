@@ -0,0 +1,67 @@
+package daomephsta.unpick.tests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Type;
+
+import daomephsta.unpick.api.constantgroupers.IConstantGrouper;
+import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
+import daomephsta.unpick.constantmappers.datadriven.tree.GroupDefinition;
+import daomephsta.unpick.constantmappers.datadriven.tree.TargetAnnotation;
+import daomephsta.unpick.constantmappers.datadriven.tree.TargetField;
+import daomephsta.unpick.constantmappers.datadriven.tree.expr.FieldExpression;
+import daomephsta.unpick.tests.lib.TestUtils;
+
+public class TestRelevanceFilter {
+	@Test
+	public void testTargetMembers() {
+		IConstantGrouper grouper = TestUtils.createGrouper(data -> {
+			TestUtils.intConst1Group("consumeInt", "(I)V").accept(data);
+			data.visitTargetField(new TargetField("pkg.TestSubclass", "field", "I", "test"));
+		});
+
+		assertTrue(grouper.mayTargetMethod("consumeInt", "(I)V"));
+		assertFalse(grouper.mayTargetMethod("consumeInt", "(J)V"));
+		assertFalse(grouper.mayTargetMethod("consumeLong", "(J)V"));
+		assertTrue(grouper.mayTargetField("field", "I"));
+		assertFalse(grouper.mayTargetField("field", "J"));
+		assertFalse(grouper.mayReplaceByDefault(1));
+	}
+
+	@Test
+	public void testTargetAnnotations() {
+		IConstantGrouper grouper = TestUtils.createGrouper(data -> {
+			data.visitGroupDefinition(GroupDefinition.Builder.named(DataType.INT, "test")
+					.constant(new FieldExpression("pkg.Constants", "INT_CONST_1", null, true))
+					.build());
+			data.visitTargetAnnotation(new TargetAnnotation("pkg.TestAnnotation", "test"));
+		});
+
+		assertTrue(grouper.mayTargetMethod("consumeLong", "(J)V"));
+		assertTrue(grouper.mayTargetField("field", "J"));
+	}
+
+	@Test
+	public void testDefaultGroups() {
+		IConstantGrouper grouper = TestUtils.createGrouper(data -> {
+			data.visitGroupDefinition(GroupDefinition.Builder.global(DataType.INT)
+					.constant(new FieldExpression("pkg.Constants", "INT_CONST_1", null, true))
+					.build());
+			data.visitGroupDefinition(GroupDefinition.Builder.global(DataType.STRING)
+					.constant(new FieldExpression("pkg.Constants", "STRING_CONST_NULL", null, true))
+					.build());
+		});
+
+		assertTrue(grouper.mayReplaceByDefault(1));
+		assertTrue(grouper.mayReplaceByDefault(1L));
+		assertTrue(grouper.mayReplaceByDefault(1.0));
+		assertFalse(grouper.mayReplaceByDefault(2));
+		assertFalse(grouper.mayReplaceByDefault(1.5f));
+		assertFalse(grouper.mayReplaceByDefault("1"));
+		assertFalse(grouper.mayReplaceByDefault(Type.INT_TYPE));
+		assertTrue(grouper.mayReplaceByDefault(null));
+		assertFalse(grouper.mayTargetMethod("consumeInt", "(I)V"));
+	}
+}
@@ -0,0 +1,96 @@
+package daomephsta.unpick.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.Frame;
+
+import daomephsta.unpick.api.ConstantUninliner;
+import daomephsta.unpick.api.classresolvers.ClassResolvers;
+import daomephsta.unpick.api.constantgroupers.ConstantGroup;
+import daomephsta.unpick.api.constantgroupers.IConstantGrouper;
+import daomephsta.unpick.impl.AbstractInsnNodes;
+import daomephsta.unpick.impl.RetainedFrames;
+import daomephsta.unpick.impl.UnpickInterpreter;
+import daomephsta.unpick.impl.UnpickValue;
+import daomephsta.unpick.tests.lib.TestUtils;
+
+public class TestRetainedFrames {
+	private static final Path TEST_DATA = Paths.get(System.getProperty("testData"));
+
+	@Test
+	public void testRetainedAroundLiterals() throws IOException, AnalyzerException {
+		ClassNode classNode = new ClassNode();
+		new ClassReader(Files.readAllBytes(TEST_DATA.resolve("pkg/TestKnownIntConstantsParameter.class"))).accept(classNode, 0);
+		for (MethodNode method : classNode.methods) {
+			Frame<UnpickValue>[] frames = new Analyzer<>(new UnpickInterpreter(method, ClassResolvers.classpath().asInheritanceChecker()))
+					.analyze(classNode.name, method);
+			RetainedFrames retained = RetainedFrames.retain(method, frames);
+			assertTrue(retained.size() <= frames.length);
+			if (frames.length > 0) {
+				assertSame(frames[0], retained.get(0));
+			}
+
+			for (int i = 0; i < method.instructions.size(); i++) {
+				AbstractInsnNode insn = method.instructions.get(i);
+				if (AbstractInsnNodes.hasLiteralValue(insn)) {
+					assertSame(frames[i], retained.get(i));
+					assertSame(frames[i + 1], retained.get(i + 1));
+					AbstractInsnNode next = AbstractInsnNodes.nextInstruction(insn);
+					if (next != null) {
+						int nextIndex = method.instructions.indexOf(next);
+						assertSame(frames[nextIndex], retained.get(nextIndex));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRetainAllFrames() throws IOException {
+		assertTrue(countMissingFrames(false) > 0);
+		assertEquals(0, countMissingFrames(true));
+	}
+
+	/**
+	 * @return the number of instructions without a frame in the methods which pass literals to
+	 * {@code pkg.Constants.consumeInt}, as seen by replacement generators.
+	 */
+	private static int countMissingFrames(boolean retainAllFrames) throws IOException {
+		AtomicInteger missingFrames = new AtomicInteger();
+		ConstantGroup group = new ConstantGroup("test", context -> {
+			for (AbstractInsnNode insn : context.getContainingMethod().instructions) {
+				if (insn.getOpcode() >= 0 && context.getDataflowFrame(insn) == null) {
+					missingFrames.incrementAndGet();
+				}
+			}
+		});
+		IConstantGrouper grouper = new IConstantGrouper() {
+			@Override
+			public ConstantGroup getMethodParameterGroup(String methodOwner, String methodName, String methodDescriptor, int parameterIndex) {
+				return "consumeInt".equals(methodName) ? group : null;
+			}
+		};
+		ConstantUninliner.builder()
+				.grouper(grouper)
+				.classResolver(TestUtils.createClassResolver())
+				.retainAllFrames(retainAllFrames)
+				.build()
+				.transform(Files.readAllBytes(TEST_DATA.resolve("pkg/TestKnownIntConstantsParameter.class")));
+		return missingFrames.get();
+	}
+}
@@ -0,0 +1,150 @@
+package daomephsta.unpick.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.VarInsnNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.Frame;
+
+import daomephsta.unpick.api.classresolvers.ClassResolvers;
+import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
+import daomephsta.unpick.api.constantgroupers.IReplacementGenerator;
+import daomephsta.unpick.impl.RetainedFrames;
+import daomephsta.unpick.impl.StraightLineAnalyzer;
+import daomephsta.unpick.impl.UnpickInterpreter;
+import daomephsta.unpick.impl.UnpickValue;
+import daomephsta.unpick.impl.ValueClass;
+
+public class TestStraightLineAnalyzer {
+	private static final Path TEST_DATA = Paths.get(System.getProperty("testData"));
+
+	@Test
+	public void testSameFramesAsAnalyzer() throws IOException, AnalyzerException {
+		IInheritanceChecker inheritanceChecker = ClassResolvers.classpath().asInheritanceChecker();
+		int straightLineMethods = 0;
+		for (ClassNode classNode : readTestData()) {
+			for (MethodNode method : classNode.methods) {
+				if (!StraightLineAnalyzer.isStraightLine(method)) {
+					continue;
+				}
+				straightLineMethods++;
+
+				RetainedFrames expected = RetainedFrames.retain(method, new Analyzer<>(new UnpickInterpreter(method, inheritanceChecker))
+						.analyze(classNode.name, method));
+				RetainedFrames actual = StraightLineAnalyzer.analyze(classNode.name, method, new UnpickInterpreter(method, inheritanceChecker));
+				assertEquals(expected.size(), actual.size(), classNode.name + "." + method.name + method.desc);
+				for (int i = 0; i < method.instructions.size(); i++) {
+					Frame<UnpickValue> expectedFrame = expected.get(i);
+					Frame<UnpickValue> actualFrame = actual.get(i);
+					if (expectedFrame == null) {
+						assertEquals(null, actualFrame);
+						continue;
+					}
+					assertNotNull(actualFrame);
+					assertSameValues(expectedFrame, actualFrame);
+				}
+			}
+		}
+		assertTrue(straightLineMethods > 0);
+	}
+
+	@Test
+	public void testBranchesAreNotStraightLine() throws IOException {
+		boolean foundBranchingMethod = false;
+		for (ClassNode classNode : readTestData()) {
+			for (MethodNode method : classNode.methods) {
+				if (!method.tryCatchBlocks.isEmpty()) {
+					assertFalse(StraightLineAnalyzer.isStraightLine(method));
+				}
+				foundBranchingMethod |= !StraightLineAnalyzer.isStraightLine(method);
+			}
+		}
+		assertTrue(foundBranchingMethod);
+	}
+
+	@Test
+	public void testParameterUsagesCompareByEquality() throws AnalyzerException {
+		IInheritanceChecker inheritanceChecker = ClassResolvers.classpath().asInheritanceChecker();
+		// both while the usages are kept in an array, and once there are enough of them to be hashed
+		for (int paramCount : new int[] {2, 16}) {
+			MethodNode method = new MethodNode(Opcodes.ACC_STATIC, "test", "(I)V", null, null);
+			method.instructions.add(new VarInsnNode(Opcodes.ILOAD, 0));
+			for (int i = 1; i < paramCount; i++) {
+				method.instructions.add(new InsnNode(Opcodes.DUP));
+			}
+			MethodInsnNode invocation = new MethodInsnNode(Opcodes.INVOKESTATIC, "pkg/Test", "consume", "(" + "I".repeat(paramCount) + ")V", false);
+			method.instructions.add(invocation);
+			method.instructions.add(new InsnNode(Opcodes.RETURN));
+			method.maxStack = paramCount;
+			method.maxLocals = 1;
+
+			Frame<UnpickValue>[] frames = new Analyzer<>(new UnpickInterpreter(method, inheritanceChecker)).analyze("pkg/Test", method);
+			Set<IReplacementGenerator.IParameterUsage> usages = frames[method.instructions.indexOf(invocation)].getStack(0).getParameterUsages();
+			Set<IReplacementGenerator.IParameterUsage> expected = new HashSet<>();
+			for (int i = 0; i < paramCount; i++) {
+				UnpickValue.ParameterUsage usage = new UnpickValue.ParameterUsage(invocation, i);
+				assertTrue(usages.contains(usage), "Missing " + usage);
+				expected.add(usage);
+			}
+			assertFalse(usages.contains(new UnpickValue.ParameterUsage(invocation, paramCount)));
+			assertEquals(expected, usages);
+			assertEquals(usages, expected);
+			assertEquals(expected.hashCode(), usages.hashCode());
+		}
+	}
+
+	private static void assertSameValues(Frame<UnpickValue> expected, Frame<UnpickValue> actual) {
+		assertEquals(expected.getLocals(), actual.getLocals());
+		assertEquals(expected.getStackSize(), actual.getStackSize());
+		for (int i = 0; i < expected.getLocals(); i++) {
+			assertSameFacts(expected.getLocal(i), actual.getLocal(i));
+		}
+		for (int i = 0; i < expected.getStackSize(); i++) {
+			assertSameFacts(expected.getStack(i), actual.getStack(i));
+		}
+	}
+
+	private static void assertSameFacts(UnpickValue expected, UnpickValue actual) {
+		assertEquals(expected.getDataType(), actual.getDataType());
+		ValueClass expectedClass = expected.getValueClass();
+		ValueClass actualClass = actual.getValueClass();
+		assertEquals(expectedClass.getUsages(), actualClass.getUsages());
+		assertEquals(expectedClass.getParameterSources(), actualClass.getParameterSources());
+		assertEquals(expectedClass.getTypeInterpretations(), actualClass.getTypeInterpretations());
+		// each interpreter has its own parameter usage objects, which are equal but not identical
+		assertEquals(expectedClass.getParameterUsages(), actualClass.getParameterUsages());
+	}
+
+	private static List<ClassNode> readTestData() throws IOException {
+		List<ClassNode> classes = new ArrayList<>();
+		try (Stream<Path> files = Files.walk(TEST_DATA)) {
+			for (Path file : (Iterable<Path>) files.filter(path -> path.toString().endsWith(".class"))::iterator) {
+				ClassNode classNode = new ClassNode();
+				new ClassReader(Files.readAllBytes(file)).accept(classNode, 0);
+				classes.add(classNode);
+			}
+		}
+		return classes;
+	}
+}
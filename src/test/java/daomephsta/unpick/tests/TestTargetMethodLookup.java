@@ -0,0 +1,122 @@
+package daomephsta.unpick.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import daomephsta.unpick.api.IUnpickMetrics;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
+import daomephsta.unpick.api.constantgroupers.ConstantGroup;
+import daomephsta.unpick.api.constantgroupers.ConstantGroupers;
+import daomephsta.unpick.api.constantgroupers.IConstantGrouper;
+import daomephsta.unpick.tests.lib.TestUtils;
+
+/**
+ * Tests the lookup of target methods which are inherited from the class declaring them, through the signature index
+ * and the cache of inherited target methods.
+ */
+public class TestTargetMethodLookup {
+	private static final String DECLARING_CLASS = "pkg/Constants";
+	private static final String SUBCLASS = "generated/Subclass";
+	private static final String UNRELATED_CLASS = "generated/Unrelated";
+	// together more than the cache of inherited target methods holds
+	private static final int GENERATED_CLASS_COUNT = 5000;
+
+	@Test
+	public void testDeclaringClassAndUntargetedSignatures() {
+		RecordingMetrics metrics = new RecordingMetrics();
+		IConstantGrouper grouper = createGrouper(metrics);
+		assertGroup(grouper.getMethodParameterGroup(DECLARING_CLASS, "consumeInt", "(I)V", 0));
+		assertNull(grouper.getMethodParameterGroup(SUBCLASS, "consumeLong", "(I)V", 0));
+		assertNull(grouper.getMethodParameterGroup(SUBCLASS, "consumeInt", "(J)V", 0));
+		// all answered by the index, without the cache
+		assertEquals(List.of(), metrics.targetMethodAccesses);
+	}
+
+	@Test
+	public void testInheritedTargetMethod() {
+		RecordingMetrics metrics = new RecordingMetrics();
+		IConstantGrouper grouper = createGrouper(metrics);
+		assertGroup(grouper.getMethodParameterGroup(SUBCLASS, "consumeInt", "(I)V", 0));
+		// walks from the subclass to the declaring class, which the index answers for
+		assertEquals(List.of(false), metrics.targetMethodAccesses);
+
+		metrics.targetMethodAccesses.clear();
+		assertGroup(grouper.getMethodParameterGroup(SUBCLASS, "consumeInt", "(I)V", 0));
+		assertEquals(List.of(true), metrics.targetMethodAccesses);
+	}
+
+	@Test
+	public void testMissingTargetMethodRemembered() {
+		RecordingMetrics metrics = new RecordingMetrics();
+		IConstantGrouper grouper = createGrouper(metrics);
+		assertNull(grouper.getMethodParameterGroup(UNRELATED_CLASS, "consumeInt", "(I)V", 0));
+		// walks from the unrelated class to Object without finding the target method
+		assertEquals(List.of(false, false), metrics.targetMethodAccesses);
+
+		metrics.targetMethodAccesses.clear();
+		assertNull(grouper.getMethodParameterGroup(UNRELATED_CLASS, "consumeInt", "(I)V", 0));
+		assertEquals(List.of(true), metrics.targetMethodAccesses);
+	}
+
+	@Test
+	public void testCollidingAndEvictedEntries() {
+		RecordingMetrics metrics = new RecordingMetrics();
+		IConstantGrouper grouper = createGrouper(metrics);
+		for (int pass = 0; pass < 2; pass++) {
+			metrics.targetMethodAccesses.clear();
+			for (int i = 0; i < GENERATED_CLASS_COUNT; i++) {
+				// subclasses and unrelated classes share slots, so neither may be answered with the other's entry
+				assertGroup(grouper.getMethodParameterGroup(SUBCLASS + i, "consumeInt", "(I)V", 0));
+				assertNull(grouper.getMethodParameterGroup(UNRELATED_CLASS + i, "consumeInt", "(I)V", 0));
+			}
+		}
+
+		// the cache cannot hold every class, so some were evicted and walked again in the second pass
+		assertTrue(metrics.targetMethodAccesses.contains(false), "No entries were evicted");
+	}
+
+	private static void assertGroup(@Nullable ConstantGroup group) {
+		assertNotNull(group);
+		assertEquals("test", group.getName());
+	}
+
+	private static IConstantGrouper createGrouper(IUnpickMetrics metrics) {
+		IClassResolver classResolver = TestUtils.createClassResolver();
+		IInheritanceChecker delegate = classResolver.asInheritanceChecker();
+		// classes which do not exist, so that as many as needed can be looked up
+		IInheritanceChecker inheritanceChecker = className -> {
+			if (className.startsWith(UNRELATED_CLASS)) {
+				return new IInheritanceChecker.ClassInfo("java/lang/Object", new String[0], false);
+			} else if (className.startsWith(SUBCLASS)) {
+				return new IInheritanceChecker.ClassInfo(DECLARING_CLASS, new String[0], false);
+			}
+			return delegate.getClassInfo(className);
+		};
+		return ConstantGroupers.dataDriven()
+				.classResolver(classResolver)
+				.inheritanceChecker(inheritanceChecker)
+				.metrics(metrics)
+				.mappingSource(TestUtils.intConst1Group("consumeInt", "(I)V"))
+				.build();
+	}
+
+	private static class RecordingMetrics implements IUnpickMetrics {
+		final List<Boolean> targetMethodAccesses = new ArrayList<>();
+
+		@Override
+		public void onCacheAccess(Cache cache, boolean hit) {
+			if (cache == Cache.TARGET_METHOD) {
+				targetMethodAccesses.add(hit);
+			}
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package daomephsta.unpick.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import daomephsta.unpick.api.ConstantUninliner;
+import daomephsta.unpick.api.TransformCache;
+import daomephsta.unpick.api.constantgroupers.ConstantGroup;
+import daomephsta.unpick.api.constantgroupers.IConstantGrouper;
+import daomephsta.unpick.tests.lib.TestUtils;
+
+public class TestTransformCache {
+	private static final Path TEST_DATA = Paths.get(System.getProperty("testData"));
+
+	@Test
+	public void testCacheHit(@TempDir Path cacheDir) throws IOException {
+		byte[] classFile = Files.readAllBytes(TEST_DATA.resolve("pkg/TestKnownIntConstantsParameter.class"));
+		byte[] transformed = createUninliner(cacheDir, "consumeInt", Long.MAX_VALUE).transform(classFile);
+		List<Path> entries = listEntries(cacheDir);
+		assertEquals(1, entries.size());
+		assertArrayEquals(transformed, Files.readAllBytes(entries.getFirst()));
+
+		// prove that the entry is used rather than the class being transformed again
+		byte[] marker = {1, 2, 3};
+		Files.write(entries.getFirst(), marker);
+		assertArrayEquals(marker, createUninliner(cacheDir, "consumeInt", Long.MAX_VALUE).transform(classFile));
+	}
+
+	@Test
+	public void testUnchangedClassCached(@TempDir Path cacheDir) throws IOException {
+		byte[] classFile = Files.readAllBytes(TEST_DATA.resolve("pkg/TestKnownIntConstantsParameter.class"));
+		assertSame(classFile, createUninliner(cacheDir, "consumeLong", Long.MAX_VALUE).transform(classFile));
+		assertEquals(1, listEntries(cacheDir).size());
+		assertSame(classFile, createUninliner(cacheDir, "consumeLong", Long.MAX_VALUE).transform(classFile));
+	}
+
+	@Test
+	public void testMappingsChangeKey(@TempDir Path cacheDir) throws IOException {
+		byte[] classFile = Files.readAllBytes(TEST_DATA.resolve("pkg/TestKnownIntConstantsParameter.class"));
+		createUninliner(cacheDir, "consumeInt", Long.MAX_VALUE).transform(classFile);
+		createUninliner(cacheDir, "consumeLong", Long.MAX_VALUE).transform(classFile);
+		assertEquals(2, listEntries(cacheDir).size());
+		assertNotEquals(createGrouper("consumeInt").getFingerprint(), createGrouper("consumeLong").getFingerprint());
+		assertEquals(createGrouper("consumeInt").getFingerprint(), createGrouper("consumeInt").getFingerprint());
+	}
+
+	@Test
+	public void testClasspathContentChangesKey(@TempDir Path cacheDir, @TempDir Path classpathDir) throws IOException {
+		byte[] classFile = Files.readAllBytes(TEST_DATA.resolve("pkg/TestKnownIntConstantsParameter.class"));
+		Path library = classpathDir.resolve("library.jar");
+		Files.writeString(library, "version 1");
+		createUninliner(cacheDir, List.of(TEST_DATA, library)).transform(classFile);
+		assertEquals(1, listEntries(cacheDir).size());
+
+		// touching a file without changing it keeps the key
+		Files.setLastModifiedTime(library, FileTime.fromMillis(Files.getLastModifiedTime(library).toMillis() + 10_000));
+		createUninliner(cacheDir, List.of(TEST_DATA, library)).transform(classFile);
+		assertEquals(1, listEntries(cacheDir).size());
+
+		Files.writeString(library, "version 2");
+		createUninliner(cacheDir, List.of(TEST_DATA, library)).transform(classFile);
+		assertEquals(2, listEntries(cacheDir).size());
+	}
+
+	@Test
+	public void testFailedTransformNotCached(@TempDir Path cacheDir) throws IOException {
+		byte[] classFile = Files.readAllBytes(TEST_DATA.resolve("pkg/TestKnownIntConstantsParameter.class"));
+		ConstantGroup failingGroup = new ConstantGroup("failing", context -> {
+			throw new IllegalStateException("Replacement failed");
+		});
+		IConstantGrouper grouper = new IConstantGrouper() {
+			@Override
+			public ConstantGroup getMethodParameterGroup(String methodOwner, String methodName, String methodDescriptor, int parameterIndex) {
+				return "consumeInt".equals(methodName) ? failingGroup : null;
+			}
+
+			@Override
+			public String getFingerprint() {
+				return "failing";
+			}
+		};
+		ConstantUninliner uninliner = ConstantUninliner.builder()
+				.grouper(grouper)
+				.classResolver(TestUtils.createClassResolver())
+				.cache(TransformCache.builder(cacheDir, List.of(TEST_DATA)).build())
+				.build();
+		assertSame(classFile, uninliner.transform(classFile));
+		assertTrue(listEntries(cacheDir).isEmpty());
+	}
+
+	@Test
+	public void testEviction(@TempDir Path cacheDir) throws IOException {
+		ConstantUninliner uninliner = createUninliner(cacheDir, "consumeInt", 2000);
+		long maxSize = 0;
+		for (String className : List.of("TestKnownIntConstantsParameter", "TestKnownIntConstantsReturn", "TestKnownLongConstantsParameter", "TestKnownStringConstantsParameter")) {
+			byte[] classFile = Files.readAllBytes(TEST_DATA.resolve("pkg/" + className + ".class"));
+			uninliner.transform(classFile);
+			long size = 0;
+			for (Path entry : listEntries(cacheDir)) {
+				size += Files.size(entry);
+			}
+			maxSize = Math.max(maxSize, size);
+		}
+		assertTrue(maxSize <= 2000, "Cache grew to " + maxSize + " bytes");
+	}
+
+	private static ConstantUninliner createUninliner(Path cacheDir, String methodName, long maxCacheSize) throws IOException {
+		return TestUtils.uninlinerBuilder(TestUtils.intConst1Group(methodName, "(I)V"))
+				.cache(TransformCache.builder(cacheDir, List.of(TEST_DATA)).maxSize(maxCacheSize).build())
+				.build();
+	}
+
+	private static ConstantUninliner createUninliner(Path cacheDir, Collection<Path> classpath) throws IOException {
+		return TestUtils.uninlinerBuilder(TestUtils.intConst1Group("consumeInt", "(I)V"))
+				.cache(TransformCache.builder(cacheDir, classpath).build())
+				.build();
+	}
+
+	private static IConstantGrouper createGrouper(String methodName) {
+		return TestUtils.createGrouper(TestUtils.intConst1Group(methodName, "(I)V"));
+	}
+
+	private static List<Path> listEntries(Path cacheDir) throws IOException {
+		try (Stream<Path> files = Files.find(cacheDir, 2, (path, attributes) -> path.toString().endsWith(".class"))) {
+			return files.toList();
+		}
+	}
+}
@@ -1,9 +1,12 @@
 package daomephsta.unpick.tests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 
 import org.jetbrains.annotations.Nullable;
@@ -11,10 +14,14 @@ import org.junit.jupiter.api.Test;
 
 import daomephsta.unpick.api.ValidatingUnpickV3Visitor;
 import daomephsta.unpick.api.classresolvers.ClassResolvers;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
 import daomephsta.unpick.constantmappers.datadriven.parser.UnpickSyntaxException;
 import daomephsta.unpick.constantmappers.datadriven.parser.v3.UnpickV3Reader;
+import daomephsta.unpick.constantmappers.datadriven.tree.TargetAnnotation;
 
 public class TestValidation {
+	private static final Path TEST_DATA = Paths.get(System.getProperty("testData"));
+
 	@Test
 	public void testValid() throws IOException {
 		testValidation("""
@@ -209,6 +216,34 @@ public class TestValidation {
 		);
 	}
 
+	@Test
+	public void testTargetAnnotations() {
+		// the classpath resolver checks classes by reflection, the directory resolver by their bytecode
+		IClassResolver classpath = ClassResolvers.classpath();
+		assertNull(validateTargetAnnotation(classpath, "java.lang.Deprecated"));
+		assertEquals("Not an annotation: java.lang.String", validateTargetAnnotation(classpath, "java.lang.String"));
+		assertEquals("No such annotation: pkg.DoesNotExist", validateTargetAnnotation(classpath, "pkg.DoesNotExist"));
+
+		IClassResolver directory = ClassResolvers.fromDirectory(TEST_DATA);
+		assertNull(validateTargetAnnotation(directory, "pkg.TestAnnotation"));
+		assertEquals("Not an annotation: pkg.Constants", validateTargetAnnotation(directory, "pkg.Constants"));
+		assertEquals("No such annotation: pkg.DoesNotExist", validateTargetAnnotation(directory, "pkg.DoesNotExist"));
+	}
+
+	@Nullable
+	private static String validateTargetAnnotation(IClassResolver classResolver, String annotationName) {
+		ValidatingUnpickV3Visitor validator = new ValidatingUnpickV3Visitor(classResolver) {
+			@Override
+			public boolean packageExists(String packageName) {
+				return true;
+			}
+		};
+		validator.visitTargetAnnotation(new TargetAnnotation(annotationName, "test"));
+
+		List<UnpickSyntaxException> errors = validator.finishValidation();
+		return errors.isEmpty() ? null : errors.getFirst().getMessage();
+	}
+
 	private static void testValidation(String fileText, @Nullable String expectedError) throws IOException {
 		UnpickV3Reader reader = new UnpickV3Reader(new StringReader("unpick v3\n" + fileText));
 		ValidatingUnpickV3Visitor validator = new ValidatingUnpickV3Visitor(ClassResolvers.classpath()) {
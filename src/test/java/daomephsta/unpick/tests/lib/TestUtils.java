@@ -1,26 +1,96 @@
 package daomephsta.unpick.tests.lib;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.tree.ClassNode;
 
 import daomephsta.unpick.api.ConstantUninliner;
+import daomephsta.unpick.api.IUnpickMetrics;
 import daomephsta.unpick.api.classresolvers.ClassResolvers;
 import daomephsta.unpick.api.classresolvers.IClassResolver;
 import daomephsta.unpick.api.constantgroupers.ConstantGroupers;
+import daomephsta.unpick.api.constantgroupers.IConstantGrouper;
+import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
+import daomephsta.unpick.constantmappers.datadriven.tree.GroupDefinition;
+import daomephsta.unpick.constantmappers.datadriven.tree.TargetMethod;
 import daomephsta.unpick.constantmappers.datadriven.tree.UnpickV3Visitor;
+import daomephsta.unpick.constantmappers.datadriven.tree.expr.FieldExpression;
 
 public class TestUtils {
 	private static final Path TEST_DATA = Paths.get(System.getProperty("testData"));
 	private static final Path TEST_DATA_EXPECTED = Paths.get(System.getProperty("testDataExpected"));
 
+	/**
+	 * @return a resolver for the test data classes, and the classes of the JDK.
+	 */
+	public static IClassResolver createClassResolver() {
+		return ClassResolvers.fromDirectory(TEST_DATA).chain(ClassResolvers.classpath());
+	}
+
+	public static IConstantGrouper createGrouper(Consumer<UnpickV3Visitor> dataProvider) {
+		return createGrouper(createClassResolver(), IUnpickMetrics.NONE, dataProvider);
+	}
+
+	private static IConstantGrouper createGrouper(IClassResolver classResolver, IUnpickMetrics metrics, Consumer<UnpickV3Visitor> dataProvider) {
+		return ConstantGroupers.dataDriven()
+				.classResolver(classResolver)
+				.metrics(metrics)
+				.mappingSource(dataProvider)
+				.build();
+	}
+
+	public static ConstantUninliner.Builder uninlinerBuilder(Consumer<UnpickV3Visitor> dataProvider) {
+		return uninlinerBuilder(IUnpickMetrics.NONE, dataProvider);
+	}
+
+	/**
+	 * @param metrics the metrics for both the uninliner and its grouper to report to.
+	 * @param dataProvider the mappings of the grouper.
+	 * @return a builder for an uninliner over the test data, with its grouper and class resolver already set.
+	 */
+	public static ConstantUninliner.Builder uninlinerBuilder(IUnpickMetrics metrics, Consumer<UnpickV3Visitor> dataProvider) {
+		IClassResolver classResolver = createClassResolver();
+		return ConstantUninliner.builder()
+				.grouper(createGrouper(classResolver, metrics, dataProvider))
+				.classResolver(classResolver)
+				.metrics(metrics);
+	}
+
+	/**
+	 * @param methodName the name of a method of {@code pkg.Constants} with an int as its first parameter.
+	 * @param methodDescriptor the descriptor of the method.
+	 * @return mappings with a group {@code test} of {@code INT_CONST_1}, which targets the first parameter of the
+	 * method.
+	 */
+	public static Consumer<UnpickV3Visitor> intConst1Group(String methodName, String methodDescriptor) {
+		return data -> {
+			data.visitGroupDefinition(GroupDefinition.Builder.named(DataType.INT, "test")
+					.constant(new FieldExpression("pkg.Constants", "INT_CONST_1", null, true))
+					.build());
+			data.visitTargetMethod(TargetMethod.Builder.builder("pkg.Constants", methodName, methodDescriptor)
+					.paramGroup(0, "test")
+					.build());
+		};
+	}
+
 	public static void runTest(String className, Consumer<UnpickV3Visitor> dataProvider) {
 		runTest(className, dataProvider, clazz -> {
 		});
@@ -30,28 +100,85 @@ public class TestUtils {
 		ClassNode clazz = readClass(TEST_DATA, className);
 		ClassNode expectedClass = readClass(TEST_DATA_EXPECTED, className);
 
-		IClassResolver classResolver = ClassResolvers.fromDirectory(TEST_DATA).chain(ClassResolvers.classpath());
-		ConstantUninliner.builder()
-				.grouper(ConstantGroupers.dataDriven()
-						.classResolver(classResolver)
-						.mappingSource(dataProvider)
-						.build())
-				.classResolver(classResolver)
+		ConstantUninliner uninliner = uninlinerBuilder(dataProvider).build();
+		uninliner.transform(clazz);
+
+		ClassNode clazzFromBytes = new ClassNode();
+		new ClassReader(uninliner.transform(readClassFile(TEST_DATA, className))).accept(clazzFromBytes, 0);
+
+		ClassNode clazzFromSparse = readClass(TEST_DATA, className);
+		uninlinerBuilder(dataProvider)
+				.dataflowEngine(ConstantUninliner.DataflowEngine.SPARSE)
 				.build()
-				.transform(clazz);
+				.transform(clazzFromSparse);
 
 		classPostProcessor.accept(clazz);
+		classPostProcessor.accept(clazzFromBytes);
+		classPostProcessor.accept(clazzFromSparse);
 		classPostProcessor.accept(expectedClass);
 
 		ASMAssertions.assertClassEquals(expectedClass, clazz);
+		ASMAssertions.assertClassEquals(expectedClass, clazzFromBytes);
+		ASMAssertions.assertClassEquals(expectedClass, clazzFromSparse);
+	}
+
+	public static void runJarTest(Consumer<UnpickV3Visitor> dataProvider, String... classNames) throws IOException {
+		Path tempDir = Files.createTempDirectory("unpick-test");
+		try {
+			Path inputJar = tempDir.resolve("input.jar");
+			List<String> entryNames = new ArrayList<>();
+			try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(inputJar))) {
+				out.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+				out.write("Manifest-Version: 1.0\n".getBytes(StandardCharsets.UTF_8));
+				entryNames.add("META-INF/MANIFEST.MF");
+				for (String className : classNames) {
+					out.putNextEntry(new ZipEntry(className + ".class"));
+					out.write(Files.readAllBytes(TEST_DATA.resolve(className + ".class")));
+					entryNames.add(className + ".class");
+				}
+			}
+
+			Path outputJar = tempDir.resolve("output.jar");
+			Path outputJar2 = tempDir.resolve("output2.jar");
+			ForkJoinPool pool = new ForkJoinPool(4);
+			try {
+				ConstantUninliner uninliner = uninlinerBuilder(dataProvider)
+						.parallelDataflow(pool, 0)
+						.build();
+				uninliner.transformJar(inputJar, outputJar, pool);
+				uninliner.transformJar(inputJar, outputJar2, pool);
+			} finally {
+				pool.shutdown();
+			}
+			assertArrayEquals(Files.readAllBytes(outputJar), Files.readAllBytes(outputJar2), "Output jar is not deterministic");
+
+			try (ZipFile output = new ZipFile(outputJar.toFile())) {
+				assertEquals(entryNames, output.stream().map(ZipEntry::getName).toList());
+				for (String className : classNames) {
+					ClassNode clazz = new ClassNode();
+					try (InputStream in = output.getInputStream(output.getEntry(className + ".class"))) {
+						new ClassReader(in).accept(clazz, 0);
+					}
+					ASMAssertions.assertClassEquals(readClass(TEST_DATA_EXPECTED, className), clazz);
+				}
+			}
+		} finally {
+			try (Stream<Path> files = Files.walk(tempDir)) {
+				files.sorted((a, b) -> b.getNameCount() - a.getNameCount()).forEach(file -> file.toFile().delete());
+			}
+		}
 	}
 
 	private static ClassNode readClass(Path testDataDir, String className) {
-		try (InputStream in = Files.newInputStream(testDataDir.resolve(className + ".class"))) {
-			ClassNode node = new ClassNode();
-			ClassReader reader = new ClassReader(in);
-			reader.accept(node, 0);
-			return node;
+		ClassNode node = new ClassNode();
+		ClassReader reader = new ClassReader(readClassFile(testDataDir, className));
+		reader.accept(node, 0);
+		return node;
+	}
+
+	private static byte[] readClassFile(Path testDataDir, String className) {
+		try {
+			return Files.readAllBytes(testDataDir.resolve(className + ".class"));
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
 		}
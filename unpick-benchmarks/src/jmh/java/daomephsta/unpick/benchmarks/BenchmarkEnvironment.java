@@ -0,0 +1,99 @@
+package daomephsta.unpick.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+import daomephsta.unpick.api.classresolvers.ClassResolvers;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.api.constantgroupers.ConstantGroupers;
+import daomephsta.unpick.api.constantgroupers.IConstantGrouper;
+
+/**
+ * Shared setup for the benchmarks. The compiled test data is located through the {@code testData} system property,
+ * which the build passes to the forked benchmark JVMs.
+ */
+final class BenchmarkEnvironment {
+	static final Logger LOGGER = createLogger();
+
+	private BenchmarkEnvironment() {
+	}
+
+	private static Logger createLogger() {
+		// warnings about unresolvable test data would otherwise be measured as well
+		Logger logger = Logger.getLogger("unpick.benchmarks");
+		logger.setLevel(Level.OFF);
+		return logger;
+	}
+
+	static Path getTestData() {
+		String testData = System.getProperty("testData");
+		if (testData == null) {
+			throw new IllegalStateException("The testData system property must point to the compiled test data");
+		}
+		return Paths.get(testData);
+	}
+
+	static IClassResolver createClassResolver() {
+		return ClassResolvers.fromDirectory(getTestData()).chain(ClassResolvers.classpath());
+	}
+
+	static String readMappings() {
+		try (InputStream in = BenchmarkEnvironment.class.getResourceAsStream("/benchmark.unpick")) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	static IConstantGrouper createGrouper(IClassResolver classResolver) {
+		try {
+			return ConstantGroupers.dataDriven()
+					.logger(LOGGER)
+					.classResolver(classResolver)
+					.mappingSource(new StringReader(readMappings()))
+					.build();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads every class of the test data, sorted by name so that runs are comparable.
+	 */
+	static List<byte[]> readClassFiles() {
+		Path testData = getTestData();
+		try (Stream<Path> files = Files.walk(testData)) {
+			List<byte[]> classFiles = new ArrayList<>();
+			for (Path file : files.filter(file -> file.toString().endsWith(".class")).sorted().toList()) {
+				classFiles.add(Files.readAllBytes(file));
+			}
+			return classFiles;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	static ClassNode readClass(String className) {
+		try {
+			ClassNode classNode = new ClassNode();
+			new ClassReader(Files.readAllBytes(getTestData().resolve(className + ".class"))).accept(classNode, 0);
+			return classNode;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package daomephsta.unpick.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
+import daomephsta.unpick.impl.SparseDataflowAnalyzer;
+import daomephsta.unpick.impl.UnpickInterpreter;
+
+/**
+ * Measures the {@link UnpickInterpreter} dataflow analysis of every method of a class, with ASM's {@link Analyzer} and
+ * with the {@link SparseDataflowAnalyzer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataflowBenchmark {
+	/**
+	 * Straight-line code, flag arithmetic, branches and lambdas respectively.
+	 */
+	@Param({"pkg/TestKnownIntConstantsParameter", "pkg/TestKnownIntFlagsParameter", "pkg/TestExpressions", "pkg/TestLambdaOutsideToInsideCapture"})
+	public String className;
+
+	private ClassNode classNode;
+	private IInheritanceChecker inheritanceChecker;
+
+	@Setup
+	public void setup() {
+		classNode = BenchmarkEnvironment.readClass(className);
+		inheritanceChecker = BenchmarkEnvironment.createClassResolver().asInheritanceChecker();
+	}
+
+	@Benchmark
+	public void analyze(Blackhole blackhole) throws AnalyzerException {
+		for (MethodNode method : classNode.methods) {
+			blackhole.consume(new Analyzer<>(new UnpickInterpreter(method, inheritanceChecker)).analyze(classNode.name, method));
+		}
+	}
+
+	@Benchmark
+	public void analyzeSparse(Blackhole blackhole) throws AnalyzerException {
+		for (MethodNode method : classNode.methods) {
+			blackhole.consume(SparseDataflowAnalyzer.analyze(classNode.name, method, new UnpickInterpreter(method, inheritanceChecker)));
+		}
+	}
+}
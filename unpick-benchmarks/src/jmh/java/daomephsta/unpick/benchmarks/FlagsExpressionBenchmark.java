@@ -0,0 +1,92 @@
+package daomephsta.unpick.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.Frame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
+import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
+import daomephsta.unpick.constantmappers.datadriven.tree.expr.Expression;
+import daomephsta.unpick.constantmappers.datadriven.tree.expr.FieldExpression;
+import daomephsta.unpick.impl.AbstractInsnNodes;
+import daomephsta.unpick.impl.RetainedFrames;
+import daomephsta.unpick.impl.UnpickInterpreter;
+import daomephsta.unpick.impl.UnpickValue;
+import daomephsta.unpick.impl.constantmappers.datadriven.CompiledGroup;
+import daomephsta.unpick.impl.constantmappers.datadriven.ExpressionGenerator;
+import daomephsta.unpick.impl.constantmappers.datadriven.data.ConstantReplacementInfo;
+import daomephsta.unpick.impl.constantmappers.datadriven.data.GroupInfo;
+import daomephsta.unpick.impl.representations.ReplacementInstructionGenerator;
+import daomephsta.unpick.impl.representations.ReplacementSet;
+
+/**
+ * Measures the decomposition of a value into flags by {@link ExpressionGenerator#generateFlagsExpression}, for a
+ * group of single bit flags of the given width and a value with every other bit set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlagsExpressionBenchmark {
+	@Param({"4", "16", "32"})
+	public int flagCount;
+
+	private ReplacementInstructionGenerator.Context context;
+	private CompiledGroup group;
+	private long targetValue;
+
+	@Setup
+	public void setup() throws AnalyzerException {
+		IClassResolver classResolver = BenchmarkEnvironment.createClassResolver();
+		IInheritanceChecker inheritanceChecker = classResolver.asInheritanceChecker();
+		ClassNode classNode = BenchmarkEnvironment.readClass("pkg/TestKnownIntFlagsParameter");
+		MethodNode method = classNode.methods.stream().filter(m -> m.name.equals("test1")).findFirst().orElseThrow();
+		Frame<UnpickValue>[] frames = new Analyzer<>(new UnpickInterpreter(method, inheritanceChecker)).analyze(classNode.name, method);
+		AbstractInsnNode literal = null;
+		for (AbstractInsnNode insn : method.instructions) {
+			if (AbstractInsnNodes.hasLiteralValue(insn)) {
+				literal = insn;
+				break;
+			}
+		}
+
+		context = new ReplacementInstructionGenerator.Context(classResolver, classResolver.asConstantResolver(), inheritanceChecker,
+				new ReplacementSet(method.instructions), classNode, method, literal, RetainedFrames.retain(method, frames), BenchmarkEnvironment.LOGGER);
+
+		// the flags are typed so that they need not exist
+		GroupInfo groupInfo = new GroupInfo(DataType.INT, true);
+		for (int i = 0; i < flagCount; i++) {
+			groupInfo.globalScope.constantReplacementMap.put(1 << i, new ConstantReplacementInfo(false, new FieldExpression("pkg.Flags", "FLAG_" + i, DataType.INT, true)));
+		}
+
+		group = new CompiledGroup(0, "flags", groupInfo);
+
+		for (int i = 0; i < flagCount; i += 2) {
+			targetValue |= 1L << i;
+		}
+	}
+
+	@Benchmark
+	public Expression generateFlagsExpression() {
+		return ExpressionGenerator.generateFlagsExpression(context, group, targetValue, DataType.INT, DataType.INT);
+	}
+}
@@ -0,0 +1,56 @@
+package daomephsta.unpick.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import daomephsta.unpick.api.constantgroupers.ConstantGroup;
+import daomephsta.unpick.api.constantgroupers.IConstantGrouper;
+
+/**
+ * Measures group lookups of the data driven grouper once its caches are warm, which is the case for almost all
+ * lookups of a large transformation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GrouperBenchmark {
+	private IConstantGrouper grouper;
+
+	@Setup
+	public void setup() {
+		grouper = BenchmarkEnvironment.createGrouper(BenchmarkEnvironment.createClassResolver());
+	}
+
+	@Benchmark
+	public ConstantGroup targetedParameter() {
+		return grouper.getMethodParameterGroup("pkg/Constants", "consumeInt", "(I)V", 0);
+	}
+
+	@Benchmark
+	public ConstantGroup inheritedUntargetedParameter() {
+		return grouper.getMethodParameterGroup("pkg/TestSubclass$Subclass", "test", "(I)V", 0);
+	}
+
+	@Benchmark
+	public ConstantGroup untargetedLibraryReturn() {
+		return grouper.getMethodReturnGroup("java/lang/String", "length", "()I");
+	}
+
+	@Benchmark
+	public ConstantGroup untargetedField() {
+		return grouper.getFieldGroup("pkg/Constants", "INT_CONST", "I");
+	}
+}
@@ -0,0 +1,123 @@
+package daomephsta.unpick.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import daomephsta.unpick.api.ConstantUninliner;
+import daomephsta.unpick.api.classresolvers.ClassResolvers;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+import daomephsta.unpick.api.constantgroupers.ConstantGroupers;
+
+/**
+ * Measures {@link ConstantUninliner#transform(byte[])} over a {@link SyntheticCorpus}, serially, so that the time per
+ * class can be compared between corpus sizes, shapes and dataflow engines. The corpus is transformed in memory to leave
+ * out zip I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScalingBenchmark {
+	@Param({"100", "1000", "5000"})
+	public int classCount;
+	@Param({"20", "200"})
+	public int methodSize;
+	@Param({"0.2"})
+	public double branchDensity;
+	@Param({"0", "4"})
+	public int lambdaNesting;
+	@Param({"8"})
+	public int flagWidth;
+	@Param({"2"})
+	public int inheritanceDepth;
+	@Param({"ANALYZER", "SPARSE"})
+	public ConstantUninliner.DataflowEngine dataflowEngine;
+
+	private Path corpusDir;
+	private ZipFile corpusJar;
+	private ConstantUninliner uninliner;
+	private List<byte[]> classFiles;
+
+	@Setup
+	public void setup() throws IOException {
+		corpusDir = Files.createTempDirectory("unpick-corpus");
+		Path jar = corpusDir.resolve("corpus.jar");
+		Path mappings = corpusDir.resolve("corpus.unpick");
+		SyntheticCorpus.builder()
+				.classCount(classCount)
+				.methodSize(methodSize)
+				.branchDensity(branchDensity)
+				.lambdaNesting(lambdaNesting)
+				.flagWidth(flagWidth)
+				.inheritanceDepth(inheritanceDepth)
+				.build()
+				.write(jar, mappings);
+
+		corpusJar = new ZipFile(jar.toFile());
+		IClassResolver classResolver = ClassResolvers.jar(corpusJar).chain(ClassResolvers.classpath());
+		try (Reader mappingReader = Files.newBufferedReader(mappings, StandardCharsets.UTF_8)) {
+			uninliner = ConstantUninliner.builder()
+					.logger(BenchmarkEnvironment.LOGGER)
+					.grouper(ConstantGroupers.dataDriven()
+							.logger(BenchmarkEnvironment.LOGGER)
+							.classResolver(classResolver)
+							.mappingSource(mappingReader)
+							.build())
+					.classResolver(classResolver)
+					.dataflowEngine(dataflowEngine)
+					.build();
+		}
+
+		classFiles = new ArrayList<>();
+		for (Enumeration<? extends ZipEntry> entries = corpusJar.entries(); entries.hasMoreElements();) {
+			try (InputStream in = corpusJar.getInputStream(entries.nextElement())) {
+				classFiles.add(in.readAllBytes());
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		corpusJar.close();
+		try (Stream<Path> files = Files.walk(corpusDir)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	@Benchmark
+	public void transform(Blackhole blackhole) {
+		for (byte[] classFile : classFiles) {
+			blackhole.consume(uninliner.transform(classFile));
+		}
+	}
+}
@@ -0,0 +1,521 @@
+package daomephsta.unpick.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import daomephsta.unpick.constantmappers.datadriven.parser.v3.UnpickV3Writer;
+import daomephsta.unpick.constantmappers.datadriven.tree.DataType;
+import daomephsta.unpick.constantmappers.datadriven.tree.GroupDefinition;
+import daomephsta.unpick.constantmappers.datadriven.tree.GroupScope;
+import daomephsta.unpick.constantmappers.datadriven.tree.TargetMethod;
+import daomephsta.unpick.constantmappers.datadriven.tree.expr.FieldExpression;
+
+/**
+ * Generates a jar of synthetic classes and matching unpick v3 mappings, for measuring how the uninliner scales with
+ * the size and shape of its input. The same parameters and seed always generate the same corpus.
+ *
+ * <p>The corpus consists of:
+ * <ul>
+ *     <li>{@code synthetic/Constants}, which declares the flags, plain constants and scoped constants, and a static
+ *     targeted method used by the innermost lambdas.</li>
+ *     <li>{@code synthetic/Base0} to {@code synthetic/BaseN}, a chain of classes as deep as the inheritance depth. Only
+ *     {@code Base0} declares the targeted methods, but the generated classes call them on themselves, so every lookup
+ *     has to walk the whole chain.</li>
+ *     <li>The generated classes, spread over packages. Each method is a sequence of calls passing literals to targeted
+ *     and untargeted methods, some of them guarded by a branch, optionally followed by a chain of nested lambdas which
+ *     each capture the literal.</li>
+ * </ul>
+ *
+ * <p>Besides a global group of plain constants, the mappings contain scoped groups for a fraction of the packages,
+ * classes and methods, each with a constant of its own which is used by the code in that scope.
+ * @see #main(String[])
+ */
+public final class SyntheticCorpus {
+	private static final String CONSTANTS = "synthetic/Constants";
+	private static final String BASE = "synthetic/Base";
+	private static final String FLAGS_GROUP = "flags";
+	private static final String CONSTS_GROUP = "consts";
+	private static final int CONST_COUNT = 16;
+	private static final int SCOPED_CONST_COUNT = 16;
+	private static final Handle LAMBDA_METAFACTORY = new Handle(
+			Opcodes.H_INVOKESTATIC,
+			"java/lang/invoke/LambdaMetafactory",
+			"metafactory",
+			"(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;",
+			false
+	);
+
+	private final int classCount;
+	private final int classesPerPackage;
+	private final int methodsPerClass;
+	private final int methodSize;
+	private final double branchDensity;
+	private final int lambdaNesting;
+	private final int flagWidth;
+	private final double packageScopeFraction;
+	private final double classScopeFraction;
+	private final double methodScopeFraction;
+	private final int inheritanceDepth;
+	private final long seed;
+
+	private SyntheticCorpus(Builder builder) {
+		this.classCount = builder.classCount;
+		this.classesPerPackage = builder.classesPerPackage;
+		this.methodsPerClass = builder.methodsPerClass;
+		this.methodSize = builder.methodSize;
+		this.branchDensity = builder.branchDensity;
+		this.lambdaNesting = builder.lambdaNesting;
+		this.flagWidth = builder.flagWidth;
+		this.packageScopeFraction = builder.packageScopeFraction;
+		this.classScopeFraction = builder.classScopeFraction;
+		this.methodScopeFraction = builder.methodScopeFraction;
+		this.inheritanceDepth = builder.inheritanceDepth;
+		this.seed = builder.seed;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Writes the corpus.
+	 * @param jar the jar to write the classes to.
+	 * @param mappings the file to write the mappings to.
+	 * @throws IOException if writing either file fails.
+	 */
+	public void write(Path jar, Path mappings) throws IOException {
+		Random random = new Random(seed);
+		UnpickV3Writer mappingWriter = new UnpickV3Writer();
+		mappingWriter.visitHeader(3);
+		writeGlobalMappings(mappingWriter);
+
+		try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+			writeEntry(out, CONSTANTS, generateConstants());
+			for (int depth = 0; depth <= inheritanceDepth; depth++) {
+				writeEntry(out, BASE + depth, generateBase(depth));
+			}
+
+			int packageCount = (classCount + classesPerPackage - 1) / classesPerPackage;
+			for (int packageIndex = 0; packageIndex < packageCount; packageIndex++) {
+				String packageName = "synthetic/p" + packageIndex;
+				int packageScopedConst = -1;
+				if (random.nextDouble() < packageScopeFraction) {
+					packageScopedConst = random.nextInt(SCOPED_CONST_COUNT);
+					writeScopedGroup(mappingWriter, new GroupScope.Package(packageName.replace('/', '.')), packageScopedConst);
+				}
+
+				int firstClass = packageIndex * classesPerPackage;
+				for (int classIndex = firstClass; classIndex < Math.min(classCount, firstClass + classesPerPackage); classIndex++) {
+					String className = packageName + "/Class" + classIndex;
+					writeEntry(out, className, generateClass(className, packageScopedConst, mappingWriter, random));
+				}
+			}
+		}
+
+		try (Writer writer = Files.newBufferedWriter(mappings, StandardCharsets.UTF_8)) {
+			writer.write(mappingWriter.getOutput());
+		}
+	}
+
+	private void writeGlobalMappings(UnpickV3Writer mappingWriter) {
+		GroupDefinition.Builder flags = GroupDefinition.Builder.named(DataType.INT, FLAGS_GROUP).flags();
+		for (int i = 0; i < flagWidth; i++) {
+			flags.constant(new FieldExpression(CONSTANTS.replace('/', '.'), "FLAG_" + i, null, true));
+		}
+		mappingWriter.visitGroupDefinition(flags.build());
+
+		GroupDefinition.Builder consts = GroupDefinition.Builder.named(DataType.INT, CONSTS_GROUP);
+		for (int i = 0; i < CONST_COUNT; i++) {
+			consts.constant(new FieldExpression(CONSTANTS.replace('/', '.'), "CONST_" + i, null, true));
+		}
+		mappingWriter.visitGroupDefinition(consts.build());
+
+		mappingWriter.visitTargetMethod(TargetMethod.Builder.builder(BASE.replace('/', '.') + 0, "consumeFlags", "(I)V").paramGroup(0, FLAGS_GROUP).build());
+		mappingWriter.visitTargetMethod(TargetMethod.Builder.builder(BASE.replace('/', '.') + 0, "consumeConst", "(I)V").paramGroup(0, CONSTS_GROUP).build());
+		mappingWriter.visitTargetMethod(TargetMethod.Builder.builder(CONSTANTS.replace('/', '.'), "consumeFlags", "(I)V").paramGroup(0, FLAGS_GROUP).build());
+	}
+
+	private static void writeScopedGroup(UnpickV3Writer mappingWriter, GroupScope scope, int scopedConst) {
+		mappingWriter.visitGroupDefinition(GroupDefinition.Builder.named(DataType.INT, CONSTS_GROUP)
+				.scope(scope)
+				.constant(new FieldExpression(CONSTANTS.replace('/', '.'), "SCOPED_" + scopedConst, null, true))
+				.build());
+	}
+
+	private static void writeEntry(ZipOutputStream out, String className, byte[] classFile) throws IOException {
+		out.putNextEntry(new ZipEntry(className + ".class"));
+		out.write(classFile);
+		out.closeEntry();
+	}
+
+	private byte[] generateConstants() {
+		ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		classWriter.visit(Opcodes.V21, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, CONSTANTS, null, "java/lang/Object", null);
+		int constantAccess = Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL;
+		for (int i = 0; i < flagWidth; i++) {
+			classWriter.visitField(constantAccess, "FLAG_" + i, "I", null, 1 << i).visitEnd();
+		}
+		for (int i = 0; i < CONST_COUNT; i++) {
+			classWriter.visitField(constantAccess, "CONST_" + i, "I", null, getConstValue(i)).visitEnd();
+		}
+		for (int i = 0; i < SCOPED_CONST_COUNT; i++) {
+			classWriter.visitField(constantAccess, "SCOPED_" + i, "I", null, getScopedConstValue(i)).visitEnd();
+		}
+
+		MethodVisitor consumeFlags = classWriter.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "consumeFlags", "(I)V", null, null);
+		consumeFlags.visitCode();
+		consumeFlags.visitInsn(Opcodes.RETURN);
+		consumeFlags.visitMaxs(0, 0);
+		consumeFlags.visitEnd();
+		classWriter.visitEnd();
+		return classWriter.toByteArray();
+	}
+
+	private static byte[] generateBase(int depth) {
+		ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		String superName = depth == 0 ? "java/lang/Object" : BASE + (depth - 1);
+		classWriter.visit(Opcodes.V21, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, BASE + depth, null, superName, null);
+		generateConstructor(classWriter, superName);
+		if (depth == 0) {
+			for (String name : List.of("consumeFlags", "consumeConst")) {
+				MethodVisitor method = classWriter.visitMethod(Opcodes.ACC_PUBLIC, name, "(I)V", null, null);
+				method.visitCode();
+				method.visitInsn(Opcodes.RETURN);
+				method.visitMaxs(0, 0);
+				method.visitEnd();
+			}
+		}
+		classWriter.visitEnd();
+		return classWriter.toByteArray();
+	}
+
+	private static void generateConstructor(ClassWriter classWriter, String superName) {
+		MethodVisitor constructor = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		constructor.visitCode();
+		constructor.visitVarInsn(Opcodes.ALOAD, 0);
+		constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+		constructor.visitInsn(Opcodes.RETURN);
+		constructor.visitMaxs(0, 0);
+		constructor.visitEnd();
+	}
+
+	private byte[] generateClass(String className, int packageScopedConst, UnpickV3Writer mappingWriter, Random random) {
+		// no reference types are ever merged, so frames can be computed without loading classes
+		ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+		String superName = BASE + inheritanceDepth;
+		classWriter.visit(Opcodes.V21, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, className, null, superName, null);
+		generateConstructor(classWriter, superName);
+
+		int classScopedConst = packageScopedConst;
+		if (random.nextDouble() < classScopeFraction) {
+			classScopedConst = random.nextInt(SCOPED_CONST_COUNT);
+			writeScopedGroup(mappingWriter, new GroupScope.Class(className.replace('/', '.')), classScopedConst);
+		}
+
+		for (int methodIndex = 0; methodIndex < methodsPerClass; methodIndex++) {
+			String methodName = "method" + methodIndex;
+			int methodScopedConst = classScopedConst;
+			if (random.nextDouble() < methodScopeFraction) {
+				methodScopedConst = random.nextInt(SCOPED_CONST_COUNT);
+				writeScopedGroup(mappingWriter, new GroupScope.Method(className.replace('/', '.'), methodName, "(I)V"), methodScopedConst);
+			}
+			generateMethod(classWriter, className, methodName, methodScopedConst, random);
+		}
+
+		classWriter.visitEnd();
+		return classWriter.toByteArray();
+	}
+
+	private void generateMethod(ClassWriter classWriter, String className, String methodName, int scopedConst, Random random) {
+		MethodVisitor method = classWriter.visitMethod(Opcodes.ACC_PUBLIC, methodName, "(I)V", null, null);
+		method.visitCode();
+		for (int statement = 0; statement < methodSize; statement++) {
+			Label skip = null;
+			if (random.nextDouble() < branchDensity) {
+				skip = new Label();
+				method.visitVarInsn(Opcodes.ILOAD, 1);
+				method.visitJumpInsn(Opcodes.IFEQ, skip);
+			}
+
+			int kind = random.nextInt(10);
+			if (kind < 4) {
+				method.visitVarInsn(Opcodes.ALOAD, 0);
+				pushInt(method, randomFlags(random));
+				method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, className, "consumeFlags", "(I)V", false);
+			} else if (kind < 8) {
+				method.visitVarInsn(Opcodes.ALOAD, 0);
+				boolean useScoped = scopedConst >= 0 && random.nextBoolean();
+				pushInt(method, useScoped ? getScopedConstValue(scopedConst) : getConstValue(random.nextInt(CONST_COUNT)));
+				method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, className, "consumeConst", "(I)V", false);
+			} else {
+				// a literal which no group targets
+				pushInt(method, random.nextInt(1000));
+				method.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;", false);
+				method.visitInsn(Opcodes.POP);
+			}
+
+			if (skip != null) {
+				method.visitLabel(skip);
+			}
+		}
+
+		if (lambdaNesting > 0) {
+			pushInt(method, randomFlags(random));
+			invokeLambda(method, className, methodName, 0);
+		}
+
+		method.visitInsn(Opcodes.RETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+
+		for (int depth = 0; depth < lambdaNesting; depth++) {
+			generateLambda(classWriter, className, methodName, depth);
+		}
+	}
+
+	/**
+	 * Creates the lambda at {@code depth}, capturing the int on top of the stack, and calls it.
+	 */
+	private static void invokeLambda(MethodVisitor method, String className, String methodName, int depth) {
+		Type samType = Type.getMethodType("(I)V");
+		Handle lambdaHandle = new Handle(Opcodes.H_INVOKESTATIC, className, getLambdaName(methodName, depth), "(II)V", false);
+		method.visitInvokeDynamicInsn("accept", "(I)Ljava/util/function/IntConsumer;", LAMBDA_METAFACTORY, samType, lambdaHandle, samType);
+		method.visitInsn(Opcodes.ICONST_0);
+		method.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/function/IntConsumer", "accept", "(I)V", true);
+	}
+
+	private void generateLambda(ClassWriter classWriter, String className, String methodName, int depth) {
+		int access = Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC;
+		MethodVisitor lambda = classWriter.visitMethod(access, getLambdaName(methodName, depth), "(II)V", null, null);
+		lambda.visitCode();
+		lambda.visitVarInsn(Opcodes.ILOAD, 0);
+		if (depth + 1 < lambdaNesting) {
+			invokeLambda(lambda, className, methodName, depth + 1);
+		} else {
+			lambda.visitMethodInsn(Opcodes.INVOKESTATIC, CONSTANTS, "consumeFlags", "(I)V", false);
+		}
+		lambda.visitInsn(Opcodes.RETURN);
+		lambda.visitMaxs(0, 0);
+		lambda.visitEnd();
+	}
+
+	private static String getLambdaName(String methodName, int depth) {
+		return "lambda$" + methodName + "$" + depth;
+	}
+
+	private int randomFlags(Random random) {
+		int flags = 0;
+		int flagCount = 1 + random.nextInt(3);
+		for (int i = 0; i < flagCount; i++) {
+			flags |= 1 << random.nextInt(flagWidth);
+		}
+		return flags;
+	}
+
+	private static int getConstValue(int index) {
+		return 100 + index;
+	}
+
+	private static int getScopedConstValue(int index) {
+		return 1000 + index;
+	}
+
+	private static void pushInt(MethodVisitor method, int value) {
+		if (value >= -1 && value <= 5) {
+			method.visitInsn(Opcodes.ICONST_0 + value);
+		} else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+			method.visitIntInsn(Opcodes.BIPUSH, value);
+		} else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+			method.visitIntInsn(Opcodes.SIPUSH, value);
+		} else {
+			method.visitLdcInsn(value);
+		}
+	}
+
+	/**
+	 * Generates a corpus from the command line.
+	 * Usage: {@code SyntheticCorpus <output jar> <output mappings> [parameter=value...]}, where the parameters are the
+	 * names of the {@link Builder} methods, e.g. {@code classCount=1000 branchDensity=0.5}. The three fractions of
+	 * {@link Builder#scopeMix} are passed as {@code scopeMix=package,class,method}.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: SyntheticCorpus <output jar> <output mappings> [parameter=value...]");
+			System.exit(1);
+		}
+
+		Builder builder = builder();
+		List<String> unknown = new ArrayList<>();
+		for (int i = 2; i < args.length; i++) {
+			String[] parameter = args[i].split("=", 2);
+			String value = parameter.length == 2 ? parameter[1] : "";
+			switch (parameter[0]) {
+				case "classCount" -> builder.classCount(Integer.parseInt(value));
+				case "classesPerPackage" -> builder.classesPerPackage(Integer.parseInt(value));
+				case "methodsPerClass" -> builder.methodsPerClass(Integer.parseInt(value));
+				case "methodSize" -> builder.methodSize(Integer.parseInt(value));
+				case "branchDensity" -> builder.branchDensity(Double.parseDouble(value));
+				case "lambdaNesting" -> builder.lambdaNesting(Integer.parseInt(value));
+				case "flagWidth" -> builder.flagWidth(Integer.parseInt(value));
+				case "scopeMix" -> {
+					String[] fractions = value.split(",");
+					builder.scopeMix(Double.parseDouble(fractions[0]), Double.parseDouble(fractions[1]), Double.parseDouble(fractions[2]));
+				}
+				case "inheritanceDepth" -> builder.inheritanceDepth(Integer.parseInt(value));
+				case "seed" -> builder.seed(Long.parseLong(value));
+				default -> unknown.add(parameter[0]);
+			}
+		}
+
+		if (!unknown.isEmpty()) {
+			System.err.println("Unknown parameters: " + String.join(", ", unknown));
+			System.exit(1);
+		}
+
+		builder.build().write(Path.of(args[0]), Path.of(args[1]));
+	}
+
+	public static final class Builder {
+		private int classCount = 100;
+		private int classesPerPackage = 50;
+		private int methodsPerClass = 10;
+		private int methodSize = 20;
+		private double branchDensity = 0.2;
+		private int lambdaNesting = 0;
+		private int flagWidth = 8;
+		private double packageScopeFraction = 0.5;
+		private double classScopeFraction = 0.1;
+		private double methodScopeFraction = 0.05;
+		private int inheritanceDepth = 2;
+		private long seed = 0;
+
+		private Builder() {
+		}
+
+		public Builder classCount(int classCount) {
+			this.classCount = requirePositive("classCount", classCount);
+			return this;
+		}
+
+		public Builder classesPerPackage(int classesPerPackage) {
+			this.classesPerPackage = requirePositive("classesPerPackage", classesPerPackage);
+			return this;
+		}
+
+		public Builder methodsPerClass(int methodsPerClass) {
+			this.methodsPerClass = requirePositive("methodsPerClass", methodsPerClass);
+			return this;
+		}
+
+		/**
+		 * Sets the number of calls in each method, each of which passes a literal.
+		 * @param methodSize the number of calls.
+		 * @return this builder.
+		 */
+		public Builder methodSize(int methodSize) {
+			this.methodSize = requirePositive("methodSize", methodSize);
+			return this;
+		}
+
+		/**
+		 * Sets the fraction of calls which are guarded by a branch.
+		 * @param branchDensity the fraction, between 0 and 1.
+		 * @return this builder.
+		 */
+		public Builder branchDensity(double branchDensity) {
+			this.branchDensity = requireFraction("branchDensity", branchDensity);
+			return this;
+		}
+
+		/**
+		 * Sets the number of nested lambdas at the end of each method, or 0 for none.
+		 * @param lambdaNesting the number of lambdas.
+		 * @return this builder.
+		 */
+		public Builder lambdaNesting(int lambdaNesting) {
+			if (lambdaNesting < 0) {
+				throw new IllegalArgumentException("lambdaNesting must not be negative: " + lambdaNesting);
+			}
+			this.lambdaNesting = lambdaNesting;
+			return this;
+		}
+
+		/**
+		 * Sets the number of single bit flags in the flags group.
+		 * @param flagWidth the number of flags, between 1 and 32.
+		 * @return this builder.
+		 */
+		public Builder flagWidth(int flagWidth) {
+			if (flagWidth < 1 || flagWidth > 32) {
+				throw new IllegalArgumentException("flagWidth must be between 1 and 32: " + flagWidth);
+			}
+			this.flagWidth = flagWidth;
+			return this;
+		}
+
+		/**
+		 * Sets the fractions of packages, classes and methods which get a scoped group definition of their own.
+		 * @param packageFraction the fraction of packages, between 0 and 1.
+		 * @param classFraction the fraction of classes, between 0 and 1.
+		 * @param methodFraction the fraction of methods, between 0 and 1.
+		 * @return this builder.
+		 */
+		public Builder scopeMix(double packageFraction, double classFraction, double methodFraction) {
+			this.packageScopeFraction = requireFraction("packageFraction", packageFraction);
+			this.classScopeFraction = requireFraction("classFraction", classFraction);
+			this.methodScopeFraction = requireFraction("methodFraction", methodFraction);
+			return this;
+		}
+
+		/**
+		 * Sets the number of classes between the generated classes and the class declaring the targeted methods.
+		 * @param inheritanceDepth the number of classes.
+		 * @return this builder.
+		 */
+		public Builder inheritanceDepth(int inheritanceDepth) {
+			if (inheritanceDepth < 0) {
+				throw new IllegalArgumentException("inheritanceDepth must not be negative: " + inheritanceDepth);
+			}
+			this.inheritanceDepth = inheritanceDepth;
+			return this;
+		}
+
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		public SyntheticCorpus build() {
+			return new SyntheticCorpus(this);
+		}
+
+		private static int requirePositive(String name, int value) {
+			if (value <= 0) {
+				throw new IllegalArgumentException(name + " must be positive: " + value);
+			}
+			return value;
+		}
+
+		private static double requireFraction(String name, double value) {
+			if (value < 0 || value > 1) {
+				throw new IllegalArgumentException(name + " must be between 0 and 1: " + value);
+			}
+			return value;
+		}
+	}
+}
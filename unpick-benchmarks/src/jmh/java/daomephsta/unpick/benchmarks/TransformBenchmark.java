@@ -0,0 +1,65 @@
+package daomephsta.unpick.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import daomephsta.unpick.api.ConstantUninliner;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+
+/**
+ * Measures {@link ConstantUninliner#transform} over every class of the compiled test data, through both the class file
+ * and the {@link ClassNode} front-ends. The ClassNode variant includes reading the classes, as they are modified in
+ * place.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformBenchmark {
+	private ConstantUninliner uninliner;
+	private List<byte[]> classFiles;
+
+	@Setup
+	public void setup() {
+		IClassResolver classResolver = BenchmarkEnvironment.createClassResolver();
+		uninliner = ConstantUninliner.builder()
+				.logger(BenchmarkEnvironment.LOGGER)
+				.grouper(BenchmarkEnvironment.createGrouper(classResolver))
+				.classResolver(classResolver)
+				.build();
+		classFiles = BenchmarkEnvironment.readClassFiles();
+	}
+
+	@Benchmark
+	public void transformClassFiles(Blackhole blackhole) {
+		for (byte[] classFile : classFiles) {
+			blackhole.consume(uninliner.transform(classFile));
+		}
+	}
+
+	@Benchmark
+	public void transformClassNodes(Blackhole blackhole) {
+		for (byte[] classFile : classFiles) {
+			ClassNode classNode = new ClassNode();
+			new ClassReader(classFile).accept(classNode, 0);
+			uninliner.transform(classNode);
+			blackhole.consume(classNode);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package daomephsta.unpick.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import daomephsta.unpick.constantmappers.datadriven.parser.v3.UnpickV3Reader;
+import daomephsta.unpick.constantmappers.datadriven.tree.GroupDefinition;
+import daomephsta.unpick.constantmappers.datadriven.tree.TargetMethod;
+import daomephsta.unpick.constantmappers.datadriven.tree.UnpickV3Visitor;
+
+/**
+ * Measures parsing of unpick v3 mappings. The benchmark mappings are repeated {@code copies} times, which is legal as
+ * the reader does not check for duplicate definitions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnpickV3ReaderBenchmark {
+	@Param({"1", "100"})
+	public int copies;
+
+	private String mappings;
+
+	@Setup
+	public void setup() {
+		String benchmarkMappings = BenchmarkEnvironment.readMappings();
+		String body = benchmarkMappings.substring(benchmarkMappings.indexOf('\n') + 1);
+		StringBuilder mappings = new StringBuilder("unpick v3\n");
+		for (int i = 0; i < copies; i++) {
+			mappings.append(body);
+		}
+		this.mappings = mappings.toString();
+	}
+
+	@Benchmark
+	public void parse(Blackhole blackhole) throws IOException {
+		new UnpickV3Reader(new StringReader(mappings)).accept(new UnpickV3Visitor() {
+			@Override
+			public void visitGroupDefinition(GroupDefinition groupDefinition) {
+				blackhole.consume(groupDefinition);
+			}
+
+			@Override
+			public void visitTargetMethod(TargetMethod targetMethod) {
+				blackhole.consume(targetMethod);
+			}
+		});
+	}
+}
@@ -27,8 +27,8 @@ import daomephsta.unpick.constantmappers.datadriven.tree.expr.UnaryExpression;
  * or remapping them, when used as the delegate for an instance of {@link UnpickV3Remapper}.
  */
 public final class UnpickV3Writer extends UnpickV3Visitor {
-	private static final String LINE_SEPARATOR = System.lineSeparator();
 	private final String indent;
+	private final String lineSeparator;
 	private int version = 3;
 	private StringBuilder output;
 
@@ -37,14 +37,25 @@ public final class UnpickV3Writer extends UnpickV3Visitor {
 	}
 
 	public UnpickV3Writer(String indent) {
+		this(indent, System.lineSeparator());
+	}
+
+	/**
+	 * Creates a writer which separates lines with the given separator, rather than the platform's, so that its output
+	 * is the same on every platform.
+	 * @param indent the indent of the lines inside group definitions.
+	 * @param lineSeparator the line separator.
+	 */
+	public UnpickV3Writer(String indent, String lineSeparator) {
 		this.indent = indent;
+		this.lineSeparator = lineSeparator;
 	}
 
 	@Override
 	public void visitHeader(int version) {
 		if (output == null) {
 			this.version = version;
-			output = new StringBuilder("unpick v").append(version).append(LINE_SEPARATOR);
+			output = new StringBuilder("unpick v").append(version).append(lineSeparator);
 		}
 	}
 
@@ -52,11 +63,11 @@ public final class UnpickV3Writer extends UnpickV3Visitor {
 	public void visitGroupDefinition(GroupDefinition groupDefinition) {
 		ensureHeaderWritten();
 
-		output.append(LINE_SEPARATOR);
+		output.append(lineSeparator);
 
 		if (groupDefinition.docs() != null) {
 			for (String docLine : groupDefinition.docs().split("\n", -1)) {
-				output.append("#: ").append(docLine).append(LINE_SEPARATOR);
+				output.append("#: ").append(docLine).append(lineSeparator);
 			}
 		}
 
@@ -67,32 +78,32 @@ public final class UnpickV3Writer extends UnpickV3Visitor {
 			output.append(" ").append(groupDefinition.name());
 		}
 
-		output.append(LINE_SEPARATOR);
+		output.append(lineSeparator);
 
 		for (GroupScope scope : groupDefinition.scopes()) {
 			output.append(indent);
 			writeGroupScope(scope);
-			output.append(LINE_SEPARATOR);
+			output.append(lineSeparator);
 		}
 
 		if (groupDefinition.flags()) {
-			output.append(indent).append("@flags").append(LINE_SEPARATOR);
+			output.append(indent).append("@flags").append(lineSeparator);
 		}
 
 		if (groupDefinition.strict()) {
-			output.append(indent).append("@strict").append(LINE_SEPARATOR);
+			output.append(indent).append("@strict").append(lineSeparator);
 		}
 
 		if (groupDefinition.format() != null) {
 			output.append(indent).append("@format ");
 			writeLowerCaseEnum(groupDefinition.format());
-			output.append(LINE_SEPARATOR);
+			output.append(lineSeparator);
 		}
 
 		for (Expression constant : groupDefinition.constants()) {
 			output.append(indent);
 			constant.accept(new ExpressionWriter());
-			output.append(LINE_SEPARATOR);
+			output.append(lineSeparator);
 		}
 	}
 
@@ -114,7 +125,7 @@ public final class UnpickV3Writer extends UnpickV3Visitor {
 	public void visitTargetField(TargetField targetField) {
 		ensureHeaderWritten();
 
-		output.append(LINE_SEPARATOR)
+		output.append(lineSeparator)
 				.append("target_field ")
 				.append(targetField.className())
 				.append(" ")
@@ -123,21 +134,21 @@ public final class UnpickV3Writer extends UnpickV3Visitor {
 				.append(targetField.fieldDesc())
 				.append(" ")
 				.append(targetField.groupName())
-				.append(LINE_SEPARATOR);
+				.append(lineSeparator);
 	}
 
 	@Override
 	public void visitTargetMethod(TargetMethod targetMethod) {
 		ensureHeaderWritten();
 
-		output.append(LINE_SEPARATOR)
+		output.append(lineSeparator)
 				.append("target_method ")
 				.append(targetMethod.className())
 				.append(" ")
 				.append(targetMethod.methodName())
 				.append(" ")
 				.append(targetMethod.methodDesc())
-				.append(LINE_SEPARATOR);
+				.append(lineSeparator);
 
 		List<Map.Entry<Integer, String>> paramGroups = new ArrayList<>(targetMethod.paramGroups().entrySet());
 		paramGroups.sort(Map.Entry.comparingByKey());
@@ -147,14 +158,14 @@ public final class UnpickV3Writer extends UnpickV3Visitor {
 					.append(paramGroup.getKey())
 					.append(" ")
 					.append(paramGroup.getValue())
-					.append(LINE_SEPARATOR);
+					.append(lineSeparator);
 		}
 
 		if (targetMethod.returnGroup() != null) {
 			output.append(indent)
 					.append("return ")
 					.append(targetMethod.returnGroup())
-					.append(LINE_SEPARATOR);
+					.append(lineSeparator);
 		}
 	}
 
@@ -166,12 +177,12 @@ public final class UnpickV3Writer extends UnpickV3Visitor {
 			throw new IllegalStateException("Target annotations are not supported in unpick format version " + version);
 		}
 
-		output.append(LINE_SEPARATOR)
+		output.append(lineSeparator)
 				.append("target_annotation ")
 				.append(targetAnnotation.annotationName())
 				.append(" ")
 				.append(targetAnnotation.groupName())
-				.append(LINE_SEPARATOR);
+				.append(lineSeparator);
 	}
 
 	private void writeRadixPrefix(int radix) {
@@ -257,7 +268,7 @@ public final class UnpickV3Writer extends UnpickV3Visitor {
 
 	private void ensureHeaderWritten() {
 		if (output == null) {
-			output = new StringBuilder("unpick v3").append(LINE_SEPARATOR);
+			output = new StringBuilder("unpick v3").append(lineSeparator);
 		}
 	}
 